@@ -0,0 +1,33 @@
+-- Migration: time-ordered UUID primary keys for inventory_transaction
+--
+-- New rows get version 7 UUIDs (timestamp prefix) from TimeOrderedUuidGenerator. Existing random
+-- (version 4) ids stay valid and keep their values, so ids already handed out to clients do not change
+-- and the JSON representation ("xxxxxxxx-xxxx-7xxx-...") is the same canonical string form.
+--
+-- Version 7 ids all start with 0x01..., so once the migration is done new inserts append to one end of
+-- the clustered index regardless of where the legacy random ids sit.
+--
+-- Run against RPInventoryDB with the application stopped (or with ddl-auto set to none).
+
+USE RPInventoryDB;
+
+-- Step 1: only required when the id column was created as text (CHAR(36)/VARCHAR(36)).
+-- Schemas created from inventory.init.sql or by Hibernate on MySQL 8 are already BINARY(16); check with:
+--   SELECT DATA_TYPE, CHARACTER_MAXIMUM_LENGTH FROM information_schema.COLUMNS
+--   WHERE TABLE_SCHEMA = 'RPInventoryDB' AND TABLE_NAME = 'inventory_transaction' AND COLUMN_NAME = 'id';
+-- If it reports char/varchar, uncomment and run:
+--
+-- ALTER TABLE `inventory_transaction` ADD COLUMN `id_bin` BINARY(16) NULL FIRST;
+-- UPDATE `inventory_transaction` SET `id_bin` = UUID_TO_BIN(`id`);   -- no swap flag: keep RFC byte order
+-- ALTER TABLE `inventory_transaction`
+--     DROP PRIMARY KEY,
+--     DROP COLUMN `id`,
+--     RENAME COLUMN `id_bin` TO `id`,
+--     MODIFY `id` BINARY(16) NOT NULL,
+--     ADD PRIMARY KEY (`id`);
+
+-- Step 2: make the column definition explicit so later ddl-auto runs and dumps agree with the entity.
+ALTER TABLE `inventory_transaction` MODIFY `id` BINARY(16) NOT NULL;
+
+-- Step 3: rebuild the clustered index so pages fragmented by random inserts are compacted.
+OPTIMIZE TABLE `inventory_transaction`;
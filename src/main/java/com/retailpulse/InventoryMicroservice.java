@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
 @EnableFeignClients(basePackages = "com.retailpulse.client")
+@EnableScheduling
 public class InventoryMicroservice {
     public static void main(String[] args) {
         SpringApplication.run(InventoryMicroservice.class, args);
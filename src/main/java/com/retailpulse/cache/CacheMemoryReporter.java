@@ -0,0 +1,125 @@
+package com.retailpulse.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how much Redis memory each cache takes: every {@code app.cache.memory-report-interval} it SCANs the
+ * cache's {@code <cache>::*} keys and sums MEMORY USAGE over them, a batch per script call. Exposes
+ * cache.redis.memory (bytes) and cache.redis.keys per cache and logs the totals.
+ *
+ * The scan walks the whole keyspace, so only one replica runs it per interval: the one that takes the report
+ * lease, which is left to expire rather than released. The gauges of the other replicas keep their last values.
+ */
+public class CacheMemoryReporter {
+    private static final Logger logger = LoggerFactory.getLogger(CacheMemoryReporter.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String LEASE_KEY = "cache-memory-report-lease";
+
+    private static final RedisScript<Long> MEMORY_USAGE_SCRIPT = new DefaultRedisScript<>(
+            "local total = 0 for _, key in ipairs(KEYS) do total = total + (redis.call('memory', 'usage', key) or 0) end return total",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisLease lease;
+    private final Duration interval;
+    private final Map<String, AtomicLong> bytes = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> keys = new LinkedHashMap<>();
+
+    public CacheMemoryReporter(StringRedisTemplate redisTemplate, RedisLease lease, Duration interval,
+                               MeterRegistry meterRegistry, List<String> cacheNames) {
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+        this.interval = interval;
+        for (String cacheName : cacheNames) {
+            AtomicLong cacheBytes = new AtomicLong();
+            AtomicLong cacheKeys = new AtomicLong();
+            bytes.put(cacheName, cacheBytes);
+            keys.put(cacheName, cacheKeys);
+            Gauge.builder("cache.redis.memory", cacheBytes, AtomicLong::get)
+                    .tag("cache", cacheName)
+                    .baseUnit("bytes")
+                    .description("Redis memory used by the cache's entries at the last report")
+                    .register(meterRegistry);
+            Gauge.builder("cache.redis.keys", cacheKeys, AtomicLong::get)
+                    .tag("cache", cacheName)
+                    .description("Entries of the cache in Redis at the last report")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.memory-report-interval:5m}",
+            initialDelayString = "${app.cache.memory-report-interval:5m}")
+    public void report() {
+        // Slightly shorter than the interval, so the next run on whichever replica finds it expired
+        Duration hold = interval.minus(interval.dividedBy(10));
+        try {
+            if (lease.tryAcquire(LEASE_KEY, hold) == null) {
+                logger.debug("Redis cache memory measured by another replica this interval");
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to take the cache memory report lease, skipping this report: {}", e.getMessage());
+            return;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (String cacheName : bytes.keySet()) {
+            try {
+                measure(cacheName);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to measure Redis memory of cache {}: {}", cacheName, e.getMessage());
+                continue;
+            }
+            if (keys.get(cacheName).get() > 0) {
+                summary.append(summary.isEmpty() ? "" : ", ").append(cacheName).append('=')
+                        .append(bytes.get(cacheName).get()).append("B/").append(keys.get(cacheName).get()).append(" keys");
+            }
+        }
+        logger.info("Redis cache memory: {}", summary.isEmpty() ? "no entries" : summary);
+    }
+
+    void measure(String cacheName) {
+        long totalBytes = 0;
+        long totalKeys = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        ScanOptions options = ScanOptions.scanOptions().match(cacheName + "::*").count(BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == BATCH_SIZE) {
+                    totalBytes += memoryUsage(batch);
+                    totalKeys += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            totalBytes += memoryUsage(batch);
+            totalKeys += batch.size();
+        }
+        bytes.get(cacheName).set(totalBytes);
+        keys.get(cacheName).set(totalKeys);
+    }
+
+    private long memoryUsage(List<String> batch) {
+        Long usage = redisTemplate.execute(MEMORY_USAGE_SCRIPT, batch);
+        return usage == null ? 0 : usage;
+    }
+}
@@ -0,0 +1,51 @@
+package com.retailpulse.cache;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Settings for one cache, from {@code app.cache.policies.<cache>}. Left out, the TTL is {@code app.cache.ttl},
+ * without jitter, and values of any size and number are kept.
+ *
+ * @param ttl          how long an entry is fresh
+ * @param ttlJitter    fraction of the TTL each entry's TTL is moved by at random, up or down, so entries written
+ *                     together do not expire together
+ * @param maxValueSize serialized values larger than this are not cached
+ * @param maxKeys      key budget; past it the oldest written entries of the cache are dropped
+ */
+public record CachePolicy(Duration ttl, double ttlJitter, DataSize maxValueSize, int maxKeys) {
+
+    public static final CachePolicy DEFAULT = new CachePolicy(null, 0, null, 0);
+
+    public CachePolicy {
+        if (ttlJitter < 0 || ttlJitter >= 1) {
+            throw new IllegalArgumentException("ttl-jitter must be in [0, 1): " + ttlJitter);
+        }
+    }
+
+    /** Redis lifetime for an entry written now: the jittered TTL plus the stale grace (see CoalescingCache). */
+    public Duration nextTtl(Duration defaultTtl, Duration staleGrace) {
+        long ttlMillis = ttlOr(defaultTtl).toMillis();
+        double shift = ttlJitter == 0 ? 0 : ThreadLocalRandom.current().nextDouble(-ttlJitter, ttlJitter);
+        return Duration.ofMillis(Math.max(1, Math.round(ttlMillis * (1 + shift)))).plus(staleGrace);
+    }
+
+    /** The longest {@link #nextTtl} can return. */
+    public Duration maxLifetime(Duration defaultTtl, Duration staleGrace) {
+        return Duration.ofMillis(Math.round(ttlOr(defaultTtl).toMillis() * (1 + ttlJitter))).plus(staleGrace);
+    }
+
+    public boolean admits(long valueBytes) {
+        return maxValueSize == null || valueBytes <= maxValueSize.toBytes();
+    }
+
+    public boolean hasKeyBudget() {
+        return maxKeys > 0;
+    }
+
+    private Duration ttlOr(Duration defaultTtl) {
+        return ttl == null ? defaultTtl : ttl;
+    }
+}
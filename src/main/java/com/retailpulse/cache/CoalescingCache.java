@@ -0,0 +1,407 @@
+package com.retailpulse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache decorator that makes a miss load once across all replicas. {@code @Cacheable(sync = true)} ends up in
+ * {@link #get(Object, Callable)}: concurrent callers in this JVM share one load through {@link SingleFlight},
+ * and that load first takes a short {@link RedisLease} on the key. The replica holding the lease runs the
+ * loader and writes the value; the others poll the cache until it appears, the lease is released (then one of
+ * them takes over) or the lease duration passes (then they load themselves rather than wait longer).
+ *
+ * With early refresh on, entries are written to live {@code staleGrace} past their TTL, and a hit is refreshed
+ * before it would otherwise have expired. The entry's remaining TTL comes back with the value in the same round trip
+ * ({@link PolicyRedisCacheWriter} reads both and hands the TTL over through {@link #recordRemainingTtl(long)}), so the
+ * decision costs no extra call. A hit refreshes with a probability that grows as expiry nears and with how long the cache takes to load (XFetch, Vattani et al.,
+ * "Optimal Probabilistic Cache Stampede Prevention"). Past the TTL, the hit refreshes for certain. Either way only
+ * the caller that takes the lease reloads; everyone else, and that caller too if the load fails, gets the value
+ * already cached. A TTL boundary therefore costs one load across all replicas instead of one per replica. The
+ * refreshed value is only written if the entry was not evicted while it loaded.
+ *
+ * Every load, refresh or miss, notes the cache's eviction count before it runs and drops its value if the count has
+ * moved by the time it writes: a load that read the table before a write committed would otherwise put back what
+ * the write's eviction (or {@code CacheGenerationService}'s clear) had just removed. The count is this replica's
+ * plus the shared one in {@link EvictionCounter}, which every evict and clear increments before removing anything.
+ * A clear that lands between the check and the put is caught by a second check after it, which evicts the entry.
+ *
+ * A value the cache will not hold (over its max-value-size, see {@link PolicyRedisCacheWriter}) would leave the
+ * followers polling for an entry that never appears, each taking the lease in turn. The writer reports the rejected
+ * put through {@link #recordRejectedPut()}, and the loader then takes a bypass lease on the key for the lease
+ * duration: followers that find it load for themselves instead of waiting.
+ *
+ * While a loader runs, {@link #isLoading()} is true on its thread, so ReplicaRoutingDataSource can keep the reads
+ * that fill the cache on the primary: a value loaded from a lagging replica right after an eviction would be
+ * cached stale until the next write.
+ */
+public class CoalescingCache implements Cache {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingCache.class);
+
+    private static final String LEASE_KEY_PREFIX = "cache-load-lease:";
+    private static final String BYPASS_KEY_PREFIX = "cache-load-bypass:";
+
+    // Set on a thread for the duration of its outermost loader call
+    private static final ThreadLocal<Boolean> LOADING = new ThreadLocal<>();
+
+    // Remaining TTL in milliseconds of the entry last read on this thread, set by PolicyRedisCacheWriter
+    private static final ThreadLocal<Long> READ_TTL = new ThreadLocal<>();
+
+    // Set when PolicyRedisCacheWriter declined the put this thread just made
+    private static final ThreadLocal<Boolean> PUT_REJECTED = new ThreadLocal<>();
+
+    private final Cache delegate;
+    private final RedisLease lease;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+    private final EvictionCounter sharedEvictions;
+    private final SingleFlight<Object, Object> loads = new SingleFlight<>();
+
+    // Early refresh
+    private final boolean earlyRefresh;
+    private final Duration staleGrace;
+    private final double beta;
+    private final DoubleSupplier random;
+
+    // Moving average of this cache's load time on this replica, the XFetch delta
+    private volatile long loadNanos;
+
+    // Bumped by every evict and clear through this cache, so a load can tell it raced one
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** Without early refresh or shared eviction count: only evictions on this replica stop a load's put. */
+    public CoalescingCache(Cache delegate, RedisLease lease, Duration leaseDuration, Duration pollInterval) {
+        this(delegate, lease, null, leaseDuration, pollInterval, false, Duration.ZERO, 0, () -> 1.0);
+    }
+
+    public CoalescingCache(Cache delegate, RedisLease lease, EvictionCounter sharedEvictions, Duration leaseDuration,
+                           Duration pollInterval, Duration staleGrace, double beta) {
+        // 1 - [0, 1) so the logarithm never sees 0
+        this(delegate, lease, sharedEvictions, leaseDuration, pollInterval, true, staleGrace, beta,
+                () -> 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    CoalescingCache(Cache delegate, RedisLease lease, EvictionCounter sharedEvictions, Duration leaseDuration,
+                    Duration pollInterval, boolean earlyRefresh, Duration staleGrace, double beta, DoubleSupplier random) {
+        this.delegate = delegate;
+        this.lease = lease;
+        this.sharedEvictions = sharedEvictions;
+        this.leaseDuration = leaseDuration;
+        this.pollInterval = pollInterval;
+        this.earlyRefresh = earlyRefresh;
+        this.staleGrace = staleGrace;
+        this.beta = beta;
+        this.random = random;
+    }
+
+    /** Whether the current thread is running a loader to fill a cache. */
+    public static boolean isLoading() {
+        return LOADING.get() != null;
+    }
+
+    /**
+     * Records the remaining TTL of the entry the current thread is reading, fetched together with its value. Read
+     * back by the next {@link #get(Object, Callable)} on this thread.
+     */
+    static void recordRemainingTtl(long remainingMillis) {
+        READ_TTL.set(remainingMillis);
+    }
+
+    /** Records that the put the current thread is making was not written. */
+    static void recordRejectedPut() {
+        PUT_REJECTED.set(Boolean.TRUE);
+    }
+
+    // The TTL recorded since the last call, or null when the read reported none
+    static Long takeRemainingTtl() {
+        Long remaining = READ_TTL.get();
+        READ_TTL.remove();
+        return remaining;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        takeRemainingTtl();
+        ValueWrapper cached = delegate.get(key);
+        Long remaining = takeRemainingTtl();
+        if (cached != null) {
+            if (earlyRefresh && remaining != null && refreshDue(remaining)) {
+                return (T) refresh(key, valueLoader, cached.get());
+            }
+            return (T) cached.get();
+        }
+        return (T) loads.execute(key, () -> loadOnce(key, valueLoader));
+    }
+
+    private boolean refreshDue(long remaining) {
+        if (remaining < 0) {
+            // No expiry (written elsewhere without one) or expired since the read
+            return false;
+        }
+        long fresh = remaining - staleGrace.toMillis();
+        if (fresh <= 0) {
+            return true;
+        }
+        double loadMillis = loadNanos / 1_000_000.0;
+        return loadMillis * beta * -Math.log(random.getAsDouble()) >= fresh;
+    }
+
+    private Object refresh(Object key, Callable<?> valueLoader, Object current) {
+        String leaseKey = leaseKey(key);
+        String token;
+        try {
+            token = lease.tryAcquire(leaseKey, leaseDuration);
+        } catch (RuntimeException e) {
+            return current;
+        }
+        if (token == null) {
+            // Another replica, or another thread here, is already refreshing it
+            return current;
+        }
+        try {
+            log.debug("Cache {} - refreshing key {} ahead of expiry", getName(), key);
+            return loadAndPut(key, valueLoader);
+        } catch (RuntimeException e) {
+            log.warn("Cache {} - refresh of key {} failed, serving the cached value: {}", getName(), key, e.getMessage());
+            return current;
+        } finally {
+            release(leaseKey, token);
+        }
+    }
+
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        String leaseKey = leaseKey(key);
+        long deadline = System.nanoTime() + leaseDuration.toNanos();
+        boolean waited = false;
+
+        while (true) {
+            ValueWrapper cached = delegate.get(key);
+            if (cached != null) {
+                return cached.get();
+            }
+
+            if (waited && bypassed(key)) {
+                // The holder found the value too large to cache; taking the lease next would only repeat that
+                return load(key, valueLoader);
+            }
+
+            String token;
+            try {
+                token = lease.tryAcquire(leaseKey, leaseDuration);
+            } catch (RuntimeException e) {
+                log.warn("Cache {} - unable to take load lease for key {}, loading without it: {}", getName(), key, e.getMessage());
+                return loadAndPut(key, valueLoader);
+            }
+
+            if (token != null) {
+                try {
+                    return loadAndPut(key, valueLoader);
+                } finally {
+                    release(leaseKey, token);
+                }
+            }
+
+            if (System.nanoTime() >= deadline) {
+                log.warn("Cache {} - load of key {} on another replica exceeded {}, loading locally", getName(), key, leaseDuration);
+                return loadAndPut(key, valueLoader);
+            }
+            pause(key, valueLoader);
+            waited = true;
+        }
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        EvictionMark mark = evictionMark();
+        Object value = load(key, valueLoader);
+        // Null values are not cached (disableCachingNullValues); waiting replicas take the lease over and load
+        if (value == null) {
+            return value;
+        }
+        if (evictionMark().movedSince(mark)) {
+            log.debug("Cache {} - key {} was evicted while it loaded, not caching the value", getName(), key);
+            return value;
+        }
+        write(key, value);
+        if (evictionMark().movedSince(mark)) {
+            // Cleared between the check and the put; the clear may have run before the put landed
+            delegate.evict(key);
+        }
+        return value;
+    }
+
+    // This replica's evictions and the shared count, -1 when Redis cannot be read (then only the local one counts)
+    private EvictionMark evictionMark() {
+        long shared = -1;
+        if (sharedEvictions != null) {
+            try {
+                shared = sharedEvictions.current(getName());
+            } catch (RuntimeException e) {
+                log.debug("Cache {} - unable to read the shared eviction count: {}", getName(), e.getMessage());
+            }
+        }
+        return new EvictionMark(evictions.get(), shared);
+    }
+
+    private record EvictionMark(long local, long shared) {
+        boolean movedSince(EvictionMark before) {
+            return local != before.local || (shared >= 0 && before.shared >= 0 && shared != before.shared);
+        }
+    }
+
+    private void write(Object key, Object value) {
+        PUT_REJECTED.remove();
+        delegate.put(key, value);
+        if (PUT_REJECTED.get() == null) {
+            return;
+        }
+        PUT_REJECTED.remove();
+        try {
+            // Left to expire: misses within the lease duration load directly
+            lease.tryAcquire(BYPASS_KEY_PREFIX + getName() + ":" + key, leaseDuration);
+        } catch (RuntimeException e) {
+            log.warn("Cache {} - unable to take bypass lease for key {}: {}", getName(), key, e.getMessage());
+        }
+    }
+
+    private boolean bypassed(Object key) {
+        try {
+            return lease.isHeld(BYPASS_KEY_PREFIX + getName() + ":" + key);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        long start = System.nanoTime();
+        // A loader may call another cached method; only the outermost load clears the flag
+        boolean outermost = LOADING.get() == null;
+        if (outermost) {
+            LOADING.set(Boolean.TRUE);
+        }
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            if (outermost) {
+                LOADING.remove();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long previous = loadNanos;
+        loadNanos = previous == 0 ? elapsed : (previous * 7 + elapsed) / 8;
+        return value;
+    }
+
+    private String leaseKey(Object key) {
+        return LEASE_KEY_PREFIX + getName() + ":" + key;
+    }
+
+    long loadNanos() {
+        return loadNanos;
+    }
+
+    private void release(String leaseKey, String token) {
+        try {
+            lease.release(leaseKey, token);
+        } catch (RuntimeException e) {
+            // The lease expires on its own; followers wait at most the lease duration
+            log.warn("Cache {} - unable to release load lease {}: {}", getName(), leaseKey, e.getMessage());
+        }
+    }
+
+    private void pause(Object key, Callable<?> valueLoader) {
+        try {
+            Thread.sleep(pollInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return delegate.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        countEviction();
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        countEviction();
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        countEviction();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        countEviction();
+        return delegate.invalidate();
+    }
+
+    // Counted before the entries go, so a load that could still see them also sees the new count before it writes
+    private void countEviction() {
+        evictions.incrementAndGet();
+        if (sharedEvictions != null) {
+            try {
+                sharedEvictions.increment(getName());
+            } catch (RuntimeException e) {
+                log.warn("Cache {} - unable to bump the shared eviction count: {}", getName(), e.getMessage());
+            }
+        }
+    }
+}
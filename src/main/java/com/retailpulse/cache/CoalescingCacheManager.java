@@ -0,0 +1,55 @@
+package com.retailpulse.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every cache of the delegate manager in a {@link CoalescingCache} with early refresh on. The delegate's
+ * caches must write through {@link PolicyRedisCacheWriter}, which reads each entry's remaining TTL with its value.
+ */
+public class CoalescingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final RedisLease lease;
+    private final EvictionCounter evictionCounter;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+    private final Duration staleGrace;
+    private final double beta;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public CoalescingCacheManager(CacheManager delegate, RedisLease lease, EvictionCounter evictionCounter,
+                                  Duration leaseDuration, Duration pollInterval, Duration staleGrace, double beta) {
+        this.delegate = delegate;
+        this.lease = lease;
+        this.evictionCounter = evictionCounter;
+        this.leaseDuration = leaseDuration;
+        this.pollInterval = pollInterval;
+        this.staleGrace = staleGrace;
+        this.beta = beta;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new CoalescingCache(target, lease, evictionCounter, leaseDuration,
+                pollInterval, staleGrace, beta));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
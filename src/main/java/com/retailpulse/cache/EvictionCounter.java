@@ -0,0 +1,27 @@
+package com.retailpulse.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Per-cache count of evictions and clears, kept in Redis so every replica sees the others'. A loader reads it
+ * before running and again before writing; a change in between means the value may predate a committed write.
+ */
+public class EvictionCounter {
+
+    private static final String KEY_PREFIX = "cache-evictions:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public EvictionCounter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public long current(String cacheName) {
+        String count = redisTemplate.opsForValue().get(KEY_PREFIX + cacheName);
+        return count == null ? 0 : Long.parseLong(count);
+    }
+
+    public void increment(String cacheName) {
+        redisTemplate.opsForValue().increment(KEY_PREFIX + cacheName);
+    }
+}
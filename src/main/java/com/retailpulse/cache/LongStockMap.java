@@ -0,0 +1,305 @@
+package com.retailpulse.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash table from a (productId, businessEntityId) pair to its quantity and total cost price, with
+ * the pair packed into one long and the values in parallel primitive arrays, so nothing is boxed and a lookup is
+ * a few array reads. Linear probing; removals shift later entries back instead of leaving tombstones.
+ *
+ * Writers serialize on a {@link StampedLock}; readers take an optimistic stamp and only fall back to the read lock
+ * when a write raced them. Both ids must be in [1, 2^32 - 1] (0 marks a free slot); lookups outside that range
+ * simply find nothing.
+ *
+ * Each entry also keeps the version of the row it was copied from, so {@link #putIfNewer} and
+ * {@link #removeIfNotNewer} can drop a change that arrives after a later one. {@link #put} stores version 0.
+ */
+public final class LongStockMap {
+
+    /** Returned by {@link #quantity} when there is no entry. */
+    public static final int ABSENT = -1;
+
+    private static final long FREE = 0L;
+    private static final double MAX_LOAD = 0.75;
+    private static final int MIN_CAPACITY = 16;
+
+    // Swapped as a whole on resize, so an optimistic reader never mixes arrays from two sizes
+    private static final class Table {
+        final long[] keys;
+        final int[] quantities;
+        final double[] costs;
+        final long[] versions;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            quantities = new int[capacity];
+            costs = new double[capacity];
+            versions = new long[capacity];
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private int size;
+
+    public LongStockMap(int expectedSize) {
+        table = new Table(Math.max(MIN_CAPACITY, (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(expectedSize / MAX_LOAD) + 1)));
+    }
+
+    public static long key(long productId, long businessEntityId) {
+        if (productId <= 0 || productId > 0xFFFFFFFFL || businessEntityId <= 0 || businessEntityId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Ids out of range: (" + productId + ", " + businessEntityId + ")");
+        }
+        return productId << 32 | businessEntityId;
+    }
+
+    // Packed key for a lookup, or FREE for ids that can never have an entry
+    private static long lookupKey(long productId, long businessEntityId) {
+        if (productId <= 0 || productId > 0xFFFFFFFFL || businessEntityId <= 0 || businessEntityId > 0xFFFFFFFFL) {
+            return FREE;
+        }
+        return productId << 32 | businessEntityId;
+    }
+
+    public int quantity(long productId, long businessEntityId) {
+        long key = lookupKey(productId, businessEntityId);
+        long stamp = lock.tryOptimisticRead();
+        int quantity = quantityIn(table, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                quantity = quantityIn(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return quantity;
+    }
+
+    /** Total cost price of the entry, or NaN when there is none. */
+    public double totalCostPrice(long productId, long businessEntityId) {
+        long key = lookupKey(productId, businessEntityId);
+        long stamp = lock.tryOptimisticRead();
+        double cost = costIn(table, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                cost = costIn(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Quantities of one product at each of the given business entities, read as one consistent snapshot into
+     * {@code quantities} ({@link #ABSENT} where there is no entry). Returns the sum of the present quantities.
+     */
+    public long quantities(long productId, long[] businessEntityIds, int[] quantities) {
+        long stamp = lock.tryOptimisticRead();
+        long total = quantitiesIn(table, productId, businessEntityIds, quantities);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                total = quantitiesIn(table, productId, businessEntityIds, quantities);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+    public void put(long productId, long businessEntityId, int quantity, double totalCostPrice) {
+        store(productId, businessEntityId, quantity, totalCostPrice, 0L, false);
+    }
+
+    /** Stores the entry unless the map already holds a newer version of it; returns whether it did. */
+    public boolean putIfNewer(long productId, long businessEntityId, int quantity, double totalCostPrice, long version) {
+        return store(productId, businessEntityId, quantity, totalCostPrice, version, true);
+    }
+
+    private boolean store(long productId, long businessEntityId, int quantity, double totalCostPrice, long version,
+                          boolean unlessNewer) {
+        long key = key(productId, businessEntityId);
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int slot = slotOf(t, key);
+            if (t.keys[slot] == FREE) {
+                if (size + 1 > (long) (t.keys.length * MAX_LOAD)) {
+                    t = grow();
+                    slot = slotOf(t, key);
+                }
+                t.keys[slot] = key;
+                size++;
+            } else if (unlessNewer && t.versions[slot] > version) {
+                return false;
+            }
+            t.quantities[slot] = quantity;
+            t.costs[slot] = totalCostPrice;
+            t.versions[slot] = version;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long productId, long businessEntityId) {
+        return delete(productId, businessEntityId, Long.MAX_VALUE);
+    }
+
+    /**
+     * Removes the entry unless the map holds a newer version of it than {@code version}, the version the row had
+     * when it was deleted.
+     */
+    public boolean removeIfNotNewer(long productId, long businessEntityId, long version) {
+        return delete(productId, businessEntityId, version);
+    }
+
+    private boolean delete(long productId, long businessEntityId, long version) {
+        long key = key(productId, businessEntityId);
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int slot = slotOf(t, key);
+            if (t.keys[slot] == FREE || t.versions[slot] > version) {
+                return false;
+            }
+            shiftBack(t, slot);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int capacity() {
+        return table.keys.length;
+    }
+
+    private static int quantityIn(Table t, long key) {
+        int slot = findSlot(t, key);
+        return slot < 0 ? ABSENT : t.quantities[slot];
+    }
+
+    private static double costIn(Table t, long key) {
+        int slot = findSlot(t, key);
+        return slot < 0 ? Double.NaN : t.costs[slot];
+    }
+
+    private static long quantitiesIn(Table t, long productId, long[] businessEntityIds, int[] quantities) {
+        long total = 0;
+        for (int i = 0; i < businessEntityIds.length; i++) {
+            int slot = findSlot(t, lookupKey(productId, businessEntityIds[i]));
+            quantities[i] = slot < 0 ? ABSENT : t.quantities[slot];
+            if (slot >= 0) {
+                total += quantities[i];
+            }
+        }
+        return total;
+    }
+
+    // Slot holding key, or -1. Bounded by the capacity so a reader racing a writer cannot spin forever.
+    private static int findSlot(Table t, long key) {
+        if (key == FREE) {
+            return -1;
+        }
+        long[] keys = t.keys;
+        int slot = home(key, keys.length);
+        for (int probes = 0; probes < keys.length; probes++) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == FREE) {
+                return -1;
+            }
+            if (++slot == keys.length) {
+                slot = 0;
+            }
+        }
+        return -1;
+    }
+
+    // Slot holding key, or the free slot where it would go; the load factor guarantees there is one
+    private static int slotOf(Table t, long key) {
+        long[] keys = t.keys;
+        int slot = home(key, keys.length);
+        while (keys[slot] != key && keys[slot] != FREE) {
+            if (++slot == keys.length) {
+                slot = 0;
+            }
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion: move later entries of the probe run into the gap unless that would put them
+    // before their home slot
+    private static void shiftBack(Table t, int gap) {
+        long[] keys = t.keys;
+        int capacity = keys.length;
+        int next = gap;
+        while (true) {
+            if (++next == capacity) {
+                next = 0;
+            }
+            long k = keys[next];
+            if (k == FREE) {
+                break;
+            }
+            int home = home(k, capacity);
+            boolean staysPut = gap <= next ? (gap < home && home <= next) : (gap < home || home <= next);
+            if (staysPut) {
+                continue;
+            }
+            keys[gap] = k;
+            t.quantities[gap] = t.quantities[next];
+            t.costs[gap] = t.costs[next];
+            t.versions[gap] = t.versions[next];
+            gap = next;
+        }
+        keys[gap] = FREE;
+        t.quantities[gap] = 0;
+        t.costs[gap] = 0.0;
+        t.versions[gap] = 0L;
+    }
+
+    private Table grow() {
+        Table old = table;
+        Table grown = new Table((int) Math.min(Integer.MAX_VALUE - 8, old.keys.length * 2L));
+        for (int i = 0; i < old.keys.length; i++) {
+            long k = old.keys[i];
+            if (k != FREE) {
+                int slot = slotOf(grown, k);
+                grown.keys[slot] = k;
+                grown.quantities[slot] = old.quantities[i];
+                grown.costs[slot] = old.costs[i];
+                grown.versions[slot] = old.versions[i];
+            }
+        }
+        table = grown;
+        return grown;
+    }
+
+    // Mixes the packed ids (murmur3 finalizer), then maps onto [0, capacity) with a multiply instead of a modulo,
+    // which lets the capacity be sized to the row count rather than rounded up to a power of two
+    private static int home(long key, int capacity) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (((h >>> 32) * capacity) >>> 32);
+    }
+}
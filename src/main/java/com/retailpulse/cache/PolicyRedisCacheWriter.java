@@ -0,0 +1,208 @@
+package com.retailpulse.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Applies each cache's {@link CachePolicy} where the serialized value is known. A value over the cache's
+ * max-value-size is not written, and the entry it would have replaced is removed so no outdated copy stays behind.
+ * The rejection is counted (cache.puts.oversized), logged at WARN and reported to {@link CoalescingCache}, which
+ * stops replicas waiting for the entry.
+ * For a cache with a key budget, every written key is recorded by write time in a sorted set
+ * ({@code cache-keys:<cache>}); once the set holds more than max-keys, the oldest written entries are deleted.
+ * Index members older than the cache's longest lifetime have expired on their own and are pruned on the way.
+ *
+ * A read fetches the entry's remaining TTL in the same pipelined round trip as its value and hands it to
+ * {@link CoalescingCache} for the early refresh decision.
+ */
+public class PolicyRedisCacheWriter implements RedisCacheWriter {
+    private static final Logger log = LoggerFactory.getLogger(PolicyRedisCacheWriter.class);
+
+    private static final String INDEX_KEY_PREFIX = "cache-keys:";
+
+    // KEYS[1] index; ARGV: key, now, prune-before, budget. Returns the number of entries deleted for the budget.
+    private static final RedisScript<Long> INDEX_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('zadd', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('zremrangebyscore', KEYS[1], '-inf', '(' .. ARGV[3])
+            local over = redis.call('zcard', KEYS[1]) - tonumber(ARGV[4])
+            if over <= 0 then
+              return 0
+            end
+            local victims = redis.call('zpopmin', KEYS[1], over)
+            for i = 1, #victims, 2 do
+              redis.call('unlink', victims[i])
+            end
+            return over
+            """, Long.class);
+
+    private final RedisCacheWriter delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final Function<String, CachePolicy> policies;
+    private final Duration defaultTtl;
+    private final Duration staleGrace;
+    private final MeterRegistry meterRegistry;
+
+    public PolicyRedisCacheWriter(RedisCacheWriter delegate, StringRedisTemplate redisTemplate,
+                                  Function<String, CachePolicy> policies, Duration defaultTtl, Duration staleGrace,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.policies = policies;
+        this.defaultTtl = defaultTtl;
+        this.staleGrace = staleGrace;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        CachePolicy policy = policies.apply(name);
+        if (!policy.admits(value.length)) {
+            rejectOversized(name, key, value.length);
+            return;
+        }
+        delegate.put(name, key, value, ttl);
+        index(name, key, policy);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        CachePolicy policy = policies.apply(name);
+        if (!policy.admits(value.length)) {
+            rejectOversized(name, key, value.length);
+            return CompletableFuture.completedFuture(null);
+        }
+        return delegate.store(name, key, value, ttl).thenRun(() -> index(name, key, policy));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        CachePolicy policy = policies.apply(name);
+        if (!policy.admits(value.length)) {
+            counter("cache.puts.oversized", name).increment();
+            return delegate.get(name, key);
+        }
+        byte[] existing = delegate.putIfAbsent(name, key, value, ttl);
+        if (existing == null) {
+            index(name, key, policy);
+        }
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+        if (policies.apply(name).hasKeyBudget()) {
+            try {
+                redisTemplate.opsForZSet().remove(INDEX_KEY_PREFIX + name, new String(key, StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                // The member is pruned once it is older than the cache's lifetime
+                log.debug("Cache {} - unable to drop key from index: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+        if (policies.apply(name).hasKeyBudget()) {
+            try {
+                redisTemplate.delete(INDEX_KEY_PREFIX + name);
+            } catch (RuntimeException e) {
+                log.debug("Cache {} - unable to drop key index: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void rejectOversized(String name, byte[] key, int size) {
+        counter("cache.puts.oversized", name).increment();
+        log.warn("Cache {} - value of {} bytes for {} is over max-value-size, not cached", name, size,
+                new String(key, StandardCharsets.UTF_8));
+        delegate.remove(name, key);
+        CoalescingCache.recordRejectedPut();
+    }
+
+    private void index(String name, byte[] key, CachePolicy policy) {
+        if (!policy.hasKeyBudget()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long pruneBefore = now - policy.maxLifetime(defaultTtl, staleGrace).toMillis();
+        try {
+            Long evicted = redisTemplate.execute(INDEX_SCRIPT, List.of(INDEX_KEY_PREFIX + name),
+                    new String(key, StandardCharsets.UTF_8), String.valueOf(now), String.valueOf(pruneBefore),
+                    String.valueOf(policy.maxKeys()));
+            if (evicted != null && evicted > 0) {
+                counter("cache.evictions.budget", name).increment(evicted);
+            }
+        } catch (RuntimeException e) {
+            // The value is written; the budget catches up on the next write to this cache
+            log.warn("Cache {} - unable to update key index: {}", name, e.getMessage());
+        }
+    }
+
+    private Counter counter(String meterName, String cacheName) {
+        return meterRegistry.counter(meterName, "cache", cacheName);
+    }
+
+    // Bypasses the delegate, so hit/miss statistics are not collected for this read (none are enabled here)
+    @Override
+    public byte[] get(String name, byte[] key) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().get(key);
+            connection.keyCommands().pTtl(key);
+            return null;
+        }, RedisSerializer.byteArray());
+        byte[] value = (byte[]) results.get(0);
+        if (value != null && results.get(1) instanceof Long remaining) {
+            CoalescingCache.recordRemainingTtl(remaining);
+        }
+        return value;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return delegate.get(name, key, ttl);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return delegate.retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new PolicyRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), redisTemplate,
+                policies, defaultTtl, staleGrace, meterRegistry);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+}
@@ -0,0 +1,59 @@
+package com.retailpulse.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived exclusive lease in Redis (SET NX PX). The lease expires on its own, so a replica that dies
+ * while holding one blocks others for at most the lease duration. Release only deletes the key if it still
+ * holds the caller's token, so an expired lease that another replica has since taken is left alone.
+ */
+public class RedisLease {
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLease(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Returns the lease token when acquired, or null when another holder has it.
+     */
+    public String tryAcquire(String key, Duration duration) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, token, duration);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * Extends a held lease to {@code duration} from now. Returns false when the caller no longer holds it.
+     */
+    public boolean renew(String key, String token, Duration duration) {
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), token, String.valueOf(duration.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    /**
+     * Whether anyone holds the lease right now.
+     */
+    public boolean isHeld(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    public void release(String key, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+    }
+}
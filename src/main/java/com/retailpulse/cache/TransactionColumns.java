@@ -0,0 +1,260 @@
+package com.retailpulse.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only column store of inventory transactions: time (epoch millis), product, source, destination, quantity
+ * and cost per unit, each in its own primitive array. Rows live in fixed-size chunks, so appending never copies
+ * and a full chunk never changes again; each chunk keeps the min and max time it holds, so a range scan skips
+ * chunks outside the range and drops the per-row time test on chunks wholly inside it.
+ *
+ * A scan filters one column at a time into a selection vector of row offsets, then aggregates only the selected
+ * rows; chunks are scanned in parallel and their partial groups merged. One writer at a time; readers take no
+ * lock and see every row appended before they started. Ids must be in [1, 2^32 - 1], as in {@link LongStockMap}.
+ */
+public final class TransactionColumns {
+
+    public enum GroupBy { NONE, PRODUCT, SOURCE, DESTINATION, DAY }
+
+    /** One group of an aggregate: its key (an id, an epoch day, or 0 for NONE) and its totals. */
+    public record Group(long key, long transactions, long quantity, double totalCostPrice) {
+    }
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long ANY = 0L;
+
+    private static final class Chunk {
+        final long[] times = new long[CHUNK_SIZE];
+        final int[] productIds = new int[CHUNK_SIZE];
+        final int[] sources = new int[CHUNK_SIZE];
+        final int[] destinations = new int[CHUNK_SIZE];
+        final int[] quantities = new int[CHUNK_SIZE];
+        final double[] costs = new double[CHUNK_SIZE];
+        // Written before the row count is published, so a reader's bounds always cover the rows it can see
+        volatile long minTime = Long.MAX_VALUE;
+        volatile long maxTime = Long.MIN_VALUE;
+    }
+
+    // Published in this order by the writer and read in reverse by readers: chunks, then size
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    public synchronized void append(long timeMillis, long productId, long source, long destination, int quantity,
+                                    double costPricePerUnit) {
+        int id = id(productId);
+        int src = id(source);
+        int dst = id(destination);
+        int row = size;
+        int offset = row & (CHUNK_SIZE - 1);
+        Chunk[] current = chunks;
+        if (offset == 0 && (row >>> CHUNK_BITS) == current.length) {
+            Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = new Chunk();
+            chunks = current = grown;
+        }
+        Chunk chunk = current[row >>> CHUNK_BITS];
+        chunk.times[offset] = timeMillis;
+        chunk.productIds[offset] = id;
+        chunk.sources[offset] = src;
+        chunk.destinations[offset] = dst;
+        chunk.quantities[offset] = quantity;
+        chunk.costs[offset] = costPricePerUnit;
+        if (timeMillis < chunk.minTime) {
+            chunk.minTime = timeMillis;
+        }
+        if (timeMillis > chunk.maxTime) {
+            chunk.maxTime = timeMillis;
+        }
+        size = row + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Totals of the transactions with {@code fromMillis <= time < toMillis}, optionally of one product
+     * ({@code productId} 0 for any) and touching one business entity as source or destination
+     * ({@code businessEntityId} 0 for any), grouped as asked. Groups come back in ascending key order.
+     */
+    public List<Group> aggregate(long fromMillis, long toMillis, long productId, long businessEntityId, GroupBy groupBy) {
+        int rows = size;
+        Chunk[] current = chunks;
+        int chunkCount = (rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        int product = productId == ANY ? 0 : id(productId);
+        int businessEntity = businessEntityId == ANY ? 0 : id(businessEntityId);
+
+        // Each parallel task scans its run of chunks into one set of groups; only the tasks' groups are merged
+        Groups merged = IntStream.range(0, chunkCount).parallel()
+                .collect(Groups::new, (groups, c) -> {
+                    int limit = c == chunkCount - 1 ? rows - (c << CHUNK_BITS) : CHUNK_SIZE;
+                    scan(current[c], limit, fromMillis, toMillis, product, businessEntity, groupBy, groups);
+                }, Groups::merge);
+        return merged.sorted();
+    }
+
+    private static void scan(Chunk chunk, int limit, long from, long to, int product, int businessEntity, GroupBy groupBy,
+                             Groups groups) {
+        if (chunk.maxTime < from || chunk.minTime >= to) {
+            return;
+        }
+        int[] selection = new int[limit];
+        int selected;
+        if (chunk.minTime >= from && chunk.maxTime < to) {
+            for (int i = 0; i < limit; i++) {
+                selection[i] = i;
+            }
+            selected = limit;
+        } else {
+            selected = 0;
+            long[] times = chunk.times;
+            for (int i = 0; i < limit; i++) {
+                long t = times[i];
+                selection[selected] = i;
+                selected += (t >= from && t < to) ? 1 : 0;
+            }
+        }
+        if (product != 0) {
+            selected = keep(selection, selected, chunk.productIds, product);
+        }
+        if (businessEntity != 0) {
+            int kept = 0;
+            int[] sources = chunk.sources;
+            int[] destinations = chunk.destinations;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                selection[kept] = i;
+                kept += (sources[i] == businessEntity || destinations[i] == businessEntity) ? 1 : 0;
+            }
+            selected = kept;
+        }
+
+        int[] quantities = chunk.quantities;
+        double[] costs = chunk.costs;
+        if (groupBy == GroupBy.NONE) {
+            long quantity = 0;
+            double value = 0;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                quantity += quantities[i];
+                value += quantities[i] * costs[i];
+            }
+            if (selected > 0) {
+                groups.add(0L, selected, quantity, value);
+            }
+        } else if (groupBy == GroupBy.DAY) {
+            long[] times = chunk.times;
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                groups.add(Math.floorDiv(times[i], MILLIS_PER_DAY), 1, quantities[i], quantities[i] * costs[i]);
+            }
+        } else {
+            int[] keys = switch (groupBy) {
+                case PRODUCT -> chunk.productIds;
+                case SOURCE -> chunk.sources;
+                default -> chunk.destinations;
+            };
+            for (int s = 0; s < selected; s++) {
+                int i = selection[s];
+                groups.add(Integer.toUnsignedLong(keys[i]), 1, quantities[i], quantities[i] * costs[i]);
+            }
+        }
+    }
+
+    // Branch-free compaction of the selection to the rows whose column equals value
+    private static int keep(int[] selection, int selected, int[] column, int value) {
+        int kept = 0;
+        for (int s = 0; s < selected; s++) {
+            int i = selection[s];
+            selection[kept] = i;
+            kept += column[i] == value ? 1 : 0;
+        }
+        return kept;
+    }
+
+    private static int id(long id) {
+        if (id <= 0 || id > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Id out of range: " + id);
+        }
+        return (int) id;
+    }
+
+    // Open-addressing map from group key to running totals. A slot is four adjacent longs (key, transactions,
+    // quantity, value bits) so an update touches one cache line; Long.MIN_VALUE, which no key can be, marks it free.
+    private static final class Groups {
+        private static final int STRIDE = 4;
+        private static final long FREE = Long.MIN_VALUE;
+
+        private long[] slots = newSlots(64);
+        private int size;
+
+        void add(long key, long count, long quantity, double value) {
+            int slot = slotOf(slots, key);
+            if (slots[slot] == FREE) {
+                if ((size + 1) * STRIDE > slots.length * 3 / 4) {
+                    grow();
+                    slot = slotOf(slots, key);
+                }
+                slots[slot] = key;
+                size++;
+            }
+            slots[slot + 1] += count;
+            slots[slot + 2] += quantity;
+            slots[slot + 3] = Double.doubleToRawLongBits(Double.longBitsToDouble(slots[slot + 3]) + value);
+        }
+
+        void merge(Groups other) {
+            long[] theirs = other.slots;
+            for (int i = 0; i < theirs.length; i += STRIDE) {
+                if (theirs[i] != FREE) {
+                    add(theirs[i], theirs[i + 1], theirs[i + 2], Double.longBitsToDouble(theirs[i + 3]));
+                }
+            }
+        }
+
+        List<Group> sorted() {
+            List<Group> groups = new ArrayList<>(size);
+            for (int i = 0; i < slots.length; i += STRIDE) {
+                if (slots[i] != FREE) {
+                    groups.add(new Group(slots[i], slots[i + 1], slots[i + 2], Double.longBitsToDouble(slots[i + 3])));
+                }
+            }
+            groups.sort((a, b) -> Long.compare(a.key(), b.key()));
+            return groups;
+        }
+
+        private static int slotOf(long[] slots, long key) {
+            int mask = slots.length / STRIDE - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = ((int) (h ^ h >>> 32) & mask) * STRIDE;
+            while (slots[slot] != FREE && slots[slot] != key) {
+                slot = (slot + STRIDE) & (slots.length - 1);
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = newSlots(old.length / STRIDE * 2);
+            for (int i = 0; i < old.length; i += STRIDE) {
+                if (old[i] != FREE) {
+                    int slot = slotOf(slots, old[i]);
+                    System.arraycopy(old, i, slots, slot, STRIDE);
+                }
+            }
+        }
+
+        private static long[] newSlots(int capacity) {
+            long[] slots = new long[capacity * STRIDE];
+            for (int i = 0; i < slots.length; i += STRIDE) {
+                slots[i] = FREE;
+            }
+            return slots;
+        }
+    }
+}
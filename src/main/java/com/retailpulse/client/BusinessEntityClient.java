@@ -10,7 +10,6 @@ import java.util.List;
 
 @FeignClient(
   name = "business-entity",
-  url = "${businessentity-service.url}",
   configuration = com.retailpulse.config.FeignConfig.class
   )
 public interface BusinessEntityClient {
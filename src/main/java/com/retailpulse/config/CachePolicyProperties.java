@@ -0,0 +1,22 @@
+package com.retailpulse.config;
+
+import com.retailpulse.cache.CachePolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * The {@code app.cache.policies} map, cache name to {@link CachePolicy}. The other app.cache settings are read
+ * with @Value where they are used.
+ */
+@ConfigurationProperties("app.cache")
+public record CachePolicyProperties(Map<String, CachePolicy> policies) {
+
+    public CachePolicyProperties {
+        policies = policies == null ? Map.of() : Map.copyOf(policies);
+    }
+
+    public CachePolicy policy(String cacheName) {
+        return policies.getOrDefault(cacheName, CachePolicy.DEFAULT);
+    }
+}
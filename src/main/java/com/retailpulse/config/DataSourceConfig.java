@@ -0,0 +1,151 @@
+package com.retailpulse.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JDBC datasource behind JPA, declared here from the spring.datasource.* properties. Pool settings under
+ * spring.datasource.hikari apply to every pool, replica and shards included; app.datasource.replica.hikari and
+ * app.sharding.pool-size then override them for those pools. Every pool reports hikaricp.* metrics tagged with its
+ * pool name.
+ *
+ * With app.datasource.replica.enabled, a second pool (pool=replica) points at a read replica and read-only service
+ * transactions are routed to it (see ReplicaRoutingDataSource); the home pool is then pool=primary.
+ *
+ * With app.sharding.enabled, inventory is spread over the home database and the app.sharding.urls databases, one
+ * pool each (pool=shard-0, shard-1, ...), and every statement goes to the shard ShardRouter has bound. Replica
+ * routing is not combined with sharding.
+ *
+ * The layout is chosen inside the one factory method rather than with @ConditionalOnProperty: the image is built
+ * with Spring AOT (-Paot), which evaluates conditions at build time, so conditional beans could not be switched on
+ * in the shipped image.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 @Value("${app.datasource.replica.enabled:false}") boolean replicaEnabled,
+                                 @Value("${app.datasource.replica.url:}") String replicaUrl,
+                                 @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${app.sharding.enabled:false}") boolean shardingEnabled,
+                                 @Value("${app.sharding.urls:}") List<String> shardingUrls,
+                                 @Value("${app.sharding.pool-size:10}") int shardPoolSize) {
+        Binder binder = Binder.get(environment);
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        if (shardingEnabled) {
+            if (replicaEnabled) {
+                logger.warn("app.datasource.replica is ignored with app.sharding enabled");
+            }
+            List<String> shardUrls = new ArrayList<>();
+            shardUrls.add(properties.determineUrl());
+            shardUrls.addAll(shardingUrls);
+            // Every shard shares the home database's credentials and driver
+            List<HikariDataSource> shards = new ArrayList<>();
+            for (int i = 0; i < shardUrls.size(); i++) {
+                HikariDataSource shard = pool(properties, binder, shardUrls.get(i), "shard-" + i, metrics);
+                shard.setMaximumPoolSize(shardPoolSize);
+                shards.add(shard);
+            }
+            return new ClosingLazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+        }
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricsTrackerFactory(metrics);
+        if (!replicaEnabled) {
+            return primary;
+        }
+        primary.setPoolName("primary");
+
+        // Credentials default to the primary's, the driver is always the primary's
+        if (replicaUrl.isBlank()) {
+            throw new IllegalStateException("app.datasource.replica.url is required with the replica enabled");
+        }
+        HikariDataSource replica = pool(properties, binder, replicaUrl, "replica", metrics);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setReadOnly(true);
+        replicaLagMonitor.watch(new JdbcTemplate(replica));
+        return new ClosingLazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor));
+    }
+
+    // Idle unless the replica is enabled, see ReplicaLagMonitor
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(MeterRegistry meterRegistry,
+                                               @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(maxLag, meterRegistry);
+    }
+
+    // EntityManagers hold their first connection until they close by default; with a replica or shards, handing it
+    // back after every transaction makes each transaction pick its own target
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction(
+            @Value("${app.datasource.replica.enabled:false}") boolean replicaEnabled,
+            @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        return hibernateProperties -> {
+            if (replicaEnabled || shardingEnabled) {
+                hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                        PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            }
+        };
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String url, String name,
+                                         MicrometerMetricsTrackerFactory metrics) {
+        HikariDataSource pool = new HikariDataSource();
+        // Sizes and timeouts as the home pool; the target and name below are this pool's own
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setJdbcUrl(url);
+        pool.setUsername(properties.determineUsername());
+        pool.setPassword(properties.determinePassword());
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(metrics);
+        return pool;
+    }
+
+    // The routing datasources own their pools; closing the bean closes them
+    static class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        ClosingLazyConnectionDataSourceProxy(DataSource routingDataSource) {
+            super(routingDataSource);
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (getTargetDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
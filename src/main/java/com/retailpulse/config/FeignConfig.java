@@ -2,6 +2,8 @@ package com.retailpulse.config;
 
 import feign.Logger;
 import feign.RequestInterceptor;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
 import io.micrometer.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -16,33 +18,43 @@ import org.springframework.web.context.request.RequestContextHolder;
 @Slf4j
 public class FeignConfig {
 
+    // Holds the token extracted for the current request, "" when there is none
+    private static final String TOKEN_ATTRIBUTE = FeignConfig.class.getName() + ".bearerToken";
+
     private final Tracer tracer;
 
     public FeignConfig(Tracer tracer) {
         this.tracer = tracer;
     }
 
+    // BASIC logs the request line, status and elapsed time only. FULL logs every header and body and is
+    // far too expensive on the checkout path; raise it for a single client with
+    // spring.cloud.openfeign.client.config.business-entity.logger-level when debugging.
     @Bean
     Logger.Level feignLoggerLevel() {
-        return Logger.Level.FULL;
+        return Logger.Level.BASIC;
     }
 
     @Bean
     public RequestInterceptor oauth2BearerForwardingInterceptor() {
         return template -> {
 
-            if (tracer.currentSpan() != null) {
-                template.header("X-B3-TraceId", tracer.currentSpan().context().traceId());
-                template.header("X-B3-SpanId", tracer.currentSpan().context().spanId());
+            Span span = tracer.currentSpan();
+            if (span != null) {
+                TraceContext context = span.context();
+                template.header("X-B3-TraceId", context.traceId());
+                template.header("X-B3-SpanId", context.spanId());
             }
 
-            String token = extractBearerToken();
+            String token = bearerToken();
             if (token != null && !token.isEmpty()) {
                 template.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
-                log.debug("Feign request [{} {}] -> Authorization header set with Bearer token (prefix={})",
-                        template.method(),
-                        template.url(),
-                        token.substring(0, Math.min(10, token.length())) + "...");
+                if (log.isDebugEnabled()) {
+                    log.debug("Feign request [{} {}] -> Authorization header set with Bearer token (prefix={})",
+                            template.method(),
+                            template.url(),
+                            token.substring(0, Math.min(10, token.length())) + "...");
+                }
             } else {
                 log.warn("Feign request [{} {}] -> No Bearer token found in SecurityContext",
                         template.method(),
@@ -51,6 +63,21 @@ public class FeignConfig {
         };
     }
 
+    // Extracted once per incoming request, however many Feign calls it makes
+    private String bearerToken() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs == null) {
+            return extractBearerToken();
+        }
+        Object cached = attrs.getAttribute(TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof String token) {
+            return token.isEmpty() ? null : token;
+        }
+        String token = extractBearerToken();
+        attrs.setAttribute(TOKEN_ATTRIBUTE, token == null ? "" : token, RequestAttributes.SCOPE_REQUEST);
+        return token;
+    }
+
     private String extractBearerToken() {
         // 1) Preferred: from Spring SecurityContext
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
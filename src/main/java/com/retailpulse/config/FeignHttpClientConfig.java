@@ -0,0 +1,41 @@
+package com.retailpulse.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the pooled Apache HttpClient 5 transport that Spring Cloud OpenFeign builds when feign-hc5 is on
+ * the classpath. Pool sizes and timeouts live under spring.cloud.openfeign.httpclient.* in application.yaml.
+ */
+@Configuration
+public class FeignHttpClientConfig {
+
+    // Must stay below the business-entity service's keep-alive timeout (Tomcat default 20s), otherwise the
+    // pool hands out connections the server has already closed
+    @Value("${app.feign.httpclient.idle-eviction:15s}")
+    private Duration idleEviction;
+
+    @Bean
+    public HttpClientBuilderCustomizer idleConnectionEvictionCustomizer() {
+        return builder -> builder.evictIdleConnections(TimeValue.ofMilliseconds(idleEviction.toMillis()));
+    }
+
+    // Exposes httpcomponents.httpclient.pool.* gauges (leased, available, pending, max) tagged httpclient=feign
+    @Bean
+    public PoolingHttpClientConnectionManagerMetricsBinder feignConnectionPoolMetrics(
+            HttpClientConnectionManager hc5ConnectionManager, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManagerMetricsBinder binder = new PoolingHttpClientConnectionManagerMetricsBinder(
+                (PoolingHttpClientConnectionManager) hc5ConnectionManager, "feign");
+        binder.bindTo(meterRegistry);
+        return binder;
+    }
+}
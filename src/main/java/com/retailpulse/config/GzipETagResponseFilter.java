@@ -0,0 +1,79 @@
+package com.retailpulse.config;
+
+import com.retailpulse.controller.ConditionalRequests;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips large 200 responses of the ETag-carrying list endpoints.
+ *
+ * Tomcat's built-in compression skips any response with a strong ETag, because the encoded body is a
+ * different representation. This filter compresses those bodies itself and appends
+ * {@link ConditionalRequests#GZIP_ETAG_SUFFIX} to the ETag so the gzip representation has its own strong
+ * validator. Other responses are left to server.compression.
+ */
+public class GzipETagResponseFilter extends OncePerRequestFilter {
+
+    private final int minResponseSize;
+
+    public GzipETagResponseFilter(int minResponseSize) {
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!acceptsGzip(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || eTag == null
+                || wrapper.getContentSize() < minResponseSize || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(wrapper.getContentSize() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            wrapper.getContentInputStream().transferTo(gzip);
+        }
+
+        response.setHeader(HttpHeaders.ETAG, withGzipSuffix(eTag));
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(compressed.size());
+        compressed.writeTo(response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private String withGzipSuffix(String eTag) {
+        if (eTag.endsWith("\"")) {
+            return eTag.substring(0, eTag.length() - 1) + ConditionalRequests.GZIP_ETAG_SUFFIX + "\"";
+        }
+        return eTag + ConditionalRequests.GZIP_ETAG_SUFFIX;
+    }
+}
@@ -0,0 +1,22 @@
+package com.retailpulse.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HttpCachingConfig {
+
+    @Value("${app.http.gzip.min-response-size:2048}")
+    private int gzipMinResponseSize;
+
+    // Only the list endpoints that carry generation ETags; everything else uses server.compression
+    @Bean
+    public FilterRegistrationBean<GzipETagResponseFilter> gzipETagResponseFilter() {
+        FilterRegistrationBean<GzipETagResponseFilter> registration =
+                new FilterRegistrationBean<>(new GzipETagResponseFilter(gzipMinResponseSize));
+        registration.addUrlPatterns("/api/inventory", "/api/products", "/api/inventoryTransaction");
+        return registration;
+    }
+}
@@ -0,0 +1,36 @@
+package com.retailpulse.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    // How long a completed response is replayed for; should outlast the clients' retry window
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    // Upper bound on how long a crashed first attempt blocks its duplicates; renewed while the attempt is alive
+    @Value("${app.idempotency.lease:30s}")
+    private Duration lease;
+
+    @Value("${app.idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    @Value("${app.idempotency.poll-interval:20ms}")
+    private Duration pollInterval;
+
+    // The retried POS writes; runs after Spring Security, so keys are scoped to the authenticated caller
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(StringRedisTemplate stringRedisTemplate) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(stringRedisTemplate, ttl, lease, waitTimeout, pollInterval));
+        registration.addUrlPatterns("/api/inventory/salesUpdate", "/api/inventoryTransaction", "/api/inventory/reservations");
+        return registration;
+    }
+}
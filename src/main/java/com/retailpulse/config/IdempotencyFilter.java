@@ -0,0 +1,326 @@
+package com.retailpulse.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.cache.RedisLease;
+import com.retailpulse.controller.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes POST endpoints safe to retry with an {@code Idempotency-Key} header. The first request with a key takes a
+ * {@link RedisLease} on it and runs; a 2xx response is then stored under the key for {@code app.idempotency.ttl}
+ * and replayed to every later request with the same key (marked {@code Idempotent-Replayed: true}) without running
+ * the handler again. A duplicate that arrives while the first is still running waits for its result. The lease is
+ * renewed every third of {@code app.idempotency.lease} while the handler runs, so a slow request keeps its
+ * duplicates waiting instead of letting them run it a second time; the lease only lapses once the holder dies.
+ *
+ * Only successful responses are stored: failures roll back, and because the exception handler reports transient
+ * errors as 400 too, a failed request has to stay retryable under the same key. Reusing a key with a different
+ * body is rejected with 422. Keys are scoped to the caller and the endpoint. Without Redis, requests run as if
+ * they carried no key.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final String KEY_PREFIX = "idempotency:";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String IDEMPOTENCY_KEY_INVALID = "IDEMPOTENCY_KEY_INVALID";
+    private static final String IDEMPOTENCY_KEY_INVALID_DESC = "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters";
+    private static final String IDEMPOTENCY_KEY_REUSED = "IDEMPOTENCY_KEY_REUSED";
+    private static final String IDEMPOTENCY_KEY_REUSED_DESC = "Idempotency-Key was already used with a different request body: ";
+    private static final String IDEMPOTENCY_KEY_IN_PROGRESS = "IDEMPOTENCY_KEY_IN_PROGRESS";
+    private static final String IDEMPOTENCY_KEY_IN_PROGRESS_DESC = "A request with this Idempotency-Key is still running: ";
+
+    // Replaces the lease with the stored response only while we still hold it (it may have expired and been taken)
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+            Long.class);
+
+    // Fingerprint is a truncated SHA-256 of the request body
+    record StoredResponse(String fingerprint, int status, String contentType, String body) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisLease lease;
+    private final Duration ttl;
+    private final Duration leaseDuration;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyFilter(StringRedisTemplate redisTemplate, Duration ttl, Duration leaseDuration,
+                             Duration waitTimeout, Duration pollInterval) {
+        this.redisTemplate = redisTemplate;
+        this.lease = new RedisLease(redisTemplate);
+        this.ttl = ttl;
+        this.leaseDuration = leaseDuration;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_INVALID, IDEMPOTENCY_KEY_INVALID_DESC);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String key = redisKey(request, idempotencyKey);
+        String fingerprint = fingerprint(cachedRequest.body);
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            String token;
+            String stored;
+            try {
+                token = lease.tryAcquire(key, leaseDuration);
+                stored = token == null ? redisTemplate.opsForValue().get(key) : null;
+            } catch (RuntimeException e) {
+                logger.warn("Idempotency store unavailable, running {} {} without it: {}",
+                        request.getMethod(), request.getRequestURI(), e.getMessage());
+                filterChain.doFilter(cachedRequest, response);
+                return;
+            }
+
+            if (token != null) {
+                runAndStore(cachedRequest, response, filterChain, key, token, fingerprint);
+                return;
+            }
+            if (stored != null && stored.startsWith("{")) {
+                replay(response, readStored(stored), fingerprint, idempotencyKey);
+                return;
+            }
+            // Still running elsewhere (or the lease just went away and the next round takes it)
+            if (System.nanoTime() >= deadline) {
+                writeError(response, HttpStatus.CONFLICT, IDEMPOTENCY_KEY_IN_PROGRESS, IDEMPOTENCY_KEY_IN_PROGRESS_DESC + idempotencyKey);
+                return;
+            }
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeError(response, HttpStatus.CONFLICT, IDEMPOTENCY_KEY_IN_PROGRESS, IDEMPOTENCY_KEY_IN_PROGRESS_DESC + idempotencyKey);
+                return;
+            }
+        }
+    }
+
+    private void runAndStore(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                             String key, String token, String fingerprint) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        long period = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(() -> renew(key, token), period, period, TimeUnit.MILLISECONDS);
+        try {
+            try {
+                filterChain.doFilter(request, wrapper);
+            } finally {
+                renewal.cancel(false);
+            }
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                StoredResponse result = new StoredResponse(fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+                stored = store(key, token, result);
+            }
+        } finally {
+            if (!stored) {
+                releaseQuietly(key, token);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void renew(String key, String token) {
+        try {
+            if (!lease.renew(key, token, leaseDuration)) {
+                logger.warn("Lost the lease on idempotency key {} while its request is still running", key);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to renew idempotency key {}, it frees up in {}: {}", key, leaseDuration, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        renewals.shutdownNow();
+    }
+
+    private boolean store(String key, String token, StoredResponse result) {
+        try {
+            Long replaced = redisTemplate.execute(COMPLETE_SCRIPT, List.of(key), token,
+                    objectMapper.writeValueAsString(result), String.valueOf(ttl.toMillis()));
+            return replaced != null && replaced == 1;
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The work is done; a retry under this key would run it again, so make that visible
+            logger.warn("Unable to store the response for idempotency key {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseQuietly(String key, String token) {
+        try {
+            lease.release(key, token);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to release idempotency key {}, it frees up in {}: {}", key, leaseDuration, e.getMessage());
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored, String fingerprint, String idempotencyKey)
+            throws IOException {
+        if (stored == null) {
+            writeError(response, HttpStatus.CONFLICT, IDEMPOTENCY_KEY_IN_PROGRESS, IDEMPOTENCY_KEY_IN_PROGRESS_DESC + idempotencyKey);
+            return;
+        }
+        if (!stored.fingerprint().equals(fingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY_REUSED, IDEMPOTENCY_KEY_REUSED_DESC + idempotencyKey);
+            return;
+        }
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        byte[] body = stored.body().getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private StoredResponse readStored(String stored) {
+        try {
+            return objectMapper.readValue(stored, StoredResponse.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable stored idempotent response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String code, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(new ErrorResponse(code, message)));
+    }
+
+    // Scoped to the caller and the endpoint, so two clients picking the same key never see each other's results
+    private static String redisKey(HttpServletRequest request, String idempotencyKey) {
+        Principal principal = request.getUserPrincipal();
+        String caller = principal == null ? "anonymous" : principal.getName();
+        return KEY_PREFIX + caller + ":" + request.getRequestURI() + ":" + idempotencyKey;
+    }
+
+    static String fingerprint(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The body is read once for the fingerprint and handed to the controller from memory
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available (and then finished) straight away
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
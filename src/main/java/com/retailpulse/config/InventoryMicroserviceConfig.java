@@ -41,7 +41,7 @@ public class InventoryMicroserviceConfig {
             );
 
             http.authorizeHttpRequests(c -> c
-              .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/info", "/actuator/prometheus").permitAll()
+              .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**", "/actuator/info", "/actuator/prometheus").permitAll()
               .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
               .requestMatchers("/hello").authenticated()
               .requestMatchers("/api/**").authenticated() //.hasRole("SUPER").anyRequest().authenticated()
@@ -65,8 +65,8 @@ public class InventoryMicroserviceConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of(originURL));
         configuration.setAllowedMethods(List.of("GET", "POST", "PATCH", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "If-None-Match", IdempotencyFilter.IDEMPOTENCY_KEY_HEADER));
+        configuration.setExposedHeaders(List.of("Authorization", "ETag", IdempotencyFilter.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,14 +2,27 @@ package com.retailpulse.config;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.cache.CacheMemoryReporter;
+import com.retailpulse.cache.CachePolicy;
+import com.retailpulse.cache.CoalescingCacheManager;
+import com.retailpulse.cache.EvictionCounter;
+import com.retailpulse.cache.PolicyRedisCacheWriter;
+import com.retailpulse.cache.RedisLease;
 import com.retailpulse.dto.InventoryTransactionDetailsDto;
 import com.retailpulse.dto.InventoryTransactionProductDto;
 import com.retailpulse.dto.response.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -20,12 +33,34 @@ import java.util.List;
 import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class RedisConfig {
+
+    // Shared with ReactiveStockReadService, which writes the same entries
+    @Value("${app.cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    // Upper bound on how long other replicas wait for one replica to load a missing cache entry
+    @Value("${app.cache.load-lease:5s}")
+    private Duration loadLease;
+
+    @Value("${app.cache.load-poll-interval:20ms}")
+    private Duration loadPollInterval;
+
+    // Entries outlive their TTL by this much so an expired hot key is served while one replica reloads it
+    @Value("${app.cache.stale-grace:1m}")
+    private Duration staleGrace;
+
+    // XFetch beta: above 1 refreshes earlier, 0 only refreshes once the TTL has passed
+    @Value("${app.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        // Base config: key serializer + TTL, do not cache nulls
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate,
+                                     CachePolicyProperties cachePolicies, MeterRegistry meterRegistry) {
+        // Base config: key serializer + TTL (plus the stale grace), do not cache nulls
         RedisCacheConfiguration base = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(cacheTtl.plus(staleGrace))
                 .disableCachingNullValues()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()));
 
@@ -121,9 +156,40 @@ public class RedisConfig {
                 RedisSerializationContext.SerializationPair.fromSerializer(itpDtoListSer))
         );
 
-        return RedisCacheManager.builder(connectionFactory)
+        // Per-cache TTL and jitter from app.cache.policies; the writer enforces their size limits and key budgets
+        cacheConfigs.replaceAll((name, config) -> {
+            CachePolicy policy = cachePolicies.policy(name);
+            return config.entryTtl((key, value) -> policy.nextTtl(cacheTtl, staleGrace));
+        });
+        RedisCacheWriter cacheWriter = new PolicyRedisCacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+                stringRedisTemplate, cachePolicies::policy, cacheTtl, staleGrace, meterRegistry);
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(base) // default if any other cache is added later
                 .withInitialCacheConfigurations(cacheConfigs)
                 .build();
+        // Not a bean itself, so load the initial cache configurations here
+        redisCacheManager.afterPropertiesSet();
+
+        // Concurrent misses for the same key load once across replicas, and hits are refreshed by one replica
+        // ahead of expiry (see CoalescingCache)
+        return new CoalescingCacheManager(redisCacheManager, new RedisLease(stringRedisTemplate),
+                new EvictionCounter(stringRedisTemplate), loadLease, loadPollInterval, staleGrace, earlyRefreshBeta);
+    }
+
+    @Bean
+    public CacheMemoryReporter cacheMemoryReporter(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry,
+                                                   CacheManager cacheManager,
+                                                   @Value("${app.cache.memory-report-interval:5m}") Duration interval) {
+        return new CacheMemoryReporter(stringRedisTemplate, new RedisLease(stringRedisTemplate), interval, meterRegistry,
+                List.copyOf(cacheManager.getCacheNames()));
+    }
+
+    // Pub/sub subscriptions (StockIndexService, StockAlertService); listeners register themselves on their channels
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
     }
 }
@@ -0,0 +1,110 @@
+package com.retailpulse.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+/**
+ * Decides whether the replica may serve reads. Every {@code app.datasource.replica.lag-check-interval} it reads
+ * {@code Seconds_Behind_Source} from {@code SHOW REPLICA STATUS}; the replica is used while that is known and at
+ * most {@code app.datasource.replica.max-lag}. A database that reports no replication at all (a second local
+ * database, or a managed reader endpoint) is taken as current. Until the first check passes, reads stay on the
+ * primary.
+ *
+ * Exposes db.replica.lag (seconds, -1 when unknown) and db.replica.usable (1 or 0). The bean always exists so the
+ * check is scheduled; it stays idle, with no gauges, until DataSourceConfig hands it a replica to {@link #watch}.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final long UNKNOWN = -1;
+    private static final long NOT_REPLICATING = -2;
+
+    private final Duration maxLag;
+    private final MeterRegistry meterRegistry;
+
+    private volatile JdbcTemplate replicaJdbcTemplate;
+    private volatile boolean usable;
+    private volatile long lagSeconds = UNKNOWN;
+
+    public ReplicaLagMonitor(Duration maxLag, MeterRegistry meterRegistry) {
+        this.maxLag = maxLag;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, Duration maxLag, MeterRegistry meterRegistry) {
+        this(maxLag, meterRegistry);
+        watch(replicaJdbcTemplate);
+    }
+
+    /** Starts checking the replica behind the template. */
+    public void watch(JdbcTemplate replicaJdbcTemplate) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        Gauge.builder("db.replica.lag", this, m -> m.lagSeconds)
+                .baseUnit("seconds")
+                .description("Replication lag of the read replica, -1 when unknown")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.usable", this, m -> m.usable ? 1 : 0)
+                .description("Whether read-only transactions currently go to the replica")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    long lagSeconds() {
+        return lagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:5s}")
+    public void check() {
+        JdbcTemplate replica = replicaJdbcTemplate;
+        if (replica == null) {
+            return;
+        }
+        long lag;
+        try {
+            lag = replica.query("SHOW REPLICA STATUS", rs -> {
+                if (!rs.next()) {
+                    return NOT_REPLICATING;
+                }
+                long seconds = rs.getLong("Seconds_Behind_Source");
+                // NULL while the replication threads are stopped
+                return rs.wasNull() ? UNKNOWN : seconds;
+            });
+        } catch (RuntimeException e) {
+            update(false, UNKNOWN, "unreachable: " + e.getMessage());
+            return;
+        }
+        if (lag == NOT_REPLICATING) {
+            update(true, 0, "not replicating, taken as current");
+        } else if (lag == UNKNOWN) {
+            update(false, UNKNOWN, "replication stopped");
+        } else {
+            update(lag <= maxLag.toSeconds(), lag, lag + "s behind");
+        }
+    }
+
+    /** Called when the replica refuses a connection, so reads fall back before the next check. */
+    public void markUnavailable(Exception e) {
+        update(false, UNKNOWN, "connection failed: " + e.getMessage());
+    }
+
+    private void update(boolean nowUsable, long lag, String reason) {
+        lagSeconds = lag;
+        if (nowUsable != usable) {
+            usable = nowUsable;
+            if (nowUsable) {
+                logger.info("Replica back in use for read-only transactions ({})", reason);
+            } else {
+                logger.warn("Replica out of use, read-only transactions go to the primary ({})", reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.retailpulse.config;
+
+import com.retailpulse.cache.CoalescingCache;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends read-only service transactions to the replica and everything else to the primary. Has to sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for a connection before it publishes the
+ * transaction's read-only flag, and the proxy defers the real lookup to the first statement.
+ *
+ * The read-only transactions Spring Data opens around repository reads stay on the primary: several write paths
+ * load an entity through the repository outside any transaction and save it back, and must not read a stale copy.
+ * So do reads that fill a cache ({@link CoalescingCache#isLoading()}): the write that evicted an entry has
+ * committed on the primary but maybe not yet on the replica, and a stale reload would stay cached until the next
+ * write. Uncached read-only reads still go to the replica.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || CoalescingCache.isLoading()) {
+            return Target.PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(REPOSITORY_TRANSACTION_PREFIX)) {
+            return Target.PRIMARY;
+        }
+        return lagMonitor.isReplicaUsable() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return target.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            // Reads carry on against the primary until the next lag check finds the replica again
+            lagMonitor.markUnavailable(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return target.getConnection(username, password);
+        }
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            lagMonitor.markUnavailable(e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource pool : new DataSource[]{replica, primary}) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.retailpulse.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Refuses to start a sharded service whose shards can hand out the same id. Rows are looked up by id on every shard
+ * (see {@link ShardRouter#findAny}), so ids must be unique across shards, and they come from each database's
+ * AUTO_INCREMENT: every shard needs the same auto_increment_increment, at least the shard count, and its own
+ * auto_increment_offset. MySQL ignores an offset larger than the increment and counts from 1 instead.
+ *
+ * Ids written before the offsets were set are not checked; {@link ShardRouter#findAny} fails a lookup that finds the
+ * same id on two shards.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardIdVerifier implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ShardIdVerifier.class);
+
+    private static final String SETTINGS_SQL = "SELECT @@auto_increment_increment, @@auto_increment_offset";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    public ShardIdVerifier(JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int shardCount = shardRouter.shardCount();
+        if (shardCount == 1) {
+            return;
+        }
+        long[][] settings = new long[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            settings[shard] = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(SETTINGS_SQL,
+                    (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)}));
+        }
+        verify(settings);
+        logger.info("Shard ids are disjoint: auto_increment_increment={} on {} shards", settings[0][0], shardCount);
+    }
+
+    // settings[shard] = {auto_increment_increment, auto_increment_offset}
+    static void verify(long[][] settings) {
+        int shardCount = settings.length;
+        long increment = settings[0][0];
+        Set<Long> offsets = new HashSet<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            long shardIncrement = settings[shard][0];
+            long offset = settings[shard][1] > shardIncrement ? 1 : settings[shard][1];
+            if (shardIncrement != increment || shardIncrement < shardCount || !offsets.add(offset)) {
+                throw new IllegalStateException("Shard " + shard + " can generate ids another shard also uses"
+                        + " (auto_increment_increment=" + shardIncrement + ", auto_increment_offset=" + settings[shard][1]
+                        + "): set auto_increment_increment=" + shardCount + " on every shard and a distinct"
+                        + " auto_increment_offset from 1 to " + shardCount + " on each");
+            }
+        }
+    }
+}
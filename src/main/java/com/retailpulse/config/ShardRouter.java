@@ -0,0 +1,159 @@
+package com.retailpulse.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decides which database holds a business entity's inventory and binds that choice to the current thread, where
+ * ShardRoutingDataSource picks it up at the next statement. Shard 0 is the home database (spring.datasource), which
+ * also keeps everything that is not per store: products, thresholds and the transfer ledger.
+ *
+ * Business entities are spread with a jump consistent hash, so growing from N to N+1 shards moves only about
+ * 1/(N+1) of them. Global reads run on every shard in parallel and are merged. With sharding off there is one
+ * shard and all of this runs inline on the caller's thread.
+ */
+@Component
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final ExecutorService scatterExecutor;
+
+    public ShardRouter(@Value("${app.sharding.enabled:false}") boolean enabled,
+                       @Value("${app.sharding.urls:}") List<String> urls) {
+        this.shardCount = enabled ? 1 + urls.size() : 1;
+        if (shardCount > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.scatterExecutor = Executors.newFixedThreadPool(shardCount * 2, r -> {
+                Thread thread = new Thread(r, "shard-scatter-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scatterExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /** The shard bound to this thread, or the home shard when none is. */
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int shardFor(long businessEntityId) {
+        return jumpHash(businessEntityId, shardCount);
+    }
+
+    public <T> T forBusinessEntity(long businessEntityId, Supplier<T> work) {
+        return onShard(shardFor(businessEntityId), work);
+    }
+
+    /**
+     * Runs work with the shard bound. A transaction has to start inside it, or at least run its first statement
+     * there: the connection is only chosen then, and stays with the transaction until it ends.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    /** Runs the query on every shard and concatenates the results in shard order. */
+    public <T> List<T> gather(Supplier<List<T>> query) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> part : scatter(query)) {
+            merged.addAll(part);
+        }
+        return merged;
+    }
+
+    /**
+     * Looks a row up by something that does not name its business entity, such as its id. Ids are only unique across
+     * shards with disjoint AUTO_INCREMENT ranges (checked at startup by ShardIdVerifier), so a row found on more than
+     * one shard fails the lookup rather than returning whichever shard answered first.
+     */
+    public <T> Optional<T> findAny(Supplier<Optional<T>> lookup) {
+        Optional<T> match = Optional.empty();
+        int matchShard = -1;
+        List<Optional<T>> results = scatter(lookup);
+        for (int shard = 0; shard < results.size(); shard++) {
+            if (results.get(shard).isEmpty()) {
+                continue;
+            }
+            if (match.isPresent()) {
+                throw new IllegalStateException("Lookup matched rows on shards " + matchShard + " and " + shard
+                        + "; their AUTO_INCREMENT ranges overlap");
+            }
+            match = results.get(shard);
+            matchShard = shard;
+        }
+        return match;
+    }
+
+    private <T> List<T> scatter(Supplier<T> work) {
+        if (scatterExecutor == null) {
+            return List.of(onShard(0, work));
+        }
+        List<CompletableFuture<T>> parts = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            parts.add(CompletableFuture.supplyAsync(() -> onShard(target, work), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (CompletableFuture<T> part : parts) {
+                results.add(part.join());
+            }
+        } catch (CompletionException e) {
+            // A global read is only right when every shard answered
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
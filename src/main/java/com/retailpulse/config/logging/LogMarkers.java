@@ -0,0 +1,15 @@
+package com.retailpulse.config.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+public final class LogMarkers {
+    // Prevent instantiation
+    private LogMarkers() {}
+
+    /**
+     * Messages logged once per request item (basket line, transfer line, ...). They are rate limited by
+     * {@link RateLimitedMarkerTurboFilter} in logback-spring.xml so large baskets cannot flood the log.
+     */
+    public static final Marker PER_ITEM = MarkerFactory.getMarker("PER_ITEM");
+}
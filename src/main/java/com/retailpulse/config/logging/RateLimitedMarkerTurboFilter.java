@@ -0,0 +1,78 @@
+package com.retailpulse.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that lets at most {@code maxPerSecond} events carrying the configured marker through
+ * per one-second window and denies the rest. Events without the marker are not affected.
+ *
+ * Turbo filters run before the level check and before the event object is created, so a denied event costs
+ * a marker comparison and an atomic increment. ERROR events are never dropped.
+ */
+public class RateLimitedMarkerTurboFilter extends TurboFilter {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private String markerName;
+    private int maxPerSecond = 50;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong eventsInWindow = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || markerName == null || !marker.contains(markerName)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (level != null && level.isGreaterOrEqual(Level.ERROR)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (level != null && !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            // Below the logger's level: would be dropped anyway, don't spend the budget on it
+            return FilterReply.DENY;
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            eventsInWindow.set(0);
+        }
+
+        if (eventsInWindow.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressed.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public void setMarker(String markerName) {
+        this.markerName = markerName;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * Total number of events dropped since startup.
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    @Override
+    public void start() {
+        if (markerName == null) {
+            addError("No marker configured for " + getClass().getSimpleName());
+            return;
+        }
+        super.start();
+    }
+}
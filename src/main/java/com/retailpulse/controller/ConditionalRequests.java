@@ -0,0 +1,45 @@
+package com.retailpulse.controller;
+
+/**
+ * If-None-Match handling for the generation-based ETags built by
+ * {@link com.retailpulse.service.CacheGenerationService}.
+ */
+public final class ConditionalRequests {
+    // Prevent instantiation
+    private ConditionalRequests() {}
+
+    /**
+     * Suffix added inside the quotes when a response body is gzip-encoded, so the encoded and identity
+     * representations carry different strong ETags (RFC 9110 section 8.8.3).
+     */
+    public static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    /**
+     * True when the If-None-Match header lists the given ETag. Uses the weak comparison that RFC 9110
+     * prescribes for If-None-Match and ignores the gzip suffix, since both encodings share one generation.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String expected = opaqueTag(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        String value = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (value.endsWith(GZIP_ETAG_SUFFIX)) {
+            value = value.substring(0, value.length() - GZIP_ETAG_SUFFIX.length());
+        }
+        return value;
+    }
+}
@@ -2,58 +2,70 @@ package com.retailpulse.controller;
 
 import com.retailpulse.dto.request.InventoryUpdateRequestDto;
 import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.service.CacheGenerationService;
 import com.retailpulse.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.logging.Logger;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
-    private static final Logger logger = Logger.getLogger(InventoryController.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
     private final InventoryService inventoryService;
+    private final CacheGenerationService cacheGenerationService;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, CacheGenerationService cacheGenerationService) {
         this.inventoryService = inventoryService;
+        this.cacheGenerationService = cacheGenerationService;
     }
 
     @GetMapping
-    public ResponseEntity<List<InventoryResponseDto>> getAllInventories() {
+    public ResponseEntity<List<InventoryResponseDto>> getAllInventories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = cacheGenerationService.eTag(CacheGenerationService.INVENTORY_LIST);
+        if (ConditionalRequests.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         logger.info("Fetching all inventories");
-        return ResponseEntity.ok(inventoryService.getAllInventory());
+        return ResponseEntity.ok().eTag(eTag).body(inventoryService.getAllInventory());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<InventoryResponseDto> getInventoryById(@PathVariable Long id) {
-        logger.info("Fetching inventory with id: " + id);
+        logger.info("Fetching inventory with id: {}", id);
         InventoryResponseDto response = inventoryService.getInventoryById(id);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/productId/{id}")
     public ResponseEntity<List<InventoryResponseDto>> getInventoryByProductId(@PathVariable Long id) {
-        logger.info("Fetching inventory with productId: " + id);
+        logger.info("Fetching inventory with productId: {}", id);
         return ResponseEntity.ok(inventoryService.getInventoryByProductId(id));
     }
 
     @GetMapping("/businessEntityId/{businessEntityId}")
     public ResponseEntity<List<InventoryResponseDto>> getInventoryByBusinessEntityId(@PathVariable Long businessEntityId) {
-        logger.info("Fetching inventory with businessEntityId: " + businessEntityId);
+        logger.info("Fetching inventory with businessEntityId: {}", businessEntityId);
         return ResponseEntity.ok(inventoryService.getInventoryByBusinessEntityId(businessEntityId));
     }
 
     @GetMapping("/productId/{productId}/businessEntityId/{businessEntityId}")
     public ResponseEntity<InventoryResponseDto> getInventoryByProductIdAndBusinessEntityId(@PathVariable Long productId, @PathVariable Long businessEntityId) {
-        logger.info("Fetching inventory with businessEntityId (" + businessEntityId + ") and productId (" + productId + ")");
+        logger.info("Fetching inventory with businessEntityId ({}) and productId ({})", businessEntityId, productId);
         InventoryResponseDto response = inventoryService.getInventoryByProductIdAndBusinessEntityId(productId, businessEntityId);
         return ResponseEntity.ok(response);
     }
@@ -61,7 +73,7 @@ public class InventoryController {
     @PostMapping("/salesUpdate")
     public ResponseEntity<Void> salesUpdateStocks(@Valid @RequestBody InventoryUpdateRequestDto request)
     {
-        logger.info("Deducting inventories with businessEntityId (" + request.businessEntityId() + ")");
+        logger.info("Deducting inventories with businessEntityId ({}), {} item(s)", request.businessEntityId(), request.items().size());
         inventoryService.salesUpdateStocks(request);
         
         return ResponseEntity.ok().build();
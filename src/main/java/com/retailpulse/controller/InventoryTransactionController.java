@@ -1,34 +1,55 @@
 package com.retailpulse.controller;
 
 import com.retailpulse.dto.request.TimeSearchFilterRequestDto;
+import com.retailpulse.dto.request.TransactionAggregateRequestDto;
 import com.retailpulse.dto.response.InventoryTransactionProductBusinessEntityResponseDto;
 import com.retailpulse.dto.response.InventoryTransactionProductResponseDto;
 import com.retailpulse.dto.response.InventoryTransactionResponseDto;
+import com.retailpulse.dto.response.TransactionAggregateResponseDto;
 import com.retailpulse.entity.InventoryTransaction;
+import com.retailpulse.service.CacheGenerationService;
 import com.retailpulse.service.InventoryTransactionService;
+import com.retailpulse.service.TransactionStoreService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.logging.Logger;
 
 @RestController
 @RequestMapping("/api/inventoryTransaction")
 public class InventoryTransactionController {
-    private static final Logger logger = Logger.getLogger(InventoryTransactionController.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(InventoryTransactionController.class);
     private final InventoryTransactionService inventoryTransactionService;
+    private final CacheGenerationService cacheGenerationService;
+    private final TransactionStoreService transactionStoreService;
 
     @Autowired
-    public InventoryTransactionController(InventoryTransactionService inventoryTransactionService) {
+    public InventoryTransactionController(InventoryTransactionService inventoryTransactionService,
+                                          CacheGenerationService cacheGenerationService,
+                                          TransactionStoreService transactionStoreService) {
         this.inventoryTransactionService = inventoryTransactionService;
+        this.cacheGenerationService = cacheGenerationService;
+        this.transactionStoreService = transactionStoreService;
     }
 
     @GetMapping
-    public ResponseEntity<List<InventoryTransactionProductResponseDto>> getAllInventoryTransactionWithProduct() {
+    public ResponseEntity<List<InventoryTransactionProductResponseDto>> getAllInventoryTransactionWithProduct(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // The rows embed Product, so product writes change this list as well
+        String eTag = cacheGenerationService.eTag(CacheGenerationService.INVENTORY_TRANSACTION_PRODUCT_LIST,
+                CacheGenerationService.PRODUCT_LIST);
+        if (ConditionalRequests.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         logger.info("Fetching all inventory transactions");
-        return ResponseEntity.ok(inventoryTransactionService.getAllInventoryTransactionWithProduct());
+        return ResponseEntity.ok().eTag(eTag).body(inventoryTransactionService.getAllInventoryTransactionWithProduct());
     }
 
     @PostMapping("/withBusinessEntityDetails")
@@ -37,29 +58,39 @@ public class InventoryTransactionController {
         return ResponseEntity.ok(inventoryTransactionService.getAllInventoryTransactionWithProductAndBusinessEntity(searchFilters));
     }
 
+    // Totals over a time range from the in-memory transaction store, instead of every row of the range
+    @PostMapping("/aggregate")
+    public ResponseEntity<TransactionAggregateResponseDto> aggregate(@Valid @RequestBody TransactionAggregateRequestDto request) {
+        logger.info("Aggregating inventory transactions from {} to {} by {}", request.startDateTime(),
+                request.endDateTime(), request.groupBy());
+        return ResponseEntity.ok(transactionStoreService.aggregate(request));
+    }
+
     @PostMapping
     public ResponseEntity<InventoryTransactionResponseDto> createInventoryTransaction(@RequestBody InventoryTransaction inventoryTransaction) {
         // inventoryTransaction.getQuantity() will always be positive
-        logger.info("Received request to create inventoryTransaction: " + inventoryTransaction);
+        logger.info("Received request to create inventoryTransaction: productId={}, source={}, destination={}, quantity={}",
+                inventoryTransaction.getProductId(), inventoryTransaction.getSource(),
+                inventoryTransaction.getDestination(), inventoryTransaction.getQuantity());
         try {
             InventoryTransactionResponseDto createdInventoryTransaction = inventoryTransactionService.saveInventoryTransaction(inventoryTransaction);
-            logger.info("Successfully created createdInventoryTransaction: " + createdInventoryTransaction);
+            logger.info("Successfully created inventoryTransaction with id: {}", createdInventoryTransaction.id());
             return ResponseEntity.ok(createdInventoryTransaction);
         } catch (Exception e) {
-            logger.severe("Error creating createdInventoryTransaction: " + e.getMessage());
+            logger.error("Error creating inventoryTransaction: {}", e.getMessage());
             throw e;
         }
     }
 
     @PutMapping("/{id}")
     public InventoryTransactionResponseDto updateInventoryTransaction(@PathVariable UUID id, @RequestBody InventoryTransaction inventoryTransaction) {
-        logger.info("Received request to update inventory transaction with id: " + id);
+        logger.info("Received request to update inventory transaction with id: {}", id);
         try {
             InventoryTransactionResponseDto updatedInventoryTransaction = inventoryTransactionService.updateInventoryTransaction(id, inventoryTransaction);
-            logger.info("Successfully updated inventory transaction with id: " + updatedInventoryTransaction.id());
+            logger.info("Successfully updated inventory transaction with id: {}", updatedInventoryTransaction.id());
             return updatedInventoryTransaction;
         } catch (Exception e) {
-            logger.severe("Error updating inventory transaction: " + e.getMessage());
+            logger.error("Error updating inventory transaction: {}", e.getMessage());
             throw e;
         }
     }
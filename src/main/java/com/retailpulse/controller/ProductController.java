@@ -2,38 +2,48 @@ package com.retailpulse.controller;
 
 import com.retailpulse.dto.response.ProductResponseDto;
 import com.retailpulse.entity.Product;
+import com.retailpulse.service.CacheGenerationService;
 import com.retailpulse.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.logging.Logger;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
-    private static final Logger logger = Logger.getLogger(ProductController.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
+    private final CacheGenerationService cacheGenerationService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CacheGenerationService cacheGenerationService) {
         this.productService = productService;
+        this.cacheGenerationService = cacheGenerationService;
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductResponseDto>> getAllProducts() {
+    public ResponseEntity<List<ProductResponseDto>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = cacheGenerationService.eTag(CacheGenerationService.PRODUCT_LIST);
+        if (ConditionalRequests.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         logger.info("Fetching all products");
         List<ProductResponseDto> product = productService.getAllProducts();
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().eTag(eTag).body(product);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id) {
-        logger.info("Fetching product with id: " + id);
+        logger.info("Fetching product with id: {}", id);
         ProductResponseDto product = productService.getProductById(id);
         return ResponseEntity.ok(product);
     }
@@ -45,47 +55,47 @@ public class ProductController {
         }
 
         String strSku = sku.replaceAll("[\n\r]", "_");
-        logger.info("Fetching product with sku: " + strSku);
+        logger.info("Fetching product with sku: {}", strSku);
         ProductResponseDto product = productService.getProductBySKU(strSku);
         return ResponseEntity.ok(product);
     }
 
     @PostMapping
     public ResponseEntity<ProductResponseDto> createProduct(@RequestBody Product product) {
-        logger.info("Received request to create product: " + product);
+        logger.info("Received request to create product: description={}, brand={}", product.getDescription(), product.getBrand());
         try {
             ProductResponseDto createdProduct = productService.saveProduct(product);
-            logger.info("Successfully created product with sku: " + createdProduct.sku());
+            logger.info("Successfully created product with sku: {}", createdProduct.sku());
             return ResponseEntity.ok(createdProduct);
         } catch (Exception e) {
-            logger.severe("Error creating product: " + e.getMessage());
+            logger.error("Error creating product: {}", e.getMessage());
             throw e;
         }
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponseDto> updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        logger.info("Received request to update product with id: " + id);
+        logger.info("Received request to update product with id: {}", id);
         try {
             ProductResponseDto updatedProduct = productService.updateProduct(id, product);
-            logger.info("Successfully updated product with id: " + updatedProduct.id());
+            logger.info("Successfully updated product with id: {}", updatedProduct.id());
             return ResponseEntity.ok(updatedProduct);
         } catch (Exception e) {
-            logger.severe("Error updating product: " + e.getMessage());
+            logger.error("Error updating product: {}", e.getMessage());
             throw e;
         }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        logger.info("Deleting product with id: " + id);
+        logger.info("Deleting product with id: {}", id);
         productService.softDeleteProduct(id);
         return ResponseEntity.ok().build();
     }
 
     @PutMapping("/reverseSoftDelete/{id}")
     public ResponseEntity<ProductResponseDto> reverseSoftDeleteProduct(@PathVariable Long id) {
-        logger.info("Reverse soft delete of product with id: " + id);
+        logger.info("Reverse soft delete of product with id: {}", id);
         ProductResponseDto product = productService.reverseSoftDelete(id);
         return ResponseEntity.ok(product);
     }
@@ -0,0 +1,63 @@
+package com.retailpulse.controller;
+
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.dto.response.ProductResponseDto;
+import com.retailpulse.service.ReactiveStockReadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read-only lookups for high-volume device traffic. Handlers return {@link Mono}, which Spring MVC completes
+ * asynchronously: on a cache hit the Tomcat thread goes back to the pool while Redis answers, instead of blocking
+ * for the whole request as the equivalent endpoints in {@link InventoryController} and {@link ProductController} do.
+ * Misses load through the same cache as those endpoints on a small dedicated scheduler, and get a 503 when it is
+ * saturated (see {@link ReactiveStockReadService}).
+ */
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveReadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReadController.class);
+    private final ReactiveStockReadService reactiveStockReadService;
+
+    public ReactiveReadController(ReactiveStockReadService reactiveStockReadService) {
+        this.reactiveStockReadService = reactiveStockReadService;
+    }
+
+    @GetMapping("/inventory/{id}")
+    public Mono<InventoryResponseDto> getInventoryById(@PathVariable Long id) {
+        logger.debug("Fetching inventory with id: {}", id);
+        return reactiveStockReadService.getInventoryById(id);
+    }
+
+    @GetMapping("/inventory/businessEntityId/{businessEntityId}")
+    public Mono<List<InventoryResponseDto>> getInventoryByBusinessEntityId(@PathVariable Long businessEntityId) {
+        logger.debug("Fetching inventory with businessEntityId: {}", businessEntityId);
+        return reactiveStockReadService.getInventoryByBusinessEntityId(businessEntityId);
+    }
+
+    @GetMapping("/inventory/productId/{productId}/businessEntityId/{businessEntityId}")
+    public Mono<InventoryResponseDto> getInventoryByProductIdAndBusinessEntityId(@PathVariable Long productId, @PathVariable Long businessEntityId) {
+        logger.debug("Fetching inventory with businessEntityId ({}) and productId ({})", businessEntityId, productId);
+        return reactiveStockReadService.getInventoryByProductIdAndBusinessEntityId(productId, businessEntityId);
+    }
+
+    @GetMapping("/products/{id}")
+    public Mono<ProductResponseDto> getProductById(@PathVariable Long id) {
+        logger.debug("Fetching product with id: {}", id);
+        return reactiveStockReadService.getProductById(id);
+    }
+
+    @GetMapping("/products/sku/{sku}")
+    public Mono<ProductResponseDto> getProductBySku(@PathVariable String sku) {
+        logger.debug("Fetching product with sku: {}", sku);
+        return reactiveStockReadService.getProductBySku(sku);
+    }
+}
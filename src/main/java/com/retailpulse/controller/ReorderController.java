@@ -0,0 +1,48 @@
+package com.retailpulse.controller;
+
+import com.retailpulse.dto.request.ReorderRunRequestDto;
+import com.retailpulse.dto.response.ReorderProposalResponseDto;
+import com.retailpulse.dto.response.ReorderRunResponseDto;
+import com.retailpulse.service.ReorderService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/inventory/reorder")
+public class ReorderController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReorderController.class);
+    private final ReorderService reorderService;
+
+    public ReorderController(ReorderService reorderService) {
+        this.reorderService = reorderService;
+    }
+
+    @PostMapping("/runs")
+    public ResponseEntity<ReorderRunResponseDto> run(@Valid @RequestBody ReorderRunRequestDto request) {
+        logger.info("Starting reorder run from warehouse ({}) with supplier ({})", request.warehouseId(), request.supplierId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(reorderService.run(request.warehouseId(), request.supplierId()));
+    }
+
+    // Draft transfers and supplier orders of one run, in the order they were proposed
+    @GetMapping("/runs/{runId}/proposals")
+    public ResponseEntity<List<ReorderProposalResponseDto>> getProposals(@PathVariable UUID runId,
+                                                                         @RequestParam(defaultValue = "0") int page,
+                                                                         @RequestParam(defaultValue = "1000") int size) {
+        logger.info("Fetching reorder proposals of run {}, page {} of size {}", runId, page, size);
+        return ResponseEntity.ok(reorderService.getProposals(runId, page, size));
+    }
+}
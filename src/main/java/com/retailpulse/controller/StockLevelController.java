@@ -0,0 +1,72 @@
+package com.retailpulse.controller;
+
+import com.retailpulse.dto.response.StockAcrossStoresResponseDto;
+import com.retailpulse.dto.response.StockAsOfResponseDto;
+import com.retailpulse.dto.response.StockLevelResponseDto;
+import com.retailpulse.dto.response.StockVelocityResponseDto;
+import com.retailpulse.service.StockCheckpointService;
+import com.retailpulse.service.StockIndexService;
+import com.retailpulse.service.StockVelocityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory/stock")
+public class StockLevelController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLevelController.class);
+    private final StockIndexService stockIndexService;
+    private final StockCheckpointService stockCheckpointService;
+    private final StockVelocityService stockVelocityService;
+
+    public StockLevelController(StockIndexService stockIndexService, StockCheckpointService stockCheckpointService,
+                                StockVelocityService stockVelocityService) {
+        this.stockIndexService = stockIndexService;
+        this.stockCheckpointService = stockCheckpointService;
+        this.stockVelocityService = stockVelocityService;
+    }
+
+    @GetMapping("/productId/{productId}/businessEntityId/{businessEntityId}")
+    public ResponseEntity<StockLevelResponseDto> getStockLevel(@PathVariable Long productId, @PathVariable Long businessEntityId) {
+        logger.info("Fetching stock level with businessEntityId ({}) and productId ({})", businessEntityId, productId);
+        return ResponseEntity.ok(stockIndexService.getStockLevel(productId, businessEntityId));
+    }
+
+    // at is an ISO-8601 instant, e.g. 2025-06-30T16:00:00Z
+    @GetMapping("/productId/{productId}/businessEntityId/{businessEntityId}/as-of")
+    public ResponseEntity<StockAsOfResponseDto> getStockAsOf(@PathVariable Long productId, @PathVariable Long businessEntityId,
+                                                             @RequestParam Instant at) {
+        logger.info("Fetching stock level with businessEntityId ({}) and productId ({}) as of {}", businessEntityId, productId, at);
+        return ResponseEntity.ok(stockCheckpointService.getStockAsOf(productId, businessEntityId, at));
+    }
+
+    @GetMapping("/productId/{productId}/businessEntityId/{businessEntityId}/velocity")
+    public ResponseEntity<StockVelocityResponseDto> getVelocity(@PathVariable Long productId, @PathVariable Long businessEntityId) {
+        logger.info("Fetching stock velocity with businessEntityId ({}) and productId ({})", businessEntityId, productId);
+        return ResponseEntity.ok(stockVelocityService.getVelocity(productId, businessEntityId));
+    }
+
+    // Every product that moved at the business entity in the last 90 days, for reorder planning in bulk
+    @GetMapping("/velocity/businessEntityId/{businessEntityId}")
+    public ResponseEntity<List<StockVelocityResponseDto>> getVelocities(@PathVariable Long businessEntityId) {
+        logger.info("Fetching stock velocities with businessEntityId ({})", businessEntityId);
+        return ResponseEntity.ok(stockVelocityService.getVelocities(businessEntityId));
+    }
+
+    @GetMapping("/productId/{productId}")
+    public ResponseEntity<StockAcrossStoresResponseDto> getStockAcrossStores(@PathVariable Long productId,
+                                                                             @RequestParam(required = false) List<Long> businessEntityIds) {
+        logger.info("Fetching stock across business entities ({}) for productId ({})",
+                businessEntityIds == null ? "all" : businessEntityIds, productId);
+        return ResponseEntity.ok(stockIndexService.getStockAcrossStores(productId, businessEntityIds));
+    }
+}
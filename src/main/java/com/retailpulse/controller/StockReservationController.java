@@ -0,0 +1,56 @@
+package com.retailpulse.controller;
+
+import com.retailpulse.dto.request.StockReservationRequestDto;
+import com.retailpulse.dto.response.StockAvailabilityResponseDto;
+import com.retailpulse.dto.response.StockReservationResponseDto;
+import com.retailpulse.service.StockReservationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/inventory")
+public class StockReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationController.class);
+    private final StockReservationService stockReservationService;
+
+    public StockReservationController(StockReservationService stockReservationService) {
+        this.stockReservationService = stockReservationService;
+    }
+
+    @PostMapping("/reservations")
+    public ResponseEntity<StockReservationResponseDto> reserve(@Valid @RequestBody StockReservationRequestDto request) {
+        logger.info("Reserving stock with businessEntityId ({}), {} item(s)", request.businessEntityId(), request.items().size());
+        return ResponseEntity.status(HttpStatus.CREATED).body(stockReservationService.reserve(request));
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<Void> commit(@PathVariable String reservationId) {
+        logger.info("Committing stock reservation {}", reservationId);
+        stockReservationService.commit(reservationId);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> release(@PathVariable String reservationId) {
+        logger.info("Releasing stock reservation {}", reservationId);
+        stockReservationService.release(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/availability/productId/{productId}/businessEntityId/{businessEntityId}")
+    public ResponseEntity<StockAvailabilityResponseDto> getAvailability(@PathVariable Long productId, @PathVariable Long businessEntityId) {
+        logger.info("Fetching available-to-sell with businessEntityId ({}) and productId ({})", businessEntityId, productId);
+        return ResponseEntity.ok(stockReservationService.getAvailability(productId, businessEntityId));
+    }
+}
@@ -0,0 +1,79 @@
+package com.retailpulse.controller;
+
+import com.retailpulse.dto.request.StockThresholdRequestDto;
+import com.retailpulse.dto.response.StockAlertResponseDto;
+import com.retailpulse.dto.response.StockThresholdResponseDto;
+import com.retailpulse.service.StockAlertService;
+import com.retailpulse.service.StockThresholdService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory")
+public class StockThresholdController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockThresholdController.class);
+    private final StockThresholdService stockThresholdService;
+    private final StockAlertService stockAlertService;
+
+    public StockThresholdController(StockThresholdService stockThresholdService, StockAlertService stockAlertService) {
+        this.stockThresholdService = stockThresholdService;
+        this.stockAlertService = stockAlertService;
+    }
+
+    @PutMapping("/thresholds/productId/{productId}/businessEntityId/{businessEntityId}")
+    public ResponseEntity<StockThresholdResponseDto> setThreshold(@PathVariable Long productId, @PathVariable Long businessEntityId,
+                                                                  @Valid @RequestBody StockThresholdRequestDto request) {
+        logger.info("Setting reorder point {} with businessEntityId ({}) and productId ({})", request.reorderPoint(), businessEntityId, productId);
+        return ResponseEntity.ok(stockThresholdService.setThreshold(productId, businessEntityId, request.reorderPoint(),
+                request.maxLevel()));
+    }
+
+    @DeleteMapping("/thresholds/productId/{productId}/businessEntityId/{businessEntityId}")
+    public ResponseEntity<Void> deleteThreshold(@PathVariable Long productId, @PathVariable Long businessEntityId) {
+        logger.info("Deleting reorder point with businessEntityId ({}) and productId ({})", businessEntityId, productId);
+        stockThresholdService.deleteThreshold(productId, businessEntityId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/thresholds/businessEntityId/{businessEntityId}")
+    public ResponseEntity<List<StockThresholdResponseDto>> getThresholds(@PathVariable Long businessEntityId) {
+        logger.info("Fetching reorder points with businessEntityId ({})", businessEntityId);
+        return ResponseEntity.ok(stockThresholdService.getThresholds(businessEntityId));
+    }
+
+    @GetMapping("/thresholds/businessEntityId/{businessEntityId}/low")
+    public ResponseEntity<List<StockThresholdResponseDto>> getLowStock(@PathVariable Long businessEntityId) {
+        logger.info("Fetching low stock with businessEntityId ({})", businessEntityId);
+        return ResponseEntity.ok(stockThresholdService.getLowStock(businessEntityId));
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<List<StockAlertResponseDto>> getAlerts(@RequestParam(required = false) Long businessEntityId,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        logger.info("Fetching stock alerts with businessEntityId ({}), limit {}", businessEntityId, limit);
+        return ResponseEntity.ok(stockAlertService.getRecentAlerts(businessEntityId, limit));
+    }
+
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts(@RequestParam(required = false) Long businessEntityId,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        logger.info("Opening stock alert stream with businessEntityId ({})", businessEntityId);
+        return stockAlertService.subscribe(businessEntityId, lastEventId);
+    }
+}
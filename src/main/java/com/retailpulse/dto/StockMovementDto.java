@@ -0,0 +1,12 @@
+package com.retailpulse.dto;
+
+/**
+ * Net effect of a run of inventory transactions on one business entity's stock of a product.
+ */
+public record StockMovementDto(long transactions, long quantity, double totalCostPrice) {
+
+    public StockMovementDto plus(StockMovementDto other) {
+        return new StockMovementDto(transactions + other.transactions, quantity + other.quantity,
+                totalCostPrice + other.totalCostPrice);
+    }
+}
@@ -0,0 +1,7 @@
+package com.retailpulse.dto;
+
+/**
+ * Units out of one (product, business entity) over the last 7, 28 and 90 days.
+ */
+public record StockVelocityDto(long productId, long unitsOut7, long unitsOut28, long unitsOut90) {
+}
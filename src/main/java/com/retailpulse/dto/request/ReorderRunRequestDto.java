@@ -0,0 +1,10 @@
+package com.retailpulse.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+// Stores are replenished from warehouseId; whatever the warehouse cannot cover is ordered from supplierId
+public record ReorderRunRequestDto(
+    @NotNull Long warehouseId,
+    @NotNull Long supplierId
+) {
+}
@@ -0,0 +1,17 @@
+package com.retailpulse.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record StockReservationRequestDto(
+    @Min(1) long businessEntityId,
+
+    @NotEmpty
+    List<InventoryUpdateRequestDto.InventoryItem> items,
+
+    // Optional; defaults to app.reservation.default-ttl and is capped at app.reservation.max-ttl
+    @Min(1) Long ttlSeconds
+) {
+}
@@ -0,0 +1,9 @@
+package com.retailpulse.dto.request;
+
+import jakarta.validation.constraints.Min;
+
+public record StockThresholdRequestDto(
+    @Min(0) int reorderPoint,
+    @Min(0) Integer maxLevel
+) {
+}
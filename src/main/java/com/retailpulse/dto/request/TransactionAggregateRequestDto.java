@@ -0,0 +1,16 @@
+package com.retailpulse.dto.request;
+
+import com.retailpulse.cache.TransactionColumns;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+
+// [startDateTime, endDateTime); productId and businessEntityId narrow the rows when set, groupBy defaults to NONE
+public record TransactionAggregateRequestDto(
+    @NotNull Instant startDateTime,
+    @NotNull Instant endDateTime,
+    Long productId,
+    Long businessEntityId,
+    TransactionColumns.GroupBy groupBy
+) {
+}
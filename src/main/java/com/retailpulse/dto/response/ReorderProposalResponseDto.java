@@ -0,0 +1,8 @@
+package com.retailpulse.dto.response;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ReorderProposalResponseDto(UUID id, UUID runId, Long productId, int quantity, double costPricePerUnit,
+                                         Long source, Long destination, Instant insertedAt) {
+}
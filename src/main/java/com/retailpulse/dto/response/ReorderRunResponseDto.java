@@ -0,0 +1,7 @@
+package com.retailpulse.dto.response;
+
+import java.util.UUID;
+
+public record ReorderRunResponseDto(UUID runId, long warehouseId, long supplierId, int products, long transfers,
+                                    long transferUnits, long supplierOrders, long supplierUnits, long elapsedMillis) {
+}
@@ -0,0 +1,6 @@
+package com.retailpulse.dto.response;
+
+import java.util.List;
+
+public record StockAcrossStoresResponseDto(long productId, long totalQuantity, List<StockLevelResponseDto> stores) {
+}
@@ -0,0 +1,14 @@
+package com.retailpulse.dto.response;
+
+import java.time.Instant;
+
+public record StockAlertResponseDto(String id, Type type, long productId, long businessEntityId, int reorderPoint,
+                                    int previousQuantity, int quantity, Instant raisedAt) {
+
+    public enum Type {
+        // Quantity fell from above the reorder point to at or below it
+        LOW_STOCK,
+        // Quantity rose from at or below the reorder point to above it
+        RESTOCKED
+    }
+}
@@ -0,0 +1,8 @@
+package com.retailpulse.dto.response;
+
+import java.time.Instant;
+
+// checkpointAt is null when no checkpoint was old enough and every transaction up to asOf was replayed
+public record StockAsOfResponseDto(long productId, long businessEntityId, Instant asOf, int quantity, double totalCostPrice,
+                                   Instant checkpointAt, long replayedTransactions) {
+}
@@ -0,0 +1,5 @@
+package com.retailpulse.dto.response;
+
+public record StockAvailabilityResponseDto(long productId, long businessEntityId, int quantity, int held,
+                                           int availableToSell) {
+}
@@ -0,0 +1,4 @@
+package com.retailpulse.dto.response;
+
+public record StockLevelResponseDto(long productId, long businessEntityId, int quantity, double totalCostPrice) {
+}
@@ -0,0 +1,10 @@
+package com.retailpulse.dto.response;
+
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record StockReservationResponseDto(String reservationId, long businessEntityId,
+                                          List<InventoryUpdateRequestDto.InventoryItem> items, Instant expiresAt) {
+}
@@ -0,0 +1,5 @@
+package com.retailpulse.dto.response;
+
+public record StockThresholdResponseDto(long productId, long businessEntityId, int reorderPoint, Integer maxLevel,
+                                        int quantity, boolean low) {
+}
@@ -0,0 +1,6 @@
+package com.retailpulse.dto.response;
+
+// Units per day over each window; daysOfCover is quantity over the 28-day rate, null when nothing moved
+public record StockVelocityResponseDto(long productId, long businessEntityId, int quantity, double unitsPerDay7,
+                                       double unitsPerDay28, double unitsPerDay90, Double daysOfCover) {
+}
@@ -0,0 +1,10 @@
+package com.retailpulse.dto.response;
+
+import com.retailpulse.cache.TransactionColumns;
+
+import java.time.Instant;
+import java.util.List;
+
+public record TransactionAggregateResponseDto(Instant startDateTime, Instant endDateTime,
+                                              TransactionColumns.GroupBy groupBy, List<TransactionColumns.Group> groups) {
+}
@@ -21,4 +21,10 @@ public class Inventory {
 
     @Column(nullable = false)
     private double totalCostPrice = 0.0;
+
+    // Bumped by every write, including the bulk updates in InventoryRepository and SalesDeductionCoalescer, so stock
+    // change events can be ordered per row
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
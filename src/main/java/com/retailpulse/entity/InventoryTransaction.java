@@ -3,16 +3,22 @@ package com.retailpulse.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Data
 @Entity
+// Replay for as-of stock queries reads one product's transactions in a time range
+@Table(indexes = @Index(name = "idx_inventory_transaction_product_time", columnList = "productId, insertedAt"))
 public class InventoryTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private UUID id; // Acts like a transactionId
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private UUID id; // Acts like a transactionId - time-ordered (v7) so inserts append to the clustered index
 
     @Column(nullable = false)
     private Long productId; // ProductId - Unique Identifier for Product
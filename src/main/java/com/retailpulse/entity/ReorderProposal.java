@@ -0,0 +1,45 @@
+package com.retailpulse.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A draft inventory transaction proposed by a reorder run: warehouse to store for a transfer, supplier to
+ * warehouse for a supplier order. Nothing moves until it is submitted as an {@link InventoryTransaction}.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_reorder_proposal_run", columnList = "runId, id"))
+public class ReorderProposal {
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private UUID id; // Time-ordered (v7), assigned by the reorder engine
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private UUID runId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private double costPricePerUnit;
+
+    @Column(nullable = false)
+    private Long source;
+
+    @Column(nullable = false)
+    private Long destination;
+
+    @Column(nullable = false)
+    private Instant insertedAt;
+}
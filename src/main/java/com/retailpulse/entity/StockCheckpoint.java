@@ -0,0 +1,47 @@
+package com.retailpulse.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The stock of one (product, business entity) at a checkpoint. Keyed so the latest checkpoint at or before an
+ * instant is one index seek; takenAt is indexed on its own for pruning.
+ */
+@Data
+@Entity
+@IdClass(StockCheckpoint.Key.class)
+@Table(indexes = @Index(name = "idx_stock_checkpoint_taken_at", columnList = "takenAt"))
+public class StockCheckpoint {
+    @Id
+    private Long productId;
+
+    @Id
+    private Long businessEntityId;
+
+    @Id
+    private Instant takenAt;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private double totalCostPrice;
+
+    // The inventory row's version when copied, so the next checkpoint can skip the row while it is unchanged
+    @Column(nullable = false)
+    private long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Long businessEntityId;
+        private Instant takenAt;
+    }
+}
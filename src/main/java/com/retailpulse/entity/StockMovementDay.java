@@ -0,0 +1,39 @@
+package com.retailpulse.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Units that left one (product, business entity) on one UTC day: sales and transfers out. The daily buckets behind
+ * the sliding-window velocities (see StockVelocityService).
+ */
+@Data
+@Entity
+@IdClass(StockMovementDay.Key.class)
+public class StockMovementDay {
+    @Id
+    private Long businessEntityId;
+
+    @Id
+    private Long productId;
+
+    @Id
+    private LocalDate movementDate;
+
+    @Column(nullable = false)
+    private long unitsOut;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long businessEntityId;
+        private Long productId;
+        private LocalDate movementDate;
+    }
+}
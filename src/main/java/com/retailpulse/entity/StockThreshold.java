@@ -0,0 +1,26 @@
+package com.retailpulse.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"businessEntityId", "productId"}))
+public class StockThreshold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long businessEntityId;
+
+    // Stock is low once the quantity is at or below this
+    @Column(nullable = false)
+    private int reorderPoint;
+
+    // Replenishment refills up to this; null leaves it to the reorder engine's cover target (see ReorderService)
+    private Integer maxLevel;
+}
@@ -0,0 +1,85 @@
+package com.retailpulse.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48-bit Unix millisecond timestamp, a 12-bit sequence
+ * and 62 random bits. Stored as BINARY(16) the values sort by creation time, so new rows are
+ * appended to the right-hand side of the clustered index instead of landing on a random page.
+ *
+ * Within one millisecond the 12-bit field is used as a counter, so ids generated by this JVM are
+ * strictly increasing. When the counter overflows the timestamp is advanced by one millisecond.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // Random start within the millisecond leaves headroom for the counter before it overflows
+    private static final int SEQUENCE_RANDOM_START_BOUND = 1 << (SEQUENCE_BITS - 2);
+
+    // Last issued (timestamp << 12 | sequence)
+    private static final AtomicLong lastState = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    public static UUID next() {
+        return next(System.currentTimeMillis());
+    }
+
+    static UUID next(long nowMillis) {
+        long state;
+        long nextState;
+        do {
+            state = lastState.get();
+            long lastMillis = state >>> SEQUENCE_BITS;
+            if (nowMillis > lastMillis) {
+                nextState = (nowMillis << SEQUENCE_BITS) | ThreadLocalRandom.current().nextInt(SEQUENCE_RANDOM_START_BOUND);
+            } else {
+                // Same millisecond or clock moved backwards: keep counting from the last issued value
+                nextState = state + 1;
+            }
+        } while (!lastState.compareAndSet(state, nextState));
+
+        return fromState(nextState);
+    }
+
+    // Forgets the last issued id, so tests that generate at a fixed or future time do not skew later ones
+    static void reset() {
+        lastState.set(0);
+    }
+
+    private static UUID fromState(long state) {
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & SEQUENCE_MASK;
+
+        long msb = (millis << 16) | (0x7L << 12) | sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the creation time encoded in a version 7 UUID, or -1 for any other version.
+     */
+    public static long timestampOf(UUID uuid) {
+        if (uuid.version() != 7) {
+            return -1;
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -3,6 +3,8 @@ package com.retailpulse.exception;
 import com.retailpulse.controller.ErrorResponse;
 import com.retailpulse.controller.exception.ApplicationException;
 import com.retailpulse.service.exception.BusinessException;
+import com.retailpulse.service.exception.ServiceUnavailableException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -36,4 +38,18 @@ public class GlobalExceptionHandler {
         ErrorResponse errorResponse = new ErrorResponse(e.getErrorCode(), e.getMessage());
         return ResponseEntity.badRequest().body(errorResponse);
     }
+
+    // Lost a lock or version race with a concurrent write (optimistic lock failure, lock wait timeout, deadlock):
+    // nothing was applied and the same request can simply be sent again
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyFailure(ConcurrencyFailureException e) {
+        ErrorResponse errorResponse = new ErrorResponse("CONCURRENT_UPDATE", "The record was changed concurrently, retry the request");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException e) {
+        ErrorResponse errorResponse = new ErrorResponse(e.getErrorCode(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
 }
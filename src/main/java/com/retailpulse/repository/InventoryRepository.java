@@ -1,9 +1,16 @@
 package com.retailpulse.repository;
 
+import com.retailpulse.dto.response.InventoryResponseDto;
 import com.retailpulse.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +19,35 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductIdAndBusinessEntityId(long productId, long businessEntityId);
     List<Inventory> findByProductId(Long productId);
     List<Inventory> findByBusinessEntityId(Long businessEntityId);
+    List<Inventory> findByBusinessEntityIdAndProductIdIn(long businessEntityId, Collection<Long> productIds);
+
+    // SELECT ... FOR UPDATE: read-modify-write callers hold the row until commit instead of racing on its version
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Inventory> findForUpdateById(long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Inventory> findForUpdateByProductIdAndBusinessEntityId(long productId, long businessEntityId);
+
+    // Relative change applied by the database, so it never overwrites a concurrent write to the same row
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, i.totalCostPrice = i.totalCostPrice + :totalCostPrice, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.productId = :productId AND i.businessEntityId = :businessEntityId")
+    int adjust(@Param("productId") long productId, @Param("businessEntityId") long businessEntityId,
+               @Param("quantity") int quantity, @Param("totalCostPrice") double totalCostPrice);
+
+    // Read-only projections: rows are mapped straight into the response record, no managed entities
+    @Query("SELECT new com.retailpulse.dto.response.InventoryResponseDto(i.id, i.productId, i.businessEntityId, i.quantity, i.totalCostPrice) " +
+            "FROM Inventory i")
+    List<InventoryResponseDto> findAllInventoryResponses();
+
+    @Query("SELECT new com.retailpulse.dto.response.InventoryResponseDto(i.id, i.productId, i.businessEntityId, i.quantity, i.totalCostPrice) " +
+            "FROM Inventory i " +
+            "WHERE i.productId = :productId")
+    List<InventoryResponseDto> findInventoryResponsesByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT new com.retailpulse.dto.response.InventoryResponseDto(i.id, i.productId, i.businessEntityId, i.quantity, i.totalCostPrice) " +
+            "FROM Inventory i " +
+            "WHERE i.businessEntityId = :businessEntityId")
+    List<InventoryResponseDto> findInventoryResponsesByBusinessEntityId(@Param("businessEntityId") Long businessEntityId);
 }
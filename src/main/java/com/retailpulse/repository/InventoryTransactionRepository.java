@@ -1,5 +1,6 @@
 package com.retailpulse.repository;
 
+import com.retailpulse.dto.StockMovementDto;
 import com.retailpulse.dto.response.InventoryTransactionProductResponseDto;
 import com.retailpulse.entity.InventoryTransaction;
 import feign.Param;
@@ -36,4 +37,18 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     )
     List<InventoryTransactionProductResponseDto> findAllWithProductAndTime(@Param("startDateTime") Instant startDateTime,
                                                                              @Param("endDateTime") Instant endDateTime);
+
+    // Transfers into the business entity add, transfers out of it subtract; (from, to]
+    @Query("SELECT new com.retailpulse.dto.StockMovementDto(COUNT(it), " +
+            "COALESCE(SUM(CASE WHEN it.destination = :businessEntityId THEN it.quantity ELSE -it.quantity END), 0), " +
+            "COALESCE(SUM(CASE WHEN it.destination = :businessEntityId THEN it.quantity * it.costPricePerUnit " +
+            "ELSE -it.quantity * it.costPricePerUnit END), 0.0)) " +
+            "FROM InventoryTransaction it " +
+            "WHERE it.productId = :productId " +
+            "AND (it.source = :businessEntityId OR it.destination = :businessEntityId) " +
+            "AND it.insertedAt > :from " +
+            "AND it.insertedAt <= :to"
+    )
+    StockMovementDto netMovement(@Param("productId") long productId, @Param("businessEntityId") long businessEntityId,
+                                 @Param("from") Instant from, @Param("to") Instant to);
 }
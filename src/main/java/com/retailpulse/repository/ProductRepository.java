@@ -1,12 +1,21 @@
 package com.retailpulse.repository;
 
+import com.retailpulse.dto.response.ProductResponseDto;
 import com.retailpulse.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findBySku(String sku);
+
+    // Read-only projection: rows are mapped straight into the response record, no managed entities
+    @Query("SELECT new com.retailpulse.dto.response.ProductResponseDto(p.id, p.sku, p.description, p.category, p.subcategory, " +
+            "p.brand, p.origin, p.uom, p.vendorCode, p.barcode, p.rrp, p.active) " +
+            "FROM Product p")
+    List<ProductResponseDto> findAllProductResponses();
 }
@@ -0,0 +1,26 @@
+package com.retailpulse.repository;
+
+import com.retailpulse.entity.ReorderProposal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReorderProposalRepository extends JpaRepository<ReorderProposal, UUID> {
+    List<ReorderProposal> findByRunIdOrderByIdAsc(UUID runId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ReorderProposal p WHERE p.runId = :runId")
+    int deleteRun(@Param("runId") UUID runId);
+
+    @Modifying
+    @Query("DELETE FROM ReorderProposal p WHERE p.insertedAt < :before")
+    int deleteInsertedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,38 @@
+package com.retailpulse.repository;
+
+import com.retailpulse.entity.StockCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface StockCheckpointRepository extends JpaRepository<StockCheckpoint, StockCheckpoint.Key> {
+    Optional<StockCheckpoint> findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(
+            long productId, long businessEntityId, Instant at);
+
+    @Query("SELECT MAX(i.id) FROM Inventory i")
+    Long maxInventoryId();
+
+    // Copies the inventory rows with ids in (afterId, untilId] whose latest checkpoint no longer matches them, or
+    // was taken before refreshAfter. One statement per range, so no row lock is held in application code.
+    @Modifying
+    @Query("INSERT INTO StockCheckpoint (productId, businessEntityId, takenAt, quantity, totalCostPrice, version) " +
+            "SELECT i.productId, i.businessEntityId, :takenAt, i.quantity, i.totalCostPrice, i.version FROM Inventory i " +
+            "WHERE i.id > :afterId AND i.id <= :untilId AND NOT EXISTS (" +
+            "SELECT 1 FROM StockCheckpoint c WHERE c.productId = i.productId AND c.businessEntityId = i.businessEntityId " +
+            "AND c.version = i.version AND c.quantity = i.quantity AND c.totalCostPrice = i.totalCostPrice " +
+            "AND c.takenAt >= :refreshAfter AND c.takenAt = (SELECT MAX(l.takenAt) FROM StockCheckpoint l " +
+            "WHERE l.productId = i.productId AND l.businessEntityId = i.businessEntityId))")
+    int checkpointChanged(@Param("afterId") long afterId, @Param("untilId") long untilId,
+                          @Param("takenAt") Instant takenAt, @Param("refreshAfter") Instant refreshAfter);
+
+    // At most limit rows per call, through idx_stock_checkpoint_taken_at
+    @Modifying
+    @Query(value = "DELETE FROM stock_checkpoint WHERE taken_at < :before LIMIT :limit", nativeQuery = true)
+    int deleteTakenBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -0,0 +1,47 @@
+package com.retailpulse.repository;
+
+import com.retailpulse.dto.StockVelocityDto;
+import com.retailpulse.entity.StockMovementDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StockMovementDayRepository extends JpaRepository<StockMovementDay, StockMovementDay.Key> {
+
+    // All three windows from one range read of at most 90 buckets per product
+    @Query("SELECT new com.retailpulse.dto.StockVelocityDto(m.productId, " +
+            "SUM(CASE WHEN m.movementDate >= :from7 THEN m.unitsOut ELSE 0 END), " +
+            "SUM(CASE WHEN m.movementDate >= :from28 THEN m.unitsOut ELSE 0 END), " +
+            "SUM(m.unitsOut)) " +
+            "FROM StockMovementDay m " +
+            "WHERE m.businessEntityId = :businessEntityId " +
+            "AND m.movementDate >= :from90 " +
+            "GROUP BY m.productId"
+    )
+    List<StockVelocityDto> findVelocities(@Param("businessEntityId") long businessEntityId, @Param("from7") LocalDate from7,
+                                          @Param("from28") LocalDate from28, @Param("from90") LocalDate from90);
+
+    @Query("SELECT new com.retailpulse.dto.StockVelocityDto(m.productId, " +
+            "SUM(CASE WHEN m.movementDate >= :from7 THEN m.unitsOut ELSE 0 END), " +
+            "SUM(CASE WHEN m.movementDate >= :from28 THEN m.unitsOut ELSE 0 END), " +
+            "SUM(m.unitsOut)) " +
+            "FROM StockMovementDay m " +
+            "WHERE m.businessEntityId = :businessEntityId " +
+            "AND m.productId = :productId " +
+            "AND m.movementDate >= :from90 " +
+            "GROUP BY m.productId"
+    )
+    List<StockVelocityDto> findVelocity(@Param("productId") long productId, @Param("businessEntityId") long businessEntityId,
+                                        @Param("from7") LocalDate from7, @Param("from28") LocalDate from28,
+                                        @Param("from90") LocalDate from90);
+
+    @Modifying
+    @Query("DELETE FROM StockMovementDay m WHERE m.movementDate < :before")
+    int deleteBefore(@Param("before") LocalDate before);
+}
@@ -0,0 +1,16 @@
+package com.retailpulse.repository;
+
+import com.retailpulse.entity.StockThreshold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockThresholdRepository extends JpaRepository<StockThreshold, Long> {
+    Optional<StockThreshold> findByProductIdAndBusinessEntityId(long productId, long businessEntityId);
+    List<StockThreshold> findByBusinessEntityId(long businessEntityId);
+    List<StockThreshold> findByBusinessEntityIdAndProductIdIn(long businessEntityId, Collection<Long> productIds);
+}
@@ -1,32 +1,75 @@
 package com.retailpulse.service;
 
+import com.retailpulse.cache.SingleFlight;
 import com.retailpulse.client.BusinessEntityClient;
 import com.retailpulse.dto.response.BusinessEntityResponseDto;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Calls to the business-entity service go through a semaphore bulkhead and a circuit breaker (both named
+ * {@value #BUSINESS_ENTITY}, configured under resilience4j.* in application.yaml). Every successful
+ * response is kept as the last known good value; when the breaker is open, the bulkhead is full or the
+ * call times out, callers are served that value instead of waiting on a struggling dependency. Concurrent
+ * lookups of the same id (or of the full list) share one remote call.
+ */
 @Service
 public class BusinessEntityService {
     private static final Logger log = LoggerFactory.getLogger(BusinessEntityService.class);
 
+    public static final String BUSINESS_ENTITY = "business-entity";
+
     private final BusinessEntityClient businessEntityClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    private final Map<Long, BusinessEntityResponseDto> lastKnownGood = new ConcurrentHashMap<>();
+    private volatile List<BusinessEntityResponseDto> lastKnownGoodList;
 
-    public BusinessEntityService(BusinessEntityClient businessEntityClient) {
+    private final SingleFlight<Long, BusinessEntityResponseDto> businessEntityLookups = new SingleFlight<>();
+    private final SingleFlight<String, List<BusinessEntityResponseDto>> businessEntityListLookups = new SingleFlight<>();
+
+    @Autowired
+    public BusinessEntityService(BusinessEntityClient businessEntityClient,
+                                 CircuitBreakerRegistry circuitBreakerRegistry,
+                                 BulkheadRegistry bulkheadRegistry) {
         this.businessEntityClient = businessEntityClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(BUSINESS_ENTITY);
+        this.bulkhead = bulkheadRegistry.bulkhead(BUSINESS_ENTITY);
     }
 
     public boolean isValidBusinessEntity(Long businessEntityId) {
         try {
-            BusinessEntityResponseDto response = businessEntityClient.getBusinessEntity(businessEntityId);
+            BusinessEntityResponseDto response = getBusinessEntity(businessEntityId);
             if (response == null) {
                 log.warn("isValidBusinessEntity - Business entity {} cannot be retrieved (null response)", businessEntityId);
-                throw new IllegalArgumentException("Business entity cannot be retrieved (null response): " + businessEntityId);
+                return true;
             }
             return Boolean.TRUE.equals(response.active());
-        } catch (Exception e) {
+        } catch (FeignException.NotFound e) {
+            return false;
+        } catch (FeignException e) {
+            log.warn("isValidBusinessEntity - Business entity {} lookup rejected with status {}; treating as valid",
+                    businessEntityId, e.status());
+            return true;
+        } catch (BusinessEntityUnavailableException e) {
+            // No answer and nothing cached for this id: fail open so stores can keep selling while the
+            // business-entity service is down
+            log.warn("isValidBusinessEntity - {}; treating business entity {} as valid", e.getMessage(), businessEntityId);
             return true;
         }
     }
@@ -38,7 +81,7 @@ public class BusinessEntityService {
         }
 
         try {
-            BusinessEntityResponseDto response = businessEntityClient.getBusinessEntity(businessEntityId);
+            BusinessEntityResponseDto response = getBusinessEntity(businessEntityId);
             if (response == null) {
                 log.warn("isExternalBusinessEntity - Business entity {} cannot be retrieved (null response)", businessEntityId);
                 throw new IllegalArgumentException("Business entity cannot be retrieved (null response): " + businessEntityId);
@@ -52,15 +95,79 @@ public class BusinessEntityService {
 
     public List<BusinessEntityResponseDto> allBusinessEntityResponseDetails() {
         try {
-            List<BusinessEntityResponseDto> response = businessEntityClient.getAllBusinessEntity();
+            List<BusinessEntityResponseDto> response = businessEntityListLookups.execute("all",
+                    () -> guarded(businessEntityClient::getAllBusinessEntity));
             if (response == null) {
                 log.warn("businessEntityResponseDetails - Business entity cannot be retrieved (null response)");
                 throw new IllegalArgumentException("businessEntityResponseDetails - Business entity cannot be retrieved (null response): ");
             }
+            lastKnownGoodList = response;
+            response.forEach(this::remember);
             return response;
+        } catch (BusinessEntityUnavailableException e) {
+            List<BusinessEntityResponseDto> stale = lastKnownGoodList;
+            if (stale != null) {
+                log.warn("businessEntityResponseDetails - {}; serving last known good list", e.getMessage());
+                return stale;
+            }
+            log.error("businessEntityResponseDetails - Failed to fetch business entity: {}", e.getMessage(), e);
+            throw new IllegalStateException("businessEntityResponseDetails - Unable to fetch business entity: " + e);
         } catch (Exception e) {
             log.error("businessEntityResponseDetails - Failed to fetch business entity: {}", e.getMessage(), e);
             throw new IllegalStateException("businessEntityResponseDetails - Unable to fetch business entity: " + e);
         }
     }
-}
\ No newline at end of file
+
+    private BusinessEntityResponseDto getBusinessEntity(Long businessEntityId) {
+        try {
+            BusinessEntityResponseDto response = businessEntityLookups.execute(businessEntityId,
+                    () -> guarded(() -> businessEntityClient.getBusinessEntity(businessEntityId)));
+            remember(response);
+            return response;
+        } catch (BusinessEntityUnavailableException e) {
+            BusinessEntityResponseDto stale = lastKnownGood.get(businessEntityId);
+            if (stale != null) {
+                log.warn("Business entity {} - {}; serving last known good value", businessEntityId, e.getMessage());
+                return stale;
+            }
+            throw e;
+        }
+    }
+
+    private void remember(BusinessEntityResponseDto businessEntity) {
+        if (businessEntity != null && businessEntity.id() != null) {
+            lastKnownGood.put(businessEntity.id(), businessEntity);
+        }
+    }
+
+    /**
+     * Runs the remote call inside the bulkhead and circuit breaker. Rejections, timeouts and 5xx answers
+     * surface as {@link BusinessEntityUnavailableException}; 4xx answers are definitive and propagate as is.
+     */
+    private <T> T guarded(Supplier<T> call) {
+        Supplier<T> decorated = CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call));
+        try {
+            return decorated.get();
+        } catch (FeignException.FeignClientException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BusinessEntityUnavailableException(describe(e), e);
+        }
+    }
+
+    private String describe(RuntimeException e) {
+        return switch (e) {
+            case CallNotPermittedException ignored ->
+                    "circuit breaker " + circuitBreaker.getName() + " is " + circuitBreaker.getState();
+            case BulkheadFullException ignored ->
+                    "bulkhead " + bulkhead.getName() + " is full";
+            default -> "business-entity service unavailable (" + e.getClass().getSimpleName() + ": " + e.getMessage() + ")";
+        };
+    }
+
+    static class BusinessEntityUnavailableException extends RuntimeException {
+        BusinessEntityUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.retailpulse.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-cache generation counters kept in Redis so every replica sees the same value. Writers bump the
+ * generation of each list cache they invalidate; list endpoints derive their ETag from the current
+ * generations, so an unchanged generation means the client's copy is still current.
+ *
+ * The bump also clears the list cache itself, before incrementing and only once the write has committed. A
+ * {@code @CacheEvict} on the writer would run after the method returns, which is after the bump, so a list read in
+ * between would pair the new ETag with the old cached list and clients would get 304s on stale data.
+ */
+@Service
+public class CacheGenerationService {
+    private static final Logger log = LoggerFactory.getLogger(CacheGenerationService.class);
+
+    public static final String INVENTORY_LIST = "inventoryList";
+    public static final String PRODUCT_LIST = "productList";
+    public static final String INVENTORY_TRANSACTION_PRODUCT_LIST = "inventoryTransactionProductList";
+
+    private static final String KEY_PREFIX = "cache-generation:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+
+    public CacheGenerationService(StringRedisTemplate redisTemplate, CacheManager cacheManager) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Clears the given list caches and then increments their generations. Inside a transaction both are deferred
+     * until after commit, otherwise a reader could pair the new generation with the old rows and keep that ETag.
+     */
+    public void bump(String... cacheNames) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(cacheNames);
+                }
+            });
+        } else {
+            increment(cacheNames);
+        }
+    }
+
+    /**
+     * Strong ETag for the current generations of the given caches, or null when Redis cannot be reached
+     * (callers then skip conditional handling and always return the full body).
+     */
+    public String eTag(String... cacheNames) {
+        try {
+            List<String> generations = redisTemplate.opsForValue().multiGet(Arrays.stream(cacheNames).map(this::key).toList());
+            StringBuilder eTag = new StringBuilder("\"");
+            for (int i = 0; i < cacheNames.length; i++) {
+                String generation = generations == null ? null : generations.get(i);
+                if (i > 0) {
+                    eTag.append('.');
+                }
+                eTag.append(cacheNames[i]).append('-').append(generation == null ? "0" : generation);
+            }
+            return eTag.append('"').toString();
+        } catch (RuntimeException e) {
+            log.warn("Unable to read cache generations {}: {}", cacheNames, e.getMessage());
+            return null;
+        }
+    }
+
+    private void increment(String... cacheNames) {
+        for (String cacheName : cacheNames) {
+            try {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+                redisTemplate.opsForValue().increment(key(cacheName));
+            } catch (RuntimeException e) {
+                // A missed clear or bump would let clients keep a stale list, so make it visible
+                log.error("Unable to clear and bump cache generation for {}: {}", cacheName, e.getMessage());
+            }
+        }
+    }
+
+    private String key(String cacheName) {
+        return KEY_PREFIX + cacheName;
+    }
+}
@@ -0,0 +1,131 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.dto.response.ProductResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Preloads the hot caches and exercises the read paths before the pod takes traffic. Runs as an
+ * {@link ApplicationRunner}, and Spring Boot only moves readiness to ACCEPTING_TRAFFIC once every runner has
+ * returned, so {@code /actuator/health/readiness} stays down until warm-up is over. A failed warm-up is logged
+ * and the pod becomes ready cold rather than never.
+ */
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmupService.class);
+
+    private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxProducts;
+    private final int iterations;
+    private final Duration timeBudget;
+
+    public CacheWarmupService(ProductService productService,
+                              InventoryService inventoryService,
+                              ObjectMapper objectMapper,
+                              @Value("${app.warmup.enabled:true}") boolean enabled,
+                              @Value("${app.warmup.max-products:1000}") int maxProducts,
+                              @Value("${app.warmup.iterations:2000}") int iterations,
+                              @Value("${app.warmup.time-budget:60s}") Duration timeBudget) {
+        this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxProducts = maxProducts;
+        this.iterations = iterations;
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Cache warm-up disabled");
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
+        try {
+            List<ProductResponseDto> products = preloadProducts(deadline);
+            Map<Long, List<InventoryResponseDto>> inventoryByBusinessEntity = preloadInventory(deadline);
+            exerciseReadPaths(products, inventoryByBusinessEntity, deadline);
+            logger.info("Cache warm-up finished in {} ms: {} products, {} business entities",
+                    Duration.ofNanos(System.nanoTime() - start).toMillis(), products.size(), inventoryByBusinessEntity.size());
+        } catch (RuntimeException e) {
+            logger.warn("Cache warm-up failed after {} ms, starting cold: {}",
+                    Duration.ofNanos(System.nanoTime() - start).toMillis(), e.getMessage());
+        }
+    }
+
+    // productList, then the per-id and per-SKU entries of the first products, all through the @Cacheable methods so
+    // a concurrent write's eviction orders against these loads as it does against any other miss
+    List<ProductResponseDto> preloadProducts(long deadline) {
+        List<ProductResponseDto> hottest = productService.getAllProducts().stream().limit(maxProducts).toList();
+        for (ProductResponseDto product : hottest) {
+            if (System.nanoTime() >= deadline) {
+                logger.info("Cache warm-up time budget spent, not preloading the remaining products");
+                break;
+            }
+            productService.getProductById(product.id());
+            productService.getProductBySKU(product.sku());
+        }
+        return hottest;
+    }
+
+    // inventoryList::all, then one byBE entry per business entity that holds stock, through the @Cacheable methods
+    Map<Long, List<InventoryResponseDto>> preloadInventory(long deadline) {
+        Map<Long, List<InventoryResponseDto>> byBusinessEntity = inventoryService.getAllInventory().stream()
+                .collect(Collectors.groupingBy(InventoryResponseDto::businessEntityId));
+        for (Long businessEntityId : byBusinessEntity.keySet()) {
+            if (System.nanoTime() >= deadline) {
+                logger.info("Cache warm-up time budget spent, not preloading the remaining business entities");
+                break;
+            }
+            inventoryService.getInventoryByBusinessEntityId(businessEntityId);
+        }
+        return byBusinessEntity;
+    }
+
+    // Cache-hit lookups plus response serialization, repeated until C2 has compiled the hot path
+    void exerciseReadPaths(List<ProductResponseDto> products, Map<Long, List<InventoryResponseDto>> inventoryByBusinessEntity,
+                           long deadline) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<Long> businessEntityIds = List.copyOf(inventoryByBusinessEntity.keySet());
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            ProductResponseDto product = products.get(i % products.size());
+            serialize(productService.getProductById(product.id()));
+            serialize(productService.getProductBySKU(product.sku()));
+            if (!businessEntityIds.isEmpty()) {
+                serialize(inventoryService.getInventoryByBusinessEntityId(businessEntityIds.get(i % businessEntityIds.size())));
+            }
+            if (i % 100 == 0) {
+                serialize(productService.getAllProducts());
+            }
+        }
+    }
+
+    private void serialize(Object body) {
+        try {
+            objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.retailpulse.service;
+
+import com.retailpulse.entity.Inventory;
+
+import java.util.List;
+
+/**
+ * Stock rows written by {@link InventoryService}, published inside the writing transaction and delivered to
+ * listeners after commit. Each change carries the row's values as written, not a delta, so applying the same
+ * change twice is harmless. {@code previousQuantity} is the quantity the write replaced, or
+ * {@link Change#UNKNOWN} for a new row.
+ *
+ * {@code version} is the row's {@link Inventory#getVersion() version} after the write (for a removal, the version it
+ * was deleted at). Listeners can receive changes out of commit order, from other replicas or a delayed relay, and
+ * compare versions to keep the newer value.
+ */
+public record InventoryChangedEvent(List<Change> changes) {
+
+    public record Change(long productId, long businessEntityId, int previousQuantity, int quantity,
+                         double totalCostPrice, boolean removed, long version) {
+
+        public static final int UNKNOWN = -1;
+
+        public static Change of(Inventory inventory) {
+            return of(inventory, UNKNOWN);
+        }
+
+        public static Change of(Inventory inventory, int previousQuantity) {
+            return new Change(inventory.getProductId(), inventory.getBusinessEntityId(), previousQuantity,
+                    inventory.getQuantity(), inventory.getTotalCostPrice(), false, inventory.getVersion());
+        }
+
+        public static Change removed(long productId, long businessEntityId, long version) {
+            return new Change(productId, businessEntityId, UNKNOWN, 0, 0.0, true, version);
+        }
+    }
+}
@@ -1,24 +1,32 @@
 package com.retailpulse.service;
 
-import java.util.logging.Logger;
+import com.retailpulse.config.ShardRouter;
 import com.retailpulse.dto.request.InventoryUpdateRequestDto;
 import com.retailpulse.dto.response.InventoryResponseDto;
 import com.retailpulse.entity.Inventory;
 import com.retailpulse.repository.InventoryRepository;
 import com.retailpulse.service.exception.BusinessException;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.Consumer;
 
+import static com.retailpulse.config.logging.LogMarkers.PER_ITEM;
+
 @Service
 public class InventoryService {
-    private static final Logger logger = Logger.getLogger(InventoryService.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
 
     private static final String INVENTORY_NOT_FOUND = "INVENTORY_NOT_FOUND";
     private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND = "INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND";
@@ -28,31 +36,43 @@ public class InventoryService {
     private static final String INVALID_BUSINESS_ENTITY = "INVALID_BUSINESS_ENTITY";
     private static final String INVALID_BUSINESS_ENTITY_DESC = "Not a valid business entity: ";
 
+    private static final String INVENTORY_CROSS_SHARD_MOVE = "INVENTORY_CROSS_SHARD_MOVE";
+    private static final String INVENTORY_CROSS_SHARD_MOVE_DESC = "Inventory cannot move to a business entity on another shard (From, To): ";
+
     private final InventoryRepository inventoryRepository;
     private final BusinessEntityService businessEntityService;
+    private final CacheGenerationService cacheGenerationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesDeductionCoalescer salesDeductionCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
 
     @Autowired
-    public InventoryService(InventoryRepository inventoryRepository, BusinessEntityService businessEntityService) {
+    public InventoryService(InventoryRepository inventoryRepository, BusinessEntityService businessEntityService,
+                            CacheGenerationService cacheGenerationService, ApplicationEventPublisher eventPublisher,
+                            SalesDeductionCoalescer salesDeductionCoalescer, TransactionTemplate transactionTemplate,
+                            ShardRouter shardRouter) {
         this.inventoryRepository = inventoryRepository;
         this.businessEntityService = businessEntityService;
+        this.cacheGenerationService = cacheGenerationService;
+        this.eventPublisher = eventPublisher;
+        this.salesDeductionCoalescer = salesDeductionCoalescer;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
     }
 
+    // List reads project straight into DTOs inside a read-only transaction: Hibernate switches the session
+    // to FlushMode.MANUAL, so nothing is snapshotted for dirty checking or flushed on commit.
+    // Once the table outgrows inventoryList's max-value-size the list is served uncached; see CoalescingCache.
     @Cacheable(value = "inventoryList", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
     public List<InventoryResponseDto> getAllInventory() {
-        return inventoryRepository.findAll().stream()
-                .map(inventoryEntity -> new InventoryResponseDto(
-                        inventoryEntity.getId(),
-                        inventoryEntity.getProductId(),
-                        inventoryEntity.getBusinessEntityId(),
-                        inventoryEntity.getQuantity(),
-                        inventoryEntity.getTotalCostPrice()
-                ))
-                .toList();
+        return shardRouter.gather(inventoryRepository::findAllInventoryResponses);
     }
 
     @Cacheable(value = "inventory", key = "#id", sync = true)
     public InventoryResponseDto getInventoryById(Long id) {
-        Inventory inventory = inventoryRepository.findById(id)
+        Inventory inventory = shardRouter.findAny(() -> inventoryRepository.findById(id))
                 .orElseThrow(() -> new BusinessException(INVENTORY_NOT_FOUND, INVENTORY_NOT_FOUND_DESC + id));
 
         return new InventoryResponseDto(
@@ -65,34 +85,20 @@ public class InventoryService {
     }
 
     @Cacheable(value = "inventoryList", key = "'byProduct:' + #productId", sync = true)
+    @Transactional(readOnly = true)
     public List<InventoryResponseDto> getInventoryByProductId(Long productId) {
-        return inventoryRepository.findByProductId(productId).stream()
-                .map(inventoryEntity -> new InventoryResponseDto(
-                        inventoryEntity.getId(),
-                        inventoryEntity.getProductId(),
-                        inventoryEntity.getBusinessEntityId(),
-                        inventoryEntity.getQuantity(),
-                        inventoryEntity.getTotalCostPrice()
-                ))
-                .toList();
+        return shardRouter.gather(() -> inventoryRepository.findInventoryResponsesByProductId(productId));
     }
 
     @Cacheable(value = "inventoryList", key = "'byBE:' + #businessEntityId", sync = true)
+    @Transactional(readOnly = true)
     public List<InventoryResponseDto> getInventoryByBusinessEntityId(Long businessEntityId) {
         if (!businessEntityService.isValidBusinessEntity(businessEntityId)) {
             throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + businessEntityId);
         }
 
-        return inventoryRepository.findByBusinessEntityId(businessEntityId).stream()
-                .map(inventoryEntity -> new InventoryResponseDto(
-                        inventoryEntity.getId(),
-                        inventoryEntity.getProductId(),
-                        inventoryEntity.getBusinessEntityId(),
-                        inventoryEntity.getQuantity(),
-                        inventoryEntity.getTotalCostPrice()
-                ))
-                .toList();
-
+        return shardRouter.forBusinessEntity(businessEntityId,
+                () -> inventoryRepository.findInventoryResponsesByBusinessEntityId(businessEntityId));
     }
 
     @Cacheable(value = "inventory", key = "'byProductAndBE:' + #productId + ':' + #businessEntityId", sync = true)
@@ -101,7 +107,8 @@ public class InventoryService {
             throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + businessEntityId);
         }
 
-        Inventory inventory = inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)
+        Inventory inventory = shardRouter.forBusinessEntity(businessEntityId,
+                        () -> inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId))
                 .orElseThrow(() -> new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
                         INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")"));
 
@@ -120,16 +127,35 @@ public class InventoryService {
     }
 
     // Not exposed in controller - Inventory should only be changed by Inventory Summary
-    @CacheEvict(value = {"inventory", "inventoryList"}, allEntries = true)
+    @CacheEvict(value = "inventory", allEntries = true)
     public Inventory saveInventory(Inventory inventory) {
-        return inventoryRepository.save(inventory);
+        Inventory savedInventory = shardRouter.forBusinessEntity(inventory.getBusinessEntityId(),
+                () -> inventoryRepository.save(inventory));
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.of(InventoryChangedEvent.Change.of(savedInventory))));
+        return savedInventory;
     }
 
     // Not exposed in controller - Inventory should only be changed by Inventory Summary
-    @CacheEvict(value = {"inventory", "inventoryList"}, allEntries = true)
+    @CacheEvict(value = "inventory", allEntries = true)
     public Inventory updateInventory(Long id, @NotNull Inventory inventoryDetails) {
-        Inventory inventory = inventoryRepository.findById(id)
+        // With shards, an unlocked lookup finds the row's shard; the write re-reads it there under a row lock
+        int shard = shardRouter.shardCount() == 1 ? 0 : shardRouter.shardFor(
+                shardRouter.findAny(() -> inventoryRepository.findById(id))
+                        .orElseThrow(() -> new BusinessException(INVENTORY_NOT_FOUND, INVENTORY_NOT_FOUND_DESC + id))
+                        .getBusinessEntityId());
+        Inventory updatedInventory = shardRouter.onShard(shard,
+                () -> transactionTemplate.execute(status -> updateLocked(id, inventoryDetails)));
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+        return updatedInventory;
+    }
+
+    private Inventory updateLocked(Long id, Inventory inventoryDetails) {
+        Inventory inventory = inventoryRepository.findForUpdateById(id)
                 .orElseThrow(() -> new BusinessException(INVENTORY_NOT_FOUND, INVENTORY_NOT_FOUND_DESC + id));
+        long previousProductId = inventory.getProductId();
+        long previousBusinessEntityId = inventory.getBusinessEntityId();
+        int previousQuantity = inventory.getQuantity();
 
         // Update fields from the incoming details if provided
         updateField(inventoryDetails.getProductId(), inventory::setProductId);
@@ -142,7 +168,25 @@ public class InventoryService {
         if (inventoryDetails.getTotalCostPrice() >= 0) {
             updateField(inventoryDetails.getTotalCostPrice(), inventory::setTotalCostPrice);
         }
-        return inventoryRepository.save(inventory);
+        // The row keeps its id, so it cannot change databases
+        int shard = shardRouter.shardFor(previousBusinessEntityId);
+        if (shardRouter.shardFor(inventory.getBusinessEntityId()) != shard) {
+            throw new BusinessException(INVENTORY_CROSS_SHARD_MOVE,
+                    INVENTORY_CROSS_SHARD_MOVE_DESC + "(" + previousBusinessEntityId + ", " + inventory.getBusinessEntityId() + ")");
+        }
+        // Flushed so the version in the event is the one this write commits
+        Inventory updatedInventory = inventoryRepository.saveAndFlush(inventory);
+
+        List<InventoryChangedEvent.Change> changes = new ArrayList<>();
+        if (previousProductId != updatedInventory.getProductId() || previousBusinessEntityId != updatedInventory.getBusinessEntityId()) {
+            changes.add(InventoryChangedEvent.Change.removed(previousProductId, previousBusinessEntityId,
+                    updatedInventory.getVersion()));
+            changes.add(InventoryChangedEvent.Change.of(updatedInventory));
+        } else {
+            changes.add(InventoryChangedEvent.Change.of(updatedInventory, previousQuantity));
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent(changes));
+        return updatedInventory;
     }
 
     // Generic helper method for updating fields
@@ -157,35 +201,109 @@ public class InventoryService {
     }
 
     // Not exposed in controller - Inventory should only be changed by Inventory Summary
-    @CacheEvict(value = {"inventory", "inventoryList"}, allEntries = true)
+    @CacheEvict(value = "inventory", allEntries = true)
     public Inventory deleteInventory(Long id) {
-        Inventory inventory = inventoryRepository.findById(id)
+        Inventory inventory = shardRouter.findAny(() -> inventoryRepository.findById(id))
                 .orElseThrow(() -> new BusinessException(INVENTORY_NOT_FOUND, INVENTORY_NOT_FOUND_DESC + id));
 
-        inventoryRepository.delete(inventory);
+        shardRouter.forBusinessEntity(inventory.getBusinessEntityId(), () -> {
+            inventoryRepository.delete(inventory);
+            return null;
+        });
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+        eventPublisher.publishEvent(new InventoryChangedEvent(
+                List.of(InventoryChangedEvent.Change.removed(inventory.getProductId(), inventory.getBusinessEntityId(),
+                        inventory.getVersion()))));
         return inventory;
     }
 
-    @CacheEvict(value = {"inventory", "inventoryList"}, allEntries = true)
-    @Transactional
+    /**
+     * Adds to (or with negative values, takes from) one stock row without reading it first. Undoes a step of a
+     * transfer that could not complete, see {@link InventoryTransactionService}.
+     */
+    @CacheEvict(value = "inventory", allEntries = true)
+    public void adjustInventory(long productId, long businessEntityId, int quantity, double totalCostPrice) {
+        shardRouter.forBusinessEntity(businessEntityId, () -> transactionTemplate.execute(status -> {
+            if (inventoryRepository.adjust(productId, businessEntityId, quantity, totalCostPrice) == 0) {
+                throw new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                        INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")");
+            }
+            inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId).ifPresent(adjusted ->
+                    eventPublisher.publishEvent(new InventoryChangedEvent(List.of(
+                            InventoryChangedEvent.Change.of(adjusted, adjusted.getQuantity() - quantity)))));
+            return null;
+        }));
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+    }
+
+    /**
+     * Undoes a transfer step that created the row: takes the quantity back out and deletes the row when that empties
+     * it, so a failed transfer leaves no trace at the destination. A row that other stock has moved into meanwhile
+     * keeps the rest. See {@link InventoryTransactionService}.
+     */
+    @CacheEvict(value = "inventory", allEntries = true)
+    public void undoCreatedInventory(long productId, long businessEntityId, int quantity, double totalCostPrice) {
+        shardRouter.forBusinessEntity(businessEntityId, () -> transactionTemplate.execute(status -> {
+            if (inventoryRepository.adjust(productId, businessEntityId, -quantity, -totalCostPrice) == 0) {
+                throw new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                        INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")");
+            }
+            inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId).ifPresent(adjusted -> {
+                if (adjusted.getQuantity() == 0) {
+                    // Versioned: a write that lands in between fails the delete and rolls the undo back
+                    inventoryRepository.delete(adjusted);
+                    eventPublisher.publishEvent(new InventoryChangedEvent(List.of(
+                            InventoryChangedEvent.Change.removed(productId, businessEntityId, adjusted.getVersion()))));
+                } else {
+                    eventPublisher.publishEvent(new InventoryChangedEvent(List.of(
+                            InventoryChangedEvent.Change.of(adjusted, adjusted.getQuantity() + quantity))));
+                }
+            });
+            return null;
+        }));
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+    }
+
+    // Not @Transactional: with coalescing on, the caller only waits for its lanes and must not sit on a
+    // connection meanwhile, so the direct path opens its own transaction instead.
+    @CacheEvict(value = "inventory", allEntries = true)
     public void salesUpdateStocks(@NotNull InventoryUpdateRequestDto request) {
         Long businessEntityId = request.businessEntityId();
-        logger.info("Starting salesUpdateStocks for businessEntityId: " + businessEntityId);
+        logger.debug("Starting salesUpdateStocks for businessEntityId: {}", businessEntityId);
 
         if (!businessEntityService.isValidBusinessEntity(businessEntityId)) {
-          logger.warning("Invalid business entity: " + businessEntityId);
+          logger.warn("Invalid business entity: {}", businessEntityId);
           throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + businessEntityId);
         }
 
+        if (salesDeductionCoalescer.isEnabled()) {
+          salesDeductionCoalescer.deduct(businessEntityId, request.items());
+        } else {
+          shardRouter.forBusinessEntity(businessEntityId, () -> transactionTemplate.execute(status -> {
+            deductStocks(businessEntityId, request.items());
+            return null;
+          }));
+        }
+      cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+      logger.debug("salesUpdateStocks completed successfully for businessEntityId: {}", businessEntityId);
+    }
+
+    private void deductStocks(Long businessEntityId, List<InventoryUpdateRequestDto.InventoryItem> items) {
         List<InventoryUpdateRequestDto.InventoryItem> failedItems = new java.util.ArrayList<>();
-        for (InventoryUpdateRequestDto.InventoryItem item : request.items()) {
+        List<InventoryChangedEvent.Change> changes = new ArrayList<>();
+        // Rows are locked in product order, so two sales of the same products cannot deadlock on each other
+        List<InventoryUpdateRequestDto.InventoryItem> ordered = items.stream()
+            .sorted(Comparator.comparing(InventoryUpdateRequestDto.InventoryItem::productId))
+            .toList();
+        for (InventoryUpdateRequestDto.InventoryItem item : ordered) {
           Long productId = item.productId();
           int quantityToDeduct = item.quantity();
-          logger.info("Processing productId: " + productId + ", quantityToDeduct: " + quantityToDeduct);
+          logger.debug(PER_ITEM, "Processing productId: {}, quantityToDeduct: {}", productId, quantityToDeduct);
 
-          Inventory inventory = inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)
+          // Held until commit: a concurrent sale of the same row waits here instead of failing its version check
+          Inventory inventory = inventoryRepository.findForUpdateByProductIdAndBusinessEntityId(productId, businessEntityId)
             .orElseThrow(() -> {
-              logger.warning("Inventory not found for productId: " + productId + ", businessEntityId: " + businessEntityId);
+              logger.warn(PER_ITEM, "Inventory not found for productId: {}, businessEntityId: {}", productId, businessEntityId);
               return new BusinessException(
                 INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
                 INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")"
@@ -195,13 +313,14 @@ public class InventoryService {
           int currentQuantity = inventory.getQuantity();
           
           if (currentQuantity < quantityToDeduct) {
-            logger.warning("Insufficient stock for productId: " + productId + ". Available: " + currentQuantity + ", Requested: " + quantityToDeduct);
+            logger.warn(PER_ITEM, "Insufficient stock for productId: {}. Available: {}, Requested: {}", productId, currentQuantity, quantityToDeduct);
             failedItems.add(item);
           } else {
             int newQuantity = currentQuantity - quantityToDeduct;
             inventory.setQuantity(newQuantity);
-            logger.info("Updated inventory quantity for productId: " + productId + " to " + newQuantity);
-            inventoryRepository.save(inventory);
+            logger.debug(PER_ITEM, "Updated inventory quantity for productId: {} to {}", productId, newQuantity);
+            inventoryRepository.saveAndFlush(inventory);
+            changes.add(InventoryChangedEvent.Change.of(inventory, currentQuantity));
           }
         }
 
@@ -210,9 +329,10 @@ public class InventoryService {
             .map(i -> String.valueOf(i.productId()))
             .reduce((a, b) -> a + ", " + b)
             .orElse("");
-          logger.warning("Throwing BusinessException for insufficient stock on products: " + failedProducts);
+          logger.warn("Throwing BusinessException for insufficient stock on products: {}", failedProducts);
           throw new BusinessException("INSUFFICIENT_STOCK", "Insufficient stock for products: " + failedProducts);
         }
-      logger.info("salesUpdateStocks completed successfully for businessEntityId: " + businessEntityId);
+      // Delivered after commit, so a rolled-back sale never reaches the stock index
+      eventPublisher.publishEvent(new InventoryChangedEvent(changes));
     }
 }
\ No newline at end of file
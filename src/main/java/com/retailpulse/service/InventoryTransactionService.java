@@ -6,13 +6,18 @@ import com.retailpulse.entity.Inventory;
 import com.retailpulse.entity.InventoryTransaction;
 import com.retailpulse.repository.InventoryTransactionRepository;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -21,33 +26,42 @@ import java.util.stream.Collectors;
 
 @Service
 public class InventoryTransactionService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryTransactionService.class);
 
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final InventoryService inventoryService;
     private final ProductService productService;
     private final BusinessEntityService businessEntityService;
+    private final CacheGenerationService cacheGenerationService;
+    private final TransactionStoreService transactionStoreService;
+    private final TransactionArchiveService transactionArchiveService;
 
     @Autowired
     public InventoryTransactionService(InventoryTransactionRepository inventoryTransactionRepository,
                                        InventoryService inventoryService,
                                        ProductService productService,
-                                       BusinessEntityService businessEntityService) {
+                                       BusinessEntityService businessEntityService,
+                                       CacheGenerationService cacheGenerationService,
+                                       TransactionStoreService transactionStoreService,
+                                       TransactionArchiveService transactionArchiveService) {
         this.inventoryTransactionRepository = inventoryTransactionRepository;
         this.inventoryService = inventoryService;
         this.productService = productService;
         this.businessEntityService = businessEntityService;
+        this.cacheGenerationService = cacheGenerationService;
+        this.transactionStoreService = transactionStoreService;
+        this.transactionArchiveService = transactionArchiveService;
     }
 
+    // Report reads: read-only, so they are served by the replica when one is configured, except for the loads that
+    // fill this cache, which read the primary (see ReplicaRoutingDataSource)
     @Cacheable(value = "inventoryTransactionProductList", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
     public List<InventoryTransactionProductResponseDto> getAllInventoryTransactionWithProduct() {
-        return inventoryTransactionRepository.findAllWithProduct().stream()
-                .map(InventoryTransactionProduct -> new InventoryTransactionProductResponseDto(
-                        InventoryTransactionProduct.inventoryTransaction(),
-                        InventoryTransactionProduct.product()
-                ))
-                .toList();
+        return withArchived(transactionArchiveService.findAllWithProduct(), inventoryTransactionRepository.findAllWithProduct());
     }
 
+    @Transactional(readOnly = true)
     public List<InventoryTransactionProductBusinessEntityResponseDto> getAllInventoryTransactionWithProductAndBusinessEntity(TimeSearchFilterRequestDto filter) {
         if (filter == null) {
           throw new IllegalArgumentException("TimeSearchFilterRequestDto cannot be null");
@@ -56,12 +70,9 @@ public class InventoryTransactionService {
         Instant endDateTime = filter.endDateTime();
         
         // Fetch transactions with product
-        List<InventoryTransactionProductResponseDto> inventoryTransactions = inventoryTransactionRepository.findAllWithProductAndTime(startDateTime, endDateTime).stream()
-            .map(InventoryTransactionProduct -> new InventoryTransactionProductResponseDto(
-                    InventoryTransactionProduct.inventoryTransaction(),
-                    InventoryTransactionProduct.product()
-            ))
-            .toList();
+        List<InventoryTransactionProductResponseDto> inventoryTransactions = withArchived(
+                transactionArchiveService.findAllWithProductAndTime(startDateTime, endDateTime),
+                inventoryTransactionRepository.findAllWithProductAndTime(startDateTime, endDateTime));
 
         List<InventoryTransactionProductBusinessEntityResponseDto> result = new ArrayList<>();
         if (inventoryTransactions.isEmpty()) {
@@ -111,7 +122,21 @@ public class InventoryTransactionService {
         return result;
     }
 
-    @CacheEvict(value = {"inventoryTransactionProductList", "inventoryTransactionList"}, allEntries = true)
+    // Archived rows first, then the table's; table rows the archive already holds (not yet deleted) are skipped
+    private List<InventoryTransactionProductResponseDto> withArchived(List<InventoryTransactionProductResponseDto> archived,
+                                                                      List<InventoryTransactionProductResponseDto> live) {
+        Instant archivedUntil = transactionArchiveService.archivedUntil();
+        List<InventoryTransactionProductResponseDto> combined = new ArrayList<>(archived.size() + live.size());
+        combined.addAll(archived);
+        for (InventoryTransactionProductResponseDto row : live) {
+            if (archivedUntil == null || !row.inventoryTransaction().getInsertedAt().isBefore(archivedUntil)) {
+                combined.add(row);
+            }
+        }
+        return combined;
+    }
+
+    @CacheEvict(value = "inventoryTransactionList", allEntries = true)
     public InventoryTransactionResponseDto saveInventoryTransaction(@NotNull InventoryTransaction inventoryTransaction) {
         validateInventoryTransactionRequestBody(inventoryTransaction);
 
@@ -121,6 +146,9 @@ public class InventoryTransactionService {
         int quantity = inventoryTransaction.getQuantity();
         double costPricePerUnit = inventoryTransaction.getCostPricePerUnit();
 
+        // Source, destination and ledger can live on different shards, so there is no one transaction around
+        // them; each step that went through is undone in reverse if a later one fails
+        Deque<Runnable> compensations = new ArrayDeque<>();
         final boolean isSourceExternal;
         try {
             isSourceExternal = this.businessEntityService.isExternalBusinessEntity(sourceId);
@@ -149,48 +177,60 @@ public class InventoryTransactionService {
             existingSourceInventory.setQuantity(sourceInventory.quantity() - quantity);
             existingSourceInventory.setTotalCostPrice(sourceInventory.totalCostPrice() - (costPricePerUnit * quantity));
             inventoryService.updateInventory(existingSourceInventory.getId(), existingSourceInventory);
+            compensations.push(() -> inventoryService.adjustInventory(productId, sourceId, quantity, costPricePerUnit * quantity));
         }
 
-        final boolean isDestinationExternal;
+        InventoryTransaction createdinventoryTransaction;
         try {
-            isDestinationExternal = this.businessEntityService.isExternalBusinessEntity(destinationId);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Unable to retrieve destination business entity with id: " + destinationId, e);
-        }
-
-        // Destination External: No need to deduct destination inventory
-        if (!isDestinationExternal) {
-            // Update or create destination inventory
-            InventoryResponseDto destinationInventory;
+            final boolean isDestinationExternal;
             try {
-                // If the underlying service throws when inventory not found, treat it as "not found"
-                destinationInventory = inventoryService.getInventoryByProductIdAndBusinessEntityId(productId, destinationId);
+                isDestinationExternal = this.businessEntityService.isExternalBusinessEntity(destinationId);
             } catch (Exception e) {
-                destinationInventory = null;
+                throw new IllegalArgumentException("Unable to retrieve destination business entity with id: " + destinationId, e);
             }
 
-            if (destinationInventory == null) {
-                // Create new inventory for destination since it does not exist.
-                Inventory newDestinationInventory = new Inventory();
-                newDestinationInventory.setProductId(productId);
-                newDestinationInventory.setBusinessEntityId(destinationId);
-                newDestinationInventory.setQuantity(quantity);
-                newDestinationInventory.setTotalCostPrice(costPricePerUnit * quantity);
-                inventoryService.saveInventory(newDestinationInventory);
-            } else {
-                // Update existing destination inventory by adding the quantity.
-                Inventory existingDestinationInventory = new Inventory();
-                existingDestinationInventory.setId(destinationInventory.id());
-                existingDestinationInventory.setProductId(destinationInventory.productId());
-                existingDestinationInventory.setBusinessEntityId(destinationInventory.businessEntityId());
-                existingDestinationInventory.setQuantity(destinationInventory.quantity() + quantity);
-                existingDestinationInventory.setTotalCostPrice(destinationInventory.totalCostPrice() + (costPricePerUnit * quantity));
-                inventoryService.updateInventory(existingDestinationInventory.getId(), existingDestinationInventory);
+            // Destination External: No need to deduct destination inventory
+            if (!isDestinationExternal) {
+                // Update or create destination inventory
+                InventoryResponseDto destinationInventory;
+                try {
+                    // If the underlying service throws when inventory not found, treat it as "not found"
+                    destinationInventory = inventoryService.getInventoryByProductIdAndBusinessEntityId(productId, destinationId);
+                } catch (Exception e) {
+                    destinationInventory = null;
+                }
+
+                if (destinationInventory == null) {
+                    // Create new inventory for destination since it does not exist.
+                    Inventory newDestinationInventory = new Inventory();
+                    newDestinationInventory.setProductId(productId);
+                    newDestinationInventory.setBusinessEntityId(destinationId);
+                    newDestinationInventory.setQuantity(quantity);
+                    newDestinationInventory.setTotalCostPrice(costPricePerUnit * quantity);
+                    inventoryService.saveInventory(newDestinationInventory);
+                    compensations.push(() -> inventoryService.undoCreatedInventory(productId, destinationId, quantity, costPricePerUnit * quantity));
+                } else {
+                    // Update existing destination inventory by adding the quantity.
+                    Inventory existingDestinationInventory = new Inventory();
+                    existingDestinationInventory.setId(destinationInventory.id());
+                    existingDestinationInventory.setProductId(destinationInventory.productId());
+                    existingDestinationInventory.setBusinessEntityId(destinationInventory.businessEntityId());
+                    existingDestinationInventory.setQuantity(destinationInventory.quantity() + quantity);
+                    existingDestinationInventory.setTotalCostPrice(destinationInventory.totalCostPrice() + (costPricePerUnit * quantity));
+                    inventoryService.updateInventory(existingDestinationInventory.getId(), existingDestinationInventory);
+                    compensations.push(() -> inventoryService.adjustInventory(productId, destinationId, -quantity, -(costPricePerUnit * quantity)));
+                }
             }
+
+            // Proceed with saving the transaction
+            createdinventoryTransaction = inventoryTransactionRepository.save(inventoryTransaction);
+        } catch (RuntimeException e) {
+            compensate(compensations, inventoryTransaction);
+            throw e;
         }
 
-        // Proceed with saving the transaction
-        InventoryTransaction createdinventoryTransaction = inventoryTransactionRepository.save(inventoryTransaction);
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_TRANSACTION_PRODUCT_LIST);
+        transactionStoreService.append(createdinventoryTransaction);
         return new InventoryTransactionResponseDto(
                 createdinventoryTransaction.getId(),
                 createdinventoryTransaction.getProductId(),
@@ -202,8 +242,20 @@ public class InventoryTransactionService {
         );
     }
 
+    private void compensate(Deque<Runnable> compensations, InventoryTransaction inventoryTransaction) {
+        while (!compensations.isEmpty()) {
+            try {
+                compensations.pop().run();
+            } catch (RuntimeException e) {
+                // Left for an operator: the stock moved on one side only
+                logger.error("Could not undo part of transfer of product {} from {} to {}", inventoryTransaction.getProductId(),
+                        inventoryTransaction.getSource(), inventoryTransaction.getDestination(), e);
+            }
+        }
+    }
+
     // Helper Method
-    @CacheEvict(value = {"inventoryTransactionProductList", "inventoryTransactionList"}, allEntries = true)
+    @CacheEvict(value = "inventoryTransactionList", allEntries = true)
     public InventoryTransactionResponseDto updateInventoryTransaction(UUID id, InventoryTransaction inventoryTransactionDetails) {
         InventoryTransaction inventoryTransaction = inventoryTransactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Inventory not found with id: " + id));
@@ -214,6 +266,7 @@ public class InventoryTransactionService {
         updateField(inventoryTransactionDetails.getSource(), inventoryTransaction::setSource);
         updateField(inventoryTransactionDetails.getDestination(), inventoryTransaction::setDestination);
         InventoryTransaction updatedInventoryTransaction = inventoryTransactionRepository.save(inventoryTransaction);
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_TRANSACTION_PRODUCT_LIST);
         return new InventoryTransactionResponseDto(
                 updatedInventoryTransaction.getId(),
                 updatedInventoryTransaction.getProductId(),
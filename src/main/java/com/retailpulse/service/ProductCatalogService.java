@@ -0,0 +1,332 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.cache.RedisLease;
+import com.retailpulse.dto.response.ProductResponseDto;
+import com.retailpulse.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product lookups by id and SKU served from a memory-mapped catalogue snapshot (see {@link ProductCatalogSnapshot})
+ * instead of Redis and MySQL, so the catalogue costs no heap and is readable as soon as the bean exists. One replica
+ * at a time, under a Redis lease, writes a fresh snapshot to {@code app.product-catalog.directory} every
+ * {@code app.product-catalog.snapshot-interval}; the directory has to be shared by every replica.
+ *
+ * Changes since the snapshot are deltas on top of it: every product write, once committed, stores the product's new
+ * state in a Redis hash and relays it over pub/sub, and each replica keeps the hash's entries in a small in-memory overlay.
+ * The hash holds the latest state of every product changed since the snapshot before last, so it is authoritative
+ * on its own; it is re-read, and a newer snapshot picked up, every {@code app.product-catalog.refresh-interval}.
+ *
+ * Lookups return null, and callers go to the database, until both a snapshot and the deltas are loaded. Off by
+ * default ({@code app.product-catalog.enabled}); ProductService caches lookups in Redis either way.
+ */
+@Service
+public class ProductCatalogService implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogService.class);
+
+    static final String CHANNEL = "product-catalog";
+    static final String DELTAS_KEY = "product-catalog:deltas";
+    private static final String LEASE_KEY = "product-catalog:snapshot";
+    private static final String FILE_PREFIX = "product-catalog-";
+    private static final String FILE_SUFFIX = ".snap";
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    // Removes a delta only if it was not overwritten since it was read
+    private static final RedisScript<Long> PRUNE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('hdel', KEYS[1], ARGV[1]) else return 0 end",
+            Long.class);
+
+    record Delta(long changedAt, ProductResponseDto product) {
+    }
+
+    record Relay(String origin, Delta delta) {
+    }
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedisLease lease;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration leaseDuration;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Tells our own relayed messages apart from other replicas'
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile ProductCatalogSnapshot snapshot;
+    // Null until the deltas are first read from Redis
+    private volatile Map<Long, Delta> overlay;
+    private volatile Map<String, Long> overlaySkus;
+
+    public ProductCatalogService(ProductRepository productRepository,
+                                 StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 @Value("${app.product-catalog.enabled:false}") boolean enabled,
+                                 @Value("${app.product-catalog.directory:data/product-catalog}") Path directory,
+                                 @Value("${app.product-catalog.lease:10m}") Duration leaseDuration) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.lease = new RedisLease(redisTemplate);
+        this.enabled = enabled;
+        this.directory = directory;
+        this.leaseDuration = leaseDuration;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            logger.info("Product catalogue disabled, product lookups go to the cache and database");
+            return;
+        }
+        // Subscribe before reading the deltas so nothing written in between is missed
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to subscribe to {}, other replicas' product writes only show up at refresh: {}", CHANNEL, e.getMessage());
+        }
+        refresh();
+    }
+
+    public boolean isReady() {
+        return snapshot != null && overlay != null;
+    }
+
+    /** The product, or null when it is unknown here or the catalogue is not ready. */
+    public ProductResponseDto find(long id) {
+        ProductCatalogSnapshot current = snapshot;
+        Map<Long, Delta> changed = overlay;
+        if (current == null || changed == null) {
+            return null;
+        }
+        Delta delta = changed.get(id);
+        return delta != null ? delta.product() : current.find(id);
+    }
+
+    /** The product, or null when it is unknown here or the catalogue is not ready. */
+    public ProductResponseDto findBySku(String sku) {
+        ProductCatalogSnapshot current = snapshot;
+        Map<Long, Delta> changed = overlay;
+        if (current == null || changed == null) {
+            return null;
+        }
+        Long changedId = overlaySkus.get(sku);
+        if (changedId != null) {
+            return find(changedId);
+        }
+        ProductResponseDto product = current.findBySku(sku);
+        // Changed since the snapshot, SKU unchanged
+        return product != null && changed.containsKey(product.id()) ? changed.get(product.id()).product() : product;
+    }
+
+    /**
+     * Records a written product here and for the other replicas. Inside a transaction this is deferred until after
+     * commit, so a rolled-back write is never published. Never fails the write that triggered it.
+     */
+    public void publish(ProductResponseDto product) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(product);
+                }
+            });
+        } else {
+            publishNow(product);
+        }
+    }
+
+    private void publishNow(ProductResponseDto product) {
+        Delta delta = new Delta(System.currentTimeMillis(), product);
+        apply(delta);
+        try {
+            redisTemplate.opsForHash().put(DELTAS_KEY, String.valueOf(product.id()), objectMapper.writeValueAsString(delta));
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Relay(instanceId, delta)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Unable to publish product {} to the catalogue, other replicas see it at the next snapshot: {}",
+                    product.id(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!instanceId.equals(relay.origin())) {
+                apply(relay.delta());
+            }
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable product catalogue message: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void apply(Delta delta) {
+        if (overlay != null) {
+            overlay.merge(delta.product().id(), delta, ProductCatalogService::newer);
+            overlaySkus.put(delta.product().sku(), delta.product().id());
+        }
+    }
+
+    private static Delta newer(Delta a, Delta b) {
+        return b.changedAt() >= a.changedAt() ? b : a;
+    }
+
+    /** Maps the newest snapshot in the directory if it changed, then re-reads the deltas. */
+    @Scheduled(fixedDelayString = "${app.product-catalog.refresh-interval:1m}",
+            initialDelayString = "${app.product-catalog.refresh-interval:1m}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path newest = snapshots().stream().reduce((first, second) -> second).orElse(null);
+            ProductCatalogSnapshot current = snapshot;
+            if (newest != null && (current == null || !newest.equals(current.file()))) {
+                snapshot = ProductCatalogSnapshot.open(newest);
+                logger.info("Mapped product catalogue {}: {} products", newest.getFileName(), snapshot.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to map the product catalogue in {}: {}", directory, e.getMessage());
+        }
+        try {
+            Map<Long, Delta> changed = new ConcurrentHashMap<>();
+            for (Object value : redisTemplate.opsForHash().entries(DELTAS_KEY).values()) {
+                Delta delta = objectMapper.readValue((String) value, Delta.class);
+                changed.put(delta.product().id(), delta);
+            }
+            synchronized (this) {
+                // Keep local deltas the hash does not have yet (or never got) unless the snapshot already holds them
+                ProductCatalogSnapshot mapped = snapshot;
+                long since = mapped == null ? Long.MIN_VALUE : mapped.writtenAt();
+                if (overlay != null) {
+                    overlay.values().stream().filter(delta -> delta.changedAt() >= since)
+                            .forEach(delta -> changed.merge(delta.product().id(), delta, ProductCatalogService::newer));
+                }
+                Map<String, Long> changedSkus = new ConcurrentHashMap<>();
+                changed.values().forEach(delta -> changedSkus.put(delta.product().sku(), delta.product().id()));
+                overlaySkus = changedSkus; // before the overlay, which lookups check first
+                overlay = changed;
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Keep the overlay already held; without one, lookups stay on the database
+            logger.warn("Unable to read product catalogue deltas: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-catalog.snapshot-interval:1h}",
+            initialDelayString = "${app.product-catalog.snapshot-initial-delay:1m}")
+    public void scheduledSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        String token;
+        try {
+            token = lease.tryAcquire(LEASE_KEY, leaseDuration);
+        } catch (RuntimeException e) {
+            // Deltas cannot be pruned safely without Redis either; the current snapshot plus deltas still holds
+            logger.warn("Unable to take the product catalogue lease, skipping this snapshot: {}", e.getMessage());
+            return;
+        }
+        if (token == null) {
+            logger.debug("Product catalogue snapshot taken by another replica");
+            return;
+        }
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to write a product catalogue snapshot: {}", e.getMessage());
+        } finally {
+            try {
+                lease.release(LEASE_KEY, token);
+            } catch (RuntimeException e) {
+                logger.debug("Unable to release the product catalogue lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    void writeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        // Deltas older than the snapshot every replica has mapped by now are in the one about to be written
+        ProductCatalogSnapshot previous = snapshot;
+        long readAt = System.currentTimeMillis();
+        List<ProductResponseDto> products = productRepository.findAllProductResponses();
+
+        Files.createDirectories(directory);
+        Path target = directory.resolve(FILE_PREFIX + String.format("%020d", readAt) + FILE_SUFFIX);
+        Path temp = directory.resolve(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            ProductCatalogSnapshot.write(temp, readAt, products);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        logger.info("Wrote product catalogue {}: {} products in {} ms", target.getFileName(), products.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+
+        if (previous != null) {
+            pruneDeltasBefore(previous.writtenAt());
+        }
+        List<Path> snapshots = snapshots();
+        for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - SNAPSHOTS_KEPT))) {
+            // Replicas still mapping it keep reading it; the file goes once the last mapping does
+            Files.deleteIfExists(old);
+        }
+        refresh();
+    }
+
+    private void pruneDeltasBefore(long before) throws JsonProcessingException {
+        int pruned = 0;
+        for (Map.Entry<Object, Object> entry : redisTemplate.opsForHash().entries(DELTAS_KEY).entrySet()) {
+            if (objectMapper.readValue((String) entry.getValue(), Delta.class).changedAt() < before) {
+                Long removed = redisTemplate.execute(PRUNE_SCRIPT, List.of(DELTAS_KEY), entry.getKey(), entry.getValue());
+                pruned += removed == null ? 0 : removed.intValue();
+            }
+        }
+        logger.debug("Pruned {} product catalogue deltas", pruned);
+    }
+
+    // Oldest first
+    private List<Path> snapshots() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> listed = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            listed.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return files;
+    }
+}
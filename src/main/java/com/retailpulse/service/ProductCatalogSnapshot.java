@@ -0,0 +1,245 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.response.ProductResponseDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable, memory-mapped file holding the whole product catalogue (see {@link ProductCatalogService}). Nothing
+ * of it is on the heap beyond this object: a lookup binary-searches the mapping and decodes only the product it
+ * returns.
+ *
+ * Layout: a header; a dictionary of every distinct string (offsets, then UTF-8 bytes), so a category, brand or unit
+ * shared by thousands of products is stored once; one fixed-width record per product, sorted by id, holding its id,
+ * a dictionary reference for each string field (-1 for null), rrp and active; and a SKU index listing the records in
+ * SKU byte order.
+ */
+final class ProductCatalogSnapshot {
+
+    private static final long MAGIC = 0x5250434154414C31L; // "RPCATAL1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int STRING_FIELDS = 9;
+    private static final int RECORD_BYTES = 8 + STRING_FIELDS * 4 + 8 + 4;
+    private static final int NULL = -1;
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final int records;
+    private final long writtenAt;
+    private final int offsetsAt;
+    private final int bytesAt;
+    private final int recordsAt;
+    private final int skuIndexAt;
+
+    private ProductCatalogSnapshot(Path file, MappedByteBuffer mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        if (mapped.capacity() < HEADER_BYTES || mapped.getLong(0) != MAGIC || mapped.getInt(8) != VERSION) {
+            throw new IOException("Not a product catalogue snapshot: " + file);
+        }
+        records = mapped.getInt(12);
+        writtenAt = mapped.getLong(24);
+        offsetsAt = (int) mapped.getLong(32);
+        bytesAt = (int) mapped.getLong(40);
+        recordsAt = (int) mapped.getLong(48);
+        skuIndexAt = (int) mapped.getLong(56);
+    }
+
+    static ProductCatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Product catalogue snapshot larger than 2 GB: " + file);
+            }
+            // The mapping outlives the channel
+            return new ProductCatalogSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int size() {
+        return records;
+    }
+
+    /** Epoch millis at which the products were read. */
+    long writtenAt() {
+        return writtenAt;
+    }
+
+    ProductResponseDto find(long id) {
+        int low = 0;
+        int high = records - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = mapped.getLong(recordsAt + middle * RECORD_BYTES);
+            if (candidate < id) {
+                low = middle + 1;
+            } else if (candidate > id) {
+                high = middle - 1;
+            } else {
+                return product(middle);
+            }
+        }
+        return null;
+    }
+
+    ProductResponseDto findBySku(String sku) {
+        byte[] key = sku.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = records - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int record = mapped.getInt(skuIndexAt + middle * 4);
+            int compared = compareString(mapped.getInt(recordsAt + record * RECORD_BYTES + 8), key);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return product(record);
+            }
+        }
+        return null;
+    }
+
+    /** Every product, in id order. */
+    List<ProductResponseDto> all() {
+        List<ProductResponseDto> products = new ArrayList<>(records);
+        for (int r = 0; r < records; r++) {
+            products.add(product(r));
+        }
+        return products;
+    }
+
+    private ProductResponseDto product(int record) {
+        int at = recordsAt + record * RECORD_BYTES;
+        String[] strings = new String[STRING_FIELDS];
+        for (int f = 0; f < STRING_FIELDS; f++) {
+            strings[f] = string(mapped.getInt(at + 8 + f * 4));
+        }
+        return new ProductResponseDto(mapped.getLong(at), strings[0], strings[1], strings[2], strings[3], strings[4],
+                strings[5], strings[6], strings[7], strings[8], mapped.getDouble(at + 8 + STRING_FIELDS * 4),
+                mapped.getInt(at + 8 + STRING_FIELDS * 4 + 8) != 0);
+    }
+
+    private String string(int reference) {
+        if (reference == NULL) {
+            return null;
+        }
+        int start = mapped.getInt(offsetsAt + reference * 4);
+        int end = mapped.getInt(offsetsAt + (reference + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        mapped.get(bytesAt + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Unsigned byte order, the order the writer sorts SKUs in; compared in place without decoding
+    private int compareString(int reference, byte[] key) {
+        if (reference == NULL) {
+            return -1;
+        }
+        int start = bytesAt + mapped.getInt(offsetsAt + reference * 4);
+        int length = mapped.getInt(offsetsAt + (reference + 1) * 4) - (start - bytesAt);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Byte.compareUnsigned(mapped.get(start + i), key[i]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /** Writes the products to {@code file}, which must not exist yet, and forces it to disk. */
+    static void write(Path file, long writtenAt, List<ProductResponseDto> products) throws IOException {
+        List<ProductResponseDto> byId = new ArrayList<>(products);
+        byId.sort(Comparator.comparingLong(ProductResponseDto::id));
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] references = new int[byId.size()][];
+        for (int r = 0; r < byId.size(); r++) {
+            ProductResponseDto product = byId.get(r);
+            String[] fields = {product.sku(), product.description(), product.category(), product.subcategory(),
+                    product.brand(), product.origin(), product.uom(), product.vendorCode(), product.barcode()};
+            references[r] = new int[STRING_FIELDS];
+            for (int f = 0; f < STRING_FIELDS; f++) {
+                String value = fields[f];
+                references[r][f] = value == null ? NULL : dictionary.computeIfAbsent(value, v -> {
+                    strings.add(v.getBytes(StandardCharsets.UTF_8));
+                    return strings.size() - 1;
+                });
+            }
+        }
+
+        Integer[] skuOrder = new Integer[byId.size()];
+        for (int r = 0; r < skuOrder.length; r++) {
+            skuOrder[r] = r;
+        }
+        Arrays.sort(skuOrder, (a, b) -> {
+            int skuA = references[a][0];
+            int skuB = references[b][0];
+            if (skuA == NULL || skuB == NULL) {
+                return Boolean.compare(skuA != NULL, skuB != NULL);
+            }
+            return Arrays.compareUnsigned(strings.get(skuA), strings.get(skuB));
+        });
+
+        long stringBytes = strings.stream().mapToLong(s -> s.length).sum();
+        long offsetsAt = HEADER_BYTES;
+        long bytesAt = offsetsAt + (strings.size() + 1) * 4L;
+        long recordsAt = bytesAt + stringBytes;
+        long skuIndexAt = recordsAt + (long) byId.size() * RECORD_BYTES;
+        long size = skuIndexAt + byId.size() * 4L;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Product catalogue snapshot larger than 2 GB");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putLong(MAGIC).putInt(VERSION).putInt(byId.size()).putInt(strings.size()).putInt(0).putLong(writtenAt)
+                .putLong(offsetsAt).putLong(bytesAt).putLong(recordsAt).putLong(skuIndexAt);
+        int offset = 0;
+        for (byte[] string : strings) {
+            buffer.putInt(offset);
+            offset += string.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] string : strings) {
+            buffer.put(string);
+        }
+        for (int r = 0; r < byId.size(); r++) {
+            ProductResponseDto product = byId.get(r);
+            buffer.putLong(product.id());
+            for (int f = 0; f < STRING_FIELDS; f++) {
+                buffer.putInt(references[r][f]);
+            }
+            buffer.putDouble(product.rrp()).putInt(product.active() ? 1 : 0);
+        }
+        for (Integer record : skuOrder) {
+            buffer.putInt(record);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+}
@@ -27,36 +27,34 @@ public class ProductService {
     private final SKUGeneratorService skuGeneratorService;
     private final ProductRepository productRepository;
     private final InventoryService inventoryService;
+    private final CacheGenerationService cacheGenerationService;
+    private final ProductCatalogService productCatalogService;
 
     @Autowired
-    public ProductService(SKUGeneratorService skuGeneratorService, ProductRepository productRepository, InventoryService inventoryService) {
+    public ProductService(SKUGeneratorService skuGeneratorService, ProductRepository productRepository, InventoryService inventoryService,
+                          CacheGenerationService cacheGenerationService, ProductCatalogService productCatalogService) {
         this.skuGeneratorService = skuGeneratorService;
         this.productRepository = productRepository;
         this.inventoryService = inventoryService;
+        this.cacheGenerationService = cacheGenerationService;
+        this.productCatalogService = productCatalogService;
     }
 
+    // Projects straight into DTOs inside a read-only transaction (FlushMode.MANUAL, no dirty-checking snapshots).
+    // Over productList's max-value-size the list is served uncached; see CoalescingCache.
     @Cacheable(value = "productList", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
     public List<ProductResponseDto> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(product -> new ProductResponseDto(
-                        product.getId(),
-                        product.getSku(),
-                        product.getDescription(),
-                        product.getCategory(),
-                        product.getSubcategory(),
-                        product.getBrand(),
-                        product.getOrigin(),
-                        product.getUom(),
-                        product.getVendorCode(),
-                        product.getBarcode(),
-                        product.getRrp(),
-                        product.isActive()
-                ))
-                .toList();
+        return productRepository.findAllProductResponses();
     }
 
+    // Cached in Redis whether or not the catalogue is on; a miss asks the mapped catalogue before the database
     @Cacheable(value = "product", key = "#id", sync = true)
     public ProductResponseDto getProductById(Long id) {
+        ProductResponseDto catalogued = productCatalogService.find(id);
+        if (catalogued != null) {
+            return catalogued;
+        }
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new BusinessException(PRODUCT_BY_ID_NOT_FOUND, PRODUCT_BY_ID_NOT_FOUND_DESC + id));
 
@@ -78,6 +76,10 @@ public class ProductService {
 
     @Cacheable(value = "product", key = "'bySKU:' + #sku", sync = true)
     public ProductResponseDto getProductBySKU(String sku) {
+        ProductResponseDto catalogued = productCatalogService.findBySku(sku);
+        if (catalogued != null) {
+            return catalogued;
+        }
         Product product = productRepository.findBySku(sku)
                 .orElseThrow(() -> new BusinessException(PRODUCT_BY_SKU_NOT_FOUND, PRODUCT_BY_SKU_NOT_FOUND_DESC + sku));
 
@@ -97,7 +99,7 @@ public class ProductService {
         );
     }
 
-    @CacheEvict(value = {"product", "productList"}, allEntries = true)
+    @CacheEvict(value = "product", allEntries = true)
     @Transactional
     public ProductResponseDto saveProduct(@NotNull Product product) {
         if (product.getRrp() < 0) {
@@ -107,7 +109,8 @@ public class ProductService {
         String generatedSKU = skuGeneratorService.generateSKU();
         product.setSku(generatedSKU);
         Product createdProduct = productRepository.save(product);
-        return new ProductResponseDto(
+        cacheGenerationService.bump(CacheGenerationService.PRODUCT_LIST);
+        return catalogued(new ProductResponseDto(
                 createdProduct.getId(),
                 createdProduct.getSku(),
                 createdProduct.getDescription(),
@@ -120,10 +123,10 @@ public class ProductService {
                 createdProduct.getBarcode(),
                 createdProduct.getRrp(),
                 createdProduct.isActive()
-        );
+        ));
     }
 
-    @CacheEvict(value = {"product", "productList"}, allEntries = true)
+    @CacheEvict(value = "product", allEntries = true)
     public ProductResponseDto updateProduct(Long id, Product productDetails) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(PRODUCT_NOT_FOUND_DESC + id));
@@ -148,7 +151,8 @@ public class ProductService {
         // product.setIsActive(productDetails.isActive());
 
         Product updatedProduct = productRepository.save(product);
-        return new ProductResponseDto(
+        cacheGenerationService.bump(CacheGenerationService.PRODUCT_LIST);
+        return catalogued(new ProductResponseDto(
                 updatedProduct.getId(),
                 updatedProduct.getSku(),
                 updatedProduct.getDescription(),
@@ -161,7 +165,13 @@ public class ProductService {
                 updatedProduct.getBarcode(),
                 updatedProduct.getRrp(),
                 updatedProduct.isActive()
-        );
+        ));
+    }
+
+    // Every write lands in the catalogue's deltas, here and on the other replicas
+    private ProductResponseDto catalogued(ProductResponseDto product) {
+        productCatalogService.publish(product);
+        return product;
     }
 
     // Generic helper method for updating fields
@@ -175,7 +185,7 @@ public class ProductService {
         updater.accept(newValue);
     }
 
-    @CacheEvict(value = {"product", "productList"}, allEntries = true)
+    @CacheEvict(value = "product", allEntries = true)
     public Product softDeleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(PRODUCT_NOT_FOUND_DESC + id));
@@ -188,10 +198,16 @@ public class ProductService {
             throw new IllegalStateException("Cannot delete product with id " + id + " because it exists in inventory.");
         }
         product.setActive(false);
-        return productRepository.save(product);
+        Product deletedProduct = productRepository.save(product);
+        cacheGenerationService.bump(CacheGenerationService.PRODUCT_LIST);
+        catalogued(new ProductResponseDto(deletedProduct.getId(), deletedProduct.getSku(), deletedProduct.getDescription(),
+                deletedProduct.getCategory(), deletedProduct.getSubcategory(), deletedProduct.getBrand(), deletedProduct.getOrigin(),
+                deletedProduct.getUom(), deletedProduct.getVendorCode(), deletedProduct.getBarcode(), deletedProduct.getRrp(),
+                deletedProduct.isActive()));
+        return deletedProduct;
     }
 
-    @CacheEvict(value = {"product", "productList"}, allEntries = true)
+    @CacheEvict(value = "product", allEntries = true)
     public ProductResponseDto reverseSoftDelete(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(PRODUCT_NOT_FOUND_DESC + id));
@@ -199,7 +215,8 @@ public class ProductService {
         updateField(true, product::setActive);
 
         Product updatedProduct = productRepository.save(product);
-        return new ProductResponseDto(
+        cacheGenerationService.bump(CacheGenerationService.PRODUCT_LIST);
+        return catalogued(new ProductResponseDto(
                 updatedProduct.getId(),
                 updatedProduct.getSku(),
                 updatedProduct.getDescription(),
@@ -212,7 +229,7 @@ public class ProductService {
                 updatedProduct.getBarcode(),
                 updatedProduct.getRrp(),
                 updatedProduct.isActive()
-        );
+        ));
     }
 
 }
@@ -0,0 +1,117 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.dto.response.ProductResponseDto;
+import com.retailpulse.service.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking counterparts of the single-item and per-business-entity lookups in {@link InventoryService} and
+ * {@link ProductService}. A hit is read from the same Redis cache entries as the {@code @Cacheable} methods (same
+ * keys, same JSON) without holding a request thread.
+ *
+ * A miss calls the {@code @Cacheable} method itself, so it goes through the same CoalescingCache as the blocking API:
+ * one load per key across replicas under the load lease, the same business-entity check, and the same cache policies
+ * when the value is written back. That load is blocking JDBC, so it runs on a scheduler of its own rather than the
+ * shared bounded elastic one: {@code app.reactive-read.miss-threads} threads, kept below the Hikari pool size so
+ * misses cannot take every connection from the MVC endpoints, each with at most {@code miss-queue} loads waiting.
+ * A miss beyond that gets a 503 straight away instead of parking on a thread until a connection frees up, so a burst
+ * of misses is pushed back to the devices rather than piling up threads and memory here. ReactiveReadBenchmark
+ * compares this with the shared scheduler and with blocking handlers.
+ */
+@Service
+public class ReactiveStockReadService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveStockReadService.class);
+
+    private static final String READ_MISS_OVERLOADED = "READ_MISS_OVERLOADED";
+    private static final String READ_MISS_OVERLOADED_DESC = "Too many uncached reads waiting, retry shortly: ";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final InventoryService inventoryService;
+    private final ProductService productService;
+    private final Scheduler missScheduler;
+
+    // Same plain mapper as the cache serializers in RedisConfig, so entries written there read back here
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final JavaType inventoryListType =
+            objectMapper.getTypeFactory().constructCollectionType(List.class, InventoryResponseDto.class);
+
+    public ReactiveStockReadService(ReactiveStringRedisTemplate redisTemplate,
+                                    InventoryService inventoryService,
+                                    ProductService productService,
+                                    @Value("${app.reactive-read.miss-threads:8}") int missThreads,
+                                    @Value("${app.reactive-read.miss-queue:100}") int missQueue) {
+        this.redisTemplate = redisTemplate;
+        this.inventoryService = inventoryService;
+        this.productService = productService;
+        this.missScheduler = Schedulers.newBoundedElastic(missThreads, missQueue, "reactive-read-miss");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        missScheduler.dispose();
+    }
+
+    public Mono<InventoryResponseDto> getInventoryById(long id) {
+        return cached("inventory::" + id, objectMapper.constructType(InventoryResponseDto.class),
+                () -> inventoryService.getInventoryById(id));
+    }
+
+    public Mono<InventoryResponseDto> getInventoryByProductIdAndBusinessEntityId(long productId, long businessEntityId) {
+        return cached("inventory::byProductAndBE:" + productId + ":" + businessEntityId,
+                objectMapper.constructType(InventoryResponseDto.class),
+                () -> inventoryService.getInventoryByProductIdAndBusinessEntityId(productId, businessEntityId));
+    }
+
+    public Mono<List<InventoryResponseDto>> getInventoryByBusinessEntityId(long businessEntityId) {
+        return cached("inventoryList::byBE:" + businessEntityId, inventoryListType,
+                () -> inventoryService.getInventoryByBusinessEntityId(businessEntityId));
+    }
+
+    public Mono<ProductResponseDto> getProductById(long id) {
+        return cached("product::" + id, objectMapper.constructType(ProductResponseDto.class),
+                () -> productService.getProductById(id));
+    }
+
+    public Mono<ProductResponseDto> getProductBySku(String sku) {
+        return cached("product::bySKU:" + sku, objectMapper.constructType(ProductResponseDto.class),
+                () -> productService.getProductBySKU(sku));
+    }
+
+    private <T> Mono<T> cached(String key, JavaType type, Callable<T> load) {
+        return redisTemplate.opsForValue().get(key)
+                .<T>handle((json, sink) -> {
+                    try {
+                        sink.next(objectMapper.readValue(json, type));
+                    } catch (JsonProcessingException e) {
+                        // An entry written by an older DTO shape; leave it to the blocking path
+                        logger.warn("Discarding unreadable cache entry {}: {}", key, e.getOriginalMessage());
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Redis read of {} failed, loading through the cache: {}", key, e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromCallable(load)
+                        .subscribeOn(missScheduler)
+                        .onErrorMap(RejectedExecutionException.class, e -> {
+                            logger.warn("Miss load of {} rejected, every miss thread and its queue is full", key);
+                            return new ServiceUnavailableException(READ_MISS_OVERLOADED, READ_MISS_OVERLOADED_DESC + key);
+                        }));
+    }
+}
@@ -0,0 +1,236 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The compute half of a reorder run (see {@link ReorderService}), free of I/O so it can be measured on its own.
+ * The products that have levels are split in halves on a fork-join pool until a task holds at most
+ * {@code leafProducts} of them; each leaf plans its products one after another and hands proposals to the sink
+ * in batches of {@code batchSize} as they fill, so nothing holds the whole run's output.
+ *
+ * For one product, every store at or below its reorder point asks to be filled up to its max level. The
+ * warehouse's stock goes to those stores lowest days of cover first; what it cannot cover, plus whatever takes
+ * the warehouse itself to its max level once it is at or below its own reorder point, is ordered from the supplier.
+ */
+class ReorderPlanner {
+
+    static final int NO_MAX_LEVEL = -1;
+
+    record Proposal(long productId, int quantity, double costPricePerUnit, long source, long destination) {
+    }
+
+    record Totals(int products, long transfers, long transferUnits, long supplierOrders, long supplierUnits) {
+    }
+
+    /**
+     * Reorder levels grouped by product: the rows of product {@code productIds[i]} are
+     * {@code [offsets[i], offsets[i + 1])}, sorted by business entity. Rows are appended in (product, business
+     * entity) order, which is how they are loaded.
+     */
+    static final class Levels {
+        private final long[] productIds;
+        private final int[] offsets;
+        private final long[] businessEntityIds;
+        private final int[] reorderPoints;
+        private final int[] maxLevels;
+        private int products;
+        private int rows;
+
+        Levels(int capacity) {
+            productIds = new long[capacity];
+            offsets = new int[capacity + 1];
+            businessEntityIds = new long[capacity];
+            reorderPoints = new int[capacity];
+            maxLevels = new int[capacity];
+        }
+
+        void add(long productId, long businessEntityId, int reorderPoint, int maxLevel) {
+            if (products == 0 || productIds[products - 1] != productId) {
+                productIds[products++] = productId;
+            }
+            businessEntityIds[rows] = businessEntityId;
+            reorderPoints[rows] = reorderPoint;
+            maxLevels[rows] = maxLevel;
+            offsets[products] = ++rows;
+        }
+
+        int products() {
+            return products;
+        }
+
+        boolean isFull() {
+            return rows == businessEntityIds.length;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int leafProducts;
+    private final int batchSize;
+    private final double coverDays;
+
+    ReorderPlanner(ForkJoinPool pool, int leafProducts, int batchSize, double coverDays) {
+        this.pool = pool;
+        this.leafProducts = leafProducts;
+        this.batchSize = batchSize;
+        this.coverDays = coverDays;
+    }
+
+    /**
+     * Plans every product in {@code levels}. {@code unitsOut28} holds each (product, business entity)'s units out
+     * over the last 28 days in its quantity slot; it sizes the fill target where no max level is set.
+     * {@code stores} is sorted and holds the business entities that may receive transfers.
+     */
+    Totals plan(Levels levels, LongStockMap stock, LongStockMap unitsOut28, long[] stores, long warehouseId,
+                long supplierId, Consumer<List<Proposal>> sink) {
+        Run run = new Run(levels, stock, unitsOut28, stores, warehouseId, supplierId, sink);
+        pool.invoke(new Slice(run, 0, levels.products()));
+        return new Totals(levels.products(), run.transfers.sum(), run.transferUnits.sum(), run.supplierOrders.sum(),
+                run.supplierUnits.sum());
+    }
+
+    private final class Run {
+        final Levels levels;
+        final LongStockMap stock;
+        final LongStockMap unitsOut28;
+        final long[] stores;
+        final long warehouseId;
+        final long supplierId;
+        final Consumer<List<Proposal>> sink;
+        final LongAdder transfers = new LongAdder();
+        final LongAdder transferUnits = new LongAdder();
+        final LongAdder supplierOrders = new LongAdder();
+        final LongAdder supplierUnits = new LongAdder();
+
+        Run(Levels levels, LongStockMap stock, LongStockMap unitsOut28, long[] stores, long warehouseId,
+            long supplierId, Consumer<List<Proposal>> sink) {
+            this.levels = levels;
+            this.stock = stock;
+            this.unitsOut28 = unitsOut28;
+            this.stores = stores;
+            this.warehouseId = warehouseId;
+            this.supplierId = supplierId;
+            this.sink = sink;
+        }
+    }
+
+    private final class Slice extends RecursiveAction {
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        Slice(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafProducts) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Slice(run, from, middle), new Slice(run, middle, to));
+                return;
+            }
+            List<Proposal> batch = new ArrayList<>(batchSize);
+            for (int i = from; i < to; i++) {
+                planProduct(run, i, batch);
+                if (batch.size() >= batchSize) {
+                    run.sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                run.sink.accept(batch);
+            }
+        }
+    }
+
+    private void planProduct(Run run, int product, List<Proposal> out) {
+        Levels levels = run.levels;
+        long productId = levels.productIds[product];
+        int first = levels.offsets[product];
+        int count = levels.offsets[product + 1] - first;
+
+        int warehouseRow = -1;
+        int[] needs = new int[count];
+        double[] daysOfCover = new double[count];
+        long totalNeed = 0;
+        for (int r = 0; r < count; r++) {
+            int row = first + r;
+            long businessEntityId = levels.businessEntityIds[row];
+            if (businessEntityId == run.warehouseId) {
+                warehouseRow = row;
+                continue;
+            }
+            if (Arrays.binarySearch(run.stores, businessEntityId) < 0) {
+                continue;
+            }
+            int quantity = Math.max(0, run.stock.quantity(productId, businessEntityId));
+            if (quantity > levels.reorderPoints[row]) {
+                continue;
+            }
+            double perDay = perDay(run, productId, businessEntityId);
+            needs[r] = target(levels, row, perDay) - quantity;
+            daysOfCover[r] = perDay > 0 ? quantity / perDay : Double.POSITIVE_INFINITY;
+            totalNeed += needs[r];
+        }
+
+        int warehouseQuantity = Math.max(0, run.stock.quantity(productId, run.warehouseId));
+        double cost = warehouseQuantity > 0 ? run.stock.totalCostPrice(productId, run.warehouseId) / warehouseQuantity : 0.0;
+        long allocated = 0;
+        if (totalNeed > 0 && warehouseQuantity > 0) {
+            // Most urgent first; ties keep business entity order, the sort being stable
+            Integer[] order = new Integer[count];
+            for (int r = 0; r < count; r++) {
+                order[r] = r;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(r -> daysOfCover[r]));
+            long available = warehouseQuantity;
+            for (int r : order) {
+                if (needs[r] == 0 || available == 0) {
+                    continue;
+                }
+                int quantity = (int) Math.min(needs[r], available);
+                available -= quantity;
+                allocated += quantity;
+                out.add(new Proposal(productId, quantity, cost, run.warehouseId, levels.businessEntityIds[first + r]));
+                run.transfers.increment();
+            }
+            run.transferUnits.add(allocated);
+        }
+
+        long order = totalNeed - allocated;
+        long warehouseAfter = warehouseQuantity - allocated;
+        if (warehouseRow >= 0 && warehouseAfter <= levels.reorderPoints[warehouseRow]) {
+            order += target(levels, warehouseRow, perDay(run, productId, run.warehouseId)) - warehouseAfter;
+        }
+        if (order > 0) {
+            int quantity = (int) Math.min(order, Integer.MAX_VALUE);
+            out.add(new Proposal(productId, quantity, cost, run.supplierId, run.warehouseId));
+            run.supplierOrders.increment();
+            run.supplierUnits.add(quantity);
+        }
+    }
+
+    private static double perDay(Run run, long productId, long businessEntityId) {
+        return Math.max(0, run.unitsOut28.quantity(productId, businessEntityId)) / (double) StockVelocityService.COVER_WINDOW;
+    }
+
+    // The max level, or the reorder point plus coverDays of demand; always above the reorder point
+    private int target(Levels levels, int row, double perDay) {
+        int reorderPoint = levels.reorderPoints[row];
+        if (levels.maxLevels[row] != NO_MAX_LEVEL) {
+            return Math.max(levels.maxLevels[row], reorderPoint + 1);
+        }
+        return reorderPoint + Math.max(1, (int) Math.ceil(perDay * coverDays));
+    }
+}
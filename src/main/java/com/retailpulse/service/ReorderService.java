@@ -0,0 +1,232 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.response.BusinessEntityResponseDto;
+import com.retailpulse.dto.response.ReorderProposalResponseDto;
+import com.retailpulse.dto.response.ReorderRunResponseDto;
+import com.retailpulse.entity.TimeOrderedUuidGenerator;
+import com.retailpulse.repository.ReorderProposalRepository;
+import com.retailpulse.service.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replenishment proposals for every product with reorder levels: transfers from a warehouse to the stores at or
+ * below their reorder point, and supplier orders for what the warehouse cannot cover or needs itself. Levels come
+ * from stock_threshold, stock on hand from the in-memory stock index and demand from the 28-day outflow kept by
+ * {@link StockVelocityService}; planning is split across a fork-join pool (see {@link ReorderPlanner}).
+ *
+ * Proposals are drafts: they are written to reorder_proposal in batches as the pool produces them, under one run
+ * id, and nothing moves until a planner submits them as inventory transactions. Stock is read live while the run
+ * is in progress, so a sale during the run may or may not be reflected. Runs older than
+ * {@code app.reorder.retention} are dropped when the next run starts; one run at a time per replica.
+ */
+@Service
+public class ReorderService {
+    private static final Logger logger = LoggerFactory.getLogger(ReorderService.class);
+
+    private static final String INVALID_BUSINESS_ENTITY = "INVALID_BUSINESS_ENTITY";
+    private static final String INVALID_BUSINESS_ENTITY_DESC = "Not a valid business entity: ";
+    private static final String INVALID_SUPPLIER = "INVALID_SUPPLIER";
+    private static final String INVALID_SUPPLIER_DESC = "Supplier must be an external business entity: ";
+    private static final String STOCK_INDEX_NOT_LOADED = "STOCK_INDEX_NOT_LOADED";
+    private static final String STOCK_INDEX_NOT_LOADED_DESC = "Stock index is still loading, retry shortly";
+    private static final String REORDER_RUN_IN_PROGRESS = "REORDER_RUN_IN_PROGRESS";
+    private static final String REORDER_RUN_IN_PROGRESS_DESC = "A reorder run is already in progress";
+
+    private static final String COUNT_LEVELS_SQL = "SELECT COUNT(*) FROM stock_threshold";
+    private static final String LOAD_LEVELS_SQL = "SELECT product_id, business_entity_id, reorder_point, max_level " +
+            "FROM stock_threshold ORDER BY product_id, business_entity_id";
+    private static final String LOAD_UNITS_OUT_SQL = "SELECT product_id, business_entity_id, SUM(units_out) " +
+            "FROM stock_movement_day WHERE movement_date >= ? GROUP BY product_id, business_entity_id";
+    private static final String INSERT_SQL = "INSERT INTO reorder_proposal " +
+            "(id, run_id, product_id, quantity, cost_price_per_unit, source, destination, inserted_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReorderProposalRepository reorderProposalRepository;
+    private final StockIndexService stockIndexService;
+    private final BusinessEntityService businessEntityService;
+    private final ShardRouter shardRouter;
+    private final Duration retention;
+    private final ForkJoinPool pool;
+    private final ReorderPlanner planner;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReorderService(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ReorderProposalRepository reorderProposalRepository,
+                          StockIndexService stockIndexService,
+                          BusinessEntityService businessEntityService,
+                          ShardRouter shardRouter,
+                          @Value("${app.reorder.parallelism:0}") int parallelism,
+                          @Value("${app.reorder.leaf-products:256}") int leafProducts,
+                          @Value("${app.reorder.batch-size:1000}") int batchSize,
+                          @Value("${app.reorder.cover-days:14}") double coverDays,
+                          @Value("${app.reorder.retention:7d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reorderProposalRepository = reorderProposalRepository;
+        this.stockIndexService = stockIndexService;
+        this.businessEntityService = businessEntityService;
+        this.shardRouter = shardRouter;
+        this.retention = retention;
+        // Its own pool: leaves block on batch inserts, which must not stall the common pool
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.planner = new ReorderPlanner(pool, leafProducts, batchSize, coverDays);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public ReorderRunResponseDto run(long warehouseId, long supplierId) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException(REORDER_RUN_IN_PROGRESS, REORDER_RUN_IN_PROGRESS_DESC);
+        }
+        try {
+            return runExclusively(warehouseId, supplierId);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<ReorderProposalResponseDto> getProposals(UUID runId, int page, int size) {
+        return reorderProposalRepository.findByRunIdOrderByIdAsc(runId, PageRequest.of(page, size)).stream()
+                .map(p -> new ReorderProposalResponseDto(p.getId(), p.getRunId(), p.getProductId(), p.getQuantity(),
+                        p.getCostPricePerUnit(), p.getSource(), p.getDestination(), p.getInsertedAt()))
+                .toList();
+    }
+
+    private ReorderRunResponseDto runExclusively(long warehouseId, long supplierId) {
+        long[] stores = stores(warehouseId, supplierId);
+        LongStockMap stock = stockIndexService.currentIndex();
+        if (stock == null) {
+            throw new BusinessException(STOCK_INDEX_NOT_LOADED, STOCK_INDEX_NOT_LOADED_DESC);
+        }
+
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> reorderProposalRepository.deleteInsertedBefore(now.minus(retention)));
+        ReorderPlanner.Levels levels = loadLevels();
+        LongStockMap unitsOut28 = loadUnitsOut28(LocalDate.now(ZoneOffset.UTC));
+        long loaded = System.nanoTime();
+
+        UUID runId = TimeOrderedUuidGenerator.next();
+        ReorderPlanner.Totals totals;
+        try {
+            totals = planner.plan(levels, stock, unitsOut28, stores, warehouseId, supplierId, batch -> write(runId, now, batch));
+        } catch (RuntimeException e) {
+            logger.error("Reorder run {} failed, dropping its proposals: {}", runId, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> reorderProposalRepository.deleteRun(runId));
+            throw e;
+        }
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        logger.info("Reorder run {}: {} products, {} transfers, {} supplier orders; loaded in {} ms, total {} ms",
+                runId, totals.products(), totals.transfers(), totals.supplierOrders(),
+                Duration.ofNanos(loaded - start).toMillis(), elapsedMillis);
+        return new ReorderRunResponseDto(runId, warehouseId, supplierId, totals.products(), totals.transfers(),
+                totals.transferUnits(), totals.supplierOrders(), totals.supplierUnits(), elapsedMillis);
+    }
+
+    // Active internal business entities other than the warehouse, sorted
+    private long[] stores(long warehouseId, long supplierId) {
+        List<BusinessEntityResponseDto> businessEntities = businessEntityService.allBusinessEntityResponseDetails();
+        BusinessEntityResponseDto warehouse = find(businessEntities, warehouseId);
+        if (warehouse == null || !Boolean.TRUE.equals(warehouse.active()) || Boolean.TRUE.equals(warehouse.external())) {
+            throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + warehouseId);
+        }
+        BusinessEntityResponseDto supplier = find(businessEntities, supplierId);
+        if (supplier == null || !Boolean.TRUE.equals(supplier.external())) {
+            throw new BusinessException(INVALID_SUPPLIER, INVALID_SUPPLIER_DESC + supplierId);
+        }
+        return businessEntities.stream()
+                .filter(b -> b.id() != null && b.id() != warehouseId)
+                .filter(b -> Boolean.TRUE.equals(b.active()) && !Boolean.TRUE.equals(b.external()))
+                .mapToLong(BusinessEntityResponseDto::id)
+                .sorted()
+                .toArray();
+    }
+
+    private static BusinessEntityResponseDto find(List<BusinessEntityResponseDto> businessEntities, long id) {
+        return businessEntities.stream().filter(b -> b.id() != null && b.id() == id).findFirst().orElse(null);
+    }
+
+    // Thresholds stay on the home database. Streamed, like the stock index load.
+    private ReorderPlanner.Levels loadLevels() {
+        Long rows = jdbcTemplate.queryForObject(COUNT_LEVELS_SQL, Long.class);
+        // A little headroom for thresholds set between the count and the read; later ones wait for the next run
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels((int) Math.min(Integer.MAX_VALUE / 2, (rows == null ? 0 : rows) + 1024));
+        int[] skipped = new int[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_LEVELS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            if (levels.isFull()) {
+                skipped[0]++;
+                return;
+            }
+            int maxLevel = rs.getInt(4);
+            levels.add(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.wasNull() ? ReorderPlanner.NO_MAX_LEVEL : maxLevel);
+        });
+        if (skipped[0] > 0) {
+            logger.warn("{} threshold(s) set during the reorder load are left for the next run", skipped[0]);
+        }
+        return levels;
+    }
+
+    // Summed per (product, business entity) on each shard; the units go in the map's quantity slot
+    private LongStockMap loadUnitsOut28(LocalDate today) {
+        Date from = Date.valueOf(today.minusDays(StockVelocityService.COVER_WINDOW - 1L));
+        LongStockMap unitsOut = new LongStockMap(1024);
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.onShard(shard, () -> {
+                jdbcTemplate.query(LOAD_UNITS_OUT_SQL, (RowCallbackHandler) rs ->
+                        unitsOut.put(rs.getLong(1), rs.getLong(2), (int) Math.min(rs.getLong(3), Integer.MAX_VALUE), 0.0), from);
+                return null;
+            });
+        }
+        return unitsOut;
+    }
+
+    // Called from pool threads, so each batch is its own transaction on the home database
+    private void write(UUID runId, Instant insertedAt, List<ReorderPlanner.Proposal> batch) {
+        Timestamp timestamp = Timestamp.from(insertedAt);
+        byte[] run = bytes(runId);
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (ReorderPlanner.Proposal proposal : batch) {
+            args.add(new Object[]{bytes(TimeOrderedUuidGenerator.next()), run, proposal.productId(), proposal.quantity(),
+                    proposal.costPricePerUnit(), proposal.source(), proposal.destination(), timestamp});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+}
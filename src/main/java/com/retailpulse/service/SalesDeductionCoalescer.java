@@ -0,0 +1,360 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.retailpulse.service.exception.BusinessException;
+import com.retailpulse.service.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.retailpulse.config.logging.LogMarkers.PER_ITEM;
+
+/**
+ * Optional path for sales deductions ({@code app.sales-coalescing.enabled}). Every deduction is queued in the lane
+ * of its (product, business entity) row; the first one to arrive schedules the lane to be drained after
+ * {@code app.sales-coalescing.window}, and everything queued by then is applied in one transaction that locks the
+ * row once and issues a single guarded UPDATE. Deductions are admitted in arrival order while stock lasts, so each
+ * caller still gets its own result, exactly as if the writes had run one after another.
+ *
+ * Lanes are drained by {@code app.sales-coalescing.threads} threads, which also bounds the connections sales
+ * deductions can hold however many requests are waiting. A drain applies at most {@code max-batch} deductions and
+ * then puts a busy lane back at the end of the executor's queue, so one hot row cannot keep a thread from the
+ * other lanes. A sale of several products is applied per product; when one of them fails, the ones that went
+ * through are credited back through their lanes before the caller gets its answer.
+ *
+ * A caller waits at most {@code app.sales-coalescing.timeout} and then gets a 503: its deductions still queued are
+ * withdrawn, and one a lane had already picked up is credited back once it applies.
+ *
+ * Off by default. SalesDeductionBenchmark compares this path with one locking transaction per sale against a real
+ * MySQL; only turn it on where that shows a win for the expected concurrency and hot-row mix.
+ */
+@Service
+public class SalesDeductionCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(SalesDeductionCoalescer.class);
+
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND = "INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND";
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC = "Inventory by Product and Business Entity not found (ProductId, Business Entity): ";
+    private static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+    private static final String INSUFFICIENT_STOCK_DESC = "Insufficient stock for products: ";
+    private static final String SALES_DEDUCTION_TIMEOUT = "SALES_DEDUCTION_TIMEOUT";
+    private static final String SALES_DEDUCTION_TIMEOUT_DESC = "Stock deduction did not complete in time, nothing was deducted for products: ";
+
+    private static final String LOCK_SQL =
+            "SELECT quantity, total_cost_price, version FROM inventory WHERE product_id = ? AND business_entity_id = ? FOR UPDATE";
+    // The guard is redundant under the row lock, but keeps a stray concurrent writer from ever driving stock negative
+    private static final String DEDUCT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, version = version + 1 WHERE product_id = ? AND business_entity_id = ? AND quantity >= ?";
+
+    enum Outcome { APPLIED, INSUFFICIENT_STOCK, NOT_FOUND }
+
+    // A negative quantity is a credit, used to undo the applied part of a failed multi-product sale
+    private record Deduction(int quantity, CompletableFuture<Outcome> result) {
+    }
+
+    private record Row(int quantity, double totalCostPrice, long version) {
+    }
+
+    private static final class Lane {
+        private final long productId;
+        private final long businessEntityId;
+        private final Queue<Deduction> queue = new ConcurrentLinkedQueue<>();
+
+        Lane(long productId, long businessEntityId) {
+            this.productId = productId;
+            this.businessEntityId = businessEntityId;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatch;
+    private final Duration timeout;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+
+    public SalesDeductionCoalescer(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ShardRouter shardRouter,
+                                   @Value("${app.sales-coalescing.enabled:false}") boolean enabled,
+                                   @Value("${app.sales-coalescing.window:2ms}") Duration window,
+                                   @Value("${app.sales-coalescing.threads:4}") int threads,
+                                   @Value("${app.sales-coalescing.max-batch:500}") int maxBatch,
+                                   @Value("${app.sales-coalescing.timeout:5s}") Duration timeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "sales-lane-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Deducts a sale and waits for the outcome. Throws the same business exceptions as the direct path: not found
+     * when a product is not stocked at the business entity, otherwise insufficient stock listing every product
+     * that could not be deducted. Either way nothing of the sale stays applied. When the lanes do not get to the sale
+     * within the timeout, throws a {@link ServiceUnavailableException} instead.
+     */
+    public void deduct(long businessEntityId, List<InventoryUpdateRequestDto.InventoryItem> items) {
+        // One deduction per product, so a sale listing a product twice is checked against its total
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (InventoryUpdateRequestDto.InventoryItem item : items) {
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        Map<Long, CompletableFuture<Outcome>> results = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> results.put(productId, submit(productId, businessEntityId, quantity)));
+
+        List<Long> applied = new ArrayList<>();
+        List<Long> insufficient = new ArrayList<>();
+        List<Long> timedOut = new ArrayList<>();
+        Long notFound = null;
+        RuntimeException failure = null;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Map.Entry<Long, CompletableFuture<Outcome>> result : results.entrySet()) {
+            try {
+                Outcome outcome = await(result.getValue(), deadline);
+                if (outcome == null) {
+                    timedOut.add(result.getKey());
+                    continue;
+                }
+                switch (outcome) {
+                    case APPLIED -> applied.add(result.getKey());
+                    case INSUFFICIENT_STOCK -> insufficient.add(result.getKey());
+                    case NOT_FOUND -> notFound = notFound == null ? result.getKey() : notFound;
+                }
+            } catch (CompletionException e) {
+                failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (failure == null && timedOut.isEmpty() && notFound == null && insufficient.isEmpty()) {
+            return;
+        }
+
+        compensate(businessEntityId, applied, quantities);
+        if (failure != null) {
+            throw failure;
+        }
+        if (!timedOut.isEmpty()) {
+            String products = timedOut.stream().map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse("");
+            logger.warn("Sales deduction for businessEntityId {} timed out after {} on products: {}", businessEntityId, timeout, products);
+            throw new ServiceUnavailableException(SALES_DEDUCTION_TIMEOUT, SALES_DEDUCTION_TIMEOUT_DESC + products);
+        }
+        if (notFound != null) {
+            throw new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                    INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + notFound + ", " + businessEntityId + ")");
+        }
+        String failedProducts = insufficient.stream().map(String::valueOf).reduce((a, b) -> a + ", " + b).orElse("");
+        logger.warn("Throwing BusinessException for insufficient stock on products: {}", failedProducts);
+        throw new BusinessException(INSUFFICIENT_STOCK, INSUFFICIENT_STOCK_DESC + failedProducts);
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    CompletableFuture<Outcome> submit(long productId, long businessEntityId, int quantity) {
+        CompletableFuture<Outcome> result = new CompletableFuture<>();
+        Deduction deduction = new Deduction(quantity, result);
+        long key = LongStockMap.key(productId, businessEntityId);
+        // A lane is in the map exactly while a drain is pending or running, so whoever creates it schedules it
+        boolean[] created = new boolean[1];
+        Lane lane = lanes.compute(key, (k, existing) -> {
+            Lane current = existing;
+            if (current == null) {
+                current = new Lane(productId, businessEntityId);
+                created[0] = true;
+            }
+            current.queue.add(deduction);
+            return current;
+        });
+        if (created[0]) {
+            executor.schedule(() -> drain(key, lane), window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    // The outcome, or null when the deadline passed first; the deduction is then withdrawn from its lane (or
+    // credited back by the lane, if it was already being applied, see apply)
+    private static Outcome await(CompletableFuture<Outcome> result, long deadline) {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Losing this race means the lane has just answered
+            return result.cancel(false) ? null : result.join();
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    // Waits for the credits, so the caller only sees the failure once the stock is back
+    private void compensate(long businessEntityId, List<Long> applied, Map<Long, Integer> quantities) {
+        Map<Long, CompletableFuture<Outcome>> credits = new LinkedHashMap<>();
+        for (Long productId : applied) {
+            credits.put(productId, submit(productId, businessEntityId, -quantities.get(productId)));
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        credits.forEach((productId, credit) -> {
+            String problem;
+            try {
+                Outcome outcome = credit.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                problem = outcome == Outcome.APPLIED ? null : outcome.name();
+            } catch (TimeoutException e) {
+                // Never withdrawn: it still applies when its lane gets to it
+                problem = "still queued after " + timeout;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                problem = "interrupted, still queued";
+            } catch (ExecutionException e) {
+                problem = e.getCause().getMessage();
+            }
+            if (problem != null) {
+                logger.error("Unable to credit back {} of productId {} at businessEntityId {} after a failed sale: {}",
+                        quantities.get(productId), productId, businessEntityId, problem);
+            }
+        });
+    }
+
+    // One batch per turn; a lane with more queued goes to the back of the executor's queue behind the other lanes
+    private void drain(long key, Lane lane) {
+        List<Deduction> batch = new ArrayList<>();
+        Deduction next;
+        while (batch.size() < maxBatch && (next = lane.queue.poll()) != null) {
+            // Withdrawn by a caller that stopped waiting
+            if (!next.result().isDone()) {
+                batch.add(next);
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(lane, batch);
+        }
+        // Retired atomically with respect to submit(), so nothing can be queued on a lane nobody drains
+        if (lanes.computeIfPresent(key, (k, current) -> current.queue.isEmpty() ? null : current) == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(key, lane));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: nobody will drain the rest
+            lanes.remove(key, lane);
+            while ((next = lane.queue.poll()) != null) {
+                next.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void apply(Lane lane, List<Deduction> batch) {
+        Outcome[] outcomes = new Outcome[batch.size()];
+        try {
+            shardRouter.forBusinessEntity(lane.businessEntityId, () -> transactionTemplate.execute(status -> {
+                List<Row> rows = jdbcTemplate.query(LOCK_SQL,
+                        (rs, i) -> new Row(rs.getInt("quantity"), rs.getDouble("total_cost_price"), rs.getLong("version")),
+                        lane.productId, lane.businessEntityId);
+                if (rows.isEmpty()) {
+                    Arrays.fill(outcomes, Outcome.NOT_FOUND);
+                    return null;
+                }
+                Row row = rows.get(0);
+                int remaining = row.quantity();
+                int total = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    int quantity = batch.get(i).quantity();
+                    if (quantity <= remaining) {
+                        remaining -= quantity;
+                        total += quantity;
+                        outcomes[i] = Outcome.APPLIED;
+                    } else {
+                        logger.warn(PER_ITEM, "Insufficient stock for productId: {}. Available: {}, Requested: {}",
+                                lane.productId, remaining, quantity);
+                        outcomes[i] = Outcome.INSUFFICIENT_STOCK;
+                    }
+                }
+                if (total != 0) {
+                    int guard = Math.max(total, 0);
+                    if (jdbcTemplate.update(DEDUCT_SQL, total, lane.productId, lane.businessEntityId, guard) != 1) {
+                        throw new IllegalStateException("Stock of productId " + lane.productId + " at businessEntityId "
+                                + lane.businessEntityId + " changed under the row lock");
+                    }
+                    // Delivered after commit, like the direct path's events
+                    eventPublisher.publishEvent(new InventoryChangedEvent(List.of(new InventoryChangedEvent.Change(
+                            lane.productId, lane.businessEntityId, row.quantity(), remaining, row.totalCostPrice(), false,
+                            row.version() + 1))));
+                }
+                logger.debug("Applied {} of {} coalesced deduction(s) for productId: {}, businessEntityId: {}",
+                        Arrays.stream(outcomes).filter(o -> o == Outcome.APPLIED).count(), batch.size(),
+                        lane.productId, lane.businessEntityId);
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            logger.warn("Coalesced deduction of {} request(s) for productId: {}, businessEntityId: {} failed: {}",
+                    batch.size(), lane.productId, lane.businessEntityId, e.getMessage());
+            batch.forEach(d -> d.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Deduction deduction = batch.get(i);
+            if (!deduction.result().complete(outcomes[i]) && outcomes[i] == Outcome.APPLIED) {
+                creditBack(lane, deduction.quantity());
+            }
+        }
+    }
+
+    // The caller withdrew the deduction while it was being applied and has already been told nothing was deducted
+    private void creditBack(Lane lane, int quantity) {
+        submit(lane.productId, lane.businessEntityId, -quantity).whenComplete((outcome, e) -> {
+            if (e != null || outcome != Outcome.APPLIED) {
+                logger.error("Unable to credit back {} of productId {} at businessEntityId {} after a timed-out sale: {}",
+                        quantity, lane.productId, lane.businessEntityId, e != null ? e.getMessage() : outcome);
+            }
+        });
+    }
+}
@@ -0,0 +1,178 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.StockAlertResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stock threshold alerts, shared by all replicas through Redis: the most recent {@code app.stock-alerts.capacity}
+ * alerts are kept in the {@code stock-alerts} list (newest first, trimmed on every push) and each new alert is
+ * published on the {@code stock-alerts} channel, from which every replica forwards it to its own server-sent
+ * event subscribers. Alerts are raised once, by the replica that made the write.
+ */
+@Service
+public class StockAlertService implements ApplicationRunner, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(StockAlertService.class);
+
+    static final String ALERTS_KEY = "stock-alerts";
+    static final String CHANNEL = "stock-alerts";
+    static final String EVENT_NAME = "stock-alert";
+
+    private record Subscriber(SseEmitter emitter, Long businessEntityId) {
+        boolean wants(StockAlertResponseDto alert) {
+            return businessEntityId == null || businessEntityId == alert.businessEntityId();
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final int capacity;
+    private final Duration streamTimeout;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public StockAlertService(StringRedisTemplate redisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             @Value("${app.stock-alerts.capacity:1000}") int capacity,
+                             @Value("${app.stock-alerts.stream-timeout:30m}") Duration streamTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.capacity = capacity;
+        this.streamTimeout = streamTimeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to subscribe to {}, alert streams on this replica stay silent: {}", CHANNEL, e.getMessage());
+        }
+    }
+
+    public void raise(List<StockAlertResponseDto> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> payloads = new ArrayList<>(alerts.size());
+            for (StockAlertResponseDto alert : alerts) {
+                payloads.add(objectMapper.writeValueAsString(alert));
+            }
+            redisTemplate.opsForList().leftPushAll(ALERTS_KEY, payloads);
+            redisTemplate.opsForList().trim(ALERTS_KEY, 0, capacity - 1L);
+            for (String payload : payloads) {
+                redisTemplate.convertAndSend(CHANNEL, payload);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Unable to record {} stock alert(s): {}", alerts.size(), e.getMessage());
+        }
+    }
+
+    /** Most recent alerts first, optionally for one business entity only. */
+    public List<StockAlertResponseDto> getRecentAlerts(Long businessEntityId, int limit) {
+        List<StockAlertResponseDto> alerts = new ArrayList<>();
+        for (StockAlertResponseDto alert : bufferedAlerts()) {
+            if (alerts.size() >= limit) {
+                break;
+            }
+            if (businessEntityId == null || businessEntityId == alert.businessEntityId()) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Opens an alert stream. A reconnecting client sends the id of the last alert it saw and first gets the
+     * buffered alerts raised after it, oldest first.
+     */
+    public SseEmitter subscribe(Long businessEntityId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, businessEntityId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        if (lastEventId != null && !lastEventId.isEmpty()) {
+            List<StockAlertResponseDto> missed = new ArrayList<>();
+            for (StockAlertResponseDto alert : bufferedAlerts()) {
+                if (alert.id().equals(lastEventId)) {
+                    break;
+                }
+                if (subscriber.wants(alert)) {
+                    missed.add(alert);
+                }
+            }
+            Collections.reverse(missed);
+            missed.forEach(alert -> send(subscriber, alert));
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        StockAlertResponseDto alert;
+        try {
+            alert = objectMapper.readValue(message.getBody(), StockAlertResponseDto.class);
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable stock alert: {}", e.getMessage());
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.wants(alert)) {
+                send(subscriber, alert);
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void send(Subscriber subscriber, StockAlertResponseDto alert) {
+        try {
+            subscriber.emitter().send(SseEmitter.event().id(alert.id()).name(EVENT_NAME).data(alert));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container's error callback may not have fired yet
+            subscribers.remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    private List<StockAlertResponseDto> bufferedAlerts() {
+        List<String> payloads = redisTemplate.opsForList().range(ALERTS_KEY, 0, capacity - 1L);
+        if (payloads == null) {
+            return List.of();
+        }
+        List<StockAlertResponseDto> alerts = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            try {
+                alerts.add(objectMapper.readValue(payload, StockAlertResponseDto.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable buffered stock alert: {}", e.getMessage());
+            }
+        }
+        return alerts;
+    }
+}
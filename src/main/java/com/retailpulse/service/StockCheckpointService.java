@@ -0,0 +1,169 @@
+package com.retailpulse.service;
+
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.dto.response.StockAsOfResponseDto;
+import com.retailpulse.entity.StockCheckpoint;
+import com.retailpulse.repository.InventoryTransactionRepository;
+import com.retailpulse.repository.StockCheckpointRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Stock as it stood at a past instant. Every {@code app.stock-checkpoint.interval} the quantity and cost of every
+ * inventory row that changed since its latest checkpoint is copied into stock_checkpoint; an as-of query starts
+ * from the row's latest checkpoint at or before the instant and replays only the inventory transactions after it,
+ * so it reads one checkpoint row and aggregates the transfers since, instead of the whole ledger.
+ *
+ * The copy runs in ranges of {@code chunk-size} inventory ids, one short transaction each, and every range is
+ * stamped with its own time. A row's checkpoint is also retaken once it is half the retention old, so pruning
+ * (in batches of the same size, each in its own transaction) always leaves every row one checkpoint to start from.
+ *
+ * Only transfers are in the ledger. Sales and direct edits between a checkpoint and the instant are not replayed,
+ * so the answer is exact at checkpoints and tracks transfers in between.
+ *
+ * Checkpoints live next to the inventory rows they copy (on each shard when sharded); the ledger stays on the home
+ * database, its archived months in {@link TransactionArchiveService}. One replica takes each interval's checkpoint, claimed through a Redis key.
+ */
+@Service
+public class StockCheckpointService {
+    private static final Logger logger = LoggerFactory.getLogger(StockCheckpointService.class);
+
+    private static final String AS_OF_IN_FUTURE = "AS_OF_IN_FUTURE";
+    private static final String AS_OF_IN_FUTURE_DESC = "Stock cannot be queried as of a future instant: ";
+
+    private static final String SLOT_KEY_PREFIX = "stock-checkpoint-slot:";
+
+    private final StockCheckpointRepository stockCheckpointRepository;
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final TransactionArchiveService transactionArchiveService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public StockCheckpointService(StockCheckpointRepository stockCheckpointRepository,
+                                  InventoryTransactionRepository inventoryTransactionRepository,
+                                  TransactionArchiveService transactionArchiveService,
+                                  ShardRouter shardRouter,
+                                  TransactionTemplate transactionTemplate,
+                                  StringRedisTemplate redisTemplate,
+                                  @Value("${app.stock-checkpoint.enabled:true}") boolean enabled,
+                                  @Value("${app.stock-checkpoint.interval:1h}") Duration interval,
+                                  @Value("${app.stock-checkpoint.retention:400d}") Duration retention,
+                                  @Value("${app.stock-checkpoint.chunk-size:10000}") int chunkSize) {
+        this.stockCheckpointRepository = stockCheckpointRepository;
+        this.inventoryTransactionRepository = inventoryTransactionRepository;
+        this.transactionArchiveService = transactionArchiveService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    public StockAsOfResponseDto getStockAsOf(long productId, long businessEntityId, Instant at) {
+        if (at.isAfter(Instant.now())) {
+            throw new BusinessException(AS_OF_IN_FUTURE, AS_OF_IN_FUTURE_DESC + at);
+        }
+        Optional<StockCheckpoint> checkpoint = shardRouter.forBusinessEntity(businessEntityId, () -> stockCheckpointRepository
+                .findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(productId, businessEntityId, at));
+        // Without a checkpoint (older than the first one, or pruned) the stock started at zero before any transfer
+        Instant from = checkpoint.map(StockCheckpoint::getTakenAt).orElse(Instant.EPOCH);
+        StockMovementDto movement = replay(productId, businessEntityId, from, at);
+
+        int quantity = checkpoint.map(StockCheckpoint::getQuantity).orElse(0) + (int) movement.quantity();
+        double totalCostPrice = checkpoint.map(StockCheckpoint::getTotalCostPrice).orElse(0.0) + movement.totalCostPrice();
+        return new StockAsOfResponseDto(productId, businessEntityId, at, quantity, totalCostPrice,
+                checkpoint.map(StockCheckpoint::getTakenAt).orElse(null), movement.transactions());
+    }
+
+    // Transfers in (from, at]: archived months from the segments, the rest from the ledger table
+    private StockMovementDto replay(long productId, long businessEntityId, Instant from, Instant at) {
+        Instant archivedUntil = transactionArchiveService.archivedUntil();
+        if (archivedUntil == null || !from.isBefore(archivedUntil)) {
+            return inventoryTransactionRepository.netMovement(productId, businessEntityId, from, at);
+        }
+        StockMovementDto archived = transactionArchiveService.netMovement(productId, businessEntityId, from, at);
+        if (at.isBefore(archivedUntil)) {
+            return archived;
+        }
+        // One microsecond, the column's precision, before archivedUntil: the table from archivedUntil inclusive
+        return archived.plus(inventoryTransactionRepository.netMovement(productId, businessEntityId,
+                archivedUntil.minus(1, ChronoUnit.MICROS), at));
+    }
+
+    @Scheduled(fixedRateString = "${app.stock-checkpoint.interval:1h}",
+            initialDelayString = "${app.stock-checkpoint.initial-delay:1m}")
+    public void scheduledCheckpoint() {
+        if (!enabled) {
+            return;
+        }
+        long slot = System.currentTimeMillis() / interval.toMillis();
+        try {
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(SLOT_KEY_PREFIX + slot, "1", interval);
+            if (!Boolean.TRUE.equals(claimed)) {
+                logger.debug("Stock checkpoint {} taken by another replica", slot);
+                return;
+            }
+        } catch (RuntimeException e) {
+            // A second checkpoint in the same interval only costs space; a missing one costs replay time
+            logger.warn("Unable to claim stock checkpoint {}, taking it anyway: {}", slot, e.getMessage());
+        }
+        checkpoint(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    public int checkpoint(Instant now) {
+        long start = System.nanoTime();
+        Instant refreshAfter = now.minus(retention.dividedBy(2));
+        Instant pruneBefore = now.minus(retention);
+        int rows = 0;
+        int pruned = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            rows += shardRouter.onShard(shard, () -> copyChanged(refreshAfter));
+            pruned += shardRouter.onShard(shard, () -> prune(pruneBefore));
+        }
+        logger.info("Stock checkpoint at {}: {} rows copied, {} pruned in {} ms", now, rows, pruned,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private int copyChanged(Instant refreshAfter) {
+        Long maxId = stockCheckpointRepository.maxInventoryId();
+        int rows = 0;
+        for (long afterId = 0; maxId != null && afterId < maxId; afterId += chunkSize) {
+            long from = afterId;
+            Integer copied = transactionTemplate.execute(status -> stockCheckpointRepository.checkpointChanged(
+                    from, from + chunkSize, Instant.now().truncatedTo(ChronoUnit.MILLIS), refreshAfter));
+            rows += copied == null ? 0 : copied;
+        }
+        return rows;
+    }
+
+    private int prune(Instant pruneBefore) {
+        int pruned = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> stockCheckpointRepository.deleteTakenBefore(pruneBefore, chunkSize));
+            pruned += deleted == null ? 0 : deleted;
+            if (deleted == null || deleted < chunkSize) {
+                return pruned;
+            }
+        }
+    }
+}
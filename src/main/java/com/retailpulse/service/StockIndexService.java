@@ -0,0 +1,316 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.response.StockAcrossStoresResponseDto;
+import com.retailpulse.dto.response.StockLevelResponseDto;
+import com.retailpulse.entity.Inventory;
+import com.retailpulse.repository.InventoryRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-process copy of every stock row, keyed by (productId, businessEntityId), so availability checks are a memory
+ * lookup instead of a Redis or MySQL round trip. Loaded from the database at startup (before readiness, as an
+ * {@link ApplicationRunner}) and kept current from {@link InventoryChangedEvent}s: local writes are applied after
+ * commit and relayed to the other replicas over Redis pub/sub. Pub/sub is fire-and-forget, so the whole index is
+ * also rebuilt every {@code app.stock-index.reconcile-interval}.
+ *
+ * Changes can arrive out of commit order (two replicas relaying writes to the same row, a relay overtaking a
+ * reload), so every entry keeps its row version and a change older than what the index holds is dropped. A row
+ * deleted and created again can still lose its re-creation to a late removal until the next reconcile.
+ *
+ * Until the first load completes (or with {@code app.stock-index.enabled=false}, the default) lookups go to the
+ * database. The index costs about 37 bytes of heap per row, and twice that while a reload builds its replacement.
+ *
+ * InventoryService's lookups by product and business entity stay on the cache and database: they return the row id,
+ * which the index does not keep, and transfers write back what they read, so they must not see a lagging copy.
+ */
+@Service
+@Order(0)
+public class StockIndexService implements ApplicationRunner, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(StockIndexService.class);
+
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND = "INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND";
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC = "Inventory by Product and Business Entity not found (ProductId, Business Entity): ";
+
+    static final String CHANNEL = "stock-index";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM inventory";
+    private static final String LOAD_SQL = "SELECT product_id, business_entity_id, quantity, total_cost_price, version FROM inventory";
+
+    record Relay(String origin, List<InventoryChangedEvent.Change> changes) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final ShardRouter shardRouter;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Tells our own relayed messages apart from other replicas'
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile LongStockMap index;
+    // Sorted; copied on the rare write that adds a business entity
+    private volatile long[] businessEntityIds = new long[0];
+    // Non-null while a (re)load runs: changes that arrive meanwhile are replayed onto the new map before the swap
+    private List<InventoryChangedEvent.Change> pendingChanges;
+
+    public StockIndexService(JdbcTemplate jdbcTemplate,
+                             InventoryRepository inventoryRepository,
+                             ShardRouter shardRouter,
+                             StringRedisTemplate redisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             @Value("${app.stock-index.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.shardRouter = shardRouter;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Stock index disabled, availability lookups go to the database");
+            return;
+        }
+        // Subscribe before loading so nothing written during the load is missed
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to subscribe to {}, other replicas' writes only show up at reconcile: {}", CHANNEL, e.getMessage());
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock-index.reconcile-interval:15m}",
+            initialDelayString = "${app.stock-index.reconcile-interval:15m}")
+    public void reconcile() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * The live index, or null until the first load. For bulk readers that would otherwise make millions of
+     * {@link #quantity} calls; every lookup sees the latest committed value, not one snapshot.
+     */
+    public LongStockMap currentIndex() {
+        return index;
+    }
+
+    /** On-hand quantity, or {@link LongStockMap#ABSENT} when the product is not stocked at that business entity. */
+    public int quantity(long productId, long businessEntityId) {
+        LongStockMap current = index;
+        if (current != null) {
+            return current.quantity(productId, businessEntityId);
+        }
+        return shardRouter.forBusinessEntity(businessEntityId,
+                        () -> inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId))
+                .map(Inventory::getQuantity)
+                .orElse(LongStockMap.ABSENT);
+    }
+
+    public StockLevelResponseDto getStockLevel(long productId, long businessEntityId) {
+        LongStockMap current = index;
+        if (current == null) {
+            Inventory inventory = shardRouter.forBusinessEntity(businessEntityId,
+                            () -> inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId))
+                    .orElseThrow(() -> notFound(productId, businessEntityId));
+            return new StockLevelResponseDto(productId, businessEntityId, inventory.getQuantity(), inventory.getTotalCostPrice());
+        }
+        int quantity = current.quantity(productId, businessEntityId);
+        if (quantity == LongStockMap.ABSENT) {
+            throw notFound(productId, businessEntityId);
+        }
+        return new StockLevelResponseDto(productId, businessEntityId, quantity, current.totalCostPrice(productId, businessEntityId));
+    }
+
+    /** Stock of one product at the given business entities, or at every business entity that stocks it when null/empty. */
+    public StockAcrossStoresResponseDto getStockAcrossStores(long productId, List<Long> businessEntityIds) {
+        LongStockMap current = index;
+        if (current == null) {
+            List<StockLevelResponseDto> stores = shardRouter.gather(() -> inventoryRepository.findByProductId(productId)).stream()
+                    .filter(i -> businessEntityIds == null || businessEntityIds.isEmpty() || businessEntityIds.contains(i.getBusinessEntityId()))
+                    .map(i -> new StockLevelResponseDto(productId, i.getBusinessEntityId(), i.getQuantity(), i.getTotalCostPrice()))
+                    .toList();
+            return new StockAcrossStoresResponseDto(productId, stores.stream().mapToLong(StockLevelResponseDto::quantity).sum(), stores);
+        }
+
+        long[] ids = businessEntityIds == null || businessEntityIds.isEmpty()
+                ? this.businessEntityIds
+                : businessEntityIds.stream().mapToLong(Long::longValue).toArray();
+        int[] quantities = new int[ids.length];
+        long total = current.quantities(productId, ids, quantities);
+        List<StockLevelResponseDto> stores = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (quantities[i] != LongStockMap.ABSENT) {
+                stores.add(new StockLevelResponseDto(productId, ids[i], quantities[i], current.totalCostPrice(productId, ids[i])));
+            }
+        }
+        return new StockAcrossStoresResponseDto(productId, total, stores);
+    }
+
+    // Runs after the writing transaction commits, or straight away when the write was not transactional
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        apply(event.changes());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Relay(instanceId, event.changes())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Other replicas catch up at their next reconcile
+            logger.warn("Unable to relay {} stock change(s) to other replicas: {}", event.changes().size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!instanceId.equals(relay.origin())) {
+                apply(relay.changes());
+            }
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable stock index message: {}", e.getMessage());
+        }
+    }
+
+    synchronized void apply(List<InventoryChangedEvent.Change> changes) {
+        if (pendingChanges != null) {
+            pendingChanges.addAll(changes);
+        }
+        LongStockMap current = index;
+        if (current != null) {
+            applyTo(current, changes);
+            businessEntityIds = withBusinessEntities(businessEntityIds, changes);
+        }
+    }
+
+    void reload() {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                return; // a load is already running
+            }
+            pendingChanges = new ArrayList<>();
+        }
+
+        long start = System.nanoTime();
+        LongStockMap loaded;
+        long[][] loadedBusinessEntityIds = {new long[0]};
+        try {
+            long rows = 0;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                Long shardRows = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(COUNT_SQL, Long.class));
+                rows += shardRows == null ? 0 : shardRows;
+            }
+            loaded = new LongStockMap((int) Math.min(Integer.MAX_VALUE / 2, rows));
+            LongStockMap target = loaded;
+            // One shard after another; each streams its rows (MySQL only does that for a forward-only statement
+            // with fetch size MIN_VALUE)
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                shardRouter.onShard(shard, () -> {
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        statement.setFetchSize(Integer.MIN_VALUE);
+                        return statement;
+                    }, (RowCallbackHandler) rs -> {
+                        long businessEntityId = rs.getLong(2);
+                        target.putIfNewer(rs.getLong(1), businessEntityId, rs.getInt(3), rs.getDouble(4), rs.getLong(5));
+                        loadedBusinessEntityIds[0] = withBusinessEntity(loadedBusinessEntityIds[0], businessEntityId);
+                    });
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            logger.warn("Unable to load the stock index, {}: {}",
+                    index == null ? "lookups stay on the database" : "keeping the current one", e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            applyTo(loaded, pendingChanges);
+            businessEntityIds = withBusinessEntities(loadedBusinessEntityIds[0], pendingChanges);
+            pendingChanges = null;
+            index = loaded;
+        }
+        logger.info("Loaded stock index: {} rows, {} business entities in {} ms", loaded.size(),
+                businessEntityIds.length, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private static void applyTo(LongStockMap map, List<InventoryChangedEvent.Change> changes) {
+        for (InventoryChangedEvent.Change change : changes) {
+            if (change.removed()) {
+                map.removeIfNotNewer(change.productId(), change.businessEntityId(), change.version());
+            } else {
+                map.putIfNewer(change.productId(), change.businessEntityId(), change.quantity(), change.totalCostPrice(),
+                        change.version());
+            }
+        }
+    }
+
+    private static long[] withBusinessEntities(long[] ids, List<InventoryChangedEvent.Change> changes) {
+        for (InventoryChangedEvent.Change change : changes) {
+            if (!change.removed()) {
+                ids = withBusinessEntity(ids, change.businessEntityId());
+            }
+        }
+        return ids;
+    }
+
+    // Business entities number in the hundreds, so a sorted array beats a set and never boxes
+    private static long[] withBusinessEntity(long[] sortedIds, long businessEntityId) {
+        int at = Arrays.binarySearch(sortedIds, businessEntityId);
+        if (at >= 0) {
+            return sortedIds;
+        }
+        int insert = -at - 1;
+        long[] grown = new long[sortedIds.length + 1];
+        System.arraycopy(sortedIds, 0, grown, 0, insert);
+        grown[insert] = businessEntityId;
+        System.arraycopy(sortedIds, insert, grown, insert + 1, sortedIds.length - insert);
+        return grown;
+    }
+
+    private static BusinessException notFound(long productId, long businessEntityId) {
+        return new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")");
+    }
+}
@@ -0,0 +1,353 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.retailpulse.dto.request.StockReservationRequestDto;
+import com.retailpulse.dto.response.StockAvailabilityResponseDto;
+import com.retailpulse.dto.response.StockReservationResponseDto;
+import com.retailpulse.entity.Inventory;
+import com.retailpulse.entity.TimeOrderedUuidGenerator;
+import com.retailpulse.repository.InventoryRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Expiring stock holds for checkout flows, kept in Redis so every replica sees the same holds:
+ * <ul>
+ *   <li>{@code stock-hold:<businessEntityId>} hash: productId to total held quantity</li>
+ *   <li>{@code stock-reservation:<reservationId>} hash: business entity, expiry, state and one {@code p:<productId>}
+ *       field per reserved item</li>
+ *   <li>{@code stock-reservation-expiry} sorted set: reservation ids scored by expiry, swept in bulk</li>
+ * </ul>
+ * All changes to these keys go through Lua scripts, so a reservation and its held counters always move together.
+ * Available-to-sell is the inventory quantity minus held quantity; holds do not touch the inventory rows, so
+ * reserving takes no database locks. Committing deducts through {@link InventoryService#salesUpdateStocks}.
+ */
+@Service
+public class StockReservationService {
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String HOLD_KEY_PREFIX = "stock-hold:";
+    private static final String RESERVATION_KEY_PREFIX = "stock-reservation:";
+    private static final String EXPIRY_KEY = "stock-reservation-expiry";
+
+    private static final String STATE_HELD = "HELD";
+    private static final String STATE_COMMITTING = "COMMITTING";
+    private static final String ITEM_FIELD_PREFIX = "p:";
+
+    private static final String RESERVATION_NOT_FOUND = "RESERVATION_NOT_FOUND";
+    private static final String RESERVATION_NOT_FOUND_DESC = "Reservation not found or expired: ";
+    private static final String RESERVATION_NOT_ACTIVE = "RESERVATION_NOT_ACTIVE";
+    private static final String RESERVATION_NOT_ACTIVE_DESC = "Reservation is already being committed: ";
+    private static final String INVALID_QUANTITY = "INVALID_QUANTITY";
+    private static final String INVALID_QUANTITY_DESC = "Reserved quantity must be positive for product: ";
+    private static final String INVALID_BUSINESS_ENTITY = "INVALID_BUSINESS_ENTITY";
+    private static final String INVALID_BUSINESS_ENTITY_DESC = "Not a valid business entity: ";
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND = "INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND";
+    private static final String INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC = "Inventory by Product and Business Entity not found (ProductId, Business Entity): ";
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    // Releases one reservation: gives its quantities back to the hold counters and removes it. The hold key is
+    // derived from the reservation, which is fine on a single Redis node but would need hash tags on a cluster.
+    private static final String RELEASE_FUNCTION = """
+            local function release(reservationPrefix, holdPrefix, expiryKey, id)
+              local key = reservationPrefix .. id
+              local fields = redis.call('HGETALL', key)
+              redis.call('ZREM', expiryKey, id)
+              if #fields == 0 then return 0 end
+              local businessEntityId
+              for i = 1, #fields, 2 do
+                if fields[i] == 'be' then businessEntityId = fields[i + 1] end
+              end
+              local holdKey = holdPrefix .. businessEntityId
+              for i = 1, #fields, 2 do
+                if string.sub(fields[i], 1, 2) == 'p:' then
+                  local productId = string.sub(fields[i], 3)
+                  if redis.call('HINCRBY', holdKey, productId, -tonumber(fields[i + 1])) <= 0 then
+                    redis.call('HDEL', holdKey, productId)
+                  end
+                end
+              end
+              redis.call('DEL', key)
+              return 1
+            end
+            """;
+
+    // KEYS: reservation, hold, expiry. ARGV: id, businessEntityId, expiresAt, item count, then per item
+    // productId, quantity, on-hand quantity. Returns the comma-separated products that cannot be held, or ''.
+    static final RedisScript<String> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local count = tonumber(ARGV[4])
+            local short = {}
+            for i = 0, count - 1 do
+              local productId = ARGV[5 + i * 3]
+              local held = tonumber(redis.call('HGET', KEYS[2], productId) or '0')
+              if tonumber(ARGV[7 + i * 3]) - held < tonumber(ARGV[6 + i * 3]) then
+                table.insert(short, productId)
+              end
+            end
+            if #short > 0 then return table.concat(short, ',') end
+            for i = 0, count - 1 do
+              local productId = ARGV[5 + i * 3]
+              redis.call('HINCRBY', KEYS[2], productId, ARGV[6 + i * 3])
+              redis.call('HSET', KEYS[1], 'p:' .. productId, ARGV[6 + i * 3])
+            end
+            redis.call('HSET', KEYS[1], 'be', ARGV[2], 'exp', ARGV[3], 'state', 'HELD')
+            redis.call('ZADD', KEYS[3], ARGV[3], ARGV[1])
+            return ''
+            """, String.class);
+
+    // KEYS: reservation, expiry. ARGV: id, now, commit deadline. Moves a live HELD reservation to COMMITTING and
+    // pushes its expiry to the commit deadline, so a crashed commit is still swept eventually.
+    static final RedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local state = redis.call('HGET', KEYS[1], 'state')
+            if not state then return 'MISSING' end
+            if state ~= 'HELD' then return state end
+            if tonumber(redis.call('HGET', KEYS[1], 'exp')) <= tonumber(ARGV[2]) then return 'MISSING' end
+            redis.call('HSET', KEYS[1], 'state', 'COMMITTING')
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[1])
+            return 'HELD'
+            """, String.class);
+
+    // KEYS: reservation, expiry. ARGV: id. Puts a COMMITTING reservation back on hold after a failed commit.
+    static final RedisScript<Long> UNCLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'state') ~= 'COMMITTING' then return 0 end
+            redis.call('HSET', KEYS[1], 'state', 'HELD')
+            redis.call('ZADD', KEYS[2], redis.call('HGET', KEYS[1], 'exp'), ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: expiry. ARGV: reservation prefix, hold prefix, id, required state ('' for any). -1 on state mismatch.
+    static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(RELEASE_FUNCTION + """
+            if ARGV[4] ~= '' then
+              local state = redis.call('HGET', ARGV[1] .. ARGV[3], 'state')
+              if state and state ~= ARGV[4] then return -1 end
+            end
+            return release(ARGV[1], ARGV[2], KEYS[1], ARGV[3])
+            """, Long.class);
+
+    // KEYS: expiry. ARGV: reservation prefix, hold prefix, now, batch size. Returns the number released.
+    static final RedisScript<Long> SWEEP_SCRIPT = new DefaultRedisScript<>(RELEASE_FUNCTION + """
+            local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[3], 'LIMIT', 0, tonumber(ARGV[4]))
+            for _, id in ipairs(ids) do
+              release(ARGV[1], ARGV[2], KEYS[1], id)
+            end
+            return #ids
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final ShardRouter shardRouter;
+    private final InventoryService inventoryService;
+    private final BusinessEntityService businessEntityService;
+    private final StockIndexService stockIndexService;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Duration commitTimeout;
+
+    public StockReservationService(StringRedisTemplate redisTemplate,
+                                   InventoryRepository inventoryRepository,
+                                   ShardRouter shardRouter,
+                                   InventoryService inventoryService,
+                                   BusinessEntityService businessEntityService,
+                                   StockIndexService stockIndexService,
+                                   @Value("${app.reservation.default-ttl:10m}") Duration defaultTtl,
+                                   @Value("${app.reservation.max-ttl:30m}") Duration maxTtl,
+                                   @Value("${app.reservation.commit-timeout:30s}") Duration commitTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.shardRouter = shardRouter;
+        this.inventoryService = inventoryService;
+        this.businessEntityService = businessEntityService;
+        this.stockIndexService = stockIndexService;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.commitTimeout = commitTimeout;
+    }
+
+    public StockReservationResponseDto reserve(StockReservationRequestDto request) {
+        long businessEntityId = request.businessEntityId();
+        Map<Long, Integer> quantities = mergeItems(request.items());
+
+        if (!businessEntityService.isValidBusinessEntity(businessEntityId)) {
+            throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + businessEntityId);
+        }
+
+        // On-hand quantities are read without locks; the commit re-checks them inside the sales transaction
+        Map<Long, Integer> onHand = shardRouter.forBusinessEntity(businessEntityId,
+                        () -> inventoryRepository.findByBusinessEntityIdAndProductIdIn(businessEntityId, quantities.keySet()))
+                .stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Inventory::getQuantity));
+        for (Long productId : quantities.keySet()) {
+            if (!onHand.containsKey(productId)) {
+                throw new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                        INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")");
+            }
+        }
+
+        String reservationId = TimeOrderedUuidGenerator.next().toString();
+        Instant expiresAt = Instant.now().plus(ttl(request.ttlSeconds()));
+
+        List<String> args = new ArrayList<>();
+        args.add(reservationId);
+        args.add(String.valueOf(businessEntityId));
+        args.add(String.valueOf(expiresAt.toEpochMilli()));
+        args.add(String.valueOf(quantities.size()));
+        quantities.forEach((productId, quantity) -> {
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+            args.add(String.valueOf(onHand.get(productId)));
+        });
+
+        String shortProducts = redisTemplate.execute(RESERVE_SCRIPT,
+                List.of(reservationKey(reservationId), holdKey(businessEntityId), EXPIRY_KEY), args.toArray());
+        if (shortProducts != null && !shortProducts.isEmpty()) {
+            logger.warn("Reservation rejected for businessEntityId {}: insufficient available stock for products {}",
+                    businessEntityId, shortProducts);
+            throw new BusinessException("INSUFFICIENT_STOCK", "Insufficient stock for products: " + shortProducts.replace(",", ", "));
+        }
+
+        logger.debug("Reserved {} item(s) for businessEntityId {} as {} until {}", quantities.size(), businessEntityId,
+                reservationId, expiresAt);
+        return new StockReservationResponseDto(reservationId, businessEntityId, toItems(quantities), expiresAt);
+    }
+
+    public void commit(String reservationId) {
+        long now = System.currentTimeMillis();
+        String claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(reservationKey(reservationId), EXPIRY_KEY),
+                reservationId, String.valueOf(now), String.valueOf(now + commitTimeout.toMillis()));
+        if (STATE_COMMITTING.equals(claimed)) {
+            throw new BusinessException(RESERVATION_NOT_ACTIVE, RESERVATION_NOT_ACTIVE_DESC + reservationId);
+        }
+        if (!STATE_HELD.equals(claimed)) {
+            throw new BusinessException(RESERVATION_NOT_FOUND, RESERVATION_NOT_FOUND_DESC + reservationId);
+        }
+
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(reservationKey(reservationId));
+        InventoryUpdateRequestDto sale = toSalesUpdate(fields);
+        try {
+            inventoryService.salesUpdateStocks(sale);
+        } catch (RuntimeException e) {
+            // Keep the hold so the caller can retry until the reservation expires
+            redisTemplate.execute(UNCLAIM_SCRIPT, List.of(reservationKey(reservationId), EXPIRY_KEY), reservationId);
+            throw e;
+        }
+        // The stock is now deducted, so the hold has done its job
+        release(reservationId, "");
+        logger.debug("Committed reservation {} for businessEntityId {}", reservationId, sale.businessEntityId());
+    }
+
+    public void release(String reservationId) {
+        Long released = release(reservationId, STATE_HELD);
+        if (released != null && released == -1) {
+            throw new BusinessException(RESERVATION_NOT_ACTIVE, RESERVATION_NOT_ACTIVE_DESC + reservationId);
+        }
+        if (released == null || released == 0) {
+            throw new BusinessException(RESERVATION_NOT_FOUND, RESERVATION_NOT_FOUND_DESC + reservationId);
+        }
+    }
+
+    public StockAvailabilityResponseDto getAvailability(long productId, long businessEntityId) {
+        // Read from the in-process index; reserve() still checks against the rows themselves
+        int quantity = stockIndexService.quantity(productId, businessEntityId);
+        if (quantity == LongStockMap.ABSENT) {
+            throw new BusinessException(INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND,
+                    INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")");
+        }
+        int held = heldQuantity(productId, businessEntityId);
+        return new StockAvailabilityResponseDto(productId, businessEntityId, quantity, held, Math.max(0, quantity - held));
+    }
+
+    public int heldQuantity(long productId, long businessEntityId) {
+        Object held = redisTemplate.opsForHash().get(holdKey(businessEntityId), String.valueOf(productId));
+        return held == null ? 0 : Integer.parseInt(held.toString());
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservation.sweep-interval:1s}")
+    public void sweepExpired() {
+        try {
+            long released;
+            long total = 0;
+            do {
+                released = orZero(redisTemplate.execute(SWEEP_SCRIPT, List.of(EXPIRY_KEY), RESERVATION_KEY_PREFIX,
+                        HOLD_KEY_PREFIX, String.valueOf(System.currentTimeMillis()), String.valueOf(SWEEP_BATCH_SIZE)));
+                total += released;
+            } while (released == SWEEP_BATCH_SIZE);
+            if (total > 0) {
+                logger.debug("Released {} expired stock reservation(s)", total);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to sweep expired stock reservations: {}", e.getMessage());
+        }
+    }
+
+    private Long release(String reservationId, String requiredState) {
+        return redisTemplate.execute(RELEASE_SCRIPT, List.of(EXPIRY_KEY), RESERVATION_KEY_PREFIX, HOLD_KEY_PREFIX,
+                reservationId, requiredState);
+    }
+
+    private Duration ttl(Long ttlSeconds) {
+        if (ttlSeconds == null) {
+            return defaultTtl;
+        }
+        Duration requested = Duration.ofSeconds(ttlSeconds);
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    private Map<Long, Integer> mergeItems(List<InventoryUpdateRequestDto.InventoryItem> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (InventoryUpdateRequestDto.InventoryItem item : items) {
+            if (item.quantity() <= 0) {
+                throw new BusinessException(INVALID_QUANTITY, INVALID_QUANTITY_DESC + item.productId());
+            }
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private InventoryUpdateRequestDto toSalesUpdate(Map<Object, Object> fields) {
+        long businessEntityId = Long.parseLong(fields.get("be").toString());
+        Map<Long, Integer> quantities = fields.entrySet().stream()
+                .filter(e -> e.getKey().toString().startsWith(ITEM_FIELD_PREFIX))
+                .collect(Collectors.toMap(
+                        e -> Long.parseLong(e.getKey().toString().substring(ITEM_FIELD_PREFIX.length())),
+                        e -> Integer.parseInt(e.getValue().toString()),
+                        Integer::sum,
+                        LinkedHashMap::new));
+        return new InventoryUpdateRequestDto(businessEntityId, toItems(quantities));
+    }
+
+    private List<InventoryUpdateRequestDto.InventoryItem> toItems(Map<Long, Integer> quantities) {
+        return quantities.entrySet().stream()
+                .map(e -> new InventoryUpdateRequestDto.InventoryItem(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static String reservationKey(String reservationId) {
+        return RESERVATION_KEY_PREFIX + reservationId;
+    }
+
+    private static String holdKey(long businessEntityId) {
+        return HOLD_KEY_PREFIX + businessEntityId;
+    }
+}
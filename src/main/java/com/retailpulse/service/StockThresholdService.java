@@ -0,0 +1,161 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.dto.response.StockAlertResponseDto;
+import com.retailpulse.dto.response.StockThresholdResponseDto;
+import com.retailpulse.entity.StockThreshold;
+import com.retailpulse.entity.TimeOrderedUuidGenerator;
+import com.retailpulse.repository.StockThresholdRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reorder points per (product, business entity). Every committed stock write is checked against the thresholds of
+ * the rows it touched, using the quantity before and after the write, so only a write that crosses a reorder
+ * point raises an alert (see {@link StockAlertService}); nothing ever scans the inventory table.
+ */
+@Service
+public class StockThresholdService {
+    private static final Logger logger = LoggerFactory.getLogger(StockThresholdService.class);
+
+    private static final String STOCK_THRESHOLD_NOT_FOUND = "STOCK_THRESHOLD_NOT_FOUND";
+    private static final String STOCK_THRESHOLD_NOT_FOUND_DESC = "Stock threshold not found (ProductId, Business Entity): ";
+    private static final String INVALID_BUSINESS_ENTITY = "INVALID_BUSINESS_ENTITY";
+    private static final String INVALID_BUSINESS_ENTITY_DESC = "Not a valid business entity: ";
+    private static final String INVALID_MAX_LEVEL = "INVALID_MAX_LEVEL";
+    private static final String INVALID_MAX_LEVEL_DESC = "Max level must be above the reorder point (Reorder Point, Max Level): ";
+
+    private final StockThresholdRepository stockThresholdRepository;
+    private final StockIndexService stockIndexService;
+    private final StockAlertService stockAlertService;
+    private final BusinessEntityService businessEntityService;
+
+    public StockThresholdService(StockThresholdRepository stockThresholdRepository,
+                                 StockIndexService stockIndexService,
+                                 StockAlertService stockAlertService,
+                                 BusinessEntityService businessEntityService) {
+        this.stockThresholdRepository = stockThresholdRepository;
+        this.stockIndexService = stockIndexService;
+        this.stockAlertService = stockAlertService;
+        this.businessEntityService = businessEntityService;
+    }
+
+    // Setting a threshold raises no alert, even when the stock is already below it; the response says so instead
+    @Transactional
+    public StockThresholdResponseDto setThreshold(long productId, long businessEntityId, int reorderPoint, Integer maxLevel) {
+        if (maxLevel != null && maxLevel <= reorderPoint) {
+            throw new BusinessException(INVALID_MAX_LEVEL, INVALID_MAX_LEVEL_DESC + "(" + reorderPoint + ", " + maxLevel + ")");
+        }
+        if (!businessEntityService.isValidBusinessEntity(businessEntityId)) {
+            throw new BusinessException(INVALID_BUSINESS_ENTITY, INVALID_BUSINESS_ENTITY_DESC + businessEntityId);
+        }
+        StockThreshold threshold = stockThresholdRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)
+                .orElseGet(() -> {
+                    StockThreshold created = new StockThreshold();
+                    created.setProductId(productId);
+                    created.setBusinessEntityId(businessEntityId);
+                    return created;
+                });
+        threshold.setReorderPoint(reorderPoint);
+        threshold.setMaxLevel(maxLevel);
+        return toResponse(stockThresholdRepository.save(threshold));
+    }
+
+    @Transactional
+    public void deleteThreshold(long productId, long businessEntityId) {
+        StockThreshold threshold = stockThresholdRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)
+                .orElseThrow(() -> new BusinessException(STOCK_THRESHOLD_NOT_FOUND,
+                        STOCK_THRESHOLD_NOT_FOUND_DESC + "(" + productId + ", " + businessEntityId + ")"));
+        stockThresholdRepository.delete(threshold);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockThresholdResponseDto> getThresholds(long businessEntityId) {
+        return stockThresholdRepository.findByBusinessEntityId(businessEntityId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /** Thresholds of one business entity whose stock is at or below the reorder point right now. */
+    @Transactional(readOnly = true)
+    public List<StockThresholdResponseDto> getLowStock(long businessEntityId) {
+        return getThresholds(businessEntityId).stream()
+                .filter(StockThresholdResponseDto::low)
+                .toList();
+    }
+
+    // After commit, so rolled-back writes raise nothing. Alerting never fails the write that triggered it.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        try {
+            stockAlertService.raise(evaluate(event.changes()));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to evaluate stock thresholds for {} change(s): {}", event.changes().size(), e.getMessage());
+        }
+    }
+
+    List<StockAlertResponseDto> evaluate(List<InventoryChangedEvent.Change> changes) {
+        // Only writes that moved a quantity can cross anything; grouped so each business entity costs one query
+        Map<Long, Set<Long>> productIdsByBusinessEntity = changes.stream()
+                .filter(c -> !c.removed() && c.previousQuantity() != c.quantity())
+                .collect(Collectors.groupingBy(InventoryChangedEvent.Change::businessEntityId,
+                        Collectors.mapping(InventoryChangedEvent.Change::productId, Collectors.toSet())));
+        if (productIdsByBusinessEntity.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> reorderPoints = new HashMap<>();
+        productIdsByBusinessEntity.forEach((businessEntityId, productIds) ->
+                stockThresholdRepository.findByBusinessEntityIdAndProductIdIn(businessEntityId, productIds)
+                        .forEach(t -> reorderPoints.put(LongStockMap.key(t.getProductId(), t.getBusinessEntityId()), t.getReorderPoint())));
+
+        List<StockAlertResponseDto> alerts = new ArrayList<>();
+        Instant now = Instant.now();
+        for (InventoryChangedEvent.Change change : changes) {
+            if (change.removed()) {
+                continue;
+            }
+            Integer reorderPoint = reorderPoints.get(LongStockMap.key(change.productId(), change.businessEntityId()));
+            if (reorderPoint == null) {
+                continue;
+            }
+            // A new row counts as coming from zero stock
+            int previous = change.previousQuantity() == InventoryChangedEvent.Change.UNKNOWN ? 0 : change.previousQuantity();
+            StockAlertResponseDto.Type crossing = crossing(previous, change.quantity(), reorderPoint);
+            if (crossing != null) {
+                alerts.add(new StockAlertResponseDto(TimeOrderedUuidGenerator.next().toString(), crossing,
+                        change.productId(), change.businessEntityId(), reorderPoint, previous, change.quantity(), now));
+            }
+        }
+        return alerts;
+    }
+
+    // Null when the write stayed on the same side of the reorder point
+    static StockAlertResponseDto.Type crossing(int previousQuantity, int quantity, int reorderPoint) {
+        boolean wasLow = previousQuantity <= reorderPoint;
+        boolean isLow = quantity <= reorderPoint;
+        if (wasLow == isLow) {
+            return null;
+        }
+        return isLow ? StockAlertResponseDto.Type.LOW_STOCK : StockAlertResponseDto.Type.RESTOCKED;
+    }
+
+    private StockThresholdResponseDto toResponse(StockThreshold threshold) {
+        // Not stocked at all counts as zero on hand
+        int quantity = Math.max(0, stockIndexService.quantity(threshold.getProductId(), threshold.getBusinessEntityId()));
+        return new StockThresholdResponseDto(threshold.getProductId(), threshold.getBusinessEntityId(),
+                threshold.getReorderPoint(), threshold.getMaxLevel(), quantity, quantity <= threshold.getReorderPoint());
+    }
+}
@@ -0,0 +1,183 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.StockVelocityDto;
+import com.retailpulse.dto.response.StockVelocityResponseDto;
+import com.retailpulse.repository.StockMovementDayRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Units moved per day over the last 7, 28 and 90 days, and how many days the stock on hand lasts at the 28-day
+ * rate. Every committed stock change that lowers a row (a sale, a transfer out, a downward edit) adds to that row's
+ * bucket for the current UTC day; buckets are summed in memory and flushed to stock_movement_day every
+ * {@code app.stock-velocity.flush-interval} as additive upserts, so replicas can flush the same bucket safely.
+ * A query reads at most 90 buckets per product instead of the transaction history.
+ *
+ * Buckets live next to the inventory rows they describe (on each shard when sharded). Increases are not counted,
+ * so receipts and credits of a failed sale do not offset outflow. Units pending a flush are lost if the process
+ * dies before shutdown.
+ */
+@Service
+public class StockVelocityService {
+    private static final Logger logger = LoggerFactory.getLogger(StockVelocityService.class);
+
+    static final int SHORT_WINDOW = 7;
+    static final int COVER_WINDOW = 28;
+    static final int LONG_WINDOW = 90;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO stock_movement_day (product_id, business_entity_id, movement_date, units_out) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE units_out = units_out + VALUES(units_out)";
+
+    record Bucket(long productId, long businessEntityId, LocalDate movementDate) {
+    }
+
+    private final StockMovementDayRepository stockMovementDayRepository;
+    private final StockIndexService stockIndexService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Map<Bucket, Long> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockVelocityService(StockMovementDayRepository stockMovementDayRepository,
+                                StockIndexService stockIndexService,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ShardRouter shardRouter,
+                                @Value("${app.stock-velocity.enabled:true}") boolean enabled) {
+        this(stockMovementDayRepository, stockIndexService, jdbcTemplate, transactionTemplate, shardRouter,
+                Clock.systemUTC(), enabled);
+    }
+
+    StockVelocityService(StockMovementDayRepository stockMovementDayRepository, StockIndexService stockIndexService,
+                         JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ShardRouter shardRouter,
+                         Clock clock, boolean enabled) {
+        this.stockMovementDayRepository = stockMovementDayRepository;
+        this.stockIndexService = stockIndexService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.clock = clock;
+        this.enabled = enabled;
+    }
+
+    public StockVelocityResponseDto getVelocity(long productId, long businessEntityId) {
+        LocalDate today = LocalDate.now(clock);
+        List<StockVelocityDto> rows = shardRouter.forBusinessEntity(businessEntityId, () -> stockMovementDayRepository
+                .findVelocity(productId, businessEntityId, windowStart(today, SHORT_WINDOW),
+                        windowStart(today, COVER_WINDOW), windowStart(today, LONG_WINDOW)));
+        StockVelocityDto velocity = rows.isEmpty() ? new StockVelocityDto(productId, 0, 0, 0) : rows.get(0);
+        return toResponse(velocity, businessEntityId);
+    }
+
+    // Only products that moved in the last 90 days are listed
+    public List<StockVelocityResponseDto> getVelocities(long businessEntityId) {
+        LocalDate today = LocalDate.now(clock);
+        List<StockVelocityDto> rows = shardRouter.forBusinessEntity(businessEntityId, () -> stockMovementDayRepository
+                .findVelocities(businessEntityId, windowStart(today, SHORT_WINDOW),
+                        windowStart(today, COVER_WINDOW), windowStart(today, LONG_WINDOW)));
+        return rows.stream().map(velocity -> toResponse(velocity, businessEntityId)).toList();
+    }
+
+    // Runs after the writing transaction commits, so rolled-back sales are never counted
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        for (InventoryChangedEvent.Change change : event.changes()) {
+            if (change.removed() || change.previousQuantity() == InventoryChangedEvent.Change.UNKNOWN
+                    || change.previousQuantity() <= change.quantity()) {
+                continue;
+            }
+            pending.merge(new Bucket(change.productId(), change.businessEntityId(), today),
+                    (long) (change.previousQuantity() - change.quantity()), Long::sum);
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.stock-velocity.flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Integer, Map<Bucket, Long>> byShard = new HashMap<>();
+        for (Bucket bucket : List.copyOf(pending.keySet())) {
+            Long units = pending.remove(bucket);
+            if (units != null) {
+                byShard.computeIfAbsent(shardRouter.shardFor(bucket.businessEntityId()), s -> new HashMap<>()).put(bucket, units);
+            }
+        }
+        byShard.forEach(this::flush);
+    }
+
+    private void flush(int shard, Map<Bucket, Long> buckets) {
+        List<Object[]> args = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, units) -> args.add(new Object[]{
+                bucket.productId(), bucket.businessEntityId(), Date.valueOf(bucket.movementDate()), units}));
+        try {
+            shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, args)));
+            logger.debug("Flushed {} stock movement bucket(s) to shard {}", buckets.size(), shard);
+        } catch (RuntimeException e) {
+            // Put back for the next flush; the upsert adds, so nothing is counted twice
+            buckets.forEach((bucket, units) -> pending.merge(bucket, units, Long::sum));
+            logger.warn("Unable to flush {} stock movement bucket(s) to shard {}: {}", buckets.size(), shard, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.stock-velocity.prune-cron:0 15 0 * * *}", zone = "UTC")
+    public void prune() {
+        LocalDate before = windowStart(LocalDate.now(clock), LONG_WINDOW);
+        int rows = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            Integer deleted = shardRouter.onShard(shard, () -> transactionTemplate.execute(status ->
+                    stockMovementDayRepository.deleteBefore(before)));
+            rows += deleted == null ? 0 : deleted;
+        }
+        logger.info("Pruned {} stock movement bucket(s) before {}", rows, before);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    // Windows include today, so a 7-day window starts six days back
+    private static LocalDate windowStart(LocalDate today, int days) {
+        return today.minusDays(days - 1L);
+    }
+
+    private StockVelocityResponseDto toResponse(StockVelocityDto velocity, long businessEntityId) {
+        int quantity = stockIndexService.quantity(velocity.productId(), businessEntityId);
+        if (quantity == LongStockMap.ABSENT) {
+            quantity = 0;
+        }
+        double perDay28 = (double) velocity.unitsOut28() / COVER_WINDOW;
+        Double daysOfCover = perDay28 > 0 ? quantity / perDay28 : null;
+        return new StockVelocityResponseDto(velocity.productId(), businessEntityId, quantity,
+                (double) velocity.unitsOut7() / SHORT_WINDOW, perDay28, (double) velocity.unitsOut90() / LONG_WINDOW,
+                daysOfCover);
+    }
+}
@@ -0,0 +1,318 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.RedisLease;
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.dto.response.InventoryTransactionProductResponseDto;
+import com.retailpulse.entity.InventoryTransaction;
+import com.retailpulse.entity.Product;
+import com.retailpulse.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cold history of the inventory transaction ledger. Once a UTC calendar month has ended more than
+ * {@code app.transaction-archive.keep} ago, its transactions are written to an immutable segment file (see
+ * {@link TransactionSegment}) under {@code app.transaction-archive.directory} and then deleted from
+ * inventory_transaction, oldest month first. Everything before {@link #archivedUntil()} is read from the segments
+ * and everything from it on from the table, so callers combine the two without counting a row twice, including
+ * in the moment between a segment appearing and its rows being deleted.
+ *
+ * Archived transactions can no longer be edited. The directory has to be shared by every replica; segments are
+ * picked up when the directory changes. One replica archives at a time, under a Redis lease.
+ */
+@Service
+public class TransactionArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private static final String LEASE_KEY = "transaction-archive";
+    private static final String FILE_PREFIX = "inventory-transaction-";
+    private static final String FILE_SUFFIX = ".seg";
+    private static final int DELETE_BATCH = 10_000;
+    private static final String ROWS_SQL = "SELECT id, inserted_at, product_id, source, destination, quantity, cost_price_per_unit " +
+            "FROM inventory_transaction WHERE inserted_at >= ? AND inserted_at < ? ORDER BY inserted_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final RedisLease lease;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration keep;
+    private final Duration leaseDuration;
+
+    // Sorted by time; replaced whole when the directory changes
+    private volatile List<TransactionSegment> segments = List.of();
+    private volatile FileTime listedAt;
+
+    public TransactionArchiveService(JdbcTemplate jdbcTemplate,
+                                     ProductRepository productRepository,
+                                     StringRedisTemplate redisTemplate,
+                                     @Value("${app.transaction-archive.enabled:false}") boolean enabled,
+                                     @Value("${app.transaction-archive.directory:data/transaction-archive}") Path directory,
+                                     @Value("${app.transaction-archive.keep:400d}") Duration keep,
+                                     @Value("${app.transaction-archive.lease:1h}") Duration leaseDuration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.lease = new RedisLease(redisTemplate);
+        this.enabled = enabled;
+        this.directory = directory;
+        this.keep = keep;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /** Transactions before this instant are read from the archive, not the table; null when nothing is archived. */
+    public Instant archivedUntil() {
+        List<TransactionSegment> current = segments();
+        return current.isEmpty() ? null : current.get(current.size() - 1).to();
+    }
+
+    /** Archived transactions with {@code startDateTime <= insertedAt <= endDateTime}, oldest first. */
+    public List<InventoryTransactionProductResponseDto> findAllWithProductAndTime(Instant startDateTime, Instant endDateTime) {
+        // Round inward to the microseconds the rows are stored in
+        long from = TransactionSegment.micros(startDateTime.plusNanos(999).truncatedTo(ChronoUnit.MICROS));
+        long to = TransactionSegment.micros(endDateTime);
+        List<InventoryTransaction> found = new ArrayList<>();
+        for (TransactionSegment segment : segments()) {
+            if (!segment.to().isAfter(startDateTime) || segment.from().isAfter(endDateTime)) {
+                continue;
+            }
+            found.addAll(segment.find(from, to));
+        }
+        return withProducts(found);
+    }
+
+    public List<InventoryTransactionProductResponseDto> findAllWithProduct() {
+        List<InventoryTransaction> found = new ArrayList<>();
+        for (TransactionSegment segment : segments()) {
+            found.addAll(segment.find(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        return withProducts(found);
+    }
+
+    /** Net movement of archived transactions with {@code from < insertedAt <= to}; same rules as the ledger query. */
+    public StockMovementDto netMovement(long productId, long businessEntityId, Instant from, Instant to) {
+        long fromMicros = TransactionSegment.micros(from);
+        long toMicros = TransactionSegment.micros(to);
+        long transactions = 0;
+        long quantity = 0;
+        double totalCostPrice = 0;
+        for (TransactionSegment segment : segments()) {
+            if (!segment.to().isAfter(from) || segment.from().isAfter(to)) {
+                continue;
+            }
+            StockMovementDto movement = segment.netMovement(productId, businessEntityId, fromMicros, toMicros);
+            transactions += movement.transactions();
+            quantity += movement.quantity();
+            totalCostPrice += movement.totalCostPrice();
+        }
+        return new StockMovementDto(transactions, quantity, totalCostPrice);
+    }
+
+    @Scheduled(cron = "${app.transaction-archive.cron:0 30 1 * * *}", zone = "UTC")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        String token;
+        try {
+            token = lease.tryAcquire(LEASE_KEY, leaseDuration);
+        } catch (RuntimeException e) {
+            // A second concurrent run would rewrite the same segment and delete the same rows; the next run catches up
+            logger.warn("Unable to take the transaction archive lease, skipping this run: {}", e.getMessage());
+            return;
+        }
+        if (token == null) {
+            logger.debug("Transaction archive run held by another replica");
+            return;
+        }
+        try {
+            archive(Instant.now());
+        } finally {
+            try {
+                lease.release(LEASE_KEY, token);
+            } catch (RuntimeException e) {
+                logger.debug("Unable to release the transaction archive lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Archives every month that ended at least keep before now; returns the number of segments written. */
+    public int archive(Instant now) {
+        Instant cutoff = now.minus(keep);
+        int written = 0;
+        try {
+            Instant until = archivedUntil();
+            if (until != null) {
+                // Left behind when an earlier run stopped between writing a segment and deleting its rows
+                deleteBefore(until);
+            }
+            while (true) {
+                Timestamp oldest = until == null
+                        ? jdbcTemplate.queryForObject("SELECT MIN(inserted_at) FROM inventory_transaction", Timestamp.class)
+                        : jdbcTemplate.queryForObject("SELECT MIN(inserted_at) FROM inventory_transaction WHERE inserted_at >= ?",
+                        Timestamp.class, Timestamp.from(until));
+                if (oldest == null) {
+                    break;
+                }
+                Instant to = monthStart(oldest.toInstant()).plusMonths(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+                if (to.isAfter(cutoff)) {
+                    break;
+                }
+                // Segments are contiguous: a month without transactions is folded into the next one written
+                Instant from = until != null ? until : monthStart(oldest.toInstant()).atStartOfDay(ZoneOffset.UTC).toInstant();
+                writeSegment(from, to);
+                until = to;
+                written++;
+                deleteBefore(to);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Transaction archive run stopped after {} segment(s): {}", written, e.getMessage());
+        }
+        return written;
+    }
+
+    private void writeSegment(Instant from, Instant to) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path target = directory.resolve(FILE_PREFIX + YearMonth.from(from.atZone(ZoneOffset.UTC)) + FILE_SUFFIX);
+        Path temp = directory.resolve(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        long rows;
+        try {
+            try (TransactionSegment.Writer writer = new TransactionSegment.Writer(temp, from, to)) {
+                // Streamed like the stock index load; the ledger stays on the home database
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(ROWS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    statement.setTimestamp(1, Timestamp.from(from));
+                    statement.setTimestamp(2, Timestamp.from(to));
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    ByteBuffer id = ByteBuffer.wrap(rs.getBytes(1));
+                    try {
+                        writer.add(new UUID(id.getLong(), id.getLong()), TransactionSegment.micros(rs.getTimestamp(2).toInstant()),
+                                rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getInt(6), rs.getDouble(7));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                rows = writer.finish();
+            }
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM inventory_transaction WHERE inserted_at >= ? AND inserted_at < ?",
+                    Long.class, Timestamp.from(from), Timestamp.from(to));
+            if (count == null || count != rows) {
+                throw new IllegalStateException("Segment " + target.getFileName() + " holds " + rows + " rows, table has " + count);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        refresh();
+        logger.info("Archived {} transactions from {} to {} into {} in {} ms", rows, from, to, target.getFileName(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private void deleteBefore(Instant until) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update("DELETE FROM inventory_transaction WHERE inserted_at < ? LIMIT " + DELETE_BATCH,
+                    Timestamp.from(until));
+            deleted += batch;
+        } while (batch == DELETE_BATCH);
+        if (deleted > 0) {
+            logger.info("Deleted {} archived transactions before {}", deleted, until);
+        }
+    }
+
+    private List<TransactionSegment> segments() {
+        try {
+            if (Files.isDirectory(directory) && !Files.getLastModifiedTime(directory).equals(listedAt)) {
+                refresh();
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to check the transaction archive directory {}: {}", directory, e.getMessage());
+        }
+        return segments;
+    }
+
+    // Opens segments that appeared since the last listing; ones already open keep their mapping
+    private synchronized void refresh() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(directory);
+        Map<Path, TransactionSegment> open = segments.stream()
+                .collect(Collectors.toMap(TransactionSegment::file, Function.identity()));
+        List<TransactionSegment> listed = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                TransactionSegment segment = open.get(file);
+                if (segment == null) {
+                    try {
+                        segment = TransactionSegment.open(file);
+                    } catch (IOException e) {
+                        logger.warn("Skipping unreadable transaction segment {}: {}", file, e.getMessage());
+                        continue;
+                    }
+                }
+                listed.add(segment);
+            }
+        }
+        listed.sort(Comparator.comparing(TransactionSegment::from));
+        segments = List.copyOf(listed);
+        listedAt = modified;
+    }
+
+    // Archived rows joined to their products in memory; like the ledger query's join, rows without one are left out
+    private List<InventoryTransactionProductResponseDto> withProducts(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(
+                transactions.stream().map(InventoryTransaction::getProductId).distinct().toList())) {
+            products.put(product.getId(), product);
+        }
+        return transactions.stream()
+                .filter(transaction -> products.containsKey(transaction.getProductId()))
+                .map(transaction -> new InventoryTransactionProductResponseDto(transaction, products.get(transaction.getProductId())))
+                .toList();
+    }
+
+    private static LocalDate monthStart(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC).withDayOfMonth(1);
+    }
+}
@@ -0,0 +1,444 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.entity.InventoryTransaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable, memory-mapped file of archived inventory transactions with {@code from <= insertedAt < to} (see
+ * {@link TransactionArchiveService}). Times are epoch microseconds, the precision of the inserted_at column.
+ *
+ * Layout: a header; blocks of up to {@value #BLOCK_ROWS} rows in time order, each stored column by column and
+ * deflated; a sparse time index holding each block's first and last time and position; and a summary of the
+ * net totals of every (product, business entity) pair over the whole segment, sorted by pair. A range read
+ * inflates only the blocks the index says overlap the range; a net movement over the whole segment is one binary
+ * search of the summary, read in place from the mapping.
+ */
+final class TransactionSegment {
+
+    static final int BLOCK_ROWS = 4096;
+
+    private static final long MAGIC = 0x5250545853454731L; // "RPTXSEG1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int INDEX_ENTRY_BYTES = 32;
+    private static final int SUMMARY_ENTRY_BYTES = 32;
+    private static final int ROW_BYTES = 16 + 8 + 8 + 8 + 8 + 4 + 8;
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final long rows;
+    private final long fromMicros;
+    private final long toMicros;
+    private final long[] blockFirst;
+    private final long[] blockLast;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockRows;
+    private final int summaryOffset;
+    private final int summaries;
+
+    private TransactionSegment(Path file, MappedByteBuffer mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        if (mapped.capacity() < HEADER_BYTES || mapped.getLong(0) != MAGIC || mapped.getInt(8) != VERSION) {
+            throw new IOException("Not a transaction segment: " + file);
+        }
+        int blocks = mapped.getInt(12);
+        rows = mapped.getLong(16);
+        summaries = mapped.getInt(24);
+        fromMicros = mapped.getLong(32);
+        toMicros = mapped.getLong(40);
+        int indexOffset = (int) mapped.getLong(48);
+        summaryOffset = (int) mapped.getLong(56);
+        blockFirst = new long[blocks];
+        blockLast = new long[blocks];
+        blockOffsets = new long[blocks];
+        blockLengths = new int[blocks];
+        blockRows = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            int at = indexOffset + b * INDEX_ENTRY_BYTES;
+            blockFirst[b] = mapped.getLong(at);
+            blockLast[b] = mapped.getLong(at + 8);
+            blockOffsets[b] = mapped.getLong(at + 16);
+            blockLengths[b] = mapped.getInt(at + 24);
+            blockRows[b] = mapped.getInt(at + 28);
+        }
+    }
+
+    static TransactionSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Transaction segment larger than 2 GB: " + file);
+            }
+            // The mapping outlives the channel
+            return new TransactionSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    Instant from() {
+        return instant(fromMicros);
+    }
+
+    Instant to() {
+        return instant(toMicros);
+    }
+
+    /** The transactions with {@code fromMicros <= time <= toMicros}, in time order. */
+    List<InventoryTransaction> find(long fromMicros, long toMicros) {
+        List<InventoryTransaction> found = new ArrayList<>();
+        try (Block block = new Block()) {
+            for (int b = firstBlockEndingAtOrAfter(fromMicros); b < blockFirst.length && blockFirst[b] <= toMicros; b++) {
+                block.read(b);
+                for (int i = 0; i < block.rows; i++) {
+                    long time = block.times[i];
+                    if (time >= fromMicros && time <= toMicros) {
+                        found.add(block.transaction(i));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Net movement of one business entity's stock of a product over {@code fromMicros < time <= toMicros}. */
+    StockMovementDto netMovement(long productId, long businessEntityId, long fromMicros, long toMicros) {
+        if (fromMicros < this.fromMicros && toMicros >= this.toMicros - 1) {
+            return summary(productId, businessEntityId);
+        }
+        long transactions = 0;
+        long quantity = 0;
+        double totalCostPrice = 0;
+        try (Block block = new Block()) {
+            for (int b = firstBlockEndingAtOrAfter(fromMicros + 1); b < blockFirst.length && blockFirst[b] <= toMicros; b++) {
+                block.read(b);
+                for (int i = 0; i < block.rows; i++) {
+                    long time = block.times[i];
+                    if (time <= fromMicros || time > toMicros || block.productIds[i] != productId) {
+                        continue;
+                    }
+                    if (block.destinations[i] == businessEntityId) {
+                        transactions++;
+                        quantity += block.quantities[i];
+                        totalCostPrice += block.quantities[i] * block.costs[i];
+                    } else if (block.sources[i] == businessEntityId) {
+                        transactions++;
+                        quantity -= block.quantities[i];
+                        totalCostPrice -= block.quantities[i] * block.costs[i];
+                    }
+                }
+            }
+        }
+        return new StockMovementDto(transactions, quantity, totalCostPrice);
+    }
+
+    private StockMovementDto summary(long productId, long businessEntityId) {
+        if (!inRange(productId) || !inRange(businessEntityId)) {
+            return new StockMovementDto(0, 0, 0.0);
+        }
+        long key = pair(productId, businessEntityId);
+        int low = 0;
+        int high = summaries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int at = summaryOffset + middle * SUMMARY_ENTRY_BYTES;
+            long candidate = mapped.getLong(at);
+            if (candidate < key) {
+                low = middle + 1;
+            } else if (candidate > key) {
+                high = middle - 1;
+            } else {
+                return new StockMovementDto(mapped.getLong(at + 8), mapped.getLong(at + 16),
+                        Double.longBitsToDouble(mapped.getLong(at + 24)));
+            }
+        }
+        return new StockMovementDto(0, 0, 0.0);
+    }
+
+    private int firstBlockEndingAtOrAfter(long micros) {
+        int low = 0;
+        int high = blockLast.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blockLast[middle] < micros) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // One inflated block, reused across the blocks of a read
+    private final class Block implements AutoCloseable {
+        final UUID[] ids = new UUID[BLOCK_ROWS];
+        final long[] times = new long[BLOCK_ROWS];
+        final long[] productIds = new long[BLOCK_ROWS];
+        final long[] sources = new long[BLOCK_ROWS];
+        final long[] destinations = new long[BLOCK_ROWS];
+        final int[] quantities = new int[BLOCK_ROWS];
+        final double[] costs = new double[BLOCK_ROWS];
+        final ByteBuffer raw = ByteBuffer.allocate(BLOCK_ROWS * ROW_BYTES);
+        final Inflater inflater = new Inflater();
+        int rows;
+
+        void read(int block) {
+            rows = blockRows[block];
+            raw.clear();
+            inflater.reset();
+            inflater.setInput(mapped.slice((int) blockOffsets[block], blockLengths[block]));
+            try {
+                while (!inflater.finished()) {
+                    if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+                        throw new IllegalStateException("Truncated block " + block + " in " + file);
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt block " + block + " in " + file, e);
+            }
+            raw.flip();
+            for (int i = 0; i < rows; i++) {
+                ids[i] = new UUID(raw.getLong(), raw.getLong());
+            }
+            long time = 0;
+            for (int i = 0; i < rows; i++) {
+                time += raw.getLong(); // the first is absolute, the rest deltas
+                times[i] = time;
+            }
+            for (int i = 0; i < rows; i++) {
+                productIds[i] = raw.getLong();
+            }
+            for (int i = 0; i < rows; i++) {
+                sources[i] = raw.getLong();
+            }
+            for (int i = 0; i < rows; i++) {
+                destinations[i] = raw.getLong();
+            }
+            for (int i = 0; i < rows; i++) {
+                quantities[i] = raw.getInt();
+            }
+            for (int i = 0; i < rows; i++) {
+                costs[i] = raw.getDouble();
+            }
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+
+        InventoryTransaction transaction(int i) {
+            InventoryTransaction transaction = new InventoryTransaction();
+            transaction.setId(ids[i]);
+            transaction.setInsertedAt(instant(times[i]));
+            transaction.setProductId(productIds[i]);
+            transaction.setSource(sources[i]);
+            transaction.setDestination(destinations[i]);
+            transaction.setQuantity(quantities[i]);
+            transaction.setCostPricePerUnit(costs[i]);
+            return transaction;
+        }
+    }
+
+    /**
+     * Writes a segment covering {@code [from, to)}. Rows must be added in time order; {@link #finish()} writes the
+     * index, summary and header and forces the file to disk.
+     */
+    static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final long fromMicros;
+        private final long toMicros;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteBuffer raw = ByteBuffer.allocate(BLOCK_ROWS * ROW_BYTES);
+        private final ByteBuffer compressed = ByteBuffer.allocate(BLOCK_ROWS * ROW_BYTES + 1024);
+        private final UUID[] ids = new UUID[BLOCK_ROWS];
+        private final long[] times = new long[BLOCK_ROWS];
+        private final long[] productIds = new long[BLOCK_ROWS];
+        private final long[] sources = new long[BLOCK_ROWS];
+        private final long[] destinations = new long[BLOCK_ROWS];
+        private final int[] quantities = new int[BLOCK_ROWS];
+        private final double[] costs = new double[BLOCK_ROWS];
+        private final Map<Long, double[]> totals = new HashMap<>();
+        private ByteBuffer indexEntries = ByteBuffer.allocate(64 * INDEX_ENTRY_BYTES);
+        private int pending;
+        private int blocks;
+        private long rows;
+        private long lastMicros = Long.MIN_VALUE;
+
+        Writer(Path file, Instant from, Instant to) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.fromMicros = micros(from);
+            this.toMicros = micros(to);
+            channel.position(HEADER_BYTES);
+        }
+
+        void add(UUID id, long micros, long productId, long source, long destination, int quantity,
+                 double costPricePerUnit) throws IOException {
+            if (micros < lastMicros || micros < fromMicros || micros >= toMicros) {
+                throw new IllegalArgumentException("Row at " + micros + " out of order or outside the segment");
+            }
+            lastMicros = micros;
+            ids[pending] = id;
+            times[pending] = micros;
+            productIds[pending] = productId;
+            sources[pending] = source;
+            destinations[pending] = destination;
+            quantities[pending] = quantity;
+            costs[pending] = costPricePerUnit;
+            double value = quantity * costPricePerUnit;
+            accumulate(pair(productId, destination), quantity, value);
+            accumulate(pair(productId, source), -quantity, -value);
+            if (++pending == BLOCK_ROWS) {
+                flushBlock();
+            }
+        }
+
+        long finish() throws IOException {
+            if (pending > 0) {
+                flushBlock();
+            }
+            long indexOffset = channel.position();
+            indexEntries.flip();
+            write(indexEntries);
+
+            long summaryOffset = channel.position();
+            long[] keys = totals.keySet().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(keys);
+            ByteBuffer entry = ByteBuffer.allocate(SUMMARY_ENTRY_BYTES);
+            for (long key : keys) {
+                double[] pairTotals = totals.get(key);
+                entry.clear();
+                entry.putLong(key).putLong((long) pairTotals[0]).putLong((long) pairTotals[1])
+                        .putLong(Double.doubleToRawLongBits(pairTotals[2]));
+                entry.flip();
+                write(entry);
+            }
+            if (channel.position() > Integer.MAX_VALUE) {
+                throw new IOException("Transaction segment larger than 2 GB");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(VERSION).putInt(blocks).putLong(rows).putInt(keys.length).putInt(0)
+                    .putLong(fromMicros).putLong(toMicros).putLong(indexOffset).putLong(summaryOffset);
+            header.flip();
+            channel.position(0);
+            write(header);
+            channel.force(true);
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            channel.close();
+        }
+
+        // transactions, quantity, value; a double holds the counts exactly well past any month's volume
+        private void accumulate(long key, int quantity, double value) {
+            double[] pairTotals = totals.computeIfAbsent(key, k -> new double[3]);
+            pairTotals[0]++;
+            pairTotals[1] += quantity;
+            pairTotals[2] += value;
+        }
+
+        private void flushBlock() throws IOException {
+            raw.clear();
+            for (int i = 0; i < pending; i++) {
+                raw.putLong(ids[i].getMostSignificantBits()).putLong(ids[i].getLeastSignificantBits());
+            }
+            long previous = 0;
+            for (int i = 0; i < pending; i++) {
+                raw.putLong(times[i] - previous);
+                previous = times[i];
+            }
+            for (int i = 0; i < pending; i++) {
+                raw.putLong(productIds[i]);
+            }
+            for (int i = 0; i < pending; i++) {
+                raw.putLong(sources[i]);
+            }
+            for (int i = 0; i < pending; i++) {
+                raw.putLong(destinations[i]);
+            }
+            for (int i = 0; i < pending; i++) {
+                raw.putInt(quantities[i]);
+            }
+            for (int i = 0; i < pending; i++) {
+                raw.putDouble(costs[i]);
+            }
+            raw.flip();
+
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            compressed.clear();
+            while (!deflater.finished()) {
+                deflater.deflate(compressed);
+            }
+            compressed.flip();
+
+            long offset = channel.position();
+            int length = compressed.remaining();
+            write(compressed);
+            if (indexEntries.remaining() < INDEX_ENTRY_BYTES) {
+                ByteBuffer grown = ByteBuffer.allocate(indexEntries.capacity() * 2);
+                indexEntries.flip();
+                indexEntries = grown.put(indexEntries);
+            }
+            indexEntries.putLong(times[0]).putLong(times[pending - 1]).putLong(offset).putInt(length).putInt(pending);
+            blocks++;
+            rows += pending;
+            pending = 0;
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static boolean inRange(long id) {
+        return id > 0 && id <= 0xFFFFFFFFL;
+    }
+
+    // As in LongStockMap: both ids in [1, 2^32 - 1]
+    private static long pair(long productId, long businessEntityId) {
+        if (!inRange(productId) || !inRange(businessEntityId)) {
+            throw new IllegalArgumentException("Id out of range: " + productId + ", " + businessEntityId);
+        }
+        return productId << 32 | businessEntityId;
+    }
+}
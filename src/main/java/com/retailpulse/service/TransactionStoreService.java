@@ -0,0 +1,235 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.cache.TransactionColumns;
+import com.retailpulse.dto.request.TransactionAggregateRequestDto;
+import com.retailpulse.dto.response.TransactionAggregateResponseDto;
+import com.retailpulse.entity.InventoryTransaction;
+import com.retailpulse.service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The last {@code app.transaction-store.window} of inventory transactions in columns (see
+ * {@link TransactionColumns}), for range aggregations that would otherwise load every transaction and product
+ * entity in the range. Loaded at startup, appended on every save and relayed to the other replicas over Redis
+ * pub/sub, like the stock index; rebuilt every {@code app.transaction-store.reload-interval}, which also drops rows
+ * that aged out of the window and picks up edited transactions.
+ *
+ * Aggregates are only answered for ranges inside the window, and not before the first load completes.
+ */
+@Service
+public class TransactionStoreService implements ApplicationRunner, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStoreService.class);
+
+    private static final String TRANSACTION_STORE_NOT_LOADED = "TRANSACTION_STORE_NOT_LOADED";
+    private static final String TRANSACTION_STORE_NOT_LOADED_DESC = "Transaction store is still loading, retry shortly";
+    private static final String INVALID_AGGREGATE_RANGE = "INVALID_AGGREGATE_RANGE";
+    private static final String INVALID_AGGREGATE_RANGE_DESC = "Aggregate range must be non-empty and start on or after ";
+
+    static final String CHANNEL = "transaction-store";
+    private static final String LOAD_SQL = "SELECT id, inserted_at, product_id, source, destination, quantity, cost_price_per_unit " +
+            "FROM inventory_transaction WHERE inserted_at >= ?";
+
+    // Rows saved this close before a load started may or may not be in what it reads
+    private static final Duration LOAD_OVERLAP = Duration.ofMinutes(1);
+
+    record Row(UUID id, long insertedAt, long productId, long source, long destination, int quantity, double costPricePerUnit) {
+    }
+
+    record Relay(String origin, List<Row> rows) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean enabled;
+    private final Duration window;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile TransactionColumns store;
+    // Everything at or after this instant is held
+    private volatile Instant heldFrom;
+    // Non-null while a (re)load runs: rows appended meanwhile are replayed onto the new store before the swap
+    private List<Row> pendingRows;
+
+    public TransactionStoreService(JdbcTemplate jdbcTemplate,
+                                   StringRedisTemplate redisTemplate,
+                                   RedisMessageListenerContainer listenerContainer,
+                                   @Value("${app.transaction-store.enabled:true}") boolean enabled,
+                                   @Value("${app.transaction-store.window:120d}") Duration window) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+        this.window = window;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Transaction store disabled, aggregates are unavailable");
+            return;
+        }
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to subscribe to {}, other replicas' transactions only show up at reload: {}", CHANNEL, e.getMessage());
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.transaction-store.reload-interval:1h}",
+            initialDelayString = "${app.transaction-store.reload-interval:1h}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public TransactionAggregateResponseDto aggregate(TransactionAggregateRequestDto request) {
+        TransactionColumns current = store;
+        Instant from = heldFrom;
+        if (current == null || from == null) {
+            throw new BusinessException(TRANSACTION_STORE_NOT_LOADED, TRANSACTION_STORE_NOT_LOADED_DESC);
+        }
+        if (request.startDateTime().isBefore(from) || !request.startDateTime().isBefore(request.endDateTime())) {
+            throw new BusinessException(INVALID_AGGREGATE_RANGE, INVALID_AGGREGATE_RANGE_DESC + from);
+        }
+        TransactionColumns.GroupBy groupBy = request.groupBy() == null ? TransactionColumns.GroupBy.NONE : request.groupBy();
+        long start = System.nanoTime();
+        List<TransactionColumns.Group> groups = current.aggregate(request.startDateTime().toEpochMilli(),
+                request.endDateTime().toEpochMilli(), request.productId() == null ? 0 : request.productId(),
+                request.businessEntityId() == null ? 0 : request.businessEntityId(), groupBy);
+        logger.debug("Aggregated {} rows into {} group(s) in {} us", current.size(), groups.size(),
+                (System.nanoTime() - start) / 1_000);
+        return new TransactionAggregateResponseDto(request.startDateTime(), request.endDateTime(), groupBy, groups);
+    }
+
+    /** Appends a saved transaction here and on the other replicas. Never fails the save that triggered it. */
+    public void append(InventoryTransaction transaction) {
+        if (!enabled) {
+            return;
+        }
+        Instant insertedAt = transaction.getInsertedAt() == null ? Instant.now() : transaction.getInsertedAt();
+        Row row = new Row(transaction.getId(), insertedAt.toEpochMilli(), transaction.getProductId(), transaction.getSource(),
+                transaction.getDestination(), transaction.getQuantity(), transaction.getCostPricePerUnit());
+        try {
+            apply(List.of(row));
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Relay(instanceId, List.of(row))));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Unable to append transaction of product {} to the transaction store: {}",
+                    transaction.getProductId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Relay relay = objectMapper.readValue(message.getBody(), Relay.class);
+            if (!instanceId.equals(relay.origin())) {
+                apply(relay.rows());
+            }
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable transaction store message: {}", e.getMessage());
+        }
+    }
+
+    synchronized void apply(List<Row> rows) {
+        if (pendingRows != null) {
+            pendingRows.addAll(rows);
+        }
+        TransactionColumns current = store;
+        if (current != null) {
+            appendTo(current, rows);
+        }
+    }
+
+    void reload() {
+        synchronized (this) {
+            if (pendingRows != null) {
+                return; // a load is already running
+            }
+            pendingRows = new ArrayList<>();
+        }
+
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        Instant from = now.minus(window);
+        long recent = now.minus(LOAD_OVERLAP).toEpochMilli();
+        TransactionColumns loaded = new TransactionColumns();
+        // Ids of the rows read that were saved around the load, so an append racing the load is not counted twice
+        Set<UUID> recentIds = new HashSet<>();
+        try {
+            // Streamed like the stock index load; the ledger stays on the home database
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(Integer.MIN_VALUE);
+                statement.setTimestamp(1, Timestamp.from(from));
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                long insertedAt = rs.getTimestamp(2).getTime();
+                if (insertedAt >= recent) {
+                    recentIds.add(uuid(rs.getBytes(1)));
+                }
+                loaded.append(insertedAt, rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getInt(6), rs.getDouble(7));
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingRows = null;
+            }
+            logger.warn("Unable to load the transaction store, {}: {}",
+                    store == null ? "aggregates stay unavailable" : "keeping the current one", e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            appendTo(loaded, pendingRows.stream()
+                    .filter(r -> r.insertedAt() >= from.toEpochMilli() && !recentIds.contains(r.id()))
+                    .toList());
+            pendingRows = null;
+            store = loaded;
+            heldFrom = from;
+        }
+        logger.info("Loaded transaction store: {} rows since {} in {} ms", loaded.size(), from,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private static UUID uuid(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void appendTo(TransactionColumns columns, List<Row> rows) {
+        for (Row row : rows) {
+            columns.append(row.insertedAt(), row.productId(), row.source(), row.destination(), row.quantity(),
+                    row.costPricePerUnit());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.retailpulse.service.exception;
+
+/**
+ * The request could not be answered in time and nothing of it stays applied; reported as 503 so clients retry it,
+ * unlike the 400 of other business exceptions.
+ */
+public class ServiceUnavailableException extends BusinessException {
+
+    public ServiceUnavailableException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+}
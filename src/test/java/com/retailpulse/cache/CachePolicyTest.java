@@ -0,0 +1,47 @@
+package com.retailpulse.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachePolicyTest {
+
+    @Test
+    void testDefaultUsesGlobalTtlWithoutJitter() {
+        assertEquals(Duration.ofMinutes(11), CachePolicy.DEFAULT.nextTtl(Duration.ofMinutes(10), Duration.ofMinutes(1)));
+        assertTrue(CachePolicy.DEFAULT.admits(Long.MAX_VALUE));
+        assertFalse(CachePolicy.DEFAULT.hasKeyBudget());
+    }
+
+    @Test
+    void testJitterStaysWithinBoundsAndSpreads() {
+        CachePolicy policy = new CachePolicy(Duration.ofMinutes(10), 0.1, null, 0);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1_000; i++) {
+            long ttl = policy.nextTtl(Duration.ofHours(1), Duration.ZERO).toMillis();
+            assertTrue(ttl >= Duration.ofMinutes(9).toMillis() && ttl <= Duration.ofMinutes(11).toMillis(), "ttl " + ttl);
+            min = Math.min(min, ttl);
+            max = Math.max(max, ttl);
+        }
+        assertTrue(max - min > Duration.ofMinutes(1).toMillis());
+        assertEquals(Duration.ofMinutes(12), policy.maxLifetime(Duration.ofHours(1), Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testMaxValueSize() {
+        CachePolicy policy = new CachePolicy(null, 0, DataSize.ofKilobytes(1), 0);
+
+        assertTrue(policy.admits(1024));
+        assertFalse(policy.admits(1025));
+    }
+
+    @Test
+    void testJitterOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CachePolicy(null, 1.0, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CachePolicy(null, -0.1, null, 0));
+    }
+}
@@ -0,0 +1,322 @@
+package com.retailpulse.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CoalescingCacheTest {
+
+    private static final String LEASE_KEY = "cache-load-lease:product:1";
+
+    @Mock
+    private RedisLease lease;
+
+    @Mock
+    private EvictionCounter evictionCounter;
+
+    private ConcurrentMapCache delegate;
+
+    // Stands in for PolicyRedisCacheWriter, which reports the remaining TTL of every entry it reads
+    private final AtomicLong remainingTtl = new AtomicLong();
+    private final ConcurrentMapCache expiring = new ConcurrentMapCache("product", false) {
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper value = super.get(key);
+            if (value != null) {
+                CoalescingCache.recordRemainingTtl(remainingTtl.get());
+            }
+            return value;
+        }
+    };
+
+    private CoalescingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        delegate = new ConcurrentMapCache("product", false);
+        cache = new CoalescingCache(delegate, lease, Duration.ofMillis(200), Duration.ofMillis(5));
+    }
+
+    @Test
+    void testHitDoesNotLoadOrTakeLease() {
+        delegate.put(1L, "cached");
+
+        assertEquals("cached", cache.get(1L, () -> fail("loader should not run")));
+        verifyNoInteractions(lease);
+    }
+
+    @Test
+    void testLeaseHolderLoadsWritesAndReleases() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+        assertEquals("loaded", delegate.get(1L).get());
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testFollowerUsesValueLoadedByLeaseHolder() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenAnswer(invocation -> {
+            // Another replica holds the lease and finishes loading after a few polls
+            if (attempts.incrementAndGet() == 3) {
+                delegate.put(1L, "loaded elsewhere");
+            }
+            return null;
+        });
+
+        assertEquals("loaded elsewhere", cache.get(1L, () -> fail("loader should not run")));
+        verify(lease, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testFollowerLoadsItselfOnceLeaseDurationPasses() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn(null);
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+        assertEquals("loaded", delegate.get(1L).get());
+    }
+
+    @Test
+    void testLoadsWithoutLeaseWhenRedisUnavailable() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+    }
+
+    @Test
+    void testLoaderFailureIsWrappedAndLeaseReleased() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> {
+                    throw new IllegalArgumentException("Product not found with id: 1");
+                }));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verify(lease).release(LEASE_KEY, "token");
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void testFreshHitIsNotRefreshed() {
+        remainingTtl.set(Duration.ofMinutes(10).toMillis());
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "cached");
+
+        assertEquals("cached", refreshing.get(1L, () -> fail("loader should not run")));
+        verifyNoInteractions(lease);
+    }
+
+    @Test
+    void testHitPastTtlIsRefreshedByLeaseHolder() {
+        // Inside the stale grace: the TTL has passed
+        remainingTtl.set(Duration.ofSeconds(30).toMillis());
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "stale");
+
+        assertEquals("reloaded", refreshing.get(1L, () -> "reloaded"));
+        assertEquals("reloaded", expiring.get(1L).get());
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testHitPastTtlServesStaleWhileAnotherReplicaRefreshes() {
+        remainingTtl.set(Duration.ofSeconds(30).toMillis());
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn(null);
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "stale");
+
+        assertEquals("stale", refreshing.get(1L, () -> fail("loader should not run")));
+    }
+
+    @Test
+    void testFailedRefreshServesCachedValue() {
+        remainingTtl.set(Duration.ofSeconds(30).toMillis());
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "stale");
+
+        assertEquals("stale", refreshing.get(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("stale", expiring.get(1L).get());
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testHitNearTtlIsRefreshedEarlyDependingOnLoadTime() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        // -ln(1e-6) is about 14, so the draw allows a refresh up to ~14 load times before the TTL
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 1e-6);
+        refreshing.get(1L, () -> {
+            Thread.sleep(20);
+            return "first";
+        });
+        long loadMillis = refreshing.loadNanos() / 1_000_000;
+        assertTrue(loadMillis >= 20);
+
+        // Far from the TTL: served as is
+        remainingTtl.set(Duration.ofMinutes(1).toMillis() + loadMillis * 100);
+        assertEquals("first", refreshing.get(1L, () -> fail("loader should not run")));
+
+        // Within a few load times of the TTL: refreshed now
+        remainingTtl.set(Duration.ofMinutes(1).toMillis() + loadMillis * 5);
+        assertEquals("second", refreshing.get(1L, () -> "second"));
+        assertEquals("second", expiring.get(1L).get());
+    }
+
+    @Test
+    void testRefreshIsNotWrittenWhenEvictedWhileLoading() {
+        remainingTtl.set(Duration.ofSeconds(30).toMillis());
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "stale");
+
+        // A write commits and evicts the key while the refresh is still reading
+        assertEquals("read before the write", refreshing.get(1L, () -> {
+            refreshing.evict(1L);
+            return "read before the write";
+        }));
+        assertNull(expiring.get(1L));
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testRefreshIsNotWrittenWhenEvictedOnAnotherReplica() {
+        remainingTtl.set(Duration.ofSeconds(30).toMillis());
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        when(evictionCounter.current("product")).thenReturn(4L);
+        CoalescingCache refreshing = new CoalescingCache(expiring, lease, evictionCounter, Duration.ofMillis(200),
+                Duration.ofMillis(5), true, Duration.ofMinutes(1), 1.0, () -> 0.5);
+        expiring.put(1L, "stale");
+
+        // Another replica's write evicts the entry, bumping the shared count
+        refreshing.get(1L, () -> {
+            when(evictionCounter.current("product")).thenReturn(5L);
+            expiring.evict(1L);
+            return "read before the write";
+        });
+        assertNull(expiring.get(1L));
+    }
+
+    @Test
+    void testMissIsNotWrittenWhenClearedWhileLoading() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+
+        // The write commits and CacheGenerationService clears the cache while the miss is still reading
+        assertEquals("read before the write", cache.get(1L, () -> {
+            cache.clear();
+            return "read before the write";
+        }));
+        assertNull(delegate.get(1L));
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testMissIsNotWrittenWhenClearedOnAnotherReplicaWhileLoading() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        when(evictionCounter.current("product")).thenReturn(0L, 1L);
+        CoalescingCache shared = new CoalescingCache(delegate, lease, evictionCounter, Duration.ofMillis(200),
+                Duration.ofMillis(5), Duration.ofMinutes(1), 1.0);
+
+        assertEquals("read before the write", shared.get(1L, () -> "read before the write"));
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void testPutIsUndoneWhenClearLandsAfterTheCheck() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        // Unchanged at the check before the put, bumped by the time of the check after it
+        when(evictionCounter.current("product")).thenReturn(0L, 0L, 1L);
+        CoalescingCache shared = new CoalescingCache(delegate, lease, evictionCounter, Duration.ofMillis(200),
+                Duration.ofMillis(5), Duration.ofMinutes(1), 1.0);
+
+        assertEquals("loaded", shared.get(1L, () -> "loaded"));
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void testEvictionBumpsSharedCountBeforeRemoving() {
+        CoalescingCache shared = new CoalescingCache(delegate, lease, evictionCounter, Duration.ofMillis(200),
+                Duration.ofMillis(5), Duration.ofMinutes(1), 1.0);
+        delegate.put(1L, "cached");
+        doAnswer(invocation -> {
+            assertNotNull(delegate.get(1L));
+            return null;
+        }).when(evictionCounter).increment("product");
+
+        shared.clear();
+
+        verify(evictionCounter).increment("product");
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void testMissIsWrittenWhenSharedCountUnavailable() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        when(evictionCounter.current("product")).thenThrow(new RedisConnectionFailureException("down"));
+        CoalescingCache shared = new CoalescingCache(delegate, lease, evictionCounter, Duration.ofMillis(200),
+                Duration.ofMillis(5), Duration.ofMinutes(1), 1.0);
+
+        assertEquals("loaded", shared.get(1L, () -> "loaded"));
+        assertEquals("loaded", delegate.get(1L).get());
+    }
+
+    @Test
+    void testHitWithoutReportedTtlIsNotRefreshed() {
+        CoalescingCache refreshing = new CoalescingCache(delegate, lease, null, Duration.ofMillis(200), Duration.ofMillis(5),
+                true, Duration.ofMinutes(1), 1.0, () -> 1e-6);
+        delegate.put(1L, "cached");
+
+        assertEquals("cached", refreshing.get(1L, () -> fail("loader should not run")));
+        verifyNoInteractions(lease);
+    }
+
+    @Test
+    void testRejectedPutTakesBypassLease() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn("token");
+        // Stands in for PolicyRedisCacheWriter declining a value over max-value-size
+        CoalescingCache rejecting = new CoalescingCache(new ConcurrentMapCache("product", false) {
+            @Override
+            public void put(Object key, Object value) {
+                CoalescingCache.recordRejectedPut();
+            }
+        }, lease, Duration.ofMillis(200), Duration.ofMillis(5));
+
+        assertEquals("too large", rejecting.get(1L, () -> "too large"));
+        verify(lease).tryAcquire("cache-load-bypass:product:1", Duration.ofMillis(200));
+        verify(lease).release(LEASE_KEY, "token");
+    }
+
+    @Test
+    void testFollowerLoadsDirectlyOnceBypassed() {
+        when(lease.tryAcquire(eq(LEASE_KEY), any())).thenReturn(null);
+        when(lease.isHeld("cache-load-bypass:product:1")).thenReturn(true);
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+        // Loaded without waiting out the lease, and not written since the cache would refuse it
+        verify(lease, times(1)).tryAcquire(eq(LEASE_KEY), any());
+        assertNull(delegate.get(1L));
+    }
+}
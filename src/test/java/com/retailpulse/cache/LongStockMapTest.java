@@ -0,0 +1,122 @@
+package com.retailpulse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongStockMapTest {
+
+    @Test
+    void testPutGetAndOverwrite() {
+        LongStockMap map = new LongStockMap(4);
+
+        map.put(101L, 1L, 10, 55.5);
+        map.put(101L, 2L, 20, 0.0);
+        map.put(101L, 1L, 7, 38.85);
+
+        assertEquals(2, map.size());
+        assertEquals(7, map.quantity(101L, 1L));
+        assertEquals(38.85, map.totalCostPrice(101L, 1L));
+        assertEquals(20, map.quantity(101L, 2L));
+        assertEquals(LongStockMap.ABSENT, map.quantity(102L, 1L));
+        assertTrue(Double.isNaN(map.totalCostPrice(102L, 1L)));
+    }
+
+    @Test
+    void testQuantitiesAcrossBusinessEntities() {
+        LongStockMap map = new LongStockMap(8);
+        map.put(101L, 1L, 10, 0.0);
+        map.put(101L, 3L, 5, 0.0);
+        map.put(102L, 2L, 99, 0.0);
+
+        int[] quantities = new int[3];
+        long total = map.quantities(101L, new long[]{1L, 2L, 3L}, quantities);
+
+        assertEquals(15, total);
+        assertArrayEquals(new int[]{10, LongStockMap.ABSENT, 5}, quantities);
+    }
+
+    @Test
+    void testVersionedWritesIgnoreOlderChanges() {
+        LongStockMap map = new LongStockMap(4);
+
+        assertTrue(map.putIfNewer(101L, 1L, 10, 50.0, 3));
+        assertFalse(map.putIfNewer(101L, 1L, 12, 60.0, 2));
+        assertEquals(10, map.quantity(101L, 1L));
+        assertFalse(map.removeIfNotNewer(101L, 1L, 2));
+        assertEquals(10, map.quantity(101L, 1L));
+
+        assertTrue(map.putIfNewer(101L, 1L, 9, 45.0, 4));
+        assertEquals(9, map.quantity(101L, 1L));
+        assertTrue(map.removeIfNotNewer(101L, 1L, 4));
+        assertEquals(LongStockMap.ABSENT, map.quantity(101L, 1L));
+    }
+
+    @Test
+    void testIdsOutOfRange() {
+        LongStockMap map = new LongStockMap(4);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1L, 1, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, 1L << 32, 1, 0.0));
+        assertEquals(LongStockMap.ABSENT, map.quantity(0L, 0L));
+        assertEquals(LongStockMap.ABSENT, map.quantity(-1L, 1L));
+    }
+
+    // Random puts and removes against a HashMap, small enough ids to collide and long enough to grow several times
+    @Test
+    void testMatchesHashMapUnderRandomPutsAndRemoves() {
+        LongStockMap map = new LongStockMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long productId = 1 + random.nextInt(500);
+            long businessEntityId = 1 + random.nextInt(40);
+            long key = LongStockMap.key(productId, businessEntityId);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(productId, businessEntityId));
+            } else {
+                int quantity = random.nextInt(1000);
+                map.put(productId, businessEntityId, quantity, quantity * 2.0);
+                expected.put(key, quantity);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long productId = 1; productId <= 500; productId++) {
+            for (long businessEntityId = 1; businessEntityId <= 40; businessEntityId++) {
+                Integer quantity = expected.get(LongStockMap.key(productId, businessEntityId));
+                assertEquals(quantity == null ? LongStockMap.ABSENT : quantity, map.quantity(productId, businessEntityId));
+            }
+        }
+    }
+
+    @Test
+    void testRemoveKeepsProbeRunsReachable() {
+        // Tiny table so every entry shares a probe run with others
+        LongStockMap map = new LongStockMap(0);
+        List<long[]> keys = new ArrayList<>();
+        for (long productId = 1; productId <= 12; productId++) {
+            map.put(productId, 1L, (int) productId, 0.0);
+            keys.add(new long[]{productId, 1L});
+        }
+        assertEquals(16, map.capacity());
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertTrue(map.remove(keys.get(i)[0], keys.get(i)[1]));
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            long productId = keys.get(i)[0];
+            assertEquals(i % 2 == 0 ? LongStockMap.ABSENT : (int) productId, map.quantity(productId, 1L));
+        }
+        assertFalse(map.remove(1L, 1L));
+        assertEquals(6, map.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.retailpulse.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PolicyRedisCacheWriterTest {
+
+    private static final byte[] KEY = "inventoryList::all".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private RedisCacheWriter delegate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PolicyRedisCacheWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        Map<String, CachePolicy> policies = Map.of(
+                "inventoryList", new CachePolicy(Duration.ofMinutes(5), 0, DataSize.ofBytes(10), 0),
+                "inventory", new CachePolicy(Duration.ofMinutes(10), 0, null, 2));
+        writer = new PolicyRedisCacheWriter(delegate, redisTemplate,
+                name -> policies.getOrDefault(name, CachePolicy.DEFAULT), Duration.ofMinutes(10), Duration.ofMinutes(1),
+                meterRegistry);
+    }
+
+    @Test
+    void testValueWithinLimitIsWritten() {
+        byte[] value = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+
+        writer.put("inventoryList", KEY, value, Duration.ofMinutes(6));
+
+        verify(delegate).put("inventoryList", KEY, value, Duration.ofMinutes(6));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testOversizedValueIsNotWrittenAndOldEntryRemoved() {
+        byte[] value = "[1,2,3,4,5,6,7]".getBytes(StandardCharsets.UTF_8);
+
+        writer.put("inventoryList", KEY, value, Duration.ofMinutes(6));
+
+        verify(delegate, never()).put(anyString(), any(), any(), any());
+        verify(delegate).remove("inventoryList", KEY);
+        assertEquals(1.0, meterRegistry.counter("cache.puts.oversized", "cache", "inventoryList").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWriteToBudgetedCacheUpdatesIndex() {
+        byte[] key = "inventory::7".getBytes(StandardCharsets.UTF_8);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        writer.put("inventory", key, "{}".getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(11));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("cache-keys:inventory")),
+                eq("inventory::7"), anyString(), anyString(), eq("2"));
+        assertEquals(1.0, meterRegistry.counter("cache.evictions.budget", "cache", "inventory").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testIndexFailureDoesNotFailTheWrite() {
+        byte[] key = "inventory::7".getBytes(StandardCharsets.UTF_8);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> writer.put("inventory", key, "{}".getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(11)));
+        verify(delegate).put(eq("inventory"), eq(key), any(), any());
+    }
+
+    @Test
+    void testCleanDropsIndexOfBudgetedCache() {
+        byte[] pattern = "inventory::*".getBytes(StandardCharsets.UTF_8);
+
+        writer.clean("inventory", pattern);
+
+        verify(delegate).clean("inventory", pattern);
+        verify(redisTemplate).delete("cache-keys:inventory");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadReportsRemainingTtlFromSameRoundTrip() {
+        byte[] value = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(value, 45_000L));
+
+        assertArrayEquals(value, writer.get("inventoryList", KEY));
+        assertEquals(45_000L, CoalescingCache.takeRemainingTtl());
+        verify(redisTemplate).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+        verifyNoInteractions(delegate);
+    }
+}
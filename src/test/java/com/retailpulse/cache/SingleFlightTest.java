@@ -0,0 +1,82 @@
+package com.retailpulse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "value";
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    return "duplicate";
+                })));
+            }
+            // Give the followers time to join the in-flight call before it completes
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testLoaderExceptionIsRethrownAndNotRemembered() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute(1L, () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals("value", singleFlight.execute(1L, () -> "value"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testDifferentKeysLoadIndependently() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        assertEquals("one", singleFlight.execute(1L, () -> "one"));
+        assertEquals("two", singleFlight.execute(2L, () -> "two"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.retailpulse.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Measures {@link LongStockMap} at catalogue scale (50,000 products at 300 business entities, every pair stocked)
+ * against a boxed {@code HashMap<Long, int[]>} holding the same rows: heap retained, single-pair lookups and
+ * all-stores lookups for one product. Not a unit test; run
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.cache.StockIndexBenchmark
+ * -Dexec.classpathScope=test} with MAVEN_OPTS="-Xmx4g".
+ */
+public class StockIndexBenchmark {
+
+    private static final int PRODUCTS = 50_000;
+    private static final int BUSINESS_ENTITIES = 300;
+    private static final int LOOKUPS = 20_000_000;
+    private static final int ACROSS_STORES_LOOKUPS = 100_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        long[] businessEntityIds = new long[BUSINESS_ENTITIES];
+        for (int i = 0; i < BUSINESS_ENTITIES; i++) {
+            businessEntityIds[i] = i + 1;
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        LongStockMap index = new LongStockMap(PRODUCTS * BUSINESS_ENTITIES);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            for (long businessEntityId = 1; businessEntityId <= BUSINESS_ENTITIES; businessEntityId++) {
+                index.put(productId, businessEntityId, (int) (productId + businessEntityId) % 500, productId * 0.5);
+            }
+        }
+        System.out.printf("LongStockMap: %,d rows loaded in %d ms, %,d MB retained%n", index.size(),
+                (System.nanoTime() - start) / 1_000_000, (usedHeap() - before) >> 20);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("  round %d: get %.1f ns/op, all %d stores %.1f us/op%n", round,
+                    timeLookups(index), BUSINESS_ENTITIES, timeAcrossStores(index, businessEntityIds));
+        }
+
+        index = null;
+        before = usedHeap();
+        start = System.nanoTime();
+        Map<Long, int[]> boxed = new HashMap<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            for (long businessEntityId = 1; businessEntityId <= BUSINESS_ENTITIES; businessEntityId++) {
+                boxed.put(productId << 32 | businessEntityId, new int[]{(int) (productId + businessEntityId) % 500});
+            }
+        }
+        System.out.printf("HashMap<Long, int[]>: %,d rows loaded in %d ms, %,d MB retained%n", boxed.size(),
+                (System.nanoTime() - start) / 1_000_000, (usedHeap() - before) >> 20);
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("  round %d: get %.1f ns/op%n", round, timeLookups(boxed));
+        }
+    }
+
+    private static double timeLookups(LongStockMap index) {
+        SplittableRandom random = new SplittableRandom(7);
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += index.quantity(1 + random.nextInt(PRODUCTS), 1 + random.nextInt(BUSINESS_ENTITIES));
+        }
+        double nanos = (double) (System.nanoTime() - start) / LOOKUPS;
+        blackhole(sum);
+        return nanos;
+    }
+
+    private static double timeLookups(Map<Long, int[]> boxed) {
+        SplittableRandom random = new SplittableRandom(7);
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long key = (long) (1 + random.nextInt(PRODUCTS)) << 32 | (1 + random.nextInt(BUSINESS_ENTITIES));
+            sum += boxed.get(key)[0];
+        }
+        double nanos = (double) (System.nanoTime() - start) / LOOKUPS;
+        blackhole(sum);
+        return nanos;
+    }
+
+    private static double timeAcrossStores(LongStockMap index, long[] businessEntityIds) {
+        SplittableRandom random = new SplittableRandom(11);
+        int[] quantities = new int[businessEntityIds.length];
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ACROSS_STORES_LOOKUPS; i++) {
+            sum += index.quantities(1 + random.nextInt(PRODUCTS), businessEntityIds, quantities);
+        }
+        double micros = (double) (System.nanoTime() - start) / ACROSS_STORES_LOOKUPS / 1_000;
+        blackhole(sum);
+        return micros;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void blackhole(long value) {
+        if (value == 42) {
+            System.out.print("");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.retailpulse.cache;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures {@link TransactionColumns} over 120 days of transactions (100,000 a day across 50,000 products and 300
+ * business entities): a quarter's totals, a quarter grouped by day and by product, and one store's quarter grouped
+ * by product. Not a unit test; run
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.cache.TransactionColumnsBenchmark
+ * -Dexec.classpathScope=test} with MAVEN_OPTS="-Xmx4g".
+ */
+public class TransactionColumnsBenchmark {
+
+    private static final int DAYS = 120;
+    private static final int PER_DAY = 100_000;
+    private static final int PRODUCTS = 50_000;
+    private static final int BUSINESS_ENTITIES = 300;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int ROUNDS = 5;
+
+    // Every result is folded in here and printed at the end, so the JIT cannot drop an aggregation as dead code
+    private static long sink;
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(7);
+        long start = System.nanoTime();
+        TransactionColumns columns = new TransactionColumns();
+        long first = 20_000 * MILLIS_PER_DAY;
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < PER_DAY; i++) {
+                columns.append(first + day * MILLIS_PER_DAY + (long) i * MILLIS_PER_DAY / PER_DAY,
+                        1 + random.nextInt(PRODUCTS), 1 + random.nextInt(BUSINESS_ENTITIES),
+                        1 + random.nextInt(BUSINESS_ENTITIES), 1 + random.nextInt(20), 1 + random.nextInt(100));
+            }
+        }
+        System.out.printf("TransactionColumns: %,d rows loaded in %d ms%n", columns.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        long from = first + 20 * MILLIS_PER_DAY;
+        long to = from + 91 * MILLIS_PER_DAY;
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("  round %d: quarter %.1f ms, by day %.1f ms, by product %.1f ms, one store by product %.1f ms%n",
+                    round,
+                    time(() -> columns.aggregate(from, to, 0, 0, TransactionColumns.GroupBy.NONE)),
+                    time(() -> columns.aggregate(from, to, 0, 0, TransactionColumns.GroupBy.DAY)),
+                    time(() -> columns.aggregate(from, to, 0, 0, TransactionColumns.GroupBy.PRODUCT)),
+                    time(() -> columns.aggregate(from, to, 0, 17, TransactionColumns.GroupBy.PRODUCT)));
+        }
+        System.out.printf("  (checksum %d)%n", sink);
+    }
+
+    private static double time(java.util.function.Supplier<List<TransactionColumns.Group>> aggregate) {
+        long start = System.nanoTime();
+        List<TransactionColumns.Group> groups = aggregate.get();
+        double millis = (System.nanoTime() - start) / 1e6;
+        for (TransactionColumns.Group group : groups) {
+            sink += group.transactions() + group.quantity();
+        }
+        return millis;
+    }
+}
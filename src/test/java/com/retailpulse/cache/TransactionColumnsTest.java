@@ -0,0 +1,89 @@
+package com.retailpulse.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionColumnsTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    void testAggregateFiltersByRangeProductAndBusinessEntity() {
+        TransactionColumns columns = new TransactionColumns();
+        columns.append(1_000, 101L, 1L, 2L, 10, 5.0);
+        columns.append(2_000, 101L, 2L, 3L, 4, 5.0);
+        columns.append(3_000, 102L, 1L, 3L, 7, 2.0);
+        columns.append(4_000, 101L, 1L, 2L, 1, 5.0);
+
+        assertEquals(List.of(new TransactionColumns.Group(0, 3, 21, 84.0)),
+                columns.aggregate(1_000, 4_000, 0, 0, TransactionColumns.GroupBy.NONE));
+        assertEquals(List.of(new TransactionColumns.Group(0, 3, 15, 75.0)),
+                columns.aggregate(0, 10_000, 101L, 2L, TransactionColumns.GroupBy.NONE));
+        assertEquals(List.of(new TransactionColumns.Group(2L, 2, 11, 55.0), new TransactionColumns.Group(3L, 1, 7, 14.0)),
+                columns.aggregate(0, 10_000, 0, 1L, TransactionColumns.GroupBy.DESTINATION));
+        assertTrue(columns.aggregate(5_000, 10_000, 0, 0, TransactionColumns.GroupBy.PRODUCT).isEmpty());
+    }
+
+    @Test
+    void testGroupByDay() {
+        TransactionColumns columns = new TransactionColumns();
+        columns.append(20 * DAY + 5, 101L, 1L, 2L, 3, 1.0);
+        columns.append(20 * DAY + 7, 101L, 1L, 2L, 4, 1.0);
+        columns.append(21 * DAY, 101L, 1L, 2L, 5, 1.0);
+
+        assertEquals(List.of(new TransactionColumns.Group(20, 2, 7, 7.0), new TransactionColumns.Group(21, 1, 5, 5.0)),
+                columns.aggregate(0, 30 * DAY, 0, 0, TransactionColumns.GroupBy.DAY));
+    }
+
+    // Several chunks, out-of-order times and many groups, against a straightforward loop
+    @Test
+    void testMatchesRowByRowAcrossChunks() {
+        TransactionColumns columns = new TransactionColumns();
+        Random random = new Random(42);
+        int rows = 200_000;
+        long[] times = new long[rows];
+        long[] products = new long[rows];
+        int[] quantities = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            times[i] = i * 10L + random.nextInt(5_000);
+            products[i] = 1 + random.nextInt(3_000);
+            quantities[i] = 1 + random.nextInt(50);
+            columns.append(times[i], products[i], 1L + random.nextInt(5), 6L, quantities[i], 1.0);
+        }
+
+        long from = 300_000;
+        long to = 1_500_000;
+        Map<Long, long[]> expected = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            if (times[i] >= from && times[i] < to) {
+                long[] totals = expected.computeIfAbsent(products[i], k -> new long[2]);
+                totals[0]++;
+                totals[1] += quantities[i];
+            }
+        }
+
+        List<TransactionColumns.Group> groups = columns.aggregate(from, to, 0, 0, TransactionColumns.GroupBy.PRODUCT);
+
+        assertEquals(expected.size(), groups.size());
+        for (TransactionColumns.Group group : groups) {
+            long[] totals = expected.get(group.key());
+            assertEquals(totals[0], group.transactions());
+            assertEquals(totals[1], group.quantity());
+        }
+    }
+
+    @Test
+    void testIdsOutOfRange() {
+        TransactionColumns columns = new TransactionColumns();
+
+        assertThrows(IllegalArgumentException.class, () -> columns.append(0, 0L, 1L, 2L, 1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> columns.append(0, 1L, 1L << 32, 2L, 1, 1.0));
+        assertEquals(0, columns.size());
+    }
+}
@@ -0,0 +1,144 @@
+package com.retailpulse.client;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Feign's default transport (HttpURLConnection) with the pooled Apache HttpClient 5 transport against a
+ * local stub of the business-entity service. Not a unit test; run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.client.FeignTransportBenchmark
+ * -Dexec.classpathScope=test}.
+ *
+ * Each run reports throughput, p50/p99 latency and how many distinct client ports the stub saw (roughly the
+ * number of TCP connections; ephemeral ports wrap under heavy churn). The "connection per request" row sends
+ * Connection: close to show what setup costs when nothing is reused; on loopback that is the floor, across
+ * nodes add at least a network round trip per call.
+ */
+public class FeignTransportBenchmark {
+
+    private static final String BODY =
+            "{\"id\":1,\"name\":\"Orchard Road\",\"location\":\"Singapore\",\"type\":\"Store\",\"external\":false,\"active\":true}";
+    private static final int WARMUP_CALLS = 2_000;
+    private static final int MEASURED_CALLS = 20_000;
+
+    interface StubBusinessEntityClient {
+        @RequestLine("GET /api/businessEntity/{id}")
+        String getBusinessEntity(@Param("id") long id);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Without TCP_NODELAY the stub's separate header and body writes hit the 40ms delayed-ACK stall
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/api/businessEntity", exchange -> {
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        ExecutorService serverThreads = Executors.newFixedThreadPool(64);
+        server.setExecutor(serverThreads);
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(50)
+                .setMaxConnPerRoute(25)
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableCookieManagement()
+                .build();
+
+        try {
+            for (int concurrency : new int[]{1, 8, 32}) {
+                run("connection per request", new Client.Default(null, null), url, concurrency, remotePorts, false);
+                run("default (HttpURLConnection)", new Client.Default(null, null), url, concurrency, remotePorts, true);
+                run("hc5 pooled", new ApacheHttp5Client(httpClient), url, concurrency, remotePorts, true);
+            }
+        } finally {
+            httpClient.close();
+            server.stop(0);
+            serverThreads.shutdownNow();
+        }
+    }
+
+    private static void run(String name, Client client, String url, int concurrency, Set<Integer> remotePorts,
+                            boolean keepAlive) throws Exception {
+        StubBusinessEntityClient feignClient = Feign.builder()
+                .client(client)
+                .requestInterceptor(template -> {
+                    if (!keepAlive) {
+                        template.header("Connection", "close");
+                    }
+                })
+                .options(new Request.Options(2, TimeUnit.SECONDS, 3, TimeUnit.SECONDS, false))
+                .target(StubBusinessEntityClient.class, url);
+
+        execute(feignClient, concurrency, WARMUP_CALLS);
+        remotePorts.clear();
+
+        long start = System.nanoTime();
+        long[] latencies = execute(feignClient, concurrency, MEASURED_CALLS);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-28s concurrency=%2d  %,9.0f req/s  p50=%6.1f us  p99=%7.1f us  client ports=%d%n",
+                name, concurrency,
+                MEASURED_CALLS / (elapsed / 1e9),
+                latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3,
+                remotePorts.size());
+    }
+
+    private static long[] execute(StubBusinessEntityClient feignClient, int concurrency, int calls) throws Exception {
+        long[] latencies = new long[calls];
+        int perThread = calls / concurrency;
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        try {
+            Future<?>[] futures = new Future<?>[concurrency];
+            for (int t = 0; t < concurrency; t++) {
+                int offset = t * perThread;
+                int count = t == concurrency - 1 ? calls - offset : perThread;
+                futures[t] = callers.submit(() -> {
+                    for (int i = 0; i < count; i++) {
+                        long begin = System.nanoTime();
+                        feignClient.getBusinessEntity(1L);
+                        latencies[offset + i] = System.nanoTime() - begin;
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdown();
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,31 @@
+package com.retailpulse.config;
+
+import com.retailpulse.cache.CachePolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachePolicyPropertiesTest {
+
+    @Test
+    void testBindsPoliciesByCacheName() {
+        MapConfigurationPropertySource source = new MapConfigurationPropertySource(Map.of(
+                "app.cache.ttl", "10m",
+                "app.cache.policies.inventoryList.ttl", "5m",
+                "app.cache.policies.inventoryList.ttl-jitter", "0.1",
+                "app.cache.policies.inventoryList.max-value-size", "4MB",
+                "app.cache.policies.inventory.max-keys", "100000"));
+
+        CachePolicyProperties properties = new Binder(source).bind("app.cache", CachePolicyProperties.class).get();
+
+        assertEquals(new CachePolicy(Duration.ofMinutes(5), 0.1, DataSize.ofMegabytes(4), 0), properties.policy("inventoryList"));
+        assertEquals(new CachePolicy(null, 0, null, 100000), properties.policy("inventory"));
+        assertSame(CachePolicy.DEFAULT, properties.policy("product"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.retailpulse.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            // As SpringApplication sets up, for the Duration and List @Value parameters
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(DataSourceConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:mysql://localhost:30308/RPInventoryDB",
+                    "spring.datasource.username=root",
+                    "spring.datasource.hikari.maximum-pool-size=7",
+                    "spring.datasource.hikari.connection-timeout=2000");
+
+    @Test
+    void testDataSourceBindsSpringDatasourceProperties() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(DataSource.class);
+            HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+            assertThat(dataSource.getJdbcUrl()).isEqualTo("jdbc:mysql://localhost:30308/RPInventoryDB");
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(7);
+        });
+    }
+
+    // The layout is picked when the bean is created, so the flags also work in an image built with AOT
+    @Test
+    void testReplicaEnabledRoutesBetweenPrimaryAndReplica() {
+        contextRunner
+                .withPropertyValues(
+                        "app.datasource.replica.enabled=true",
+                        "app.datasource.replica.url=jdbc:mysql://localhost:30309/RPInventoryDB",
+                        "app.datasource.replica.hikari.maximum-pool-size=3")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(DataSource.class);
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                    assertThat(((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource())
+                            .isInstanceOf(ReplicaRoutingDataSource.class);
+                    assertThat(context.getBean(MeterRegistry.class).find("db.replica.usable").gauge()).isNotNull();
+                    HikariDataSource replica = (HikariDataSource) ((ReplicaRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource)
+                            .getTargetDataSource()).getResolvedDataSources().get(ReplicaRoutingDataSource.Target.REPLICA);
+                    // Shared settings from spring.datasource.hikari, overridden by the replica's own
+                    assertThat(replica.getConnectionTimeout()).isEqualTo(2000);
+                    assertThat(replica.getMaximumPoolSize()).isEqualTo(3);
+                    assertThat(replica.getPoolName()).isEqualTo("replica");
+                });
+    }
+
+    @Test
+    void testShardingEnabledRoutesBetweenShards() {
+        contextRunner
+                .withPropertyValues(
+                        "app.sharding.enabled=true",
+                        "app.sharding.urls=jdbc:mysql://localhost:30310/RPInventoryDB")
+                .run(context -> {
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    assertThat(((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource())
+                            .isInstanceOf(ShardRoutingDataSource.class);
+                    assertThat(context.getBean(MeterRegistry.class).find("db.replica.usable").gauge()).isNull();
+                    ShardRoutingDataSource shards = (ShardRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource)
+                            .getTargetDataSource();
+                    for (int i = 0; i < 2; i++) {
+                        HikariDataSource shard = (HikariDataSource) shards.getResolvedDataSources().get(i);
+                        assertThat(shard.getConnectionTimeout()).isEqualTo(2000);
+                        // app.sharding.pool-size wins over spring.datasource.hikari.maximum-pool-size
+                        assertThat(shard.getMaximumPoolSize()).isEqualTo(10);
+                        assertThat(shard.getPoolName()).isEqualTo("shard-" + i);
+                    }
+                });
+    }
+}
@@ -0,0 +1,275 @@
+package com.retailpulse.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyFilterTest {
+
+    private static final String KEY = "idempotency:anonymous:/api/inventory/salesUpdate:k1";
+    private static final String BODY = "{\"businessEntityId\":1,\"items\":[{\"productId\":101,\"quantity\":2}]}";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        filter = new IdempotencyFilter(redisTemplate, Duration.ofHours(24), Duration.ofSeconds(30),
+                Duration.ofMillis(200), Duration.ofMillis(5));
+    }
+
+    @Test
+    void testWithoutKey_PassesThrough() throws Exception {
+        MockHttpServletRequest request = salesUpdate(BODY);
+        request.removeHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER);
+        CountingChain chain = new CountingChain(200, "");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(1, chain.calls.get());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testFirstRequest_RunsAndStoresResponse() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        CountingChain chain = new CountingChain(200, "{\"ok\":true}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, chain);
+
+        assertEquals(1, chain.calls.get());
+        assertEquals(BODY, chain.body);
+        assertEquals("{\"ok\":true}", response.getContentAsString());
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), args.capture());
+        IdempotencyFilter.StoredResponse stored = objectMapper.readValue((String) args.getValue()[1], IdempotencyFilter.StoredResponse.class);
+        assertEquals(new IdempotencyFilter.StoredResponse(IdempotencyFilter.fingerprint(BODY.getBytes(StandardCharsets.UTF_8)),
+                200, "application/json", "{\"ok\":true}"), stored);
+        assertEquals(String.valueOf(Duration.ofHours(24).toMillis()), args.getValue()[2]);
+    }
+
+    @Test
+    void testFailedRequest_ReleasesKeyAndStoresNothing() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        CountingChain chain = new CountingChain(400, "{\"code\":\"INSUFFICIENT_STOCK\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, chain);
+
+        assertEquals(400, response.getStatus());
+        assertEquals("{\"code\":\"INSUFFICIENT_STOCK\"}", response.getContentAsString());
+        // Only the lease release script ran, which deletes the key
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of(KEY)), args.capture());
+        assertEquals(1, args.getValue().length);
+    }
+
+    @Test
+    void testSlowRequest_KeepsRenewingItsLease() throws Exception {
+        filter = new IdempotencyFilter(redisTemplate, Duration.ofHours(24), Duration.ofMillis(30),
+                Duration.ofMillis(200), Duration.ofMillis(5));
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        CountingChain chain = new CountingChain(200, "{\"ok\":true}");
+        MockFilterChain slowChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                try {
+                    Thread.sleep(150);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                chain.doFilter(request, response);
+            }
+        };
+
+        filter.doFilter(salesUpdate(BODY), new MockHttpServletResponse(), slowChain);
+
+        // Renewals pass (token, lease millis); the final store passes (token, response, ttl millis)
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, atLeast(3)).execute(any(RedisScript.class), eq(List.of(KEY)), args.capture());
+        long renewals = args.getAllValues().stream().filter(a -> a.length == 2 && "30".equals(a[1])).count();
+        assertTrue(renewals >= 2, "renewed " + renewals + " time(s)");
+        assertEquals(3, args.getValue().length);
+        filter.destroy();
+    }
+
+    @Test
+    void testCachedBody_SupportsReadListener() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        List<String> callbacks = new ArrayList<>();
+        MockFilterChain asyncChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                ServletInputStream in = request.getInputStream();
+                in.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        callbacks.add("data:" + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        callbacks.add("done");
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        callbacks.add("error");
+                    }
+                });
+                ((HttpServletResponse) response).setStatus(200);
+            }
+        };
+
+        filter.doFilter(salesUpdate(BODY), new MockHttpServletResponse(), asyncChain);
+
+        assertEquals(List.of("data:" + BODY, "done"), callbacks);
+    }
+
+    @Test
+    void testDuplicate_ReplaysStoredResponse() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn(stored(BODY, 201, "{\"id\":\"t1\"}"));
+        CountingChain chain = new CountingChain(200, "");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, chain);
+
+        assertEquals(0, chain.calls.get());
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":\"t1\"}", response.getContentAsString());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testDuplicate_WaitsForRunningRequest() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenAnswer(i -> polls.incrementAndGet() < 4 ? "lease-token" : stored(BODY, 200, ""));
+        CountingChain chain = new CountingChain(200, "");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, chain);
+
+        assertEquals(0, chain.calls.get());
+        assertEquals(4, polls.get());
+        assertEquals(200, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testDuplicate_GivesUpWhenFirstRequestTakesTooLong() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("lease-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, new CountingChain(200, ""));
+
+        assertEquals(HttpServletResponse.SC_CONFLICT, response.getStatus());
+        assertTrue(response.getContentAsString().contains("IDEMPOTENCY_KEY_IN_PROGRESS"));
+    }
+
+    @Test
+    void testKeyReusedWithDifferentBody() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn(stored("{\"other\":true}", 200, ""));
+        CountingChain chain = new CountingChain(200, "");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(salesUpdate(BODY), response, chain);
+
+        assertEquals(0, chain.calls.get());
+        assertEquals(422, response.getStatus());
+        assertTrue(response.getContentAsString().contains("IDEMPOTENCY_KEY_REUSED"));
+    }
+
+    @Test
+    void testRedisDown_RunsWithoutIdempotency() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        CountingChain chain = new CountingChain(200, "");
+
+        filter.doFilter(salesUpdate(BODY), new MockHttpServletResponse(), chain);
+
+        assertEquals(1, chain.calls.get());
+        assertEquals(BODY, chain.body);
+    }
+
+    private String stored(String body, int status, String responseBody) throws Exception {
+        return objectMapper.writeValueAsString(new IdempotencyFilter.StoredResponse(
+                IdempotencyFilter.fingerprint(body.getBytes(StandardCharsets.UTF_8)), status, "application/json", responseBody));
+    }
+
+    private static MockHttpServletRequest salesUpdate(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/inventory/salesUpdate");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k1");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // Stands in for the controller: reads the body and writes a fixed response
+    private static class CountingChain extends MockFilterChain {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int status;
+        private final String responseBody;
+        private String body;
+
+        CountingChain(int status, String responseBody) {
+            this.status = status;
+            this.responseBody = responseBody;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            calls.incrementAndGet();
+            body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            http.setContentType("application/json");
+            http.getOutputStream().write(responseBody.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.retailpulse.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ReplicaLagMonitorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.query(eq("SHOW REPLICA STATUS"), any(ResultSetExtractor.class)))
+                .thenAnswer(i -> i.<ResultSetExtractor<?>>getArgument(1).extractData(resultSet));
+        monitor = new ReplicaLagMonitor(jdbcTemplate, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @Test
+    void testNotUsableBeforeFirstCheck() {
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals(0.0, meterRegistry.get("db.replica.usable").gauge().value());
+    }
+
+    @Test
+    void testWithinMaxLag_Usable() throws SQLException {
+        replicaStatus(3L);
+
+        monitor.check();
+
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals(3.0, meterRegistry.get("db.replica.lag").gauge().value());
+        assertEquals(1.0, meterRegistry.get("db.replica.usable").gauge().value());
+    }
+
+    @Test
+    void testBehindMaxLag_NotUsable() throws SQLException {
+        replicaStatus(3L);
+        monitor.check();
+        replicaStatus(12L);
+
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals(12, monitor.lagSeconds());
+    }
+
+    @Test
+    void testReplicationStopped_NotUsable() throws SQLException {
+        replicaStatus(null);
+
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals(ReplicaLagMonitor.UNKNOWN, monitor.lagSeconds());
+    }
+
+    @Test
+    void testNotReplicating_TakenAsCurrent() throws SQLException {
+        when(resultSet.next()).thenReturn(false);
+
+        monitor.check();
+
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals(0, monitor.lagSeconds());
+    }
+
+    @Test
+    void testUnreachable_NotUsableUntilNextGoodCheck() throws SQLException {
+        replicaStatus(0L);
+        monitor.check();
+        doThrow(new DataAccessResourceFailureException("Communications link failure"))
+                .when(jdbcTemplate).query(eq("SHOW REPLICA STATUS"), any(ResultSetExtractor.class));
+
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+
+        doAnswer(i -> i.<ResultSetExtractor<?>>getArgument(1).extractData(resultSet))
+                .when(jdbcTemplate).query(eq("SHOW REPLICA STATUS"), any(ResultSetExtractor.class));
+        monitor.check();
+        assertTrue(monitor.isReplicaUsable());
+    }
+
+    private void replicaStatus(Long secondsBehind) throws SQLException {
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong("Seconds_Behind_Source")).thenReturn(secondsBehind == null ? 0L : secondsBehind);
+        when(resultSet.wasNull()).thenReturn(secondsBehind == null);
+    }
+}
@@ -0,0 +1,153 @@
+package com.retailpulse.config;
+
+import com.retailpulse.cache.CoalescingCache;
+import com.retailpulse.cache.RedisLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private ReplicaLagMonitor lagMonitor;
+    private DataSource dataSource;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(primary.getConnection()).thenAnswer(i -> connection());
+        when(replica.getConnection()).thenAnswer(i -> connection());
+        // Replica reports no replication, so it counts as current
+        ResultSet noStatus = mock(ResultSet.class);
+        when(replicaJdbcTemplate.query(any(String.class), any(ResultSetExtractor.class)))
+                .thenAnswer(i -> i.<ResultSetExtractor<?>>getArgument(1).extractData(noStatus));
+        lagMonitor = new ReplicaLagMonitor(replicaJdbcTemplate, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        lagMonitor.check();
+
+        dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lagMonitor));
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        // Lets the proxy read the pool defaults up front, so the counts below are only the transactions'
+        dataSource.getConnection().close();
+        clearInvocations(primary, replica);
+    }
+
+    @Test
+    void testReadOnlyServiceTransaction_GoesToReplica() throws SQLException {
+        runStatement("com.retailpulse.service.InventoryService.getAllInventory", true);
+
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void testReadWriteTransaction_GoesToPrimary() throws SQLException {
+        runStatement("com.retailpulse.service.InventoryService.saveInventory", false);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testRepositoryDefaultReadOnlyTransaction_GoesToPrimary() throws SQLException {
+        runStatement("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testReadOnlyTransactionFillingACache_GoesToPrimary() throws SQLException {
+        RedisLease lease = mock(RedisLease.class);
+        when(lease.tryAcquire(any(), any())).thenReturn("token");
+        CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("inventoryList"), lease,
+                Duration.ofSeconds(5), Duration.ofMillis(10));
+
+        cache.get("all", () -> {
+            runStatement("com.retailpulse.service.InventoryService.getAllInventory", true);
+            return "loaded";
+        });
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+        assertFalse(CoalescingCache.isLoading());
+    }
+
+    @Test
+    void testReplicaLagging_GoesToPrimary() throws SQLException {
+        lagMonitor.markUnavailable(new SQLException("lagging"));
+
+        runStatement("com.retailpulse.service.InventoryService.getAllInventory", true);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testReplicaRefusesConnection_FallsBackToPrimary() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("replica - Connection is not available"));
+
+        runStatement("com.retailpulse.service.InventoryService.getAllInventory", true);
+
+        verify(primary).getConnection();
+        assertFalse(lagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    void testOutsideTransaction_GoesToPrimary() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    private void runStatement(String name, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setName(name);
+        template.setReadOnly(readOnly);
+        template.executeWithoutResult(status -> {
+            try {
+                DataSourceUtils.getConnection(dataSource).createStatement();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static Connection connection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_REPEATABLE_READ);
+        return connection;
+    }
+}
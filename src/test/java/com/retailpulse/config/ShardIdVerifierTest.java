@@ -0,0 +1,78 @@
+package com.retailpulse.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ShardIdVerifierTest {
+
+    private ShardRouter shardRouter;
+
+    @AfterEach
+    void tearDown() {
+        if (shardRouter != null) {
+            shardRouter.shutdown();
+        }
+    }
+
+    @Test
+    void testDisjointOffsetsPass() {
+        assertDoesNotThrow(() -> ShardIdVerifier.verify(new long[][]{{3, 1}, {3, 2}, {3, 3}}));
+        // Room to add shards later
+        assertDoesNotThrow(() -> ShardIdVerifier.verify(new long[][]{{10, 1}, {10, 2}}));
+    }
+
+    @Test
+    void testDefaultSettingsFail() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ShardIdVerifier.verify(new long[][]{{1, 1}, {1, 1}}));
+        assertTrue(e.getMessage().contains("auto_increment_increment=2"), e.getMessage());
+    }
+
+    @Test
+    void testSameOffsetOnTwoShardsFails() {
+        assertThrows(IllegalStateException.class, () -> ShardIdVerifier.verify(new long[][]{{3, 1}, {3, 2}, {3, 2}}));
+    }
+
+    @Test
+    void testOffsetAboveIncrementCountsAsOne() {
+        // MySQL ignores the 5 and starts at 1, colliding with shard 0
+        assertThrows(IllegalStateException.class, () -> ShardIdVerifier.verify(new long[][]{{2, 1}, {2, 5}}));
+    }
+
+    @Test
+    void testDifferentIncrementsFail() {
+        assertThrows(IllegalStateException.class, () -> ShardIdVerifier.verify(new long[][]{{2, 1}, {3, 2}}));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunReadsEveryShard() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db"));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), ArgumentMatchers.<RowMapper<long[]>>any()))
+                .thenAnswer(i -> new long[]{2, ShardRouter.currentShard() + 1});
+
+        new ShardIdVerifier(jdbcTemplate, shardRouter).run(null);
+
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), ArgumentMatchers.<RowMapper<long[]>>any());
+    }
+
+    @Test
+    void testUnshardedDoesNotQuery() {
+        shardRouter = new ShardRouter(false, List.of());
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+        new ShardIdVerifier(jdbcTemplate, shardRouter).run(null);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
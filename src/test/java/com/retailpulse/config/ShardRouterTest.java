@@ -0,0 +1,118 @@
+package com.retailpulse.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private ShardRouter shardRouter;
+
+    @AfterEach
+    void tearDown() {
+        if (shardRouter != null) {
+            shardRouter.shutdown();
+        }
+    }
+
+    @Test
+    void testJumpHash_StaysInRangeAndIsStable() {
+        for (long key = 0; key < 10_000; key++) {
+            int bucket = ShardRouter.jumpHash(key, 7);
+            assertTrue(bucket >= 0 && bucket < 7);
+            assertEquals(bucket, ShardRouter.jumpHash(key, 7));
+        }
+        assertEquals(0, ShardRouter.jumpHash(42L, 1));
+    }
+
+    @Test
+    void testJumpHash_AddingAShardOnlyMovesKeysOntoIt() {
+        int moved = 0;
+        for (long key = 0; key < 10_000; key++) {
+            int before = ShardRouter.jumpHash(key, 4);
+            int after = ShardRouter.jumpHash(key, 5);
+            if (before != after) {
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+        // About a fifth of the keys
+        assertTrue(moved > 1_500 && moved < 2_500, "moved " + moved);
+    }
+
+    @Test
+    void testDisabled_EverythingOnHomeShardInline() {
+        shardRouter = new ShardRouter(false, List.of("jdbc:mysql://other/db"));
+        Thread caller = Thread.currentThread();
+
+        assertEquals(1, shardRouter.shardCount());
+        assertEquals(0, shardRouter.shardFor(12345L));
+        assertEquals(List.of(caller), shardRouter.gather(() -> List.of(Thread.currentThread())));
+    }
+
+    @Test
+    void testOnShard_RestoresPreviousBinding() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db", "jdbc:mysql://shard2/db"));
+
+        assertEquals(0, ShardRouter.currentShard());
+        shardRouter.onShard(2, () -> {
+            assertEquals(2, ShardRouter.currentShard());
+            assertEquals(1, shardRouter.onShard(1, ShardRouter::currentShard));
+            assertEquals(2, ShardRouter.currentShard());
+            return null;
+        });
+        assertEquals(0, ShardRouter.currentShard());
+    }
+
+    @Test
+    void testForBusinessEntity_BindsItsShard() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db", "jdbc:mysql://shard2/db"));
+
+        for (long businessEntityId = 1; businessEntityId < 50; businessEntityId++) {
+            assertEquals(shardRouter.shardFor(businessEntityId),
+                    shardRouter.forBusinessEntity(businessEntityId, ShardRouter::currentShard));
+        }
+    }
+
+    @Test
+    void testGather_MergesInShardOrder() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db", "jdbc:mysql://shard2/db"));
+
+        assertEquals(List.of(0, 1, 2), shardRouter.gather(() -> List.of(ShardRouter.currentShard())));
+    }
+
+    @Test
+    void testFindAny_ReturnsTheShardThatHasIt() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db", "jdbc:mysql://shard2/db"));
+
+        assertEquals(Optional.of(2), shardRouter.findAny(() ->
+                ShardRouter.currentShard() == 2 ? Optional.of(2) : Optional.empty()));
+        assertEquals(Optional.empty(), shardRouter.findAny(Optional::empty));
+    }
+
+    @Test
+    void testFindAny_SameRowOnTwoShardsFailsTheLookup() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db", "jdbc:mysql://shard2/db"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> shardRouter.findAny(() ->
+                ShardRouter.currentShard() == 1 ? Optional.empty() : Optional.of(ShardRouter.currentShard())));
+        assertTrue(e.getMessage().contains("shards 0 and 2"), e.getMessage());
+    }
+
+    @Test
+    void testGather_ShardFailureFailsTheRead() {
+        shardRouter = new ShardRouter(true, List.of("jdbc:mysql://shard1/db"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> shardRouter.gather(() -> {
+            if (ShardRouter.currentShard() == 1) {
+                throw new IllegalStateException("shard 1 down");
+            }
+            return List.of(1);
+        }));
+        assertEquals("shard 1 down", e.getMessage());
+    }
+}
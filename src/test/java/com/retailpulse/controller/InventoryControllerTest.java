@@ -3,6 +3,9 @@ package com.retailpulse.controller;
 import com.retailpulse.exception.GlobalExceptionHandler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.entity.Inventory;
+import com.retailpulse.service.CacheGenerationService;
 import com.retailpulse.service.InventoryService;
 import com.retailpulse.service.exception.BusinessException;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,13 +16,17 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
 
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +38,9 @@ class InventoryControllerTest {
     @Mock
     private InventoryService inventoryService;
 
+    @Mock
+    private CacheGenerationService cacheGenerationService;
+
     @InjectMocks
     private InventoryController inventoryController;
 
@@ -72,4 +82,41 @@ class InventoryControllerTest {
                 .andExpect(jsonPath("$.code").value("INSUFFICIENT_STOCK"))
                 .andExpect(jsonPath("$.message").value("Not enough stock"));
     }
+
+    @Test
+    void testSalesUpdateStocks_concurrentUpdateIsConflict() throws Exception {
+        InventoryUpdateRequestDto request = new InventoryUpdateRequestDto(1L,
+                List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 5)));
+
+        doThrow(new ObjectOptimisticLockingFailureException(Inventory.class, 1L))
+                .when(inventoryService).salesUpdateStocks(Mockito.any());
+
+        mockMvc.perform(post("/api/inventory/salesUpdate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CONCURRENT_UPDATE"));
+    }
+
+    @Test
+    void testGetAllInventories_returnsETag() throws Exception {
+        when(cacheGenerationService.eTag(CacheGenerationService.INVENTORY_LIST)).thenReturn("\"inventoryList-3\"");
+        when(inventoryService.getAllInventory()).thenReturn(List.of(new InventoryResponseDto(1L, 100L, 1L, 5, 0.0)));
+
+        mockMvc.perform(get("/api/inventory"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"inventoryList-3\""))
+                .andExpect(jsonPath("$[0].productId").value(100));
+    }
+
+    @Test
+    void testGetAllInventories_notModifiedWhenGenerationUnchanged() throws Exception {
+        when(cacheGenerationService.eTag(CacheGenerationService.INVENTORY_LIST)).thenReturn("\"inventoryList-3\"");
+
+        // The gzip variant of the same generation is also a match
+        mockMvc.perform(get("/api/inventory").header("If-None-Match", "\"inventoryList-3-gzip\""))
+                .andExpect(status().isNotModified());
+
+        verify(inventoryService, never()).getAllInventory();
+    }
 }
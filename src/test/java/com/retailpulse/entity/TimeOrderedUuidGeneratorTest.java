@@ -0,0 +1,56 @@
+package com.retailpulse.entity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @AfterEach
+    void tearDown() {
+        TimeOrderedUuidGenerator.reset();
+    }
+
+    @Test
+    void testGeneratesVersion7WithRfcVariant() {
+        UUID uuid = TimeOrderedUuidGenerator.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void testEncodesCreationTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuidGenerator.next();
+        long after = System.currentTimeMillis();
+
+        long timestamp = TimeOrderedUuidGenerator.timestampOf(uuid);
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+        assertEquals(-1, TimeOrderedUuidGenerator.timestampOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void testIdsAreStrictlyIncreasingWithinTheSameMillisecond() {
+        long millis = System.currentTimeMillis() + 60_000;
+        UUID previous = TimeOrderedUuidGenerator.next(millis);
+        // More ids than the 12-bit counter can hold in one millisecond
+        for (int i = 0; i < 10_000; i++) {
+            UUID current = TimeOrderedUuidGenerator.next(millis);
+            assertTrue(current.compareTo(previous) > 0, "ids must sort in generation order");
+            previous = current;
+        }
+    }
+
+    @Test
+    void testIdsStayOrderedWhenClockMovesBackwards() {
+        long millis = System.currentTimeMillis() + 120_000;
+        UUID first = TimeOrderedUuidGenerator.next(millis);
+        UUID second = TimeOrderedUuidGenerator.next(millis - 5_000);
+
+        assertTrue(second.compareTo(first) > 0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.retailpulse.service;
+
+import com.retailpulse.client.BusinessEntityClient;
+import com.retailpulse.dto.response.BusinessEntityResponseDto;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BusinessEntityServiceTest {
+
+    @Mock
+    private BusinessEntityClient businessEntityClient;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private BusinessEntityService businessEntityService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Mirrors resilience4j.circuitbreaker.instances.business-entity.ignore-exceptions
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .ignoreExceptions(FeignException.FeignClientException.class, BulkheadFullException.class)
+                .build());
+        businessEntityService = new BusinessEntityService(businessEntityClient, circuitBreakerRegistry,
+                BulkheadRegistry.ofDefaults());
+    }
+
+    @Test
+    void testIsValidBusinessEntity_ServesLastKnownGoodWhenUnavailable() {
+        BusinessEntityResponseDto businessEntity = new BusinessEntityResponseDto(1L, "Shop", "SG", "Store", false, false);
+        when(businessEntityClient.getBusinessEntity(1L))
+                .thenReturn(businessEntity)
+                .thenThrow(retryable());
+
+        assertFalse(businessEntityService.isValidBusinessEntity(1L));
+        // Second lookup fails; the inactive entity is still reported as inactive
+        assertFalse(businessEntityService.isValidBusinessEntity(1L));
+        verify(businessEntityClient, times(2)).getBusinessEntity(1L);
+    }
+
+    @Test
+    void testIsValidBusinessEntity_NotFound() {
+        when(businessEntityClient.getBusinessEntity(2L)).thenThrow(notFound());
+
+        assertFalse(businessEntityService.isValidBusinessEntity(2L));
+        // A 404 is an answer, not a failure of the dependency
+        assertEquals(0, circuitBreakerRegistry.circuitBreaker(BusinessEntityService.BUSINESS_ENTITY)
+                .getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testIsValidBusinessEntity_FailsOpenWithoutLastKnownGood() {
+        when(businessEntityClient.getBusinessEntity(3L)).thenThrow(retryable());
+
+        assertTrue(businessEntityService.isValidBusinessEntity(3L));
+    }
+
+    @Test
+    void testIsValidBusinessEntity_OpenCircuitSkipsRemoteCall() {
+        circuitBreakerRegistry.circuitBreaker(BusinessEntityService.BUSINESS_ENTITY).transitionToOpenState();
+
+        assertTrue(businessEntityService.isValidBusinessEntity(4L));
+        verifyNoInteractions(businessEntityClient);
+    }
+
+    @Test
+    void testIsExternalBusinessEntity_ThrowsWhenUnavailable() {
+        when(businessEntityClient.getBusinessEntity(5L)).thenThrow(retryable());
+
+        assertThrows(IllegalStateException.class, () -> businessEntityService.isExternalBusinessEntity(5L));
+    }
+
+    @Test
+    void testAllBusinessEntityResponseDetails_ServesLastKnownGoodList() {
+        List<BusinessEntityResponseDto> businessEntities =
+                List.of(new BusinessEntityResponseDto(1L, "Shop", "SG", "Store", false, true));
+        when(businessEntityClient.getAllBusinessEntity())
+                .thenReturn(businessEntities)
+                .thenThrow(retryable());
+
+        assertEquals(businessEntities, businessEntityService.allBusinessEntityResponseDetails());
+        assertEquals(businessEntities, businessEntityService.allBusinessEntityResponseDetails());
+        assertEquals(CircuitBreaker.State.CLOSED,
+                circuitBreakerRegistry.circuitBreaker(BusinessEntityService.BUSINESS_ENTITY).getState());
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.GET, "/api/businessEntity", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+    }
+
+    private static RetryableException retryable() {
+        return new RetryableException(-1, "Read timed out", Request.HttpMethod.GET, (Long) null, request());
+    }
+
+    private static FeignException notFound() {
+        return new FeignException.NotFound("Not Found", request(), null, null);
+    }
+}
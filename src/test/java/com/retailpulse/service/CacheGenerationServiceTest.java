@@ -0,0 +1,69 @@
+package com.retailpulse.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+public class CacheGenerationServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    private CacheGenerationService cacheGenerationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(cacheManager.getCache(CacheGenerationService.INVENTORY_LIST)).thenReturn(cache);
+        cacheGenerationService = new CacheGenerationService(redisTemplate, cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testBumpClearsTheListBeforeIncrementingItsGeneration() {
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+
+        InOrder inOrder = inOrder(cache, valueOperations);
+        inOrder.verify(cache).clear();
+        inOrder.verify(valueOperations).increment("cache-generation:inventoryList");
+    }
+
+    @Test
+    void testBumpInsideTransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheGenerationService.bump(CacheGenerationService.INVENTORY_LIST);
+
+        verifyNoInteractions(cache, valueOperations);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).clear();
+        verify(valueOperations).increment("cache-generation:inventoryList");
+    }
+}
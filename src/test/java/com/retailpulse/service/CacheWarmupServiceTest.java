@@ -0,0 +1,82 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.dto.response.ProductResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CacheWarmupServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    private CacheWarmupService cacheWarmupService;
+
+    private final ProductResponseDto product = new ProductResponseDto(1L, "RP1", "Jeans", "Men", "Pants", "Levis",
+            "USA", "Piece", "LEV", "LEV-1", 99.9, true);
+    private final InventoryResponseDto inventory = new InventoryResponseDto(1L, 1L, 201L, 50, 10.0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productService.getAllProducts()).thenReturn(List.of(product));
+        when(inventoryService.getAllInventory()).thenReturn(List.of(inventory));
+        cacheWarmupService = new CacheWarmupService(productService, inventoryService, new ObjectMapper(),
+                true, 1000, 10, Duration.ofSeconds(60));
+    }
+
+    @Test
+    void testRun_PreloadsThroughCacheableMethods() {
+        cacheWarmupService.run(new DefaultApplicationArguments());
+
+        // One preload plus ten exercise iterations each
+        verify(productService, times(11)).getProductById(1L);
+        verify(productService, times(11)).getProductBySKU("RP1");
+        verify(inventoryService, times(11)).getInventoryByBusinessEntityId(201L);
+    }
+
+    @Test
+    void testRun_SpentTimeBudgetStopsPreloading() {
+        cacheWarmupService = new CacheWarmupService(productService, inventoryService, new ObjectMapper(),
+                true, 1000, 10, Duration.ZERO);
+
+        cacheWarmupService.run(new DefaultApplicationArguments());
+
+        verify(productService).getAllProducts();
+        verify(productService, never()).getProductById(any());
+        verify(inventoryService, never()).getInventoryByBusinessEntityId(any());
+    }
+
+    @Test
+    void testRun_RedisDownStartsCold() {
+        when(productService.getAllProducts()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> cacheWarmupService.run(new DefaultApplicationArguments()));
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void testRun_Disabled() {
+        cacheWarmupService = new CacheWarmupService(productService, inventoryService, new ObjectMapper(),
+                false, 1000, 10, Duration.ofSeconds(60));
+
+        cacheWarmupService.run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(productService, inventoryService);
+    }
+}
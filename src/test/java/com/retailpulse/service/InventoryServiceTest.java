@@ -1,5 +1,6 @@
 package com.retailpulse.service;
 
+import com.retailpulse.config.ShardRouter;
 import com.retailpulse.dto.request.InventoryUpdateRequestDto;
 import com.retailpulse.dto.response.InventoryResponseDto;
 import com.retailpulse.entity.Inventory;
@@ -8,9 +9,14 @@ import com.retailpulse.service.exception.BusinessException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,32 +35,39 @@ class InventoryServiceTest {
     @Mock
     private BusinessEntityService businessEntityService;
 
+    @Mock
+    private CacheGenerationService cacheGenerationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SalesDeductionCoalescer salesDeductionCoalescer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(false, List.of());
+
     @InjectMocks
     private InventoryService inventoryService; // Service under test
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this); // Initialize mocks
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
     void testGetAllInventory() {
         // Arrange
-        Inventory item1 = new Inventory();
-        item1.setId(1L);
-        item1.setProductId(101L);
-        item1.setBusinessEntityId(201L);
-        item1.setQuantity(50);
+        InventoryResponseDto item1 = new InventoryResponseDto(1L, 101L, 201L, 50, 0.0);
+        InventoryResponseDto item2 = new InventoryResponseDto(2L, 102L, 202L, 30, 0.0);
 
-        Inventory item2 = new Inventory();
-        item2.setId(2L);
-        item2.setProductId(102L);
-        item2.setBusinessEntityId(202L);
-        item2.setQuantity(30);
+        List<InventoryResponseDto> mockInventories = Arrays.asList(item1, item2);
 
-        List<Inventory> mockInventories = Arrays.asList(item1, item2);
-
-        when(inventoryRepository.findAll()).thenReturn(mockInventories);
+        when(inventoryRepository.findAllInventoryResponses()).thenReturn(mockInventories);
 
         // Act
         List<InventoryResponseDto> result = inventoryService.getAllInventory();
@@ -67,7 +80,7 @@ class InventoryServiceTest {
         assertEquals(201L, result.get(0).businessEntityId());
         assertEquals(50, result.get(0).quantity());
 
-        verify(inventoryRepository, times(1)).findAll();
+        verify(inventoryRepository, times(1)).findAllInventoryResponses();
         verifyNoMoreInteractions(inventoryRepository);
     }
 
@@ -103,15 +116,11 @@ class InventoryServiceTest {
         // Arrange
         Long productId = 101L;
 
-        Inventory mockInventory = new Inventory();
-        mockInventory.setId(1L);
-        mockInventory.setProductId(productId);
-        mockInventory.setBusinessEntityId(201L);
-        mockInventory.setQuantity(50);
+        InventoryResponseDto mockInventory = new InventoryResponseDto(1L, productId, 201L, 50, 0.0);
 
-        List<Inventory> mockInventories = Collections.singletonList(mockInventory);
+        List<InventoryResponseDto> mockInventories = Collections.singletonList(mockInventory);
 
-        when(inventoryRepository.findByProductId(productId)).thenReturn(mockInventories);
+        when(inventoryRepository.findInventoryResponsesByProductId(productId)).thenReturn(mockInventories);
 
         // Act
         List<InventoryResponseDto> result = inventoryService.getInventoryByProductId(productId);
@@ -123,7 +132,7 @@ class InventoryServiceTest {
         assertEquals(201L, result.get(0).businessEntityId());
         assertEquals(50, result.get(0).quantity());
 
-        verify(inventoryRepository, times(1)).findByProductId(productId);
+        verify(inventoryRepository, times(1)).findInventoryResponsesByProductId(productId);
         verifyNoMoreInteractions(inventoryRepository);
     }
 
@@ -132,16 +141,12 @@ class InventoryServiceTest {
         // Arrange
         Long businessEntityId = 201L;
 
-        Inventory mockInventory = new Inventory();
-        mockInventory.setId(1L);
-        mockInventory.setProductId(101L);
-        mockInventory.setBusinessEntityId(businessEntityId);
-        mockInventory.setQuantity(50);
+        InventoryResponseDto mockInventory = new InventoryResponseDto(1L, 101L, businessEntityId, 50, 0.0);
 
-        List<Inventory> mockInventories = Collections.singletonList(mockInventory);
+        List<InventoryResponseDto> mockInventories = Collections.singletonList(mockInventory);
 
         when(businessEntityService.isValidBusinessEntity(businessEntityId)).thenReturn(true);
-        when(inventoryRepository.findByBusinessEntityId(businessEntityId)).thenReturn(mockInventories);
+        when(inventoryRepository.findInventoryResponsesByBusinessEntityId(businessEntityId)).thenReturn(mockInventories);
 
         // Act
         List<InventoryResponseDto> result = inventoryService.getInventoryByBusinessEntityId(businessEntityId);
@@ -153,7 +158,7 @@ class InventoryServiceTest {
         assertEquals(101L, result.get(0).productId());
         assertEquals(50, result.get(0).quantity());
 
-        verify(inventoryRepository, times(1)).findByBusinessEntityId(businessEntityId);
+        verify(inventoryRepository, times(1)).findInventoryResponsesByBusinessEntityId(businessEntityId);
         verifyNoMoreInteractions(inventoryRepository);
     }
 
@@ -189,9 +194,8 @@ class InventoryServiceTest {
     @Test
     public void testInventoryContainsProduct_ReturnsTrueWhenProductExists() {
         Long productId = 1L;
-        Inventory inventory = new Inventory();
-        inventory.setProductId(productId);
-        when(inventoryRepository.findByProductId(productId)).thenReturn(List.of(inventory));
+        InventoryResponseDto inventory = new InventoryResponseDto(1L, productId, 201L, 10, 0.0);
+        when(inventoryRepository.findInventoryResponsesByProductId(productId)).thenReturn(List.of(inventory));
 
         boolean exists = inventoryService.inventoryContainsProduct(productId);
         assertTrue(exists, "Should return true when inventory exists for the given productId");
@@ -200,7 +204,7 @@ class InventoryServiceTest {
     @Test
     public void testInventoryContainsProduct_ReturnsFalseWhenNoInventory() {
         Long productId = 2L;
-        when(inventoryRepository.findByProductId(productId)).thenReturn(Collections.emptyList());
+        when(inventoryRepository.findInventoryResponsesByProductId(productId)).thenReturn(Collections.emptyList());
 
         boolean exists = inventoryService.inventoryContainsProduct(productId);
         assertFalse(exists, "Should return false when there is no inventory for the given productId");
@@ -257,9 +261,10 @@ class InventoryServiceTest {
         updatedInventory.setProductId(102L);
         updatedInventory.setBusinessEntityId(202L);
         updatedInventory.setQuantity(60);
+        updatedInventory.setVersion(4);
 
-        when(inventoryRepository.findById(inventoryId)).thenReturn(Optional.of(existingInventory));
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(updatedInventory);
+        when(inventoryRepository.findForUpdateById(inventoryId)).thenReturn(Optional.of(existingInventory));
+        when(inventoryRepository.saveAndFlush(any(Inventory.class))).thenReturn(updatedInventory);
 
         // Act
         Inventory result = inventoryService.updateInventory(inventoryId, updatedDetails);
@@ -271,9 +276,15 @@ class InventoryServiceTest {
         assertEquals(202L, result.getBusinessEntityId());
         assertEquals(60, result.getQuantity());
 
-        verify(inventoryRepository, times(1)).findById(inventoryId);
-        verify(inventoryRepository, times(1)).save(any(Inventory.class));
+        // One shard: read once, under the row lock, inside the write's transaction
+        verify(inventoryRepository, times(1)).findForUpdateById(inventoryId);
+        verify(inventoryRepository, times(1)).saveAndFlush(any(Inventory.class));
         verifyNoMoreInteractions(inventoryRepository);
+        verify(transactionTemplate).execute(any());
+        // The row moved to a new (product, business entity) key: the old key is dropped from the stock index
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                InventoryChangedEvent.Change.removed(101L, 201L, 4),
+                new InventoryChangedEvent.Change(102L, 202L, -1, 60, 0.0, false, 4))));
     }
 
     @Test
@@ -304,6 +315,43 @@ class InventoryServiceTest {
         verifyNoMoreInteractions(inventoryRepository);
     }
 
+    @Test
+    void testUndoCreatedInventory_DeletesEmptiedRow() {
+        Inventory emptied = new Inventory();
+        emptied.setId(7L);
+        emptied.setProductId(101L);
+        emptied.setBusinessEntityId(201L);
+        emptied.setQuantity(0);
+        emptied.setVersion(1);
+        when(inventoryRepository.adjust(101L, 201L, -10, -50.0)).thenReturn(1);
+        when(inventoryRepository.findByProductIdAndBusinessEntityId(101L, 201L)).thenReturn(Optional.of(emptied));
+
+        inventoryService.undoCreatedInventory(101L, 201L, 10, 50.0);
+
+        verify(inventoryRepository).delete(emptied);
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                InventoryChangedEvent.Change.removed(101L, 201L, 1))));
+        verify(cacheGenerationService).bump(CacheGenerationService.INVENTORY_LIST);
+    }
+
+    @Test
+    void testUndoCreatedInventory_KeepsRowOtherStockMovedInto() {
+        Inventory remaining = new Inventory();
+        remaining.setId(7L);
+        remaining.setProductId(101L);
+        remaining.setBusinessEntityId(201L);
+        remaining.setQuantity(4);
+        remaining.setVersion(2);
+        when(inventoryRepository.adjust(101L, 201L, -10, -50.0)).thenReturn(1);
+        when(inventoryRepository.findByProductIdAndBusinessEntityId(101L, 201L)).thenReturn(Optional.of(remaining));
+
+        inventoryService.undoCreatedInventory(101L, 201L, 10, 50.0);
+
+        verify(inventoryRepository, never()).delete(any(Inventory.class));
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 201L, 14, 4, 0.0, false, 2))));
+    }
+
     @Test
     void testSalesUpdateStocks_successfulDeduction() {
         long businessEntityId = 1L;
@@ -319,12 +367,15 @@ class InventoryServiceTest {
         InventoryUpdateRequestDto request = new InventoryUpdateRequestDto(businessEntityId, List.of(item));
 
         when(businessEntityService.isValidBusinessEntity(businessEntityId)).thenReturn(true);
-        when(inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.findForUpdateByProductIdAndBusinessEntityId(productId, businessEntityId)).thenReturn(Optional.of(inventory));
 
         inventoryService.salesUpdateStocks(request);
 
         assertEquals(40, inventory.getQuantity());
-        verify(inventoryRepository).save(inventory);
+        verify(inventoryRepository).saveAndFlush(inventory);
+        verify(cacheGenerationService).bump(CacheGenerationService.INVENTORY_LIST);
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(productId, businessEntityId, 50, 40, 0.0, false, 0))));
     }
 
     @Test
@@ -342,11 +393,37 @@ class InventoryServiceTest {
         InventoryUpdateRequestDto request = new InventoryUpdateRequestDto(businessEntityId, List.of(item));
 
         when(businessEntityService.isValidBusinessEntity(businessEntityId)).thenReturn(true);
-        when(inventoryRepository.findByProductIdAndBusinessEntityId(productId, businessEntityId)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.findForUpdateByProductIdAndBusinessEntityId(productId, businessEntityId)).thenReturn(Optional.of(inventory));
 
         BusinessException ex = assertThrows(BusinessException.class, () -> inventoryService.salesUpdateStocks(request));
         assertEquals("INSUFFICIENT_STOCK", ex.getCode());
-        verify(inventoryRepository, never()).save(any());
+        verify(inventoryRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testSalesUpdateStocks_locksRowsInProductOrder() {
+        long businessEntityId = 1L;
+        Inventory first = new Inventory();
+        first.setProductId(100L);
+        first.setBusinessEntityId(businessEntityId);
+        first.setQuantity(50);
+        Inventory second = new Inventory();
+        second.setProductId(200L);
+        second.setBusinessEntityId(businessEntityId);
+        second.setQuantity(50);
+        InventoryUpdateRequestDto request = new InventoryUpdateRequestDto(businessEntityId, List.of(
+                new InventoryUpdateRequestDto.InventoryItem(200L, 1),
+                new InventoryUpdateRequestDto.InventoryItem(100L, 1)));
+
+        when(businessEntityService.isValidBusinessEntity(businessEntityId)).thenReturn(true);
+        when(inventoryRepository.findForUpdateByProductIdAndBusinessEntityId(100L, businessEntityId)).thenReturn(Optional.of(first));
+        when(inventoryRepository.findForUpdateByProductIdAndBusinessEntityId(200L, businessEntityId)).thenReturn(Optional.of(second));
+
+        inventoryService.salesUpdateStocks(request);
+
+        InOrder order = inOrder(inventoryRepository);
+        order.verify(inventoryRepository).findForUpdateByProductIdAndBusinessEntityId(100L, businessEntityId);
+        order.verify(inventoryRepository).findForUpdateByProductIdAndBusinessEntityId(200L, businessEntityId);
     }
 
     @Test
@@ -359,4 +436,19 @@ class InventoryServiceTest {
         BusinessException ex = assertThrows(BusinessException.class, () -> inventoryService.salesUpdateStocks(request));
         assertEquals("INVALID_BUSINESS_ENTITY", ex.getCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSalesUpdateStocks_coalescingEnabled_goesThroughLanes() {
+        long businessEntityId = 1L;
+        List<InventoryUpdateRequestDto.InventoryItem> items = List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 10));
+
+        when(businessEntityService.isValidBusinessEntity(businessEntityId)).thenReturn(true);
+        when(salesDeductionCoalescer.isEnabled()).thenReturn(true);
+
+        inventoryService.salesUpdateStocks(new InventoryUpdateRequestDto(businessEntityId, items));
+
+        verify(salesDeductionCoalescer).deduct(businessEntityId, items);
+        verifyNoInteractions(inventoryRepository, transactionTemplate);
+        verify(cacheGenerationService).bump(CacheGenerationService.INVENTORY_LIST);
+    }
+}
@@ -13,11 +13,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
@@ -40,6 +43,15 @@ class InventoryTransactionServiceTest {
     @Mock
     private BusinessEntityService mockBusinessEntityService;
 
+    @Mock
+    private CacheGenerationService mockCacheGenerationService;
+
+    @Mock
+    private TransactionStoreService mockTransactionStoreService;
+
+    @Mock
+    private TransactionArchiveService mockTransactionArchiveService;
+
     @InjectMocks
     private InventoryTransactionService inventoryTransactionService;
 
@@ -76,6 +88,30 @@ class InventoryTransactionServiceTest {
         verifyNoMoreInteractions(mockInventoryTransactionRepository);
     }
 
+    @Test
+    void testGetAllInventoryTransactionWithProduct_ArchivedRowsFirstAndNotRepeated() {
+        Product product = new Product();
+        product.setId(1L);
+        Instant archivedUntil = Instant.parse("2025-02-01T00:00:00Z");
+        InventoryTransaction archived = new InventoryTransaction();
+        archived.setInsertedAt(Instant.parse("2025-01-10T00:00:00Z"));
+        InventoryTransaction archivedNotYetDeleted = new InventoryTransaction();
+        archivedNotYetDeleted.setInsertedAt(archived.getInsertedAt());
+        InventoryTransaction live = new InventoryTransaction();
+        live.setInsertedAt(archivedUntil);
+
+        when(mockTransactionArchiveService.archivedUntil()).thenReturn(archivedUntil);
+        when(mockTransactionArchiveService.findAllWithProduct())
+                .thenReturn(List.of(new InventoryTransactionProductResponseDto(archived, product)));
+        when(mockInventoryTransactionRepository.findAllWithProduct()).thenReturn(List.of(
+                new InventoryTransactionProductResponseDto(archivedNotYetDeleted, product),
+                new InventoryTransactionProductResponseDto(live, product)));
+
+        List<InventoryTransactionProductResponseDto> result = inventoryTransactionService.getAllInventoryTransactionWithProduct();
+
+        assertEquals(List.of(archived, live), result.stream().map(InventoryTransactionProductResponseDto::inventoryTransaction).toList());
+    }
+
     @Test
     void testSaveInventoryTransaction_Successful() {
         // Arrange
@@ -133,6 +169,7 @@ class InventoryTransactionServiceTest {
         verify(mockInventoryService, times(1)).updateInventory(1L, updatedSourceInventory);
         verify(mockInventoryService, times(1)).updateInventory(2L, updatedDestinationInventory);
         verify(mockInventoryTransactionRepository, times(1)).save(transaction);
+        verify(mockTransactionStoreService).append(transaction);
         verifyNoMoreInteractions(mockProductService, mockInventoryService, mockInventoryTransactionRepository);
     }
 
@@ -498,4 +535,85 @@ class InventoryTransactionServiceTest {
                         inv.getTotalCostPrice() == 5.0 * 10));
         verify(mockInventoryTransactionRepository, times(1)).save(transaction);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSaveInventoryTransaction_LedgerFailureUndoesBothSides() {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setProductId(1L);
+        transaction.setSource(101L);
+        transaction.setDestination(201L);
+        transaction.setQuantity(10);
+        transaction.setCostPricePerUnit(5.0);
+
+        ProductResponseDto product = new ProductResponseDto(1L, "LEV-M-001", "Levis men jeans", "Jeans", "Men", "Levis", "USA", "each", "LEV", "LEV-B-001", 100.00, true);
+        when(mockProductService.getProductById(1L)).thenReturn(product);
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 101L))
+                .thenReturn(new InventoryResponseDto(1L, 1L, 101L, 20, 100.0));
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 201L))
+                .thenReturn(new InventoryResponseDto(2L, 1L, 201L, 30, 150.0));
+        when(mockInventoryTransactionRepository.save(transaction)).thenThrow(new RuntimeException("ledger down"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> inventoryTransactionService.saveInventoryTransaction(transaction));
+
+        assertEquals("ledger down", e.getMessage());
+        var order = inOrder(mockInventoryService);
+        order.verify(mockInventoryService).adjustInventory(1L, 201L, -10, -50.0);
+        order.verify(mockInventoryService).adjustInventory(1L, 101L, 10, 50.0);
+        verify(mockCacheGenerationService, never()).bump(any());
+        verifyNoInteractions(mockTransactionStoreService);
+    }
+
+    @Test
+    void testSaveInventoryTransaction_LedgerFailureRemovesCreatedDestination() {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setProductId(1L);
+        transaction.setSource(101L);
+        transaction.setDestination(201L);
+        transaction.setQuantity(10);
+        transaction.setCostPricePerUnit(5.0);
+
+        ProductResponseDto product = new ProductResponseDto(1L, "LEV-M-001", "Levis men jeans", "Jeans", "Men", "Levis", "USA", "each", "LEV", "LEV-B-001", 100.00, true);
+        when(mockProductService.getProductById(1L)).thenReturn(product);
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 101L))
+                .thenReturn(new InventoryResponseDto(1L, 1L, 101L, 20, 100.0));
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 201L)).thenReturn(null);
+        when(mockInventoryTransactionRepository.save(transaction)).thenThrow(new RuntimeException("ledger down"));
+
+        assertThrows(RuntimeException.class, () -> inventoryTransactionService.saveInventoryTransaction(transaction));
+
+        // The destination row did not exist before the transfer, so it goes rather than staying at 0
+        var order = inOrder(mockInventoryService);
+        order.verify(mockInventoryService).undoCreatedInventory(1L, 201L, 10, 50.0);
+        order.verify(mockInventoryService).adjustInventory(1L, 101L, 10, 50.0);
+        verify(mockInventoryService, never()).adjustInventory(eq(1L), eq(201L), anyInt(), anyDouble());
+    }
+
+    @Test
+    void testSaveInventoryTransaction_DestinationFailureUndoesSourceOnly() {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setProductId(1L);
+        transaction.setSource(101L);
+        transaction.setDestination(201L);
+        transaction.setQuantity(10);
+        transaction.setCostPricePerUnit(5.0);
+
+        ProductResponseDto product = new ProductResponseDto(1L, "LEV-M-001", "Levis men jeans", "Jeans", "Men", "Levis", "USA", "each", "LEV", "LEV-B-001", 100.00, true);
+        when(mockProductService.getProductById(1L)).thenReturn(product);
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 101L))
+                .thenReturn(new InventoryResponseDto(1L, 1L, 101L, 20, 100.0));
+        when(mockInventoryService.getInventoryByProductIdAndBusinessEntityId(1L, 201L))
+                .thenReturn(new InventoryResponseDto(2L, 1L, 201L, 30, 150.0));
+        when(mockInventoryService.updateInventory(eq(2L), any())).thenThrow(new RuntimeException("shard down"));
+        doThrow(new RuntimeException("still down")).when(mockInventoryService).adjustInventory(1L, 101L, 10, 50.0);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> inventoryTransactionService.saveInventoryTransaction(transaction));
+
+        // The original failure surfaces even when an undo step fails too
+        assertEquals("shard down", e.getMessage());
+        verify(mockInventoryService).adjustInventory(1L, 101L, 10, 50.0);
+        verify(mockInventoryService, never()).adjustInventory(eq(1L), eq(201L), anyInt(), anyDouble());
+        verify(mockInventoryTransactionRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,163 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.ProductResponseDto;
+import com.retailpulse.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProductCatalogServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private final Map<Object, Object> deltas = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductCatalogService productCatalogService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(ProductCatalogService.DELTAS_KEY)).thenAnswer(i -> new HashMap<>(deltas));
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("no lease in tests"));
+        ProductCatalogSnapshot.write(directory.resolve("product-catalog-00000000000000000001.snap"), 1L,
+                List.of(product(1L, "RP1", 10.0), product(2L, "RP2", 20.0)));
+        productCatalogService = new ProductCatalogService(productRepository, redisTemplate, listenerContainer, true,
+                directory, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testServesTheSnapshotWithDeltasOnTop() throws Exception {
+        deltas.put("2", objectMapper.writeValueAsString(new ProductCatalogService.Delta(5L, product(2L, "RP2", 25.0))));
+        deltas.put("3", objectMapper.writeValueAsString(new ProductCatalogService.Delta(6L, product(3L, "RP3", 30.0))));
+
+        productCatalogService.open();
+
+        assertTrue(productCatalogService.isReady());
+        assertEquals(10.0, productCatalogService.find(1L).rrp());
+        assertEquals(25.0, productCatalogService.find(2L).rrp());
+        assertEquals(25.0, productCatalogService.findBySku("RP2").rrp());
+        assertEquals(30.0, productCatalogService.findBySku("RP3").rrp());
+        assertNull(productCatalogService.find(4L));
+    }
+
+    @Test
+    void testNotReadyWithoutDeltas() {
+        when(hashOperations.entries(ProductCatalogService.DELTAS_KEY)).thenThrow(new RedisConnectionFailureException("down"));
+
+        productCatalogService.open();
+
+        assertFalse(productCatalogService.isReady());
+        assertNull(productCatalogService.find(1L));
+    }
+
+    @Test
+    void testPublishAppliesLocallyAndSurvivesAFailedRefresh() {
+        productCatalogService.open();
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        assertDoesNotThrow(() -> productCatalogService.publish(product(1L, "RP1", 11.0)));
+        // Not in the hash yet, but newer than the snapshot: kept across the refresh
+        productCatalogService.refresh();
+
+        assertEquals(11.0, productCatalogService.find(1L).rrp());
+        verify(hashOperations).put(eq(ProductCatalogService.DELTAS_KEY), eq("1"), anyString());
+    }
+
+    @Test
+    void testPublishInsideTransactionWaitsForCommit() {
+        productCatalogService.open();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productCatalogService.publish(product(1L, "RP1", 11.0));
+            productCatalogService.publish(product(2L, "RP2", 21.0));
+
+            // Nothing visible before commit
+            assertEquals(10.0, productCatalogService.find(1L).rrp());
+            verify(hashOperations, never()).put(any(), any(), any());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(0).afterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Only the committed write is published; the second stands for one whose transaction rolled back
+        assertEquals(11.0, productCatalogService.find(1L).rrp());
+        assertEquals(20.0, productCatalogService.find(2L).rrp());
+        verify(hashOperations).put(eq(ProductCatalogService.DELTAS_KEY), eq("1"), anyString());
+        verify(hashOperations, never()).put(eq(ProductCatalogService.DELTAS_KEY), eq("2"), anyString());
+    }
+
+    @Test
+    void testRelayFromAnotherReplicaApplied() throws Exception {
+        productCatalogService.open();
+        String relay = objectMapper.writeValueAsString(new ProductCatalogService.Relay("other",
+                new ProductCatalogService.Delta(7L, product(5L, "RP5", 50.0))));
+
+        productCatalogService.onMessage(new DefaultMessage(ProductCatalogService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                relay.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(50.0, productCatalogService.findBySku("RP5").rrp());
+    }
+
+    @Test
+    void testWriteSnapshotMapsItKeepsTheLastTwoAndPrunesOldDeltas() throws Exception {
+        // Older than the snapshot mapped before the write
+        deltas.put("2", objectMapper.writeValueAsString(new ProductCatalogService.Delta(0L, product(2L, "RP2", 20.0))));
+        productCatalogService.open();
+        when(productRepository.findAllProductResponses()).thenReturn(List.of(product(1L, "RP1", 10.0),
+                product(2L, "RP2", 20.0), product(3L, "RP3", 30.0)));
+
+        productCatalogService.writeSnapshot();
+        Thread.sleep(2);
+        productCatalogService.writeSnapshot();
+
+        assertEquals(30.0, productCatalogService.find(3L).rrp());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        verify(redisTemplate, atLeastOnce()).execute(any(), eq(List.of(ProductCatalogService.DELTAS_KEY)), eq("2"), any());
+    }
+
+    private static ProductResponseDto product(long id, String sku, double rrp) {
+        return new ProductResponseDto(id, sku, "Levis men jeans", "Men", "Jeans", "Levis", "USA", "Piece", "LEV", null, rrp, true);
+    }
+}
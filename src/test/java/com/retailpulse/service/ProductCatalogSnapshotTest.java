@@ -0,0 +1,79 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.response.ProductResponseDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLookupsByIdAndSku() throws IOException {
+        List<ProductResponseDto> products = new ArrayList<>();
+        for (long id = 1_000; id >= 1; id--) {
+            products.add(product(id, "RP" + id, id % 3 == 0 ? null : "Jeans"));
+        }
+        Path file = directory.resolve("catalog.snap");
+        ProductCatalogSnapshot.write(file, 42L, products);
+
+        ProductCatalogSnapshot snapshot = ProductCatalogSnapshot.open(file);
+
+        assertEquals(1_000, snapshot.size());
+        assertEquals(42L, snapshot.writtenAt());
+        assertEquals(product(7L, "RP7", "Jeans"), snapshot.find(7L));
+        assertEquals(product(9L, "RP9", null), snapshot.findBySku("RP9"));
+        assertEquals(product(1_000L, "RP1000", "Jeans"), snapshot.findBySku("RP1000"));
+        assertNull(snapshot.find(1_001L));
+        assertNull(snapshot.findBySku("RP1001"));
+        assertNull(snapshot.findBySku(""));
+        assertEquals(1L, snapshot.all().get(0).id());
+    }
+
+    @Test
+    void testRepeatedStringsStoredOnce() throws IOException {
+        List<ProductResponseDto> products = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            products.add(product(id, "RP" + id, "Jeans"));
+        }
+        Path file = directory.resolve("catalog.snap");
+        ProductCatalogSnapshot.write(file, 0L, products);
+
+        // 10,000 SKUs plus one copy of each shared string; 100 bytes a product would mean the strings were repeated
+        assertTrue(Files.size(file) < 10_000 * 100L, "snapshot is " + Files.size(file) + " bytes");
+    }
+
+    @Test
+    void testNonAsciiSkusAndEmptyCatalogue() throws IOException {
+        Path file = directory.resolve("catalog.snap");
+        ProductCatalogSnapshot.write(file, 0L, List.of(product(1L, "RÉ-1", "Café"), product(2L, "RA-2", "Tea")));
+        ProductCatalogSnapshot snapshot = ProductCatalogSnapshot.open(file);
+        assertEquals("Café", snapshot.findBySku("RÉ-1").subcategory());
+        assertEquals(2L, snapshot.findBySku("RA-2").id());
+
+        Path empty = directory.resolve("empty.snap");
+        ProductCatalogSnapshot.write(empty, 0L, List.of());
+        assertNull(ProductCatalogSnapshot.open(empty).find(1L));
+        assertNull(ProductCatalogSnapshot.open(empty).findBySku("RP1"));
+    }
+
+    @Test
+    void testNotASnapshotRejected() throws IOException {
+        Path file = Files.write(directory.resolve("other.snap"), new byte[128]);
+        assertThrows(IOException.class, () -> ProductCatalogSnapshot.open(file));
+    }
+
+    private static ProductResponseDto product(long id, String sku, String subcategory) {
+        return new ProductResponseDto(id, sku, "Levis men jeans", "Men", subcategory, "Levis", "USA", "Piece", "LEV",
+                null, 99.9, id % 2 == 0);
+    }
+}
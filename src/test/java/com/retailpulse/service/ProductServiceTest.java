@@ -27,6 +27,12 @@ public class ProductServiceTest {
     @Mock
     private InventoryService inventoryService;  // Add this
 
+    @Mock
+    private CacheGenerationService cacheGenerationService;
+
+    @Mock
+    private ProductCatalogService productCatalogService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -37,16 +43,16 @@ public class ProductServiceTest {
 
     @Test
     void testGetAllProducts_Success() {
-        // Mock Product object
-        Product product = new Product();
-        product.setId(1L);
-        // When findById is called with 1L, then return the Product object
-        when(productRepository.findAll()).thenReturn(List.of(product));
+        // Mock projected row
+        ProductResponseDto product = new ProductResponseDto(1L, "RP1", "Levis men jeans", "Men", "Jeans", "Levis",
+                "USA", "Piece", "LEV", "LEV-M-001", 99.9, true);
+        when(productRepository.findAllProductResponses()).thenReturn(List.of(product));
 
         List<ProductResponseDto> result = productService.getAllProducts();
         assertFalse(result.isEmpty());
         assertEquals(1L, result.get(0).id());
-        verify(productRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findAllProductResponses();
+        verify(productRepository, never()).findAll();
     }
 
     @Test
@@ -62,6 +68,18 @@ public class ProductServiceTest {
         assertEquals(1L, result.id());
     }
 
+    @Test
+    void testGetProductById_FromCatalogue() {
+        ProductResponseDto catalogued = new ProductResponseDto(1L, "RP1", "Levis men jeans", "Men", "Jeans", "Levis",
+                "USA", "Piece", "LEV", "LEV-M-001", 99.9, true);
+        when(productCatalogService.find(1L)).thenReturn(catalogued);
+        when(productCatalogService.findBySku("RP1")).thenReturn(catalogued);
+
+        assertSame(catalogued, productService.getProductById(1L));
+        assertSame(catalogued, productService.getProductBySKU("RP1"));
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     void testGetProductBySKU_Success() {
         // Mock Product object
@@ -88,6 +106,7 @@ public class ProductServiceTest {
         ProductResponseDto result = productService.saveProduct(product);
         assertEquals("RP12345", result.sku());
         assertNotNull(result.id()); // Ensure the ID is set
+        verify(productCatalogService).publish(result);
     }
 
     @Test
@@ -0,0 +1,272 @@
+package com.retailpulse.service;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.ProductResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares how many concurrent product lookups the blocking and reactive read paths sustain against a real Redis.
+ * The blocking path runs on a fixed pool the size of Tomcat's default (200 threads), the way an MVC handler
+ * would; the reactive path keeps the same number of lookups in flight with no request threads at all. Not a unit
+ * test; start a Redis and run
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.service.ReactiveReadBenchmark
+ * -Dexec.classpathScope=test -Dexec.args="localhost 6379"}.
+ *
+ * Reports throughput, p50/p99 latency as seen by the caller (including time queued for a thread) and how many
+ * threads beyond the baseline the run needed at its peak.
+ *
+ * With {@code -Dexec.args="misses"} it instead compares how cache misses are loaded, without Redis: each miss is a
+ * {@value #QUERY_MILLIS} ms query on one of {@value #POOL_SIZE} connections, as with Hikari's default pool. Misses
+ * load on the shared bounded elastic scheduler, on a dedicated scheduler the way ReactiveStockReadService does
+ * (misses it cannot queue are rejected and counted), or on 200 blocking request threads.
+ */
+public class ReactiveReadBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int PRODUCTS = 1_000;
+    private static final int REQUESTS = 100_000;
+
+    // Miss benchmark: the database as the loaders see it
+    private static final int POOL_SIZE = 10;
+    private static final int QUERY_MILLIS = 2;
+    private static final int MISSES = 10_000;
+    private static final int MISS_THREADS = 8;
+    private static final int MISS_QUEUE = 100;
+
+    public static void main(String[] args) throws Exception {
+        // Outside Spring, logback falls back to DEBUG and Lettuce's logging would dominate the numbers
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        if (args.length > 0 && args[0].equals("misses")) {
+            runMisses();
+            return;
+        }
+
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6379;
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate blocking = new StringRedisTemplate(connectionFactory);
+        ReactiveStringRedisTemplate reactive = new ReactiveStringRedisTemplate(connectionFactory);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            blocking.opsForValue().set(key(i), objectMapper.writeValueAsString(new ProductResponseDto((long) i,
+                    "RP" + i, "Product " + i, "Men", "Jeans", "Levis", "USA", "Piece", "LEV", "LEV-" + i, 99.9, true)));
+        }
+
+        try {
+            // Warm-up: JIT, Lettuce's event loop and the connection
+            runReactive(reactive, objectMapper, 200, REQUESTS, false);
+            runBlocking(blocking, objectMapper, 200, REQUESTS, false);
+            // Reactive first, so its thread count is not inflated by request threads still winding down
+            for (int concurrency : new int[]{200, 1_000, 5_000}) {
+                runReactive(reactive, objectMapper, concurrency, REQUESTS, true);
+            }
+            for (int concurrency : new int[]{200, 1_000, 5_000}) {
+                runBlocking(blocking, objectMapper, concurrency, REQUESTS, true);
+            }
+        } finally {
+            for (int i = 0; i < PRODUCTS; i++) {
+                blocking.delete(key(i));
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    // Keeps `concurrency` requests outstanding, as that many clients would be waiting on Tomcat; each client sends
+    // its next request as soon as the previous answer arrives
+    private static void runBlocking(StringRedisTemplate redis, ObjectMapper objectMapper, int concurrency,
+                                    int requests, boolean print) throws InterruptedException {
+        long[] latencies = new long[requests];
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        ExecutorService requestThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        long start = System.nanoTime();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[concurrency];
+        int perLane = requests / concurrency;
+        for (int lane = 0; lane < concurrency; lane++) {
+            int offset = lane * perLane;
+            lanes[lane] = chain(requestThreads, offset, offset + perLane, start, latencies,
+                    () -> objectMapper.readValue(redis.opsForValue().get(randomKey()), ProductResponseDto.class));
+        }
+        CompletableFuture.allOf(lanes).join();
+        int peak = threads.getPeakThreadCount();
+        requestThreads.shutdown();
+        requestThreads.awaitTermination(10, TimeUnit.SECONDS);
+        if (print) {
+            report("blocking, 200 threads", concurrency, requests, start, latencies, peak - baseline);
+        }
+    }
+
+    private static void runReactive(ReactiveStringRedisTemplate redis, ObjectMapper objectMapper, int concurrency,
+                                    int requests, boolean print) {
+        long[] latencies = new long[requests];
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long begin = System.nanoTime();
+                    return redis.opsForValue().get(randomKey())
+                            .map(json -> {
+                                try {
+                                    return objectMapper.readValue(json, ProductResponseDto.class);
+                                } catch (Exception e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            })
+                            .doOnNext(product -> latencies[i] = System.nanoTime() - begin);
+                }, concurrency)
+                .then(Mono.empty())
+                .block();
+        if (print) {
+            report("reactive", concurrency, requests, start, latencies, threads.getPeakThreadCount() - baseline);
+        }
+    }
+
+    private static void runMisses() throws InterruptedException {
+        Semaphore connections = new Semaphore(POOL_SIZE, true);
+        ThrowingSupplier query = () -> {
+            connections.acquire();
+            try {
+                Thread.sleep(QUERY_MILLIS);
+                return Boolean.TRUE;
+            } finally {
+                connections.release();
+            }
+        };
+        Scheduler dedicated = Schedulers.newBoundedElastic(MISS_THREADS, MISS_QUEUE, "benchmark-miss");
+        try {
+            // Warm-up
+            runScheduledMisses("warm-up", Schedulers.boundedElastic(), query, 200, MISSES / 5, false);
+            for (int concurrency : new int[]{200, 1_000, 5_000}) {
+                runScheduledMisses("shared bounded elastic", Schedulers.boundedElastic(), query, concurrency, MISSES, true);
+            }
+            for (int concurrency : new int[]{200, 1_000, 5_000}) {
+                runScheduledMisses("dedicated " + MISS_THREADS + "x" + MISS_QUEUE, dedicated, query, concurrency, MISSES, true);
+            }
+            for (int concurrency : new int[]{200, 1_000, 5_000}) {
+                long[] latencies = new long[MISSES];
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                int baseline = threads.getThreadCount();
+                threads.resetPeakThreadCount();
+                ExecutorService requestThreads = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+                long start = System.nanoTime();
+                CompletableFuture<?>[] lanes = new CompletableFuture<?>[concurrency];
+                int perLane = MISSES / concurrency;
+                for (int lane = 0; lane < concurrency; lane++) {
+                    lanes[lane] = chain(requestThreads, lane * perLane, (lane + 1) * perLane, start, latencies, query);
+                }
+                CompletableFuture.allOf(lanes).join();
+                int peak = threads.getPeakThreadCount();
+                requestThreads.shutdown();
+                requestThreads.awaitTermination(10, TimeUnit.SECONDS);
+                report("blocking, 200 threads", concurrency, MISSES, start, latencies, peak - baseline);
+            }
+        } finally {
+            dedicated.dispose();
+        }
+    }
+
+    private static void runScheduledMisses(String name, Scheduler scheduler, ThrowingSupplier query, int concurrency,
+                                           int requests, boolean print) {
+        long[] latencies = new long[requests];
+        AtomicInteger rejected = new AtomicInteger();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long begin = System.nanoTime();
+                    return Mono.fromCallable(query::get)
+                            .subscribeOn(scheduler)
+                            .doOnNext(loaded -> latencies[i] = System.nanoTime() - begin)
+                            .onErrorResume(RejectedExecutionException.class, e -> {
+                                rejected.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, concurrency)
+                .then(Mono.empty())
+                .block();
+        if (print) {
+            int served = requests - rejected.get();
+            report(name, concurrency, served, start, latencies, threads.getPeakThreadCount() - baseline,
+                    "  rejected=" + rejected.get());
+        }
+    }
+
+    // Latency runs from when the client sent the request (the previous answer on this lane), so it includes the
+    // time the request sat in the executor queue waiting for one of the 200 threads
+    private static CompletableFuture<Void> chain(ExecutorService executor, int from, int to, long start,
+                                                 long[] latencies, ThrowingSupplier call) {
+        long[] sentAt = {start};
+        CompletableFuture<Void> lane = CompletableFuture.completedFuture(null);
+        for (int i = from; i < to; i++) {
+            int index = i;
+            lane = lane.thenRunAsync(() -> {
+                try {
+                    call.get();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                long now = System.nanoTime();
+                latencies[index] = now - sentAt[0];
+                sentAt[0] = now;
+            }, executor);
+        }
+        return lane;
+    }
+
+    private static void report(String name, int concurrency, int requests, long start, long[] latencies, int peakThreads) {
+        report(name, concurrency, requests, start, latencies, peakThreads, "");
+    }
+
+    private static void report(String name, int concurrency, int requests, long start, long[] latencies, int peakThreads,
+                               String extra) {
+        long elapsed = System.nanoTime() - start;
+        long[] measured = Arrays.stream(latencies).filter(l -> l > 0).sorted().toArray();
+        System.out.printf("%-22s in-flight=%5d  %,9.0f req/s  p50=%8.1f us  p99=%9.1f us  extra threads=%d%s%n",
+                name, concurrency, requests / (elapsed / 1e9),
+                measured[measured.length / 2] / 1e3, measured[(int) (measured.length * 0.99)] / 1e3, peakThreads, extra);
+    }
+
+    private static String randomKey() {
+        return key(ThreadLocalRandom.current().nextInt(PRODUCTS));
+    }
+
+    private static String key(int productId) {
+        return "benchmark:product::" + productId;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+}
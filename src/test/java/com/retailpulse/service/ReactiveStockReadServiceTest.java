@@ -0,0 +1,135 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.response.InventoryResponseDto;
+import com.retailpulse.dto.response.ProductResponseDto;
+import com.retailpulse.service.exception.BusinessException;
+import com.retailpulse.service.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReactiveStockReadServiceTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ProductService productService;
+
+    private ReactiveStockReadService reactiveStockReadService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        reactiveStockReadService = new ReactiveStockReadService(redisTemplate, inventoryService, productService, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reactiveStockReadService.shutdown();
+    }
+
+    @Test
+    void testGetInventoryById_CacheHit() {
+        when(valueOperations.get("inventory::1")).thenReturn(Mono.just(
+                "{\"id\":1,\"productId\":101,\"businessEntityId\":201,\"quantity\":50,\"totalCostPrice\":10.0}"));
+
+        InventoryResponseDto result = reactiveStockReadService.getInventoryById(1L).block();
+
+        assertEquals(new InventoryResponseDto(1L, 101L, 201L, 50, 10.0), result);
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void testGetInventoryById_MissLoadsThroughInventoryService() {
+        InventoryResponseDto inventory = new InventoryResponseDto(1L, 101L, 201L, 50, 10.0);
+        when(valueOperations.get("inventory::1")).thenReturn(Mono.empty());
+        when(inventoryService.getInventoryById(1L)).thenReturn(inventory);
+
+        assertEquals(inventory, reactiveStockReadService.getInventoryById(1L).block());
+    }
+
+    @Test
+    void testGetInventoryById_NotFound() {
+        when(valueOperations.get("inventory::1")).thenReturn(Mono.empty());
+        when(inventoryService.getInventoryById(1L))
+                .thenThrow(new BusinessException("INVENTORY_NOT_FOUND", "Inventory not found with id: 1"));
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> reactiveStockReadService.getInventoryById(1L).block());
+        assertEquals("INVENTORY_NOT_FOUND", e.getErrorCode());
+    }
+
+    @Test
+    void testGetInventoryById_RedisDownLoadsThroughInventoryService() {
+        InventoryResponseDto inventory = new InventoryResponseDto(1L, 101L, 201L, 50, 10.0);
+        when(valueOperations.get("inventory::1")).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(inventoryService.getInventoryById(1L)).thenReturn(inventory);
+
+        assertEquals(inventory, reactiveStockReadService.getInventoryById(1L).block());
+    }
+
+    @Test
+    void testGetInventoryById_MissBeyondThreadsAndQueueIsRejected() throws InterruptedException {
+        InventoryResponseDto inventory = new InventoryResponseDto(1L, 101L, 201L, 50, 10.0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(valueOperations.get("inventory::1")).thenReturn(Mono.empty());
+        when(inventoryService.getInventoryById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return inventory;
+        });
+
+        // One miss holds the only thread, a second waits in its queue
+        reactiveStockReadService.getInventoryById(1L).subscribe();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        reactiveStockReadService.getInventoryById(1L).subscribe();
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                () -> reactiveStockReadService.getInventoryById(1L).block());
+        assertEquals("READ_MISS_OVERLOADED", e.getErrorCode());
+        release.countDown();
+    }
+
+    @Test
+    void testGetInventoryByBusinessEntityId_CacheHit() {
+        when(valueOperations.get("inventoryList::byBE:201")).thenReturn(Mono.just(
+                "[{\"id\":1,\"productId\":101,\"businessEntityId\":201,\"quantity\":50,\"totalCostPrice\":10.0}]"));
+
+        List<InventoryResponseDto> result = reactiveStockReadService.getInventoryByBusinessEntityId(201L).block();
+
+        assertEquals(List.of(new InventoryResponseDto(1L, 101L, 201L, 50, 10.0)), result);
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void testGetProductBySku_UnreadableEntryLoadsThroughProductService() {
+        ProductResponseDto product = new ProductResponseDto(1L, "RP1", "Jeans", "Men", "Jeans", "Levis", "USA",
+                "Piece", "LEV", "LEV-1", 99.9, true);
+        when(valueOperations.get("product::bySKU:RP1")).thenReturn(Mono.just("{\"id\":"));
+        when(productService.getProductBySKU("RP1")).thenReturn(product);
+
+        assertEquals(product, reactiveStockReadService.getProductBySku("RP1").block());
+    }
+}
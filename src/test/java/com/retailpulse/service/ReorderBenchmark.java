@@ -0,0 +1,61 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times the planning half of a reorder run at catalogue scale: 50,000 products with levels at a warehouse and
+ * 300 stores, about a third of the stores at or below their reorder point. The sink only counts, so this is the
+ * compute cost on top of loading the levels and writing the proposals. Not a unit test; run
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.service.ReorderBenchmark
+ * -Dexec.classpathScope=test} with MAVEN_OPTS="-Xmx6g".
+ */
+public class ReorderBenchmark {
+
+    private static final int PRODUCTS = 50_000;
+    private static final int STORES = 300;
+    private static final long WAREHOUSE = 1L;
+    private static final long SUPPLIER = 1_000L;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] stores = new long[STORES];
+        for (int i = 0; i < STORES; i++) {
+            stores[i] = i + 2;
+        }
+
+        long start = System.nanoTime();
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(PRODUCTS * (STORES + 1));
+        LongStockMap stock = new LongStockMap(PRODUCTS * (STORES + 1));
+        LongStockMap unitsOut28 = new LongStockMap(PRODUCTS * STORES);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            levels.add(productId, WAREHOUSE, 500, ReorderPlanner.NO_MAX_LEVEL);
+            stock.put(productId, WAREHOUSE, random.nextInt(3_000), productId * 4.0);
+            for (long store : stores) {
+                levels.add(productId, store, 10, random.nextBoolean() ? 40 : ReorderPlanner.NO_MAX_LEVEL);
+                stock.put(productId, store, random.nextInt(30), 0.0);
+                unitsOut28.put(productId, store, random.nextInt(120), 0.0);
+            }
+        }
+        System.out.printf("%,d levels built in %d ms%n", PRODUCTS * (STORES + 1), (System.nanoTime() - start) / 1_000_000);
+
+        for (int parallelism : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            ReorderPlanner planner = new ReorderPlanner(pool, 256, 1_000, 14);
+            for (int round = 0; round < ROUNDS; round++) {
+                LongAdder proposals = new LongAdder();
+                start = System.nanoTime();
+                ReorderPlanner.Totals totals = planner.plan(levels, stock, unitsOut28, stores, WAREHOUSE, SUPPLIER,
+                        batch -> proposals.add(batch.size()));
+                System.out.printf("  %d thread(s), round %d: %,d proposals (%,d transfers, %,d supplier orders) in %d ms%n",
+                        parallelism, round, proposals.sum(), totals.transfers(), totals.supplierOrders(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReorderPlannerTest {
+
+    private static final long WAREHOUSE = 1L;
+    private static final long SUPPLIER = 900L;
+    private static final long[] STORES = {11L, 12L, 13L};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ReorderPlanner planner = new ReorderPlanner(pool, 2, 3, 14);
+    private final LongStockMap stock = new LongStockMap(16);
+    private final LongStockMap unitsOut28 = new LongStockMap(16);
+    private final List<ReorderPlanner.Proposal> proposals = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testShortWarehouseServesLowestCoverFirstAndOrdersTheRest() {
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(8);
+        levels.add(101L, WAREHOUSE, 0, ReorderPlanner.NO_MAX_LEVEL);
+        levels.add(101L, 11L, 5, 20);
+        levels.add(101L, 12L, 5, 20);
+        stock.put(101L, WAREHOUSE, 10, 50.0);
+        stock.put(101L, 11L, 4, 0.0);
+        stock.put(101L, 12L, 2, 0.0);
+        // Same rate, so store 12 with less on hand runs out first
+        unitsOut28.put(101L, 11L, 28, 0.0);
+        unitsOut28.put(101L, 12L, 28, 0.0);
+
+        ReorderPlanner.Totals totals = plan(levels);
+
+        assertEquals(List.of(
+                new ReorderPlanner.Proposal(101L, 10, 5.0, WAREHOUSE, 12L),
+                new ReorderPlanner.Proposal(101L, 24 + 1, 5.0, SUPPLIER, WAREHOUSE)), proposals);
+        assertEquals(new ReorderPlanner.Totals(1, 1, 10, 1, 25), totals);
+    }
+
+    @Test
+    void testStoresAboveReorderPointOrNotEligibleAreLeftAlone() {
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(8);
+        levels.add(101L, 11L, 5, 20);
+        levels.add(101L, 77L, 5, 20);
+        stock.put(101L, WAREHOUSE, 100, 500.0);
+        stock.put(101L, 11L, 6, 0.0);
+
+        plan(levels);
+
+        assertTrue(proposals.isEmpty());
+    }
+
+    @Test
+    void testWithoutMaxLevelFillsCoverDaysOfDemand() {
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(8);
+        levels.add(101L, 13L, 5, ReorderPlanner.NO_MAX_LEVEL);
+        stock.put(101L, WAREHOUSE, 100, 200.0);
+        unitsOut28.put(101L, 13L, 56, 0.0);
+
+        plan(levels);
+
+        // Not stocked counts as zero; target is 5 + 2/day * 14 days
+        assertEquals(List.of(new ReorderPlanner.Proposal(101L, 33, 2.0, WAREHOUSE, 13L)), proposals);
+    }
+
+    @Test
+    void testWarehouseAtItsReorderPointOrdersUpToItsMax() {
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(8);
+        levels.add(101L, WAREHOUSE, 50, 200);
+        stock.put(101L, WAREHOUSE, 40, 400.0);
+
+        plan(levels);
+
+        assertEquals(List.of(new ReorderPlanner.Proposal(101L, 160, 10.0, SUPPLIER, WAREHOUSE)), proposals);
+    }
+
+    @Test
+    void testProductsAreSplitAndStreamedInBatches() {
+        ReorderPlanner.Levels levels = new ReorderPlanner.Levels(64);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        for (long productId = 1; productId <= 20; productId++) {
+            levels.add(productId, 11L, 5, 10);
+            stock.put(productId, WAREHOUSE, 100, 100.0);
+        }
+
+        ReorderPlanner.Totals totals = planner.plan(levels, stock, unitsOut28, STORES, WAREHOUSE, SUPPLIER, batch -> {
+            batchSizes.add(batch.size());
+            proposals.addAll(batch);
+        });
+
+        assertEquals(20, proposals.size());
+        assertEquals(20, totals.transfers());
+        assertEquals(200, totals.transferUnits());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 3), batchSizes.toString());
+        assertEquals(20, proposals.stream().mapToLong(ReorderPlanner.Proposal::productId).distinct().count());
+    }
+
+    private ReorderPlanner.Totals plan(ReorderPlanner.Levels levels) {
+        return planner.plan(levels, stock, unitsOut28, STORES, WAREHOUSE, SUPPLIER, proposals::addAll);
+    }
+}
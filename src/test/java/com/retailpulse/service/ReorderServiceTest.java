@@ -0,0 +1,82 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.response.BusinessEntityResponseDto;
+import com.retailpulse.repository.ReorderProposalRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReorderServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ReorderProposalRepository reorderProposalRepository;
+
+    @Mock
+    private StockIndexService stockIndexService;
+
+    @Mock
+    private BusinessEntityService businessEntityService;
+
+    private ReorderService reorderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(businessEntityService.allBusinessEntityResponseDetails()).thenReturn(List.of(
+                new BusinessEntityResponseDto(1L, "Central", "SG", "CentralInventory", false, true),
+                new BusinessEntityResponseDto(11L, "Waterway Point", "Punggol", "Shop", false, true),
+                new BusinessEntityResponseDto(900L, "Supplier", "SG", "Supplier", true, true)));
+        reorderService = new ReorderService(jdbcTemplate, transactionTemplate, reorderProposalRepository,
+                stockIndexService, businessEntityService, new ShardRouter(false, List.of()), 2, 256, 1000, 14,
+                Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reorderService.shutdown();
+    }
+
+    @Test
+    void testSupplierMustBeExternal() {
+        when(stockIndexService.currentIndex()).thenReturn(new LongStockMap(16));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> reorderService.run(1L, 11L));
+
+        assertEquals("INVALID_SUPPLIER", e.getErrorCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testWarehouseMustBeInternal() {
+        BusinessException e = assertThrows(BusinessException.class, () -> reorderService.run(900L, 900L));
+
+        assertEquals("INVALID_BUSINESS_ENTITY", e.getErrorCode());
+    }
+
+    @Test
+    void testRefusedUntilStockIndexLoaded() {
+        BusinessException e = assertThrows(BusinessException.class, () -> reorderService.run(1L, 900L));
+
+        assertEquals("STOCK_INDEX_NOT_LOADED", e.getErrorCode());
+        verifyNoInteractions(jdbcTemplate, reorderProposalRepository);
+    }
+}
@@ -0,0 +1,131 @@
+package com.retailpulse.service;
+
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the coalesced sales deduction path with one locking transaction per sale (SELECT ... FOR UPDATE, then
+ * the UPDATE) against a real MySQL, for a few mixes of concurrency and hot rows. Each sale takes one unit of one
+ * row. Not a unit test; it writes to the {@code inventory} table, so point it at a scratch database and run
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.retailpulse.service.SalesDeductionBenchmark
+ * -Dexec.classpathScope=test -Dexec.args="jdbc:mysql://localhost:3306/scratch user password"}.
+ *
+ * Reports throughput and p50/p99 latency per sale. Both paths share one pool of the application's default size,
+ * as they would in the service.
+ */
+public class SalesDeductionBenchmark {
+
+    private static final long BUSINESS_ENTITY_ID = 900_000_001L;
+    private static final int POOL_SIZE = 10;
+    private static final int SALES = 20_000;
+    private static final int START_QUANTITY = 1_000_000_000;
+
+    private static final String LOCK_SQL =
+            "SELECT quantity FROM inventory WHERE product_id = ? AND business_entity_id = ? FOR UPDATE";
+    private static final String DEDUCT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, version = version + 1 WHERE product_id = ? AND business_entity_id = ?";
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:mysql://localhost:3306/scratch";
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(args.length > 1 ? args[1] : "root");
+        dataSource.setPassword(args.length > 2 ? args[2] : "");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS inventory (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "product_id BIGINT NOT NULL, business_entity_id BIGINT NOT NULL, quantity INT NOT NULL, "
+                + "total_cost_price DOUBLE NOT NULL, version BIGINT NOT NULL, "
+                + "UNIQUE KEY uk_benchmark (product_id, business_entity_id))");
+        try {
+            // Warm-up: JIT, the pool and the buffer pool
+            run("warm-up", jdbcTemplate, transactionTemplate, null, 64, 16, false);
+            for (int hotRows : new int[]{1, 16, 1_024}) {
+                for (int clients : new int[]{16, 64, 256}) {
+                    run("per-sale lock", jdbcTemplate, transactionTemplate, null, clients, hotRows, true);
+                    for (Duration window : new Duration[]{Duration.ZERO, Duration.ofMillis(2)}) {
+                        SalesDeductionCoalescer coalescer = new SalesDeductionCoalescer(jdbcTemplate, transactionTemplate,
+                                event -> { }, new ShardRouter(false, List.of()), true, window, 4, 500, Duration.ofSeconds(5));
+                        try {
+                            run("coalesced " + window.toMillis() + "ms", jdbcTemplate, transactionTemplate, coalescer,
+                                    clients, hotRows, true);
+                        } finally {
+                            coalescer.shutdown();
+                        }
+                    }
+                }
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM inventory WHERE business_entity_id = ?", BUSINESS_ENTITY_ID);
+            dataSource.close();
+        }
+    }
+
+    // `clients` callers each send their next sale as soon as the previous one is answered, spread over `hotRows`
+    private static void run(String name, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            SalesDeductionCoalescer coalescer, int clients, int hotRows, boolean report) throws Exception {
+        jdbcTemplate.update("DELETE FROM inventory WHERE business_entity_id = ?", BUSINESS_ENTITY_ID);
+        for (long productId = 1; productId <= hotRows; productId++) {
+            jdbcTemplate.update("INSERT INTO inventory (product_id, business_entity_id, quantity, total_cost_price, version) "
+                    + "VALUES (?, ?, ?, 0, 0)", productId, BUSINESS_ENTITY_ID, START_QUANTITY);
+        }
+
+        long[] latencies = new long[SALES];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        Future<?>[] callers = new Future<?>[clients];
+        for (int c = 0; c < clients; c++) {
+            callers[c] = pool.submit(() -> {
+                int sale;
+                while ((sale = next.getAndIncrement()) < SALES) {
+                    long productId = 1 + ThreadLocalRandom.current().nextInt(hotRows);
+                    long begin = System.nanoTime();
+                    if (coalescer != null) {
+                        coalescer.deduct(BUSINESS_ENTITY_ID, List.of(new InventoryUpdateRequestDto.InventoryItem(productId, 1)));
+                    } else {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            jdbcTemplate.queryForObject(LOCK_SQL, Integer.class, productId, BUSINESS_ENTITY_ID);
+                            jdbcTemplate.update(DEDUCT_SQL, 1, productId, BUSINESS_ENTITY_ID);
+                        });
+                    }
+                    latencies[sale] = System.nanoTime() - begin;
+                }
+            });
+        }
+        for (Future<?> caller : callers) {
+            caller.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Long remaining = jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM inventory WHERE business_entity_id = ?",
+                Long.class, BUSINESS_ENTITY_ID);
+        long sold = (long) START_QUANTITY * hotRows - (remaining == null ? 0 : remaining);
+        // Every sale must have landed, or the numbers below mean nothing
+        if (sold != SALES) {
+            throw new IllegalStateException(name + ": expected " + SALES + " units sold, the table says " + sold);
+        }
+        if (!report) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-16s clients=%-4d hotRows=%-5d %,9.0f sales/s  p50=%6.2f ms  p99=%7.2f ms%n", name, clients,
+                hotRows, SALES / (elapsed / 1e9), latencies[SALES / 2] / 1e6, latencies[SALES * 99 / 100] / 1e6);
+    }
+}
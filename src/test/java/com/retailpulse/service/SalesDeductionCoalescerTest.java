@@ -0,0 +1,251 @@
+package com.retailpulse.service;
+
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.retailpulse.service.exception.BusinessException;
+import com.retailpulse.service.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class SalesDeductionCoalescerTest {
+
+    private static final long BUSINESS_ENTITY_ID = 1L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Stands in for the inventory table: productId -> quantity
+    private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+    private final AtomicInteger updates = new AtomicInteger();
+    // productId of every UPDATE, in the order they ran
+    private final List<Long> updateOrder = new CopyOnWriteArrayList<>();
+    // Runs before each UPDATE, so a test can hold a drain back
+    private volatile Runnable beforeUpdate = () -> { };
+
+    private SalesDeductionCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class), anyLong(), anyLong())).thenAnswer(i -> {
+            Integer quantity = stock.get(i.<Long>getArgument(2));
+            if (quantity == null) {
+                return List.of();
+            }
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt("quantity")).thenReturn(quantity);
+            return List.of(i.<RowMapper<?>>getArgument(1).mapRow(rs, 0));
+        });
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(), any(), any(), any())).thenAnswer(i -> {
+            beforeUpdate.run();
+            updates.incrementAndGet();
+            int quantity = i.getArgument(1);
+            long productId = i.getArgument(2);
+            updateOrder.add(productId);
+            int guard = i.getArgument(4);
+            if (stock.get(productId) < guard) {
+                return 0;
+            }
+            stock.merge(productId, -quantity, Integer::sum);
+            return 1;
+        });
+        coalescer = new SalesDeductionCoalescer(jdbcTemplate, transactionTemplate, eventPublisher,
+                new ShardRouter(false, List.of()), true, Duration.ofMillis(20), 2, 500, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void testConcurrentDeductions_CoalescedWithOwnResults() throws Exception {
+        stock.put(100L, 30);
+        int callers = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    coalescer.deduct(BUSINESS_ENTITY_ID, List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 1)));
+                    return "OK";
+                } catch (BusinessException e) {
+                    return e.getCode();
+                }
+            }));
+        }
+        start.countDown();
+        int ok = 0;
+        int insufficient = 0;
+        for (Future<String> result : results) {
+            String outcome = result.get();
+            if ("OK".equals(outcome)) {
+                ok++;
+            } else if ("INSUFFICIENT_STOCK".equals(outcome)) {
+                insufficient++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(30, ok);
+        assertEquals(20, insufficient);
+        assertEquals(0, stock.get(100L));
+        assertTrue(updates.get() < callers, "expected coalesced updates, got " + updates.get());
+        assertEquals(0, coalescer.laneCount());
+    }
+
+    @Test
+    void testDeduction_PublishesChange() {
+        stock.put(100L, 10);
+
+        coalescer.deduct(BUSINESS_ENTITY_ID, List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 4)));
+
+        assertEquals(6, stock.get(100L));
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(100L, BUSINESS_ENTITY_ID, 10, 6, 0.0, false, 1))));
+    }
+
+    @Test
+    void testNotStocked_ThrowsNotFound() {
+        BusinessException ex = assertThrows(BusinessException.class, () -> coalescer.deduct(BUSINESS_ENTITY_ID,
+                List.of(new InventoryUpdateRequestDto.InventoryItem(404L, 1))));
+
+        assertEquals("INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND", ex.getCode());
+        verify(jdbcTemplate, never()).update(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testPartlyInsufficientSale_CreditsBackAppliedProducts() {
+        stock.put(100L, 10);
+        stock.put(200L, 1);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> coalescer.deduct(BUSINESS_ENTITY_ID, List.of(
+                new InventoryUpdateRequestDto.InventoryItem(100L, 4),
+                new InventoryUpdateRequestDto.InventoryItem(200L, 2))));
+
+        assertEquals("INSUFFICIENT_STOCK", ex.getCode());
+        assertEquals("Insufficient stock for products: 200", ex.getMessage());
+        // Credited back through the lane before the caller has its answer
+        verify(eventPublisher).publishEvent(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(100L, BUSINESS_ENTITY_ID, 6, 10, 0.0, false, 1))));
+        assertEquals(10, stock.get(100L));
+        assertEquals(1, stock.get(200L));
+    }
+
+    @Test
+    void testRepeatedProduct_CheckedAgainstItsTotal() {
+        stock.put(100L, 5);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> coalescer.deduct(BUSINESS_ENTITY_ID, List.of(
+                new InventoryUpdateRequestDto.InventoryItem(100L, 3),
+                new InventoryUpdateRequestDto.InventoryItem(100L, 3))));
+
+        assertEquals("INSUFFICIENT_STOCK", ex.getCode());
+        assertEquals(5, stock.get(100L));
+    }
+
+    @Test
+    void testBusyLane_YieldsAfterMaxBatch() throws Exception {
+        coalescer.shutdown();
+        coalescer = new SalesDeductionCoalescer(jdbcTemplate, transactionTemplate, eventPublisher,
+                new ShardRouter(false, List.of()), true, Duration.ofMillis(20), 1, 2, Duration.ofSeconds(5));
+        stock.put(100L, 100);
+        stock.put(200L, 100);
+        // The busy lane's first batch finishes only once the other lane is queued and its window has passed, however
+        // slowly this thread submits
+        CountDownLatch otherLaneQueued = new CountDownLatch(1);
+        AtomicInteger held = new AtomicInteger();
+        beforeUpdate = () -> {
+            if (held.getAndIncrement() == 0) {
+                try {
+                    otherLaneQueued.await();
+                    Thread.sleep(40);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        List<CompletableFuture<SalesDeductionCoalescer.Outcome>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(coalescer.submit(100L, BUSINESS_ENTITY_ID, 1));
+        }
+        results.add(coalescer.submit(200L, BUSINESS_ENTITY_ID, 1));
+        otherLaneQueued.countDown();
+
+        for (CompletableFuture<SalesDeductionCoalescer.Outcome> result : results) {
+            assertEquals(SalesDeductionCoalescer.Outcome.APPLIED, result.get());
+        }
+
+        // Five batches for the busy lane; the other lane gets the single thread after the first of them
+        assertEquals(List.of(100L, 200L, 100L, 100L, 100L, 100L), updateOrder);
+        assertEquals(90, stock.get(100L));
+    }
+
+    @Test
+    void testSlowLane_Returns503AndCreditsBackLateDeduction() {
+        coalescer.shutdown();
+        coalescer = new SalesDeductionCoalescer(jdbcTemplate, transactionTemplate, eventPublisher,
+                new ShardRouter(false, List.of()), true, Duration.ofMillis(1), 2, 500, Duration.ofMillis(50));
+        doAnswer(i -> {
+            Thread.sleep(150);
+            return i.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        }).when(transactionTemplate).execute(any());
+        stock.put(100L, 10);
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class, () -> coalescer.deduct(
+                BUSINESS_ENTITY_ID, List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 4))));
+
+        assertEquals("SALES_DEDUCTION_TIMEOUT", ex.getCode());
+        // The lane had already picked the deduction up: it applies, then is credited back
+        verify(eventPublisher, timeout(2000)).publishEvent(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(100L, BUSINESS_ENTITY_ID, 6, 10, 0.0, false, 1))));
+        assertEquals(10, stock.get(100L));
+    }
+
+    @Test
+    void testDatabaseFailure_FailsEveryCallerInTheBatch() {
+        doThrow(new QueryTimeoutException("lock wait timeout")).when(transactionTemplate).execute(any());
+
+        assertThrows(QueryTimeoutException.class, () -> coalescer.deduct(BUSINESS_ENTITY_ID,
+                List.of(new InventoryUpdateRequestDto.InventoryItem(100L, 1))));
+    }
+}
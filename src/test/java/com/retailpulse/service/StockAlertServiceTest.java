@@ -0,0 +1,106 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.dto.response.StockAlertResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockAlertServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ListOperations<String, String> listOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private StockAlertService stockAlertService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        stockAlertService = new StockAlertService(redisTemplate, listenerContainer, 3, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testRaise_BuffersTrimsAndPublishes() throws Exception {
+        StockAlertResponseDto alert = alert("a1", 1L);
+
+        stockAlertService.raise(List.of(alert));
+
+        ArgumentCaptor<List<String>> pushed = ArgumentCaptor.captor();
+        verify(listOperations).leftPushAll(eq(StockAlertService.ALERTS_KEY), pushed.capture());
+        assertEquals(alert, objectMapper.readValue(pushed.getValue().get(0), StockAlertResponseDto.class));
+        verify(listOperations).trim(StockAlertService.ALERTS_KEY, 0, 2);
+        verify(redisTemplate).convertAndSend(StockAlertService.CHANNEL, pushed.getValue().get(0));
+    }
+
+    @Test
+    void testRaise_NothingToRaise() {
+        stockAlertService.raise(List.of());
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testRaise_RedisDownDoesNotPropagate() {
+        when(listOperations.leftPushAll(anyString(), anyCollection())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> stockAlertService.raise(List.of(alert("a1", 1L))));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void testGetRecentAlerts_FiltersByBusinessEntity() throws Exception {
+        when(listOperations.range(StockAlertService.ALERTS_KEY, 0, 2)).thenReturn(List.of(
+                objectMapper.writeValueAsString(alert("a3", 2L)),
+                "not json",
+                objectMapper.writeValueAsString(alert("a1", 1L))));
+
+        assertEquals(List.of("a1"), stockAlertService.getRecentAlerts(1L, 10).stream().map(StockAlertResponseDto::id).toList());
+        assertEquals(List.of("a3"), stockAlertService.getRecentAlerts(null, 1).stream().map(StockAlertResponseDto::id).toList());
+    }
+
+    @Test
+    void testSubscribe_TracksSubscribersAndIgnoresBadMessages() throws Exception {
+        SseEmitter emitter = stockAlertService.subscribe(1L, null);
+        assertNotNull(emitter);
+        assertEquals(1, stockAlertService.subscriberCount());
+
+        assertDoesNotThrow(() -> stockAlertService.onMessage(
+                new DefaultMessage(StockAlertService.CHANNEL.getBytes(), "not json".getBytes()), null));
+        assertDoesNotThrow(() -> stockAlertService.onMessage(new DefaultMessage(StockAlertService.CHANNEL.getBytes(),
+                objectMapper.writeValueAsBytes(alert("a1", 1L))), null));
+        verify(listOperations, never()).range(anyString(), anyLong(), anyLong());
+    }
+
+    private static StockAlertResponseDto alert(String id, long businessEntityId) {
+        return new StockAlertResponseDto(id, StockAlertResponseDto.Type.LOW_STOCK, 101L, businessEntityId, 5, 6, 5,
+                Instant.parse("2026-10-01T10:00:00Z"));
+    }
+}
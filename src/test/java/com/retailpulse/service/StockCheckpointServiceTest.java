@@ -0,0 +1,180 @@
+package com.retailpulse.service;
+
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.dto.response.StockAsOfResponseDto;
+import com.retailpulse.entity.StockCheckpoint;
+import com.retailpulse.repository.InventoryTransactionRepository;
+import com.retailpulse.repository.StockCheckpointRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockCheckpointServiceTest {
+
+    private static final Instant CHECKPOINT = Instant.parse("2025-06-30T16:00:00Z");
+    private static final Instant AS_OF = Instant.parse("2025-06-30T16:45:00Z");
+
+    @Mock
+    private StockCheckpointRepository stockCheckpointRepository;
+
+    @Mock
+    private InventoryTransactionRepository inventoryTransactionRepository;
+
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private StockCheckpointService stockCheckpointService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        stockCheckpointService = new StockCheckpointService(stockCheckpointRepository, inventoryTransactionRepository,
+                transactionArchiveService, new ShardRouter(false, List.of()), transactionTemplate, redisTemplate, true, Duration.ofHours(1), Duration.ofDays(400), 100);
+    }
+
+    @Test
+    void testAsOf_StartsFromCheckpointAndReplaysTransfersAfterIt() {
+        StockCheckpoint checkpoint = new StockCheckpoint();
+        checkpoint.setProductId(101L);
+        checkpoint.setBusinessEntityId(1L);
+        checkpoint.setTakenAt(CHECKPOINT);
+        checkpoint.setQuantity(40);
+        checkpoint.setTotalCostPrice(200.0);
+        when(stockCheckpointRepository.findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(101L, 1L, AS_OF))
+                .thenReturn(Optional.of(checkpoint));
+        when(inventoryTransactionRepository.netMovement(101L, 1L, CHECKPOINT, AS_OF))
+                .thenReturn(new StockMovementDto(3, -5, -25.0));
+
+        StockAsOfResponseDto result = stockCheckpointService.getStockAsOf(101L, 1L, AS_OF);
+
+        assertEquals(new StockAsOfResponseDto(101L, 1L, AS_OF, 35, 175.0, CHECKPOINT, 3), result);
+    }
+
+    @Test
+    void testAsOf_WithoutCheckpointReplaysFromTheStart() {
+        when(stockCheckpointRepository.findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(101L, 1L, AS_OF))
+                .thenReturn(Optional.empty());
+        when(inventoryTransactionRepository.netMovement(101L, 1L, Instant.EPOCH, AS_OF))
+                .thenReturn(new StockMovementDto(2, 12, 60.0));
+
+        StockAsOfResponseDto result = stockCheckpointService.getStockAsOf(101L, 1L, AS_OF);
+
+        assertEquals(12, result.quantity());
+        assertNull(result.checkpointAt());
+        assertEquals(2, result.replayedTransactions());
+    }
+
+    @Test
+    void testAsOf_ReplaysArchivedMonthsFromTheArchiveAndTheRestFromTheTable() {
+        Instant archivedUntil = Instant.parse("2025-06-01T00:00:00Z");
+        when(transactionArchiveService.archivedUntil()).thenReturn(archivedUntil);
+        when(stockCheckpointRepository.findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(101L, 1L, AS_OF))
+                .thenReturn(Optional.empty());
+        when(transactionArchiveService.netMovement(101L, 1L, Instant.EPOCH, AS_OF)).thenReturn(new StockMovementDto(4, 30, 150.0));
+        when(inventoryTransactionRepository.netMovement(101L, 1L, archivedUntil.minusNanos(1_000), AS_OF))
+                .thenReturn(new StockMovementDto(1, -5, -25.0));
+
+        StockAsOfResponseDto result = stockCheckpointService.getStockAsOf(101L, 1L, AS_OF);
+
+        assertEquals(25, result.quantity());
+        assertEquals(125.0, result.totalCostPrice());
+        assertEquals(5, result.replayedTransactions());
+    }
+
+    @Test
+    void testAsOf_CheckpointAfterTheArchiveSkipsIt() {
+        when(transactionArchiveService.archivedUntil()).thenReturn(Instant.parse("2025-06-01T00:00:00Z"));
+        StockCheckpoint checkpoint = new StockCheckpoint();
+        checkpoint.setTakenAt(CHECKPOINT);
+        checkpoint.setQuantity(40);
+        checkpoint.setTotalCostPrice(200.0);
+        when(stockCheckpointRepository.findFirstByProductIdAndBusinessEntityIdAndTakenAtLessThanEqualOrderByTakenAtDesc(101L, 1L, AS_OF))
+                .thenReturn(Optional.of(checkpoint));
+        when(inventoryTransactionRepository.netMovement(101L, 1L, CHECKPOINT, AS_OF)).thenReturn(new StockMovementDto(0, 0, 0.0));
+
+        assertEquals(40, stockCheckpointService.getStockAsOf(101L, 1L, AS_OF).quantity());
+        verify(transactionArchiveService, never()).netMovement(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void testAsOf_FutureInstantRejected() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> stockCheckpointService.getStockAsOf(101L, 1L, Instant.now().plusSeconds(60)));
+        assertEquals("AS_OF_IN_FUTURE", e.getErrorCode());
+        verifyNoInteractions(inventoryTransactionRepository);
+    }
+
+    @Test
+    void testCheckpoint_CopiesChangedRowsInIdRangesOneTransactionEach() {
+        when(stockCheckpointRepository.maxInventoryId()).thenReturn(250L);
+        Instant refreshAfter = CHECKPOINT.minus(Duration.ofDays(200));
+        when(stockCheckpointRepository.checkpointChanged(eq(0L), eq(100L), any(), eq(refreshAfter))).thenReturn(40);
+        when(stockCheckpointRepository.checkpointChanged(eq(100L), eq(200L), any(), eq(refreshAfter))).thenReturn(0);
+        when(stockCheckpointRepository.checkpointChanged(eq(200L), eq(300L), any(), eq(refreshAfter))).thenReturn(7);
+
+        assertEquals(47, stockCheckpointService.checkpoint(CHECKPOINT));
+        verify(stockCheckpointRepository, times(3)).checkpointChanged(anyLong(), anyLong(), any(), any());
+        // Three ranges, then one prune batch
+        verify(transactionTemplate, times(4)).execute(any());
+    }
+
+    @Test
+    void testCheckpoint_PrunesInBatchesUntilShort() {
+        Instant pruneBefore = CHECKPOINT.minus(Duration.ofDays(400));
+        when(stockCheckpointRepository.deleteTakenBefore(pruneBefore, 100)).thenReturn(100, 100, 30);
+
+        stockCheckpointService.checkpoint(CHECKPOINT);
+
+        verify(stockCheckpointRepository, times(3)).deleteTakenBefore(pruneBefore, 100);
+        // Nothing to copy from an empty inventory table
+        verify(stockCheckpointRepository, never()).checkpointChanged(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void testScheduledCheckpoint_SkippedWhenAnotherReplicaClaimedTheInterval() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), eq(Duration.ofHours(1)))).thenReturn(false);
+
+        stockCheckpointService.scheduledCheckpoint();
+
+        verify(stockCheckpointRepository, never()).maxInventoryId();
+    }
+
+    @Test
+    void testScheduledCheckpoint_TakenWhenClaimed() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), eq(Duration.ofHours(1)))).thenReturn(true);
+
+        stockCheckpointService.scheduledCheckpoint();
+
+        verify(stockCheckpointRepository).maxInventoryId();
+    }
+}
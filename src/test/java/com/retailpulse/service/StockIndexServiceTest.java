@@ -0,0 +1,197 @@
+package com.retailpulse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.response.StockAcrossStoresResponseDto;
+import com.retailpulse.dto.response.StockLevelResponseDto;
+import com.retailpulse.entity.Inventory;
+import com.retailpulse.repository.InventoryRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockIndexServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private StockIndexService stockIndexService;
+
+    // productId, businessEntityId, quantity, totalCostPrice
+    private final Object[][] rows = {{101L, 1L, 10, 55.0}, {101L, 2L, 4, 22.0}, {102L, 1L, 7, 0.0}};
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory", Long.class)).thenAnswer(i -> (long) rows.length);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn((Long) row[0]);
+                when(rs.getLong(2)).thenReturn((Long) row[1]);
+                when(rs.getInt(3)).thenReturn((Integer) row[2]);
+                when(rs.getDouble(4)).thenReturn((Double) row[3]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        stockIndexService = new StockIndexService(jdbcTemplate, inventoryRepository, new ShardRouter(false, List.of()),
+                redisTemplate, listenerContainer, true);
+    }
+
+    @Test
+    void testRun_SubscribesAndLoads() {
+        stockIndexService.run(new DefaultApplicationArguments());
+
+        verify(listenerContainer).addMessageListener(stockIndexService, new ChannelTopic(StockIndexService.CHANNEL));
+        assertTrue(stockIndexService.isLoaded());
+        assertEquals(10, stockIndexService.quantity(101L, 1L));
+        assertEquals(-1, stockIndexService.quantity(102L, 2L));
+        assertEquals(new StockLevelResponseDto(101L, 2L, 4, 22.0), stockIndexService.getStockLevel(101L, 2L));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testGetStockLevel_NotStocked() {
+        stockIndexService.run(new DefaultApplicationArguments());
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockIndexService.getStockLevel(102L, 2L));
+        assertEquals("INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND", e.getErrorCode());
+    }
+
+    @Test
+    void testGetStockAcrossStores() {
+        stockIndexService.run(new DefaultApplicationArguments());
+
+        StockAcrossStoresResponseDto all = stockIndexService.getStockAcrossStores(101L, null);
+        assertEquals(14, all.totalQuantity());
+        assertEquals(List.of(new StockLevelResponseDto(101L, 1L, 10, 55.0), new StockLevelResponseDto(101L, 2L, 4, 22.0)),
+                all.stores());
+
+        StockAcrossStoresResponseDto some = stockIndexService.getStockAcrossStores(102L, List.of(1L, 2L));
+        assertEquals(7, some.totalQuantity());
+        assertEquals(List.of(new StockLevelResponseDto(102L, 1L, 7, 0.0)), some.stores());
+    }
+
+    @Test
+    void testNotLoaded_FallsBackToDatabase() {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(101L);
+        inventory.setBusinessEntityId(1L);
+        inventory.setQuantity(3);
+        when(inventoryRepository.findByProductIdAndBusinessEntityId(101L, 1L)).thenReturn(Optional.of(inventory));
+
+        assertFalse(stockIndexService.isLoaded());
+        assertEquals(3, stockIndexService.quantity(101L, 1L));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testLoadFailure_KeepsDatabaseFallback() {
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory", Long.class))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> stockIndexService.run(new DefaultApplicationArguments()));
+        assertFalse(stockIndexService.isLoaded());
+    }
+
+    @Test
+    void testOnInventoryChanged_AppliesAndRelays() throws Exception {
+        stockIndexService.run(new DefaultApplicationArguments());
+
+        stockIndexService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, -1, 8, 44.0, false, 1),
+                new InventoryChangedEvent.Change(103L, 5L, -1, 2, 1.0, false, 1),
+                InventoryChangedEvent.Change.removed(102L, 1L, 1))));
+
+        assertEquals(8, stockIndexService.quantity(101L, 1L));
+        assertEquals(-1, stockIndexService.quantity(102L, 1L));
+        // A newly seen business entity joins the "all stores" lookups
+        assertEquals(1, stockIndexService.getStockAcrossStores(103L, null).stores().size());
+
+        ArgumentCaptor<String> relayed = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(StockIndexService.CHANNEL), relayed.capture());
+        assertEquals(3, new ObjectMapper().readValue(relayed.getValue(), StockIndexService.Relay.class).changes().size());
+    }
+
+    @Test
+    void testOnMessage_AppliesOtherReplicasAndIgnoresOwn() throws Exception {
+        stockIndexService.run(new DefaultApplicationArguments());
+        stockIndexService.onInventoryChanged(new InventoryChangedEvent(List.of(new InventoryChangedEvent.Change(101L, 1L, -1, 8, 44.0, false, 1))));
+        ArgumentCaptor<String> own = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(StockIndexService.CHANNEL), own.capture());
+
+        // Our own message comes back after a newer change from elsewhere: it must not roll that change back
+        String other = new ObjectMapper().writeValueAsString(new StockIndexService.Relay("other-replica",
+                List.of(new InventoryChangedEvent.Change(101L, 1L, -1, 6, 33.0, false, 2))));
+        stockIndexService.onMessage(new DefaultMessage(StockIndexService.CHANNEL.getBytes(), other.getBytes()), null);
+        stockIndexService.onMessage(new DefaultMessage(StockIndexService.CHANNEL.getBytes(), own.getValue().getBytes()), null);
+
+        assertEquals(6, stockIndexService.quantity(101L, 1L));
+    }
+
+    @Test
+    void testOnMessage_DropsChangesOlderThanTheIndex() throws Exception {
+        stockIndexService.run(new DefaultApplicationArguments());
+        stockIndexService.apply(List.of(new InventoryChangedEvent.Change(101L, 1L, 10, 6, 33.0, false, 3)));
+
+        // Relayed by another replica, committed before the change above but delivered after it
+        String late = new ObjectMapper().writeValueAsString(new StockIndexService.Relay("other-replica", List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 10, 8, 44.0, false, 2),
+                InventoryChangedEvent.Change.removed(101L, 1L, 2))));
+        stockIndexService.onMessage(new DefaultMessage(StockIndexService.CHANNEL.getBytes(), late.getBytes()), null);
+
+        assertEquals(6, stockIndexService.quantity(101L, 1L));
+    }
+
+    @Test
+    void testChangesDuringLoad_AreReplayedOntoTheNewIndex() {
+        doAnswer(invocation -> {
+            // A write commits while the rows are streaming; the loaded row for it is already stale
+            stockIndexService.apply(List.of(new InventoryChangedEvent.Change(101L, 1L, -1, 1, 5.5, false, 1)));
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(101L);
+            when(rs.getLong(2)).thenReturn(1L);
+            when(rs.getInt(3)).thenReturn(10);
+            when(rs.getDouble(4)).thenReturn(55.0);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        stockIndexService.reload();
+
+        assertEquals(1, stockIndexService.quantity(101L, 1L));
+    }
+}
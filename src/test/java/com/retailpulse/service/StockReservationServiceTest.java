@@ -0,0 +1,180 @@
+package com.retailpulse.service;
+
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.request.InventoryUpdateRequestDto;
+import com.retailpulse.dto.request.StockReservationRequestDto;
+import com.retailpulse.dto.response.StockAvailabilityResponseDto;
+import com.retailpulse.dto.response.StockReservationResponseDto;
+import com.retailpulse.entity.Inventory;
+import com.retailpulse.repository.InventoryRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockReservationServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private BusinessEntityService businessEntityService;
+
+    @Mock
+    private StockIndexService stockIndexService;
+
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(businessEntityService.isValidBusinessEntity(1L)).thenReturn(true);
+        stockReservationService = new StockReservationService(redisTemplate, inventoryRepository, new ShardRouter(false, List.of()), inventoryService,
+                businessEntityService, stockIndexService, Duration.ofMinutes(10), Duration.ofMinutes(30), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testReserve_MergesItemsAndHolds() {
+        when(inventoryRepository.findByBusinessEntityIdAndProductIdIn(eq(1L), any()))
+                .thenReturn(List.of(inventory(101L, 10)));
+        when(redisTemplate.execute(eq(StockReservationService.RESERVE_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("");
+
+        StockReservationResponseDto response = stockReservationService.reserve(new StockReservationRequestDto(1L,
+                List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 2),
+                        new InventoryUpdateRequestDto.InventoryItem(101L, 3)), null));
+
+        assertNotNull(response.reservationId());
+        assertEquals(List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 5)), response.items());
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(StockReservationService.RESERVE_SCRIPT), anyList(), args.capture());
+        // id, businessEntityId, expiresAt, item count, then productId, quantity, on-hand
+        assertEquals(List.of("1", "1", "101", "5", "10"),
+                List.of(args.getValue()[1], args.getValue()[3], args.getValue()[4], args.getValue()[5], args.getValue()[6]));
+    }
+
+    @Test
+    void testReserve_InsufficientAvailableStock() {
+        when(inventoryRepository.findByBusinessEntityIdAndProductIdIn(eq(1L), any()))
+                .thenReturn(List.of(inventory(101L, 1)));
+        when(redisTemplate.execute(eq(StockReservationService.RESERVE_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("101");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.reserve(
+                new StockReservationRequestDto(1L, List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 2)), null)));
+        assertEquals("INSUFFICIENT_STOCK", e.getErrorCode());
+    }
+
+    @Test
+    void testReserve_RejectsNonPositiveQuantity() {
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.reserve(
+                new StockReservationRequestDto(1L, List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 0)), null)));
+        assertEquals("INVALID_QUANTITY", e.getErrorCode());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testReserve_UnknownInventory() {
+        when(inventoryRepository.findByBusinessEntityIdAndProductIdIn(eq(1L), any())).thenReturn(List.of());
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.reserve(
+                new StockReservationRequestDto(1L, List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 1)), null)));
+        assertEquals("INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND", e.getErrorCode());
+    }
+
+    @Test
+    void testCommit_DeductsAndReleasesHold() {
+        when(redisTemplate.execute(eq(StockReservationService.CLAIM_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("HELD");
+        when(hashOperations.entries("stock-reservation:r1"))
+                .thenReturn(Map.of("be", "1", "exp", "0", "state", "COMMITTING", "p:101", "2"));
+
+        stockReservationService.commit("r1");
+
+        verify(inventoryService).salesUpdateStocks(new InventoryUpdateRequestDto(1L,
+                List.of(new InventoryUpdateRequestDto.InventoryItem(101L, 2))));
+        verify(redisTemplate).execute(eq(StockReservationService.RELEASE_SCRIPT), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testCommit_FailureKeepsHold() {
+        when(redisTemplate.execute(eq(StockReservationService.CLAIM_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("HELD");
+        when(hashOperations.entries("stock-reservation:r1")).thenReturn(Map.of("be", "1", "p:101", "2"));
+        doThrow(new BusinessException("INSUFFICIENT_STOCK", "Insufficient stock for products: 101"))
+                .when(inventoryService).salesUpdateStocks(any());
+
+        assertThrows(BusinessException.class, () -> stockReservationService.commit("r1"));
+        verify(redisTemplate).execute(eq(StockReservationService.UNCLAIM_SCRIPT), anyList(), any(Object[].class));
+        verify(redisTemplate, never()).execute(eq(StockReservationService.RELEASE_SCRIPT), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testCommit_AlreadyCommitting() {
+        when(redisTemplate.execute(eq(StockReservationService.CLAIM_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("COMMITTING");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.commit("r1"));
+        assertEquals("RESERVATION_NOT_ACTIVE", e.getErrorCode());
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void testCommit_ExpiredReservation() {
+        when(redisTemplate.execute(eq(StockReservationService.CLAIM_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn("MISSING");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.commit("r1"));
+        assertEquals("RESERVATION_NOT_FOUND", e.getErrorCode());
+    }
+
+    @Test
+    void testGetAvailability_SubtractsHolds() {
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(10);
+        when(hashOperations.get("stock-hold:1", "101")).thenReturn("4");
+
+        StockAvailabilityResponseDto availability = stockReservationService.getAvailability(101L, 1L);
+
+        assertEquals(new StockAvailabilityResponseDto(101L, 1L, 10, 4, 6), availability);
+    }
+
+    @Test
+    void testGetAvailability_NotStocked() {
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(-1);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockReservationService.getAvailability(101L, 1L));
+        assertEquals("INVENTORY_BY_PRODUCT_AND_BUSINESS_ENTITY_NOT_FOUND", e.getErrorCode());
+    }
+
+    private static Inventory inventory(Long productId, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setBusinessEntityId(1L);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,151 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.response.StockAlertResponseDto;
+import com.retailpulse.dto.response.StockThresholdResponseDto;
+import com.retailpulse.entity.StockThreshold;
+import com.retailpulse.repository.StockThresholdRepository;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockThresholdServiceTest {
+
+    @Mock
+    private StockThresholdRepository stockThresholdRepository;
+
+    @Mock
+    private StockIndexService stockIndexService;
+
+    @Mock
+    private StockAlertService stockAlertService;
+
+    @Mock
+    private BusinessEntityService businessEntityService;
+
+    private StockThresholdService stockThresholdService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(businessEntityService.isValidBusinessEntity(1L)).thenReturn(true);
+        stockThresholdService = new StockThresholdService(stockThresholdRepository, stockIndexService, stockAlertService,
+                businessEntityService);
+    }
+
+    @Test
+    void testCrossing() {
+        assertEquals(StockAlertResponseDto.Type.LOW_STOCK, StockThresholdService.crossing(6, 5, 5));
+        assertEquals(StockAlertResponseDto.Type.RESTOCKED, StockThresholdService.crossing(5, 6, 5));
+        assertNull(StockThresholdService.crossing(5, 0, 5));
+        assertNull(StockThresholdService.crossing(20, 6, 5));
+    }
+
+    @Test
+    void testOnInventoryChanged_OnlyCrossingsRaiseAlerts() {
+        when(stockThresholdRepository.findByBusinessEntityIdAndProductIdIn(eq(1L), any()))
+                .thenReturn(List.of(threshold(101L, 5), threshold(102L, 5), threshold(104L, 5)));
+
+        stockThresholdService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 7, 4, 0.0, false, 1),   // crosses down
+                new InventoryChangedEvent.Change(102L, 1L, 9, 8, 0.0, false, 1),   // stays above
+                new InventoryChangedEvent.Change(103L, 1L, 9, 1, 0.0, false, 1),   // no threshold
+                new InventoryChangedEvent.Change(104L, 1L, -1, 12, 0.0, false, 1)  // new row, from zero
+        )));
+
+        ArgumentCaptor<List<StockAlertResponseDto>> alerts = ArgumentCaptor.captor();
+        verify(stockAlertService).raise(alerts.capture());
+        assertEquals(2, alerts.getValue().size());
+        StockAlertResponseDto low = alerts.getValue().get(0);
+        assertEquals(List.of(StockAlertResponseDto.Type.LOW_STOCK, 101L, 7, 4),
+                List.of(low.type(), low.productId(), low.previousQuantity(), low.quantity()));
+        StockAlertResponseDto restocked = alerts.getValue().get(1);
+        assertEquals(List.of(StockAlertResponseDto.Type.RESTOCKED, 104L, 0, 12),
+                List.of(restocked.type(), restocked.productId(), restocked.previousQuantity(), restocked.quantity()));
+        verify(stockThresholdRepository).findByBusinessEntityIdAndProductIdIn(1L, Set.of(101L, 102L, 103L, 104L));
+    }
+
+    @Test
+    void testOnInventoryChanged_UnchangedQuantitiesSkipTheLookup() {
+        stockThresholdService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 7, 7, 12.0, false, 1),
+                InventoryChangedEvent.Change.removed(102L, 1L, 1))));
+
+        verifyNoInteractions(stockThresholdRepository);
+        verify(stockAlertService).raise(List.of());
+    }
+
+    @Test
+    void testOnInventoryChanged_FailureDoesNotPropagate() {
+        when(stockThresholdRepository.findByBusinessEntityIdAndProductIdIn(anyLong(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> stockThresholdService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 7, 4, 0.0, false, 1)))));
+        verifyNoInteractions(stockAlertService);
+    }
+
+    @Test
+    void testSetThreshold_CreatesAndReportsCurrentStock() {
+        when(stockThresholdRepository.findByProductIdAndBusinessEntityId(101L, 1L)).thenReturn(Optional.empty());
+        when(stockThresholdRepository.save(any(StockThreshold.class))).thenAnswer(i -> i.getArgument(0));
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(3);
+
+        StockThresholdResponseDto response = stockThresholdService.setThreshold(101L, 1L, 5, null);
+
+        assertEquals(new StockThresholdResponseDto(101L, 1L, 5, null, 3, true), response);
+        verifyNoInteractions(stockAlertService);
+    }
+
+    @Test
+    void testSetThreshold_InvalidBusinessEntity() {
+        BusinessException e = assertThrows(BusinessException.class, () -> stockThresholdService.setThreshold(101L, 9L, 5, null));
+        assertEquals("INVALID_BUSINESS_ENTITY", e.getErrorCode());
+        verifyNoInteractions(stockThresholdRepository);
+    }
+
+    @Test
+    void testSetThreshold_MaxLevelMustBeAboveReorderPoint() {
+        BusinessException e = assertThrows(BusinessException.class, () -> stockThresholdService.setThreshold(101L, 1L, 5, 5));
+        assertEquals("INVALID_MAX_LEVEL", e.getErrorCode());
+        verifyNoInteractions(stockThresholdRepository);
+    }
+
+    @Test
+    void testGetLowStock() {
+        when(stockThresholdRepository.findByBusinessEntityId(1L)).thenReturn(List.of(threshold(101L, 5), threshold(102L, 5)));
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(20);
+        when(stockIndexService.quantity(102L, 1L)).thenReturn(-1);
+
+        assertEquals(List.of(new StockThresholdResponseDto(102L, 1L, 5, null, 0, true)), stockThresholdService.getLowStock(1L));
+    }
+
+    @Test
+    void testDeleteThreshold_NotFound() {
+        when(stockThresholdRepository.findByProductIdAndBusinessEntityId(101L, 1L)).thenReturn(Optional.empty());
+
+        BusinessException e = assertThrows(BusinessException.class, () -> stockThresholdService.deleteThreshold(101L, 1L));
+        assertEquals("STOCK_THRESHOLD_NOT_FOUND", e.getErrorCode());
+    }
+
+    private static StockThreshold threshold(long productId, int reorderPoint) {
+        StockThreshold threshold = new StockThreshold();
+        threshold.setProductId(productId);
+        threshold.setBusinessEntityId(1L);
+        threshold.setReorderPoint(reorderPoint);
+        return threshold;
+    }
+}
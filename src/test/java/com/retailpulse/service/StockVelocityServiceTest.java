@@ -0,0 +1,127 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.LongStockMap;
+import com.retailpulse.config.ShardRouter;
+import com.retailpulse.dto.StockVelocityDto;
+import com.retailpulse.dto.response.StockVelocityResponseDto;
+import com.retailpulse.repository.StockMovementDayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class StockVelocityServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    @Mock
+    private StockMovementDayRepository stockMovementDayRepository;
+
+    @Mock
+    private StockIndexService stockIndexService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StockVelocityService stockVelocityService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Clock clock = Clock.fixed(Instant.parse("2025-06-30T10:00:00Z"), ZoneOffset.UTC);
+        stockVelocityService = new StockVelocityService(stockMovementDayRepository, stockIndexService, jdbcTemplate,
+                transactionTemplate, new ShardRouter(false, List.of()), clock, true);
+    }
+
+    @Test
+    void testVelocity_RatesPerDayAndDaysOfCover() {
+        when(stockMovementDayRepository.findVelocity(101L, 1L, TODAY.minusDays(6), TODAY.minusDays(27), TODAY.minusDays(89)))
+                .thenReturn(List.of(new StockVelocityDto(101L, 14, 56, 180)));
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(30);
+
+        StockVelocityResponseDto result = stockVelocityService.getVelocity(101L, 1L);
+
+        assertEquals(new StockVelocityResponseDto(101L, 1L, 30, 2.0, 2.0, 2.0, 15.0), result);
+    }
+
+    @Test
+    void testVelocity_NoMovementHasNoDaysOfCover() {
+        when(stockMovementDayRepository.findVelocity(eq(101L), eq(1L), any(), any(), any())).thenReturn(List.of());
+        when(stockIndexService.quantity(101L, 1L)).thenReturn(LongStockMap.ABSENT);
+
+        StockVelocityResponseDto result = stockVelocityService.getVelocity(101L, 1L);
+
+        assertEquals(new StockVelocityResponseDto(101L, 1L, 0, 0.0, 0.0, 0.0, null), result);
+    }
+
+    @Test
+    void testOnlyDecreasesOfKnownRowsAreCounted() {
+        stockVelocityService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 10, 7, 35.0, false, 1),
+                new InventoryChangedEvent.Change(101L, 1L, 7, 5, 25.0, false, 1),
+                new InventoryChangedEvent.Change(102L, 1L, 5, 9, 45.0, false, 1),
+                new InventoryChangedEvent.Change(103L, 1L, InventoryChangedEvent.Change.UNKNOWN, 4, 20.0, false, 1),
+                InventoryChangedEvent.Change.removed(104L, 1L, 1))));
+
+        assertEquals(1, stockVelocityService.pendingCount());
+
+        stockVelocityService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertEquals(1, args.getValue().size());
+        assertArrayEquals(new Object[]{101L, 1L, Date.valueOf(TODAY), 5L}, args.getValue().get(0));
+        assertEquals(0, stockVelocityService.pendingCount());
+    }
+
+    @Test
+    void testFailedFlushKeepsUnitsForTheNextOne() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+        stockVelocityService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 10, 7, 35.0, false, 1))));
+
+        stockVelocityService.flush();
+        stockVelocityService.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangedEvent.Change(101L, 1L, 7, 6, 30.0, false, 1))));
+        reset(jdbcTemplate);
+        stockVelocityService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertArrayEquals(new Object[]{101L, 1L, Date.valueOf(TODAY), 4L}, args.getValue().get(0));
+    }
+
+    @Test
+    void testPruneDropsDaysOutsideTheLongestWindow() {
+        when(stockMovementDayRepository.deleteBefore(TODAY.minusDays(89))).thenReturn(12);
+
+        stockVelocityService.prune();
+
+        verify(stockMovementDayRepository).deleteBefore(TODAY.minusDays(89));
+    }
+}
@@ -0,0 +1,152 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.dto.response.InventoryTransactionProductResponseDto;
+import com.retailpulse.entity.Product;
+import com.retailpulse.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class TransactionArchiveServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+    private static final Instant JANUARY = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant FEBRUARY = Instant.parse("2024-02-01T00:00:00Z");
+    private static final Instant FIRST = Instant.parse("2024-01-10T08:00:00.123456Z");
+    private static final Instant SECOND = Instant.parse("2024-01-20T09:30:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private TransactionArchiveService transactionArchiveService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        transactionArchiveService = new TransactionArchiveService(jdbcTemplate, productRepository, redisTemplate, true,
+                directory, Duration.ofDays(400), Duration.ofHours(1));
+
+        // January holds two transfers of product 101 into business entity 2; the next row is from June
+        when(jdbcTemplate.queryForObject("SELECT MIN(inserted_at) FROM inventory_transaction", Timestamp.class))
+                .thenReturn(Timestamp.from(FIRST));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT MIN(inserted_at) FROM inventory_transaction WHERE"),
+                eq(Timestamp.class), any())).thenReturn(Timestamp.from(Instant.parse("2024-06-03T00:00:00Z")));
+        doAnswer(i -> {
+            RowCallbackHandler handler = i.getArgument(1);
+            handler.processRow(row(new UUID(1, 1), FIRST, 10));
+            handler.processRow(row(new UUID(2, 2), SECOND, 5));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testArchivesClosedMonthsThenReadsThemBack() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class), any(), any())).thenReturn(2L);
+        when(jdbcTemplate.update(startsWith("DELETE"), any(Object.class))).thenReturn(2);
+        Product product = new Product();
+        product.setId(101L);
+        when(productRepository.findAllById(List.of(101L))).thenReturn(List.of(product));
+
+        assertEquals(1, transactionArchiveService.archive(NOW));
+
+        assertTrue(Files.exists(directory.resolve("inventory-transaction-2024-01.seg")));
+        assertEquals(FEBRUARY, transactionArchiveService.archivedUntil());
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq(Timestamp.from(FEBRUARY)));
+
+        List<InventoryTransactionProductResponseDto> found = transactionArchiveService.findAllWithProductAndTime(
+                Instant.parse("2024-01-15T00:00:00Z"), NOW);
+        assertEquals(1, found.size());
+        assertEquals(new UUID(2, 2), found.get(0).inventoryTransaction().getId());
+        assertSame(product, found.get(0).product());
+        assertEquals(List.of(FIRST, SECOND), transactionArchiveService.findAllWithProduct().stream()
+                .map(row -> row.inventoryTransaction().getInsertedAt()).toList());
+
+        assertEquals(new StockMovementDto(2, 15, 37.5), transactionArchiveService.netMovement(101L, 2L, Instant.EPOCH, NOW));
+        assertEquals(new StockMovementDto(1, 5, 12.5), transactionArchiveService.netMovement(101L, 2L, FIRST, NOW));
+        assertEquals(new StockMovementDto(2, -15, -37.5), transactionArchiveService.netMovement(101L, 1L, JANUARY, SECOND));
+    }
+
+    @Test
+    void testSegmentNotPublishedWhenTheTableDisagrees() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class), any(), any())).thenReturn(3L);
+
+        assertEquals(0, transactionArchiveService.archive(NOW));
+
+        assertNull(transactionArchiveService.archivedUntil());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object.class));
+        assertTrue(directory.toFile().list().length == 0);
+    }
+
+    @Test
+    void testNothingArchivedInsideTheKeepWindow() {
+        assertEquals(0, transactionArchiveService.archive(Instant.parse("2024-12-01T00:00:00Z")));
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testDisabledArchiverDoesNothing() {
+        transactionArchiveService = new TransactionArchiveService(jdbcTemplate, productRepository, redisTemplate, false,
+                directory, Duration.ofDays(400), Duration.ofHours(1));
+
+        transactionArchiveService.scheduledArchive();
+
+        verifyNoInteractions(jdbcTemplate, redisTemplate);
+    }
+
+    @Test
+    void testRunSkippedWhenLeaseCannotBeTaken() {
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        transactionArchiveService.scheduledArchive();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    private static ResultSet row(UUID id, Instant insertedAt, int quantity) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getBytes(1)).thenReturn(ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+        when(rs.getTimestamp(2)).thenReturn(Timestamp.from(insertedAt));
+        when(rs.getLong(3)).thenReturn(101L);
+        when(rs.getLong(4)).thenReturn(1L);
+        when(rs.getLong(5)).thenReturn(2L);
+        when(rs.getInt(6)).thenReturn(quantity);
+        when(rs.getDouble(7)).thenReturn(2.5);
+        return rs;
+    }
+}
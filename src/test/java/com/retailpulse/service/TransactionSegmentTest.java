@@ -0,0 +1,107 @@
+package com.retailpulse.service;
+
+import com.retailpulse.dto.StockMovementDto;
+import com.retailpulse.entity.InventoryTransaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionSegmentTest {
+
+    private static final Instant FROM = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2024-02-01T00:00:00Z");
+    private static final long FROM_MICROS = TransactionSegment.micros(FROM);
+    private static final int ROWS = 3 * TransactionSegment.BLOCK_ROWS + 17;
+
+    @TempDir
+    Path directory;
+
+    // Row i: one second apart, product 1 + i % 10, from business entity 1 to 2 + i % 3, quantity 1 + i % 5
+    private TransactionSegment write() throws IOException {
+        Path file = directory.resolve("segment.seg");
+        try (TransactionSegment.Writer writer = new TransactionSegment.Writer(file, FROM, TO)) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.add(new UUID(i, i), FROM_MICROS + i * 1_000_000L, 1 + i % 10, 1, 2 + i % 3, 1 + i % 5, 2.5);
+            }
+            assertEquals(ROWS, writer.finish());
+        }
+        return TransactionSegment.open(file);
+    }
+
+    @Test
+    void testRoundTripAcrossBlocks() throws IOException {
+        TransactionSegment segment = write();
+
+        assertEquals(ROWS, segment.rows());
+        assertEquals(FROM, segment.from());
+        assertEquals(TO, segment.to());
+        List<InventoryTransaction> all = segment.find(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(ROWS, all.size());
+        InventoryTransaction last = all.get(ROWS - 1);
+        int i = ROWS - 1;
+        assertEquals(new UUID(i, i), last.getId());
+        assertEquals(FROM.plusSeconds(i), last.getInsertedAt());
+        assertEquals(List.of(1L + i % 10, 1L, 2L + i % 3, 1 + i % 5), List.of(last.getProductId(), last.getSource(),
+                last.getDestination(), last.getQuantity()));
+        assertEquals(2.5, last.getCostPricePerUnit());
+    }
+
+    @Test
+    void testFindIsInclusiveAtBothEnds() throws IOException {
+        TransactionSegment segment = write();
+
+        int first = TransactionSegment.BLOCK_ROWS - 2;
+        List<InventoryTransaction> found = segment.find(FROM_MICROS + first * 1_000_000L, FROM_MICROS + (first + 4) * 1_000_000L);
+
+        assertEquals(5, found.size());
+        assertEquals(new UUID(first, first), found.get(0).getId());
+        assertTrue(segment.find(FROM_MICROS + 500_000, FROM_MICROS + 900_000).isEmpty());
+    }
+
+    @Test
+    void testNetMovementFromSummaryMatchesTheScan() throws IOException {
+        TransactionSegment segment = write();
+
+        long quantity = 0;
+        long transactions = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (1 + i % 10 == 3 && 2 + i % 3 == 4) {
+                transactions++;
+                quantity += 1 + i % 5;
+            }
+        }
+        StockMovementDto whole = segment.netMovement(3L, 4L, FROM_MICROS - 1, TransactionSegment.micros(TO));
+        assertEquals(new StockMovementDto(transactions, quantity, quantity * 2.5), whole);
+        // The same totals by scanning: everything but the first row, which is product 1
+        assertEquals(whole, segment.netMovement(3L, 4L, FROM_MICROS, TransactionSegment.micros(TO) - 2));
+
+        StockMovementDto out = segment.netMovement(3L, 1L, FROM_MICROS - 1, TransactionSegment.micros(TO));
+        assertEquals(ROWS / 10 + (ROWS % 10 > 2 ? 1 : 0), out.transactions());
+        assertTrue(out.quantity() < 0);
+        assertEquals(new StockMovementDto(0, 0, 0.0), segment.netMovement(99L, 1L, FROM_MICROS - 1, TransactionSegment.micros(TO)));
+    }
+
+    @Test
+    void testRowsOutOfOrderRejected() throws IOException {
+        try (TransactionSegment.Writer writer = new TransactionSegment.Writer(directory.resolve("bad.seg"), FROM, TO)) {
+            writer.add(UUID.randomUUID(), FROM_MICROS + 10, 1, 1, 2, 1, 1.0);
+            assertThrows(IllegalArgumentException.class, () -> writer.add(UUID.randomUUID(), FROM_MICROS + 5, 1, 1, 2, 1, 1.0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.add(UUID.randomUUID(), TransactionSegment.micros(TO), 1, 1, 2, 1, 1.0));
+        }
+    }
+
+    @Test
+    void testMicrosRoundTrip() {
+        Instant instant = Instant.parse("2023-05-06T07:08:09.123456Z");
+        assertEquals(instant, TransactionSegment.instant(TransactionSegment.micros(instant)));
+        assertEquals(Instant.parse("1969-12-31T23:59:59.999999Z"), TransactionSegment.instant(-1));
+    }
+}
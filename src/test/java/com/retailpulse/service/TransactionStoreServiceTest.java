@@ -0,0 +1,127 @@
+package com.retailpulse.service;
+
+import com.retailpulse.cache.TransactionColumns;
+import com.retailpulse.dto.request.TransactionAggregateRequestDto;
+import com.retailpulse.dto.response.TransactionAggregateResponseDto;
+import com.retailpulse.entity.InventoryTransaction;
+import com.retailpulse.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TransactionStoreServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private TransactionStoreService transactionStoreService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transactionStoreService = new TransactionStoreService(jdbcTemplate, redisTemplate, listenerContainer, true,
+                Duration.ofDays(120));
+    }
+
+    @Test
+    void testAggregateRefusedUntilLoaded() {
+        BusinessException e = assertThrows(BusinessException.class, () -> transactionStoreService.aggregate(
+                new TransactionAggregateRequestDto(Instant.now().minusSeconds(60), Instant.now(), null, null, null)));
+        assertEquals("TRANSACTION_STORE_NOT_LOADED", e.getErrorCode());
+    }
+
+    @Test
+    void testSavedTransactionsAreAggregatedAndRelayed() {
+        transactionStoreService.reload();
+        Instant now = Instant.now();
+
+        transactionStoreService.append(transaction(101L, 10, now.minusSeconds(30)));
+        transactionStoreService.append(transaction(101L, 5, now.minusSeconds(20)));
+
+        TransactionAggregateResponseDto result = transactionStoreService.aggregate(new TransactionAggregateRequestDto(
+                now.minusSeconds(60), now, 101L, null, TransactionColumns.GroupBy.PRODUCT));
+        assertEquals(List.of(new TransactionColumns.Group(101L, 2, 15, 75.0)), result.groups());
+        verify(redisTemplate, times(2)).convertAndSend(eq(TransactionStoreService.CHANNEL), anyString());
+    }
+
+    @Test
+    void testRangeBeforeTheWindowRejected() {
+        transactionStoreService.reload();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> transactionStoreService.aggregate(
+                new TransactionAggregateRequestDto(Instant.now().minus(Duration.ofDays(200)), Instant.now(), null, null, null)));
+        assertEquals("INVALID_AGGREGATE_RANGE", e.getErrorCode());
+    }
+
+    @Test
+    void testRelayFailureDoesNotFailTheSave() {
+        transactionStoreService.reload();
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        assertDoesNotThrow(() -> transactionStoreService.append(transaction(101L, 10, Instant.now())));
+    }
+
+    @Test
+    void testAppendDuringLoadCountedOnceWhenTheLoadAlsoReadsIt() {
+        InventoryTransaction saved = transaction(101L, 10, Instant.now());
+        doAnswer(i -> {
+            // Saved while the load streams, and read by it as well
+            transactionStoreService.append(saved);
+            RowCallbackHandler handler = i.getArgument(1);
+            java.sql.ResultSet rs = mock(java.sql.ResultSet.class);
+            java.nio.ByteBuffer id = java.nio.ByteBuffer.allocate(16)
+                    .putLong(saved.getId().getMostSignificantBits()).putLong(saved.getId().getLeastSignificantBits());
+            when(rs.getBytes(1)).thenReturn(id.array());
+            when(rs.getTimestamp(2)).thenReturn(java.sql.Timestamp.from(saved.getInsertedAt()));
+            when(rs.getLong(3)).thenReturn(101L);
+            when(rs.getLong(4)).thenReturn(1L);
+            when(rs.getLong(5)).thenReturn(2L);
+            when(rs.getInt(6)).thenReturn(10);
+            when(rs.getDouble(7)).thenReturn(5.0);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        transactionStoreService.reload();
+
+        TransactionAggregateResponseDto result = transactionStoreService.aggregate(new TransactionAggregateRequestDto(
+                Instant.now().minusSeconds(60), Instant.now().plusSeconds(1), null, null, null));
+        assertEquals(1, result.groups().get(0).transactions());
+    }
+
+    private static InventoryTransaction transaction(long productId, int quantity, Instant insertedAt) {
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.setId(UUID.randomUUID());
+        transaction.setProductId(productId);
+        transaction.setSource(1L);
+        transaction.setDestination(2L);
+        transaction.setQuantity(quantity);
+        transaction.setCostPricePerUnit(5.0);
+        transaction.setInsertedAt(insertedAt);
+        return transaction;
+    }
+}